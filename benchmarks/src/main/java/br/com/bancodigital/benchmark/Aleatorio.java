@@ -0,0 +1,27 @@
+package br.com.bancodigital.benchmark;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.SplittableRandom;
+
+/**
+ * Gerador de índices aleatórios, um por thread do benchmark.
+ */
+@State(Scope.Thread)
+public class Aleatorio {
+
+    private final SplittableRandom random = new SplittableRandom();
+
+    public int indice(int limite) {
+        return random.nextInt(limite);
+    }
+
+    /**
+     * @return um índice diferente de 'outro' (ex: destino de uma transferência).
+     */
+    public int outroIndice(int limite, int outro) {
+        int indice = random.nextInt(limite - 1);
+        return indice >= outro ? indice + 1 : indice;
+    }
+}
@@ -0,0 +1,102 @@
+package br.com.bancodigital.benchmark;
+
+import br.com.bancodigital.antifraude.MotorAntifraude;
+import br.com.bancodigital.antifraude.RegrasAntifraude;
+import br.com.bancodigital.model.Dinheiro;
+import br.com.bancodigital.repository.ConcorrenteContaRepository;
+import br.com.bancodigital.service.Dependencias;
+import br.com.bancodigital.service.PixService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo das regras antifraude (ver MotorAntifraude) no caminho do PIX.
+ * - realizarPix: PIX completo, com o motor desligado ou com todas as regras ativas
+ *   (limites altos, para nenhum PIX ser recusado);
+ * - verificarERegistrar: só o motor (contadores de origem, destino e par).
+ * Cada conta paga sempre os mesmos FAVORECIDOS CPFs, como na vida real: com pares
+ * sorteados ao acaso, cada PIX criaria contadores novos e o benchmark mediria o GC.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+@State(Scope.Benchmark)
+public class AntifraudeBenchmark {
+
+    private static final long SALDO_INICIAL = Dinheiro.reais(1_000_000_000L);
+    private static final long VALOR = Dinheiro.reais(1);
+    private static final long MUITO = Long.MAX_VALUE / 4;
+    private static final int FAVORECIDOS = 4;
+
+    @Param({"100000"})
+    private int quantidadeContas;
+
+    @Param({"desligado", "ativo"})
+    private String antifraude;
+
+    private PixService pixService;
+    private MotorAntifraude motor;
+    private String[] numeros;
+    private String[] cpfs;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        GeradorDeMassa.silenciarConsole();
+        ConcorrenteContaRepository repositorio = ConcorrenteContaRepository.novo().construir();
+        GeradorDeMassa.popular(repositorio, repositorio.getIndices(), quantidadeContas, SALDO_INICIAL);
+        numeros = GeradorDeMassa.numerosConta(quantidadeContas);
+        cpfs = GeradorDeMassa.cpfs(quantidadeContas);
+
+        RegrasAntifraude.Limites altos = new RegrasAntifraude.Limites(MUITO, MUITO, MUITO, MUITO);
+        motor = antifraude.equals("ativo")
+                ? new MotorAntifraude(new RegrasAntifraude(altos, altos, altos, MUITO))
+                : MotorAntifraude.DESLIGADO;
+        pixService = new PixService(repositorio, repositorio.getIndices(), Dependencias.novas().antifraude(motor).construir());
+    }
+
+    @TearDown(Level.Trial)
+    public void finalizar() {
+        GeradorDeMassa.restaurarConsole();
+    }
+
+    @Benchmark
+    public boolean realizarPix(Aleatorio aleatorio) {
+        int origem = aleatorio.indice(quantidadeContas);
+        return pixService.realizarPix(numeros[origem], cpfs[favorecido(origem, aleatorio)], VALOR);
+    }
+
+    @Benchmark
+    public void verificarERegistrar(Aleatorio aleatorio) {
+        int origem = aleatorio.indice(quantidadeContas);
+        String cpf = cpfs[favorecido(origem, aleatorio)];
+        motor.verificar(numeros[origem], cpf, VALOR);
+        motor.registrar(numeros[origem], cpf, VALOR);
+    }
+
+    // Um dos FAVORECIDOS da origem (nunca ela mesma)
+    private int favorecido(int origem, Aleatorio aleatorio) {
+        return (origem + 1 + aleatorio.indice(FAVORECIDOS) * 7_919) % quantidadeContas;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean realizarPixConcorrente(Aleatorio aleatorio) {
+        return realizarPix(aleatorio);
+    }
+}
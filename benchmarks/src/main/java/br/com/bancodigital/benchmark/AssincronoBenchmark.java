@@ -0,0 +1,149 @@
+package br.com.bancodigital.benchmark;
+
+import br.com.bancodigital.model.Dinheiro;
+import br.com.bancodigital.repository.ConcorrenteContaRepository;
+import br.com.bancodigital.repository.ContaRepository;
+import br.com.bancodigital.repository.DuravelContaRepository;
+import br.com.bancodigital.repository.IndicesDeContas;
+import br.com.bancodigital.service.ContaService;
+import br.com.bancodigital.service.PixService;
+import br.com.bancodigital.service.ProcessadorAssincrono;
+import br.com.bancodigital.service.ResultadoOperacao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PIX pelo caminho síncrono (PixService) e pelo assíncrono (ProcessadorAssincrono),
+ * com 1, 8 e 64 chamadores ao mesmo tempo (cada um espera o seu PIX antes do próximo).
+ * realizarPixEmVoo: UM chamador com EM_VOO PIX enviados de uma vez, esperando todos
+ * no fim (no modo síncrono, os mesmos PIX um depois do outro).
+ * Com o repositório durável, cada PIX espera o fsync do journal: é onde vários PIX
+ * em andamento ao mesmo tempo (group commit) fazem diferença.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+@State(Scope.Benchmark)
+public class AssincronoBenchmark {
+
+    private static final long SALDO_INICIAL = Dinheiro.reais(1_000_000_000L);
+    private static final long VALOR = Dinheiro.reais(1);
+    private static final int EM_VOO = 64;
+
+    @Param({"10000"})
+    private int quantidadeContas;
+
+    @Param({"concorrente", "duravel"})
+    private String repositorio;
+
+    @Param({"sincrono", "virtual", "particoes"})
+    private String execucao;
+
+    private Path diretorio;
+    private DuravelContaRepository duravel;
+    private PixService pixService;
+    private ProcessadorAssincrono processador;
+    private String[] numeros;
+    private String[] cpfs;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        GeradorDeMassa.silenciarConsole();
+        IndicesDeContas indices = new IndicesDeContas();
+        ContaRepository contas;
+        if (repositorio.equals("duravel")) {
+            diretorio = Files.createTempDirectory("assincrono-benchmark");
+            duravel = DuravelContaRepository.novo(diretorio).indices(indices).construir();
+            contas = duravel;
+        } else {
+            contas = ConcorrenteContaRepository.novo().indices(indices).construir();
+        }
+        GeradorDeMassa.popular(contas, indices, quantidadeContas, SALDO_INICIAL);
+        ContaService contaService = new ContaService(contas, indices);
+        pixService = new PixService(contas, indices);
+        processador = switch (execucao) {
+            case "sincrono" -> null;
+            case "virtual" -> new ProcessadorAssincrono(contaService, pixService);
+            case "particoes" -> ProcessadorAssincrono.porParticao(contaService, pixService,
+                    Runtime.getRuntime().availableProcessors());
+            default -> throw new IllegalArgumentException("Execução desconhecida: " + execucao);
+        };
+        numeros = GeradorDeMassa.numerosConta(quantidadeContas);
+        cpfs = GeradorDeMassa.cpfs(quantidadeContas);
+    }
+
+    @TearDown(Level.Trial)
+    public void finalizar() throws IOException {
+        if (processador != null) {
+            processador.close();
+        }
+        if (duravel != null) {
+            duravel.close();
+            try (var arquivos = Files.walk(diretorio)) {
+                for (Path arquivo : arquivos.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(arquivo);
+                }
+            }
+        }
+        GeradorDeMassa.restaurarConsole();
+    }
+
+    private CompletableFuture<ResultadoOperacao> enviarPix(Aleatorio aleatorio) {
+        int origem = aleatorio.indice(quantidadeContas);
+        int destino = aleatorio.outroIndice(quantidadeContas, origem);
+        if (processador == null) {
+            return CompletableFuture.completedFuture(pixService.realizarPix(numeros[origem], cpfs[destino], VALOR)
+                    ? ResultadoOperacao.sucesso(0) : ResultadoOperacao.falha("Saldo insuficiente."));
+        }
+        return processador.realizarPix(numeros[origem], cpfs[destino], VALOR);
+    }
+
+    @Benchmark
+    public ResultadoOperacao realizarPix1(Aleatorio aleatorio) {
+        return enviarPix(aleatorio).join();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public ResultadoOperacao realizarPix8(Aleatorio aleatorio) {
+        return enviarPix(aleatorio).join();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public ResultadoOperacao realizarPix64(Aleatorio aleatorio) {
+        return enviarPix(aleatorio).join();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EM_VOO)
+    public void realizarPixEmVoo(Aleatorio aleatorio) {
+        CompletableFuture<?>[] enviados = new CompletableFuture<?>[EM_VOO];
+        for (int i = 0; i < EM_VOO; i++) {
+            enviados[i] = enviarPix(aleatorio);
+        }
+        CompletableFuture.allOf(enviados).join();
+    }
+}
@@ -0,0 +1,83 @@
+package br.com.bancodigital.benchmark;
+
+import br.com.bancodigital.model.Cliente;
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.model.ContaCorrente;
+import br.com.bancodigital.repository.ConcorrenteContaRepository;
+import br.com.bancodigital.repository.DiretorioClientes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Diretório de clientes (ver DiretorioClientes), com 1 ou 2 contas por cliente.
+ * - buscarContas / buscarContasFormatado: contas do CPF (o que o PIX usa), com o CPF
+ *   só com dígitos ou no formato 000.000.000-00;
+ * - buscarCliente: o Cliente do CPF.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+@State(Scope.Benchmark)
+public class ClientesBenchmark {
+
+    @Param({"1000000"})
+    private int quantidadeClientes;
+
+    @Param({"1", "2"})
+    private int contasPorCliente;
+
+    private DiretorioClientes clientes;
+    private String[] cpfs;
+    private String[] cpfsFormatados;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        ConcorrenteContaRepository repositorio = ConcorrenteContaRepository.novo().construir();
+        clientes = repositorio.getIndices().getClientes();
+        for (int i = 0; i < quantidadeClientes; i++) {
+            for (int j = 0; j < contasPorCliente; j++) {
+                // Um Cliente novo por conta, como chega do menu: o diretório devolve o já registrado
+                Cliente titular = clientes.registrar(new Cliente("Cliente " + i, GeradorDeMassa.cpf(i)));
+                repositorio.salvar(new ContaCorrente(titular, "0001", GeradorDeMassa.numeroConta(i) + "-" + j));
+            }
+        }
+        cpfs = GeradorDeMassa.cpfs(quantidadeClientes);
+        cpfsFormatados = new String[quantidadeClientes];
+        for (int i = 0; i < quantidadeClientes; i++) {
+            String cpf = cpfs[i];
+            cpfsFormatados[i] = cpf.substring(0, 3) + "." + cpf.substring(3, 6) + "." + cpf.substring(6, 9)
+                    + "-" + cpf.substring(9);
+        }
+    }
+
+    @Benchmark
+    public List<Conta> buscarContas(Aleatorio aleatorio) {
+        return clientes.contas(cpfs[aleatorio.indice(quantidadeClientes)]);
+    }
+
+    @Benchmark
+    public List<Conta> buscarContasFormatado(Aleatorio aleatorio) {
+        return clientes.contas(cpfsFormatados[aleatorio.indice(quantidadeClientes)]);
+    }
+
+    @Benchmark
+    public Optional<Cliente> buscarCliente(Aleatorio aleatorio) {
+        return clientes.buscar(cpfs[aleatorio.indice(quantidadeClientes)]);
+    }
+}
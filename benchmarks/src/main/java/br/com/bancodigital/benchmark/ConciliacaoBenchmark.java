@@ -0,0 +1,77 @@
+package br.com.bancodigital.benchmark;
+
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.model.Dinheiro;
+import br.com.bancodigital.repository.ConcorrenteContaRepository;
+import br.com.bancodigital.service.ConciliacaoService;
+import br.com.bancodigital.service.RelatorioConciliacao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conciliação de todas as contas (ver ConciliacaoService), sequencial e paralela,
+ * e o custo que a visão sem cópia evita: só copiar a lista de contas (listarTodas).
+ * Vazão em contas/s = quantidadeContas / tempo por operação.
+ * Cada conta tem uma transação (o depósito inicial).
+ * O padrão (1 milhão de contas) cabe em 4 GB; para 10 milhões, passe o valor e um heap grande:
+ * -p quantidadeContas=10000000 -jvmArgsAppend "-Xmx12g"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class ConciliacaoBenchmark {
+
+    private static final long SALDO_INICIAL = Dinheiro.reais(1_000);
+
+    @Param({"1000000"})
+    private int quantidadeContas;
+
+    private ConcorrenteContaRepository repositorio;
+    private ConciliacaoService conciliacao;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        GeradorDeMassa.silenciarConsole();
+        repositorio = ConcorrenteContaRepository.novo().construir();
+        GeradorDeMassa.popular(repositorio, repositorio.getIndices(), quantidadeContas, SALDO_INICIAL);
+        conciliacao = new ConciliacaoService(repositorio);
+    }
+
+    @TearDown(Level.Trial)
+    public void finalizar() {
+        GeradorDeMassa.restaurarConsole();
+    }
+
+    @Benchmark
+    public RelatorioConciliacao sequencial() {
+        return conciliacao.conciliarSequencial();
+    }
+
+    @Benchmark
+    public RelatorioConciliacao paralela() {
+        return conciliacao.conciliar();
+    }
+
+    // Antes da visão sem cópia, toda varredura começava com uma lista nova de todas as contas
+    @Benchmark
+    public List<Conta> copiarLista() {
+        return repositorio.listarTodas();
+    }
+}
@@ -0,0 +1,151 @@
+package br.com.bancodigital.benchmark;
+
+import br.com.bancodigital.exception.SaldoInsuficienteException;
+import br.com.bancodigital.model.Cliente;
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.model.ContaCorrente;
+import br.com.bancodigital.model.Dinheiro;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Antes e depois dos saldos em centavos (ver Dinheiro): depósito, saque e transferência
+ * com o saldo em 'double' (como era a Conta antes) e em 'long' (a Conta atual), e a
+ * mensagem de cada operação montada como antes ("R$" + double) e com Dinheiro.formatar.
+ * Só o saldo e a mensagem: o histórico e as travas são os mesmos nos dois casos
+ * (ver ServicoBenchmark para a operação completa).
+ * As contas começam com saldo alto para que nenhum saque falhe durante a medição.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1)
+@State(Scope.Benchmark)
+public class DinheiroBenchmark {
+
+    private static final long SALDO_INICIAL = Dinheiro.reais(1_000_000_000L);
+    private static final long VALOR = 5075; // R$ 50,75
+    private static final double VALOR_DOUBLE = 50.75;
+
+    @Param({"10000"})
+    private int quantidadeContas;
+
+    private Conta[] contas;
+    private ContaDouble[] contasDouble;
+
+    /**
+     * A conta corrente com o saldo em 'double' (reais), como era antes dos centavos.
+     */
+    static final class ContaDouble {
+
+        private static final double LIMITE_CHEQUE_ESPECIAL = 100.0;
+
+        private volatile double saldo;
+
+        void depositarInterno(double valor) {
+            if (valor > 0) {
+                this.saldo += valor;
+            }
+        }
+
+        void sacarInterno(double valor) {
+            if (valor <= 0) {
+                throw new SaldoInsuficienteException("Valor de saque deve ser positivo.");
+            }
+            if ((this.saldo + LIMITE_CHEQUE_ESPECIAL) < valor) {
+                throw new SaldoInsuficienteException("Saque não autorizado (CC). Saldo ou limite insuficiente.");
+            }
+            this.saldo -= valor;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        contas = new Conta[quantidadeContas];
+        contasDouble = new ContaDouble[quantidadeContas];
+        String[] numeros = GeradorDeMassa.numerosConta(quantidadeContas);
+        String[] cpfs = GeradorDeMassa.cpfs(quantidadeContas);
+        for (int i = 0; i < quantidadeContas; i++) {
+            contas[i] = new ContaCorrente(new Cliente("Cliente " + i, cpfs[i]), "0001", numeros[i]);
+            contas[i].depositarInterno(SALDO_INICIAL);
+            contasDouble[i] = new ContaDouble();
+            contasDouble[i].depositarInterno(SALDO_INICIAL / (double) Dinheiro.CENTAVOS_POR_REAL);
+        }
+    }
+
+    // --- Saldo em double (antes) ---
+
+    @Benchmark
+    public double depositarDouble(Aleatorio aleatorio) {
+        ContaDouble conta = contasDouble[aleatorio.indice(quantidadeContas)];
+        conta.depositarInterno(VALOR_DOUBLE);
+        return conta.saldo;
+    }
+
+    @Benchmark
+    public double sacarDouble(Aleatorio aleatorio) {
+        ContaDouble conta = contasDouble[aleatorio.indice(quantidadeContas)];
+        conta.sacarInterno(VALOR_DOUBLE);
+        return conta.saldo;
+    }
+
+    @Benchmark
+    public double transferirDouble(Aleatorio aleatorio) {
+        int origem = aleatorio.indice(quantidadeContas);
+        int destino = aleatorio.outroIndice(quantidadeContas, origem);
+        contasDouble[origem].sacarInterno(VALOR_DOUBLE);
+        contasDouble[destino].depositarInterno(VALOR_DOUBLE);
+        return contasDouble[origem].saldo;
+    }
+
+    @Benchmark
+    public String mensagemDouble(Aleatorio aleatorio) {
+        ContaDouble conta = contasDouble[aleatorio.indice(quantidadeContas)];
+        return "Depósito de R$" + VALOR_DOUBLE + " realizado. Saldo atual: R$" + conta.saldo;
+    }
+
+    // --- Saldo em centavos (depois) ---
+
+    @Benchmark
+    public long depositarCentavos(Aleatorio aleatorio) {
+        Conta conta = contas[aleatorio.indice(quantidadeContas)];
+        conta.depositarInterno(VALOR);
+        return conta.getSaldo();
+    }
+
+    @Benchmark
+    public long sacarCentavos(Aleatorio aleatorio) {
+        Conta conta = contas[aleatorio.indice(quantidadeContas)];
+        conta.sacarInterno(VALOR);
+        return conta.getSaldo();
+    }
+
+    @Benchmark
+    public long transferirCentavos(Aleatorio aleatorio) {
+        int origem = aleatorio.indice(quantidadeContas);
+        int destino = aleatorio.outroIndice(quantidadeContas, origem);
+        contas[origem].sacarInterno(VALOR);
+        contas[destino].depositarInterno(VALOR);
+        return contas[origem].getSaldo();
+    }
+
+    @Benchmark
+    public String mensagemCentavos(Aleatorio aleatorio) {
+        Conta conta = contas[aleatorio.indice(quantidadeContas)];
+        return "Depósito de R$" + Dinheiro.formatar(VALOR) + " realizado. Saldo atual: R$"
+                + Dinheiro.formatar(conta.getSaldo());
+    }
+}
@@ -0,0 +1,74 @@
+package br.com.bancodigital.benchmark;
+
+import br.com.bancodigital.model.Dinheiro;
+import br.com.bancodigital.repository.ConcorrenteContaRepository;
+import br.com.bancodigital.service.AgendadorDeEncargos;
+import br.com.bancodigital.service.PoliticaDeEncargos;
+import br.com.bancodigital.service.RelatorioEncargos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.YearMonth;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uma execução completa dos encargos mensais (ver AgendadorDeEncargos) em todas as contas,
+ * com 1 thread (equivale ao laço sobre todas as contas) ou várias cobrando baldes em paralelo.
+ * Metade das contas é corrente (tarifa) e metade poupança (rendimento).
+ * Cada execução cobra uma competência nova, então o trabalho é sempre o mesmo
+ * (o histórico de cada conta cresce uma transação por execução).
+ * Vazão em contas/s = quantidadeContas / tempo por execução.
+ * O padrão (1 milhão de contas) cabe em 4 GB; para 10 milhões, passe o valor e um heap grande:
+ * -p quantidadeContas=10000000 -jvmArgsAppend "-Xmx12g"
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class EncargosBenchmark {
+
+    private static final long SALDO_INICIAL = Dinheiro.reais(1_000);
+
+    @Param({"1000000"})
+    private int quantidadeContas;
+
+    @Param({"1", "4"})
+    private int paralelismo;
+
+    private AgendadorDeEncargos agendador;
+    private YearMonth competencia = YearMonth.of(2000, 1);
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        GeradorDeMassa.silenciarConsole();
+        ConcorrenteContaRepository repositorio = ConcorrenteContaRepository.novo().construir();
+        GeradorDeMassa.popular(repositorio, repositorio.getIndices(), quantidadeContas, SALDO_INICIAL);
+        agendador = new AgendadorDeEncargos(repositorio, PoliticaDeEncargos.PADRAO, null, paralelismo);
+    }
+
+    @TearDown(Level.Trial)
+    public void finalizar() {
+        agendador.close();
+        GeradorDeMassa.restaurarConsole();
+    }
+
+    @Benchmark
+    public RelatorioEncargos aplicar() throws IOException {
+        competencia = competencia.plusMonths(1);
+        return agendador.aplicar(competencia);
+    }
+}
@@ -0,0 +1,93 @@
+package br.com.bancodigital.benchmark;
+
+import br.com.bancodigital.evento.PublicadorAssincrono;
+import br.com.bancodigital.evento.PublicadorAssincrono.PoliticaFilaCheia;
+import br.com.bancodigital.evento.PublicadorDeEventos;
+import br.com.bancodigital.evento.RenderizadorConsole;
+import br.com.bancodigital.model.Dinheiro;
+import br.com.bancodigital.repository.ConcorrenteContaRepository;
+import br.com.bancodigital.service.ContaService;
+import br.com.bancodigital.service.Dependencias;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Depósitos com diferentes publicadores de eventos:
+ * - nenhum: eventos descartados (sem mensagens);
+ * - sincrono: cada evento é renderizado e escrito no PrintStream na própria thread
+ *   (equivalente aos antigos System.out.println dos serviços);
+ * - descartar / bloquear: PublicadorAssincrono com cada PoliticaFilaCheia.
+ * A saída é um PrintStream que descarta os bytes: mede-se a formatação e a sincronização, não o terminal.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class EventosBenchmark {
+
+    private static final int QUANTIDADE_CONTAS = 100_000;
+    private static final long VALOR = Dinheiro.reais(1);
+
+    @Param({"nenhum", "sincrono", "descartar", "bloquear"})
+    private String publicador;
+
+    private PublicadorAssincrono assincrono;
+    private ContaService contaService;
+    private String[] numeros;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        RenderizadorConsole renderizador = new RenderizadorConsole(new PrintStream(OutputStream.nullOutputStream()));
+        PublicadorDeEventos eventos = switch (publicador) {
+            case "nenhum" -> PublicadorDeEventos.NENHUM;
+            case "sincrono" -> evento -> renderizador.receber(List.of(evento));
+            default -> {
+                assincrono = new PublicadorAssincrono(8192, PoliticaFilaCheia.valueOf(publicador.toUpperCase()));
+                assincrono.adicionarOuvinte(renderizador);
+                yield assincrono;
+            }
+        };
+        ConcorrenteContaRepository repositorio = ConcorrenteContaRepository.novo().eventos(eventos).construir();
+        GeradorDeMassa.popular(repositorio, repositorio.getIndices(), QUANTIDADE_CONTAS, 0);
+        contaService = new ContaService(repositorio, repositorio.getIndices(), Dependencias.novas().eventos(eventos).construir());
+        numeros = GeradorDeMassa.numerosConta(QUANTIDADE_CONTAS);
+    }
+
+    @TearDown(Level.Trial)
+    public void finalizar() {
+        if (assincrono != null) {
+            assincrono.close();
+            System.out.println("Eventos descartados: " + assincrono.getDescartados());
+        }
+    }
+
+    @Benchmark
+    public void depositar(Aleatorio aleatorio) {
+        contaService.depositar(numeros[aleatorio.indice(QUANTIDADE_CONTAS)], VALOR);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void depositarConcorrente(Aleatorio aleatorio) {
+        depositar(aleatorio);
+    }
+}
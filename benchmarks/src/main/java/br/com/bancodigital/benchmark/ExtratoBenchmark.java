@@ -0,0 +1,88 @@
+package br.com.bancodigital.benchmark;
+
+import br.com.bancodigital.model.Cliente;
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.model.ContaCorrente;
+import br.com.bancodigital.model.Dinheiro;
+import br.com.bancodigital.model.FiltroExtrato;
+import br.com.bancodigital.model.PaginaExtrato;
+import br.com.bancodigital.model.TipoTransacao;
+import br.com.bancodigital.model.Transacao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renderização do extrato: formatação de uma transação (Transacao.toString) e
+ * consulta paginada sobre um histórico grande.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class ExtratoBenchmark {
+
+    private static final int TAMANHO_PAGINA = 20;
+
+    @Param({"1000", "1000000"})
+    private int tamanhoHistorico;
+
+    private Conta conta;
+    private Transacao transacao;
+    private FiltroExtrato somenteSaques;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        conta = new ContaCorrente(new Cliente("Cliente Extrato", GeradorDeMassa.cpf(0)), "0001", "EXTRATO");
+        TipoTransacao[] tipos = {TipoTransacao.DEPOSITO, TipoTransacao.SAQUE, TipoTransacao.TRANSFERENCIA_RECEBIDA};
+        for (int i = 0; i < tamanhoHistorico; i++) {
+            TipoTransacao tipo = tipos[i % tipos.length];
+            conta.registrarTransacao(tipo, Dinheiro.reais(1 + i % 500), tipo.getPrefixoDetalhe().isEmpty() ? "" : "C" + i);
+        }
+        transacao = conta.getHistoricoTransacoes().get(tamanhoHistorico / 2);
+        somenteSaques = FiltroExtrato.todos().comTipos(EnumSet.of(TipoTransacao.SAQUE));
+    }
+
+    @Benchmark
+    public String formatarTransacao() {
+        return transacao.toString();
+    }
+
+    @Benchmark
+    public void renderizarPagina(Blackhole blackhole) {
+        PaginaExtrato pagina = conta.consultarExtrato(FiltroExtrato.todos(), PaginaExtrato.INICIO, TAMANHO_PAGINA);
+        for (Transacao t : pagina.transacoes()) {
+            blackhole.consume(t.toString());
+        }
+    }
+
+    @Benchmark
+    public void renderizarPaginaFiltrada(Blackhole blackhole) {
+        PaginaExtrato pagina = conta.consultarExtrato(somenteSaques, PaginaExtrato.INICIO, TAMANHO_PAGINA);
+        for (Transacao t : pagina.transacoes()) {
+            blackhole.consume(t.toString());
+        }
+    }
+
+    @Benchmark
+    public void renderizarExtratoCompleto(Blackhole blackhole) {
+        for (Transacao t : conta.getHistoricoTransacoes()) {
+            blackhole.consume(t.toString());
+        }
+    }
+}
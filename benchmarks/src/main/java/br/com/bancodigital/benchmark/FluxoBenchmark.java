@@ -0,0 +1,153 @@
+package br.com.bancodigital.benchmark;
+
+import br.com.bancodigital.evento.FluxoDeTransacoes;
+import br.com.bancodigital.evento.TransacaoPublicada;
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.model.Dinheiro;
+import br.com.bancodigital.repository.ConcorrenteContaRepository;
+import br.com.bancodigital.service.ContaService;
+import br.com.bancodigital.service.Dependencias;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fluxo de transações (ver FluxoDeTransacoes) com 0, 1 ou 4 assinantes.
+ * - depositar / depositarSemFluxo: depósitos pelo ContaService com e sem o fluxo
+ *   (o custo da publicação no caminho da operação; os assinantes consomem em paralelo);
+ * - entregar: LOTE transações publicadas e entregues a TODOS os assinantes; o resultado
+ *   é em transações por ms (cada assinante recebe todas).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class FluxoBenchmark {
+
+    private static final int QUANTIDADE_CONTAS = 100_000;
+    private static final long VALOR = Dinheiro.reais(1);
+    private static final int CAPACIDADE = 1 << 20;
+    private static final int LOTE = 1024;
+    private static final int PEDIDOS = 256;
+
+    @Param({"0", "1", "4"})
+    private int assinantes;
+
+    private FluxoDeTransacoes fluxo;
+    private ContaService comFluxo;
+    private ContaService semFluxo;
+    private String[] numeros;
+    private Conta conta;
+    private final List<Contador> contadores = new ArrayList<>();
+
+    /**
+     * Assinante que só conta (e soma os valores), pedindo PEDIDOS transações por vez.
+     */
+    private static final class Contador implements Flow.Subscriber<TransacaoPublicada> {
+
+        private Flow.Subscription assinatura;
+        private volatile long recebidas;
+        private long soma;
+        private long pendentes;
+        private volatile Throwable erro;
+
+        @Override
+        public void onSubscribe(Flow.Subscription assinatura) {
+            this.assinatura = assinatura;
+            pendentes = PEDIDOS;
+            assinatura.request(PEDIDOS);
+        }
+
+        @Override
+        public void onNext(TransacaoPublicada transacao) {
+            soma += transacao.transacao().valor();
+            recebidas++;
+            if (--pendentes == PEDIDOS / 2) {
+                pendentes += PEDIDOS;
+                assinatura.request(PEDIDOS);
+            }
+        }
+
+        @Override
+        public void onError(Throwable erro) {
+            this.erro = erro;
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        ConcorrenteContaRepository repositorio = ConcorrenteContaRepository.novo().construir();
+        GeradorDeMassa.popular(repositorio, repositorio.getIndices(), QUANTIDADE_CONTAS, 0);
+        numeros = GeradorDeMassa.numerosConta(QUANTIDADE_CONTAS);
+        fluxo = new FluxoDeTransacoes(CAPACIDADE);
+        comFluxo = new ContaService(repositorio, repositorio.getIndices(), Dependencias.novas().transacoes(fluxo).construir());
+        semFluxo = new ContaService(repositorio, repositorio.getIndices());
+        // Uma transação para o entregar republicar (sem passar pelo serviço)
+        semFluxo.depositar(numeros[0], VALOR);
+        conta = semFluxo.buscarContaPorNumero(numeros[0]);
+        for (int i = 0; i < assinantes; i++) {
+            Contador contador = new Contador();
+            contadores.add(contador);
+            fluxo.subscribe(contador);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void finalizar() {
+        fluxo.close();
+        for (Contador contador : contadores) {
+            if (contador.erro != null) {
+                System.out.println("Assinante encerrado com erro: " + contador.erro.getMessage());
+            }
+        }
+    }
+
+    @Benchmark
+    public void depositar(Aleatorio aleatorio) {
+        comFluxo.depositar(numeros[aleatorio.indice(QUANTIDADE_CONTAS)], VALOR);
+    }
+
+    @Benchmark
+    public void depositarSemFluxo(Aleatorio aleatorio) {
+        semFluxo.depositar(numeros[aleatorio.indice(QUANTIDADE_CONTAS)], VALOR);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOTE)
+    public long entregar() {
+        for (int i = 0; i < LOTE; i++) {
+            fluxo.publicar(conta, 0);
+        }
+        // Espera todos os assinantes receberem tudo o que já foi publicado (inclusive pelo depositar).
+        // Eles assinaram antes da primeira publicação: recebidas == sequência
+        long publicadas = fluxo.getProximaSequencia();
+        for (Contador contador : contadores) {
+            while (contador.recebidas < publicadas && contador.erro == null) {
+                Thread.yield();
+            }
+        }
+        return publicadas;
+    }
+}
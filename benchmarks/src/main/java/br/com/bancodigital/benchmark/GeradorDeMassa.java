@@ -0,0 +1,104 @@
+package br.com.bancodigital.benchmark;
+
+import br.com.bancodigital.model.ChavePix;
+import br.com.bancodigital.model.Cliente;
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.model.ContaCorrente;
+import br.com.bancodigital.model.ContaPoupanca;
+import br.com.bancodigital.model.TipoChavePix;
+import br.com.bancodigital.model.TipoTransacao;
+import br.com.bancodigital.repository.ConcorrenteContaRepository;
+import br.com.bancodigital.repository.ContaRepository;
+import br.com.bancodigital.repository.IndicesDeContas;
+import br.com.bancodigital.repository.MemoriaContaRepository;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Gera massa de dados sintética para os benchmarks: milhões de clientes e contas.
+ * A conta de índice i tem número numeroConta(i) e cliente com CPF cpf(i).
+ */
+public final class GeradorDeMassa {
+
+    private static final PrintStream CONSOLE_ORIGINAL = System.out;
+    private static final PrintStream CONSOLE_NULO = new PrintStream(OutputStream.nullOutputStream());
+
+    private GeradorDeMassa() {
+    }
+
+    public static String numeroConta(int indice) {
+        return "C" + indice;
+    }
+
+    /**
+     * CPF sintético com 11 dígitos.
+     */
+    public static String cpf(int indice) {
+        return Long.toString(10_000_000_000L + indice);
+    }
+
+    /**
+     * Cria o repositório pelo nome usado nos @Param dos benchmarks.
+     * @param indices Índices vazios, que o repositório vai manter.
+     */
+    public static ContaRepository criarRepositorio(String tipo, IndicesDeContas indices) {
+        return switch (tipo) {
+            case "memoria" -> MemoriaContaRepository.novo().indices(indices).construir();
+            case "concorrente" -> ConcorrenteContaRepository.novo().indices(indices).construir();
+            default -> throw new IllegalArgumentException("Repositório desconhecido: " + tipo);
+        };
+    }
+
+    /**
+     * Cria 'quantidade' contas (metade corrente, metade poupança), cada uma com um depósito inicial
+     * e com o CPF do cliente cadastrado como chave PIX.
+     * @param indices Os índices mantidos pelo repositório.
+     * @param saldoInicial Saldo inicial de cada conta, em centavos.
+     */
+    public static void popular(ContaRepository repositorio, IndicesDeContas indices, int quantidade, long saldoInicial) {
+        for (int i = 0; i < quantidade; i++) {
+            Cliente cliente = indices.getClientes().registrar(new Cliente("Cliente " + i, cpf(i)));
+            Conta conta = (i % 2 == 0)
+                    ? new ContaCorrente(cliente, "0001", numeroConta(i))
+                    : new ContaPoupanca(cliente, "0001", numeroConta(i));
+            if (saldoInicial > 0) {
+                conta.depositarInterno(saldoInicial);
+                conta.registrarTransacao(TipoTransacao.DEPOSITO, saldoInicial, "Depósito em conta");
+            }
+            repositorio.salvar(conta);
+            indices.getChavesPix().registrar(ChavePix.de(TipoChavePix.CPF, cliente.cpf()), conta.getNumero());
+        }
+    }
+
+    /**
+     * Pré-calcula os números de conta (o benchmark não deve medir a criação das Strings).
+     */
+    public static String[] numerosConta(int quantidade) {
+        String[] numeros = new String[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            numeros[i] = numeroConta(i);
+        }
+        return numeros;
+    }
+
+    public static String[] cpfs(int quantidade) {
+        String[] cpfs = new String[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            cpfs[i] = cpf(i);
+        }
+        return cpfs;
+    }
+
+    /**
+     * Descarta as mensagens de console do sistema (ex: "[Repo] Conta ... salva")
+     * durante o benchmark, para não inundar a saída do JMH.
+     */
+    public static void silenciarConsole() {
+        System.setOut(CONSOLE_NULO);
+    }
+
+    public static void restaurarConsole() {
+        System.setOut(CONSOLE_ORIGINAL);
+    }
+}
@@ -0,0 +1,142 @@
+package br.com.bancodigital.benchmark;
+
+import br.com.bancodigital.model.Dinheiro;
+import br.com.bancodigital.repository.ChaveIdempotencia;
+import br.com.bancodigital.repository.ConcorrenteContaRepository;
+import br.com.bancodigital.service.ContaService;
+import br.com.bancodigital.service.ResultadoOperacao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Custo da verificação de idempotência nas transferências:
+ * - semChave: a transferência comum, como referência;
+ * - chaveNova: cada transferência com uma chave inédita (reserva + registro na tabela);
+ * - chaveRepetida: repetições de chaves já executadas (só a consulta e a conferência
+ *   da impressão da operação, sem mover dinheiro).
+ * Com chaves novas a tabela enche até a capacidade padrão e passa a descartar as mais antigas,
+ * como aconteceria em produção.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+@State(Scope.Benchmark)
+public class IdempotenciaBenchmark {
+
+    private static final int QUANTIDADE_CONTAS = 100_000;
+    private static final int CHAVES_REPETIDAS = 1_000_000;
+    private static final long SALDO_INICIAL = Dinheiro.reais(1_000_000_000L);
+    private static final long VALOR = Dinheiro.reais(1);
+
+    private ContaService contaService;
+    private String[] numeros;
+    private String[] chavesExecutadas;
+    private final AtomicLong proximaThread = new AtomicLong();
+
+    /**
+     * Gera chaves inéditas (prefixo da thread + contador), como um cliente geraria UUIDs.
+     */
+    @State(Scope.Thread)
+    public static class GeradorDeChaves {
+
+        private String prefixo;
+        private long contador;
+
+        @Setup(Level.Trial)
+        public void preparar(IdempotenciaBenchmark benchmark) {
+            prefixo = "cliente-" + benchmark.proximaThread.incrementAndGet() + "-";
+        }
+
+        String proxima() {
+            return prefixo + contador++;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        GeradorDeMassa.silenciarConsole();
+        ConcorrenteContaRepository repositorio = ConcorrenteContaRepository.novo().construir();
+        GeradorDeMassa.popular(repositorio, repositorio.getIndices(), QUANTIDADE_CONTAS, SALDO_INICIAL);
+        contaService = new ContaService(repositorio, repositorio.getIndices());
+        numeros = GeradorDeMassa.numerosConta(QUANTIDADE_CONTAS);
+
+        chavesExecutadas = new String[CHAVES_REPETIDAS];
+        for (int i = 0; i < CHAVES_REPETIDAS; i++) {
+            chavesExecutadas[i] = "executada-" + i;
+            contaService.transferir(chavesExecutadas[i], numeros[i % QUANTIDADE_CONTAS],
+                    numeros[(i + 1) % QUANTIDADE_CONTAS], VALOR);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void finalizar() {
+        GeradorDeMassa.restaurarConsole();
+    }
+
+    @Benchmark
+    public boolean semChave(Aleatorio aleatorio) {
+        int origem = aleatorio.indice(QUANTIDADE_CONTAS);
+        int destino = aleatorio.outroIndice(QUANTIDADE_CONTAS, origem);
+        return contaService.transferir(numeros[origem], numeros[destino], VALOR);
+    }
+
+    @Benchmark
+    public ResultadoOperacao chaveNova(Aleatorio aleatorio, GeradorDeChaves chaves) {
+        int origem = aleatorio.indice(QUANTIDADE_CONTAS);
+        int destino = aleatorio.outroIndice(QUANTIDADE_CONTAS, origem);
+        return contaService.transferir(chaves.proxima(), numeros[origem], numeros[destino], VALOR);
+    }
+
+    @Benchmark
+    public ResultadoOperacao chaveRepetida(Aleatorio aleatorio) {
+        int i = aleatorio.indice(CHAVES_REPETIDAS);
+        return contaService.transferir(chavesExecutadas[i], numeros[i % QUANTIDADE_CONTAS],
+                numeros[(i + 1) % QUANTIDADE_CONTAS], VALOR);
+    }
+
+    /**
+     * Só o cálculo da impressão digital de 128 bits.
+     */
+    @Benchmark
+    public ChaveIdempotencia calcularChave(Aleatorio aleatorio) {
+        return ChaveIdempotencia.de(chavesExecutadas[aleatorio.indice(CHAVES_REPETIDAS)]);
+    }
+
+    /**
+     * Só o cálculo da impressão da operação (tipo, contas e valor), conferida a cada repetição.
+     */
+    @Benchmark
+    public long calcularImpressao(Aleatorio aleatorio) {
+        int i = aleatorio.indice(QUANTIDADE_CONTAS);
+        return ChaveIdempotencia.impressaoDaOperacao("TRANSFERENCIA", VALOR, numeros[i],
+                numeros[(i + 1) % QUANTIDADE_CONTAS]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean semChaveConcorrente(Aleatorio aleatorio) {
+        return semChave(aleatorio);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ResultadoOperacao chaveNovaConcorrente(Aleatorio aleatorio, GeradorDeChaves chaves) {
+        return chaveNova(aleatorio, chaves);
+    }
+}
@@ -0,0 +1,97 @@
+package br.com.bancodigital.benchmark;
+
+import br.com.bancodigital.model.Dinheiro;
+import br.com.bancodigital.repository.ConcorrenteContaRepository;
+import br.com.bancodigital.service.ContaService;
+import br.com.bancodigital.service.OperacaoLote;
+import br.com.bancodigital.service.ProcessadorEmLote;
+import br.com.bancodigital.service.ResultadoOperacao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Um lote misto (depósitos, saques e transferências) executado pelo ProcessadorEmLote,
+ * comparado com o mesmo lote executado operação por operação pelo ContaService.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+@State(Scope.Benchmark)
+public class LoteBenchmark {
+
+    private static final long SALDO_INICIAL = Dinheiro.reais(1_000_000_000L);
+
+    @Param({"100000"})
+    private int quantidadeContas;
+
+    @Param({"10000"})
+    private int tamanhoLote;
+
+    private ContaService contaService;
+    private ProcessadorEmLote processador;
+    private List<OperacaoLote> lote;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        GeradorDeMassa.silenciarConsole();
+        ConcorrenteContaRepository repositorio = ConcorrenteContaRepository.novo().construir();
+        GeradorDeMassa.popular(repositorio, repositorio.getIndices(), quantidadeContas, SALDO_INICIAL);
+        contaService = new ContaService(repositorio, repositorio.getIndices());
+        processador = new ProcessadorEmLote(repositorio);
+
+        SplittableRandom random = new SplittableRandom(42);
+        lote = new ArrayList<>(tamanhoLote);
+        for (int i = 0; i < tamanhoLote; i++) {
+            int indice = random.nextInt(quantidadeContas);
+            String conta = GeradorDeMassa.numeroConta(indice);
+            long valor = Dinheiro.reais(1 + random.nextInt(100));
+            switch (i % 3) {
+                case 0 -> lote.add(OperacaoLote.deposito(conta, valor));
+                case 1 -> lote.add(OperacaoLote.saque(conta, valor));
+                default -> lote.add(OperacaoLote.transferencia(conta,
+                        GeradorDeMassa.numeroConta((indice + 1 + random.nextInt(quantidadeContas - 1)) % quantidadeContas),
+                        valor));
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void finalizar() {
+        GeradorDeMassa.restaurarConsole();
+    }
+
+    @Benchmark
+    public List<ResultadoOperacao> processarEmLote() {
+        return processador.processar(lote);
+    }
+
+    @Benchmark
+    public void processarUmAUm() {
+        for (OperacaoLote operacao : lote) {
+            switch (operacao.tipo()) {
+                case DEPOSITO -> contaService.depositar(operacao.numeroConta(), operacao.valor());
+                case SAQUE -> contaService.sacar(operacao.numeroConta(), operacao.valor());
+                case TRANSFERENCIA -> contaService.transferir(
+                        operacao.numeroConta(), operacao.numeroContaDestino(), operacao.valor());
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package br.com.bancodigital.benchmark;
+
+import br.com.bancodigital.metrica.Metricas;
+import br.com.bancodigital.model.Dinheiro;
+import br.com.bancodigital.repository.ConcorrenteContaRepository;
+import br.com.bancodigital.repository.ContaRepository;
+import br.com.bancodigital.repository.MedidoContaRepository;
+import br.com.bancodigital.service.ContaService;
+import br.com.bancodigital.service.Dependencias;
+import br.com.bancodigital.service.PixService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo das métricas: as mesmas operações com Metricas.DESLIGADAS, com os serviços
+ * medidos e com os serviços medidos + MedidoContaRepository em volta do repositório.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class MetricasBenchmark {
+
+    private static final int QUANTIDADE_CONTAS = 100_000;
+    private static final long SALDO_INICIAL = Dinheiro.reais(1_000_000_000L);
+    private static final long VALOR = Dinheiro.reais(1);
+
+    @Param({"desligadas", "servicos", "servicos_e_repositorio"})
+    private String metricas;
+
+    private ContaService contaService;
+    private PixService pixService;
+    private String[] numeros;
+    private String[] cpfs;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        ConcorrenteContaRepository base = ConcorrenteContaRepository.novo().construir();
+        GeradorDeMassa.popular(base, base.getIndices(), QUANTIDADE_CONTAS, SALDO_INICIAL);
+
+        Metricas escolhidas = metricas.equals("desligadas") ? Metricas.DESLIGADAS : new Metricas();
+        ContaRepository repositorio = metricas.equals("servicos_e_repositorio")
+                ? new MedidoContaRepository(base, escolhidas)
+                : base;
+        Dependencias dependencias = Dependencias.novas().metricas(escolhidas).construir();
+        contaService = new ContaService(repositorio, base.getIndices(), dependencias);
+        pixService = new PixService(repositorio, base.getIndices(), dependencias);
+        numeros = GeradorDeMassa.numerosConta(QUANTIDADE_CONTAS);
+        cpfs = GeradorDeMassa.cpfs(QUANTIDADE_CONTAS);
+    }
+
+    @Benchmark
+    public void depositar(Aleatorio aleatorio) {
+        contaService.depositar(numeros[aleatorio.indice(QUANTIDADE_CONTAS)], VALOR);
+    }
+
+    @Benchmark
+    public void transferir(Aleatorio aleatorio) {
+        int origem = aleatorio.indice(QUANTIDADE_CONTAS);
+        int destino = aleatorio.outroIndice(QUANTIDADE_CONTAS, origem);
+        contaService.transferir(numeros[origem], numeros[destino], VALOR);
+    }
+
+    @Benchmark
+    public void realizarPix(Aleatorio aleatorio) {
+        int origem = aleatorio.indice(QUANTIDADE_CONTAS);
+        int destino = aleatorio.outroIndice(QUANTIDADE_CONTAS, origem);
+        pixService.realizarPix(numeros[origem], cpfs[destino], VALOR);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void depositarConcorrente(Aleatorio aleatorio) {
+        depositar(aleatorio);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void transferirConcorrente(Aleatorio aleatorio) {
+        transferir(aleatorio);
+    }
+}
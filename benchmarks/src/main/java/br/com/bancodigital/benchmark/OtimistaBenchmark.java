@@ -0,0 +1,102 @@
+package br.com.bancodigital.benchmark;
+
+import br.com.bancodigital.model.Dinheiro;
+import br.com.bancodigital.repository.ConcorrenteContaRepository;
+import br.com.bancodigital.service.ContaService;
+import br.com.bancodigital.service.ProcessadorOtimista;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contas travadas (ContaService) x versões com compare-and-set (ProcessadorOtimista),
+ * com as operações concentradas em 2 ou 16 contas "quentes" ou espalhadas por todas.
+ * - depositar / transferir: 4 threads ao mesmo tempo;
+ * - transferirSemDisputa: 1 thread (o custo do protocolo sem concorrência).
+ * A cada iteração, o modo otimista imprime quantas tentativas foram repetidas por conflito.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class OtimistaBenchmark {
+
+    private static final int QUANTIDADE_CONTAS = 100_000;
+    private static final long SALDO_INICIAL = Dinheiro.reais(1_000_000_000L);
+    private static final long VALOR = Dinheiro.reais(1);
+
+    @Param({"travas", "otimista"})
+    private String modo;
+
+    @Param({"2", "16", "100000"})
+    private int contasQuentes;
+
+    private ContaService contaService;
+    private ProcessadorOtimista otimista;
+    private String[] numeros;
+
+    // Por iteração: o histórico das contas quentes cresce milhões de transações por iteração
+    @Setup(Level.Iteration)
+    public void preparar() {
+        GeradorDeMassa.silenciarConsole();
+        ConcorrenteContaRepository repositorio = ConcorrenteContaRepository.novo().construir();
+        GeradorDeMassa.popular(repositorio, repositorio.getIndices(), QUANTIDADE_CONTAS, SALDO_INICIAL);
+        contaService = new ContaService(repositorio, repositorio.getIndices());
+        otimista = modo.equals("otimista") ? new ProcessadorOtimista(repositorio, repositorio.getIndices().getChavesPix()) : null;
+        numeros = GeradorDeMassa.numerosConta(QUANTIDADE_CONTAS);
+    }
+
+    @TearDown(Level.Iteration)
+    public void finalizar() {
+        GeradorDeMassa.restaurarConsole();
+        if (otimista != null) {
+            System.out.println("Conflitos: " + otimista.getConflitos());
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long depositar(Aleatorio aleatorio) {
+        String numero = numeros[aleatorio.indice(contasQuentes)];
+        if (otimista != null) {
+            return otimista.depositar(numero, VALOR).saldo();
+        }
+        contaService.depositar(numero, VALOR);
+        return 0;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean transferir(Aleatorio aleatorio) {
+        return mover(aleatorio);
+    }
+
+    @Benchmark
+    public boolean transferirSemDisputa(Aleatorio aleatorio) {
+        return mover(aleatorio);
+    }
+
+    private boolean mover(Aleatorio aleatorio) {
+        int origem = aleatorio.indice(contasQuentes);
+        int destino = aleatorio.outroIndice(contasQuentes, origem);
+        if (otimista != null) {
+            return otimista.transferir(numeros[origem], numeros[destino], VALOR).sucesso();
+        }
+        return contaService.transferir(numeros[origem], numeros[destino], VALOR);
+    }
+}
@@ -0,0 +1,161 @@
+package br.com.bancodigital.benchmark;
+
+import br.com.bancodigital.model.Cliente;
+import br.com.bancodigital.model.Dinheiro;
+import br.com.bancodigital.particao.BancoParticionado;
+import br.com.bancodigital.particao.Particao;
+import br.com.bancodigital.particao.ParticaoLocal;
+import br.com.bancodigital.particao.ParticaoRemota;
+import br.com.bancodigital.service.ResultadoOperacao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Escalabilidade do BancoParticionado de 1 a 8 partições.
+ * - modo=local: partições no mesmo processo (mede o custo da saga, sem rede);
+ * - modo=remoto: cada partição é um ServidorApp em outra JVM nesta máquina
+ *   (iniciados e encerrados pelo próprio benchmark).
+ *
+ * Com N partições, uma transferência entre contas aleatórias cruza partições
+ * com probabilidade (N-1)/N; transferirMesmaParticao mede só o caminho rápido.
+ * Num computador só as partições dividem os mesmos núcleos: o ganho real
+ * aparece com as partições em máquinas diferentes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class ParticaoBenchmark {
+
+    private static final int QUANTIDADE_CONTAS = 10_000;
+    private static final long SALDO_INICIAL = Dinheiro.reais(1_000_000_000L);
+    private static final long VALOR = Dinheiro.reais(1);
+    private static final int CONEXOES_POR_PARTICAO = 16;
+    private static final long ESPERA_SERVIDOR_MS = 30_000;
+
+    @Param({"1", "2", "4", "8"})
+    private int particoes;
+
+    @Param({"local", "remoto"})
+    private String modo;
+
+    private final List<Process> servidores = new ArrayList<>();
+    private BancoParticionado banco;
+    private String[] numeros;
+    // Contas agrupadas pela partição dona (para o caminho rápido)
+    private String[][] numerosPorParticao;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException, InterruptedException {
+        GeradorDeMassa.silenciarConsole();
+        List<Particao> lista = new ArrayList<>();
+        for (int i = 0; i < particoes; i++) {
+            lista.add(modo.equals("local") ? new ParticaoLocal() : iniciarServidor());
+        }
+        banco = new BancoParticionado(lista);
+
+        numeros = GeradorDeMassa.numerosConta(QUANTIDADE_CONTAS);
+        String[] cpfs = GeradorDeMassa.cpfs(QUANTIDADE_CONTAS);
+        List<List<String>> grupos = new ArrayList<>();
+        for (int i = 0; i < particoes; i++) {
+            grupos.add(new ArrayList<>());
+        }
+        for (int i = 0; i < QUANTIDADE_CONTAS; i++) {
+            banco.criarContaCorrente(new Cliente("Cliente " + i, cpfs[i]), "0001", numeros[i]);
+            banco.depositar(numeros[i], SALDO_INICIAL);
+            grupos.get(banco.particaoDaConta(numeros[i])).add(numeros[i]);
+        }
+        numerosPorParticao = new String[particoes][];
+        for (int i = 0; i < particoes; i++) {
+            numerosPorParticao[i] = grupos.get(i).toArray(String[]::new);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void finalizar() throws InterruptedException {
+        banco.close();
+        for (Process servidor : servidores) {
+            servidor.destroy();
+            servidor.waitFor(10, TimeUnit.SECONDS);
+        }
+        servidores.clear();
+        GeradorDeMassa.restaurarConsole();
+    }
+
+    // Um ServidorApp em outra JVM, com o mesmo classpath (o benchmarks.jar contém as classes do banco)
+    private Particao iniciarServidor() throws IOException, InterruptedException {
+        int porta;
+        try (ServerSocket livre = new ServerSocket(0)) {
+            porta = livre.getLocalPort();
+        }
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        // O coordenador usa a porta interna (a única que aceita as pernas das sagas); a dos clientes fica livre
+        Process servidor = new ProcessBuilder(java, "-Dbanco.porta.interna=" + porta,
+                "-cp", System.getProperty("java.class.path"), "br.com.bancodigital.app.ServidorApp", "0")
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        servidores.add(servidor);
+        esperarPorta(porta);
+        return new ParticaoRemota("localhost", porta, CONEXOES_POR_PARTICAO);
+    }
+
+    private static void esperarPorta(int porta) throws IOException, InterruptedException {
+        long limite = System.currentTimeMillis() + ESPERA_SERVIDOR_MS;
+        while (true) {
+            try (Socket teste = new Socket("localhost", porta)) {
+                return;
+            } catch (IOException e) {
+                if (System.currentTimeMillis() > limite) {
+                    throw new IOException("O servidor da porta " + porta + " não iniciou.", e);
+                }
+                Thread.sleep(50);
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(8)
+    public ResultadoOperacao transferir(Aleatorio aleatorio) {
+        int origem = aleatorio.indice(QUANTIDADE_CONTAS);
+        int destino = aleatorio.outroIndice(QUANTIDADE_CONTAS, origem);
+        return banco.transferir(numeros[origem], numeros[destino], VALOR);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public ResultadoOperacao transferirMesmaParticao(Aleatorio aleatorio) {
+        String[] contas = numerosPorParticao[aleatorio.indice(particoes)];
+        int origem = aleatorio.indice(contas.length);
+        int destino = aleatorio.outroIndice(contas.length, origem);
+        return banco.transferir(contas[origem], contas[destino], VALOR);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public ResultadoOperacao depositar(Aleatorio aleatorio) {
+        return banco.depositar(numeros[aleatorio.indice(QUANTIDADE_CONTAS)], VALOR);
+    }
+}
@@ -0,0 +1,114 @@
+package br.com.bancodigital.benchmark;
+
+import br.com.bancodigital.model.ChavePix;
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.model.Dinheiro;
+import br.com.bancodigital.model.TipoChavePix;
+import br.com.bancodigital.repository.ConcorrenteContaRepository;
+import br.com.bancodigital.service.PixService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PIX pelo diretório de chaves, conforme o tamanho do diretório.
+ * Cada conta tem duas chaves (CPF e e-mail), então o diretório tem 2 x quantidadeContas chaves.
+ * - realizarPix: destino aleatório entre todas as chaves; com mais chaves que a capacidade
+ *   do cache (DiretorioChavesPix.CAPACIDADE_CACHE_PADRAO), parte das resoluções são faltas;
+ * - realizarPixChavesQuentes: destino entre poucas chaves (quase sempre acerto no cache);
+ * - resolverChave: só a resolução da chave (sem mover dinheiro).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+@State(Scope.Benchmark)
+public class PixBenchmark {
+
+    private static final long SALDO_INICIAL = Dinheiro.reais(1_000_000_000L);
+    private static final long VALOR = Dinheiro.reais(1);
+    private static final int CHAVES_QUENTES = 1_000;
+
+    @Param({"1000", "100000", "1000000"})
+    private int quantidadeContas;
+
+    private ConcorrenteContaRepository repositorio;
+    private PixService pixService;
+    private String[] numeros;
+    // Chaves como o cliente digita: CPF nos índices pares, e-mail nos ímpares
+    private String[] chavesDigitadas;
+    private ChavePix[] chaves;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        GeradorDeMassa.silenciarConsole();
+        repositorio = ConcorrenteContaRepository.novo().construir();
+        GeradorDeMassa.popular(repositorio, repositorio.getIndices(), quantidadeContas, SALDO_INICIAL);
+        pixService = new PixService(repositorio, repositorio.getIndices());
+        numeros = GeradorDeMassa.numerosConta(quantidadeContas);
+
+        chavesDigitadas = new String[quantidadeContas * 2];
+        chaves = new ChavePix[quantidadeContas * 2];
+        String[] cpfs = GeradorDeMassa.cpfs(quantidadeContas);
+        for (int i = 0; i < quantidadeContas; i++) {
+            String email = "cliente" + i + "@exemplo.com.br";
+            repositorio.getIndices().getChavesPix().registrar(ChavePix.de(TipoChavePix.EMAIL, email), numeros[i]);
+            chavesDigitadas[2 * i] = cpfs[i];
+            chavesDigitadas[2 * i + 1] = email;
+            chaves[2 * i] = ChavePix.de(cpfs[i]);
+            chaves[2 * i + 1] = ChavePix.de(email);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void finalizar() {
+        GeradorDeMassa.restaurarConsole();
+    }
+
+    @Benchmark
+    public boolean realizarPix(Aleatorio aleatorio) {
+        int destino = aleatorio.indice(chavesDigitadas.length);
+        int origem = aleatorio.outroIndice(quantidadeContas, destino / 2);
+        return pixService.realizarPix(numeros[origem], chavesDigitadas[destino], VALOR);
+    }
+
+    @Benchmark
+    public boolean realizarPixChavesQuentes(Aleatorio aleatorio) {
+        int destino = aleatorio.indice(Math.min(CHAVES_QUENTES, chavesDigitadas.length));
+        int origem = aleatorio.outroIndice(quantidadeContas, destino / 2);
+        return pixService.realizarPix(numeros[origem], chavesDigitadas[destino], VALOR);
+    }
+
+    @Benchmark
+    public Optional<Conta> resolverChave(Aleatorio aleatorio) {
+        return repositorio.getIndices().getChavesPix()
+                .resolver(chaves[aleatorio.indice(chaves.length)], repositorio::buscarPorNumero);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean realizarPixConcorrente(Aleatorio aleatorio) {
+        return realizarPix(aleatorio);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Optional<Conta> resolverChaveConcorrente(Aleatorio aleatorio) {
+        return resolverChave(aleatorio);
+    }
+}
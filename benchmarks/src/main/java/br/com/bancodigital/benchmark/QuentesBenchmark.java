@@ -0,0 +1,105 @@
+package br.com.bancodigital.benchmark;
+
+import br.com.bancodigital.evento.PublicadorDeEventos;
+import br.com.bancodigital.evento.PublicadorDeTransacoes;
+import br.com.bancodigital.metrica.Metricas;
+import br.com.bancodigital.model.Dinheiro;
+import br.com.bancodigital.repository.ConcorrenteContaRepository;
+import br.com.bancodigital.service.ContasQuentes;
+import br.com.bancodigital.service.Dependencias;
+import br.com.bancodigital.service.PixService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PIX de contas aleatórias para UMA conta de lojista, com 1, 2, 4 e 8 threads,
+ * com a loja normal (cada PIX trava a loja) e marcada como quente (ver ContasQuentes,
+ * consolidada a cada CONSOLIDACAO_MS). Com a loja normal, o resultado não passa do de
+ * uma thread; com a loja quente, deve crescer com os núcleos (até o número de threads).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class QuentesBenchmark {
+
+    private static final int QUANTIDADE_CONTAS = 100_000;
+    private static final long SALDO_INICIAL = Dinheiro.reais(1_000_000_000L);
+    private static final long VALOR = Dinheiro.reais(1);
+    private static final long CONSOLIDACAO_MS = 10;
+
+    @Param({"normal", "quente"})
+    private String loja;
+
+    private ContasQuentes quentes;
+    private PixService pixService;
+    private String[] numeros;
+    private String cpfLoja;
+
+    // Por iteração: o histórico da loja cresce milhões de transações por iteração
+    @Setup(Level.Iteration)
+    public void preparar() {
+        GeradorDeMassa.silenciarConsole();
+        ConcorrenteContaRepository repositorio = ConcorrenteContaRepository.novo().construir();
+        GeradorDeMassa.popular(repositorio, repositorio.getIndices(), QUANTIDADE_CONTAS, SALDO_INICIAL);
+        numeros = GeradorDeMassa.numerosConta(QUANTIDADE_CONTAS);
+        cpfLoja = GeradorDeMassa.cpf(0);
+        quentes = new ContasQuentes(repositorio, PublicadorDeTransacoes.NENHUM, Metricas.DESLIGADAS);
+        if (loja.equals("quente")) {
+            quentes.marcar(numeros[0]);
+            quentes.iniciarConsolidacaoPeriodica(Duration.ofMillis(CONSOLIDACAO_MS), PublicadorDeEventos.NENHUM);
+        }
+        pixService = new PixService(repositorio, repositorio.getIndices(), Dependencias.novas().quentes(quentes).construir());
+    }
+
+    @TearDown(Level.Iteration)
+    public void finalizar() {
+        quentes.close();
+        GeradorDeMassa.restaurarConsole();
+    }
+
+    private boolean pagarLoja(Aleatorio aleatorio) {
+        // Origem entre as outras contas (a loja é a conta 0)
+        return pixService.realizarPix(numeros[1 + aleatorio.indice(QUANTIDADE_CONTAS - 1)], cpfLoja, VALOR);
+    }
+
+    @Benchmark
+    public boolean receberPix1(Aleatorio aleatorio) {
+        return pagarLoja(aleatorio);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public boolean receberPix2(Aleatorio aleatorio) {
+        return pagarLoja(aleatorio);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean receberPix4(Aleatorio aleatorio) {
+        return pagarLoja(aleatorio);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean receberPix8(Aleatorio aleatorio) {
+        return pagarLoja(aleatorio);
+    }
+}
@@ -0,0 +1,132 @@
+package br.com.bancodigital.benchmark;
+
+import br.com.bancodigital.model.Cliente;
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.model.ContaCorrente;
+import br.com.bancodigital.model.ContaPoupanca;
+import br.com.bancodigital.model.Dinheiro;
+import br.com.bancodigital.model.TipoTransacao;
+import br.com.bancodigital.repository.DuravelContaRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Partida a frio do DuravelContaRepository: quanto tempo leva para abrir um diretório
+ * com quantidadeContas contas (cada uma com um depósito no histórico).
+ * - origem=snapshot: tudo está no snapshot (carregado via memória mapeada);
+ * - origem=journal: não há snapshot e todas as entradas do journal são reaplicadas.
+ * tirarSnapshot mede a gravação do snapshot dessas contas com o repositório aberto.
+ *
+ * Cada medida é uma execução só (SingleShotTime). O padrão (1 milhão de contas) cabe em 4 GB;
+ * para 10 milhões, passe o valor e um heap grande:
+ * -p quantidadeContas=10000000 -jvmArgsAppend "-Xmx24g"
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class RecuperacaoBenchmark {
+
+    private static final long SALDO_INICIAL = Dinheiro.reais(1_000);
+    // Contas por entrada do journal ao popular (um fsync por lote, e não por conta)
+    private static final int CONTAS_POR_LOTE = 1_000;
+
+    @Param({"1000000"})
+    private int quantidadeContas;
+
+    @Param({"snapshot", "journal"})
+    private String origem;
+
+    private Path diretorio;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        GeradorDeMassa.silenciarConsole();
+        diretorio = Files.createTempDirectory("recuperacao-benchmark");
+        try (DuravelContaRepository repositorio = DuravelContaRepository.novo(diretorio).construir()) {
+            Conta[] lote = new Conta[CONTAS_POR_LOTE];
+            int noLote = 0;
+            for (int i = 0; i < quantidadeContas; i++) {
+                Cliente cliente = new Cliente("Cliente " + i, GeradorDeMassa.cpf(i));
+                Conta conta = (i % 2 == 0)
+                        ? new ContaCorrente(cliente, "0001", GeradorDeMassa.numeroConta(i))
+                        : new ContaPoupanca(cliente, "0001", GeradorDeMassa.numeroConta(i));
+                conta.depositarInterno(SALDO_INICIAL);
+                conta.registrarTransacao(TipoTransacao.DEPOSITO, SALDO_INICIAL, "Depósito em conta");
+                lote[noLote++] = conta;
+                if (noLote == CONTAS_POR_LOTE || i == quantidadeContas - 1) {
+                    repositorio.salvarTodas(noLote == CONTAS_POR_LOTE ? lote : Arrays.copyOf(lote, noLote));
+                    noLote = 0;
+                }
+            }
+            if (origem.equals("snapshot")) {
+                repositorio.tirarSnapshot();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void finalizar() throws IOException {
+        apagar(diretorio);
+        GeradorDeMassa.restaurarConsole();
+    }
+
+    @Benchmark
+    public int recuperar() throws IOException {
+        try (DuravelContaRepository repositorio = DuravelContaRepository.novo(diretorio).construir()) {
+            return repositorio.listarTodas().size();
+        }
+    }
+
+    @Benchmark
+    public long tirarSnapshot(Aberto aberto) throws IOException {
+        return aberto.repositorio.tirarSnapshot();
+    }
+
+    /**
+     * O repositório já recuperado, para medir só a gravação do snapshot.
+     */
+    @State(Scope.Benchmark)
+    public static class Aberto {
+
+        DuravelContaRepository repositorio;
+
+        @Setup(Level.Trial)
+        public void abrir(RecuperacaoBenchmark dados) throws IOException {
+            repositorio = DuravelContaRepository.novo(dados.diretorio).construir();
+        }
+
+        @TearDown(Level.Trial)
+        public void fechar() throws IOException {
+            repositorio.close();
+        }
+    }
+
+    private static void apagar(Path diretorio) throws IOException {
+        try (var arquivos = Files.walk(diretorio)) {
+            for (Path arquivo : arquivos.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(arquivo);
+            }
+        }
+    }
+}
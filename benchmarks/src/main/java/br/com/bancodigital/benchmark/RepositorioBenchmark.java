@@ -0,0 +1,100 @@
+package br.com.bancodigital.benchmark;
+
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.repository.ContaRepository;
+import br.com.bancodigital.repository.IndicesDeContas;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Operações do ContaRepository com diferentes quantidades de contas.
+ * buscarPorCpfVarredura reproduz a busca antiga (percorrer todas as contas),
+ * para comparar com o índice de CPF.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+@State(Scope.Benchmark)
+public class RepositorioBenchmark {
+
+    @Param({"10000", "1000000"})
+    private int quantidadeContas;
+
+    @Param({"memoria", "concorrente"})
+    private String repositorio;
+
+    private ContaRepository contaRepository;
+    private List<Conta> todasAsContas;
+    private String[] numeros;
+    private String[] cpfs;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        GeradorDeMassa.silenciarConsole();
+        IndicesDeContas indices = new IndicesDeContas();
+        contaRepository = GeradorDeMassa.criarRepositorio(repositorio, indices);
+        GeradorDeMassa.popular(contaRepository, indices, quantidadeContas, 0);
+        todasAsContas = contaRepository.listarTodas();
+        numeros = GeradorDeMassa.numerosConta(quantidadeContas);
+        cpfs = GeradorDeMassa.cpfs(quantidadeContas);
+    }
+
+    @TearDown(Level.Trial)
+    public void finalizar() {
+        GeradorDeMassa.restaurarConsole();
+    }
+
+    @Benchmark
+    public void salvar(Aleatorio aleatorio) {
+        contaRepository.salvar(todasAsContas.get(aleatorio.indice(quantidadeContas)));
+    }
+
+    @Benchmark
+    public Optional<Conta> buscarPorNumero(Aleatorio aleatorio) {
+        return contaRepository.buscarPorNumero(numeros[aleatorio.indice(quantidadeContas)]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Optional<Conta> buscarPorNumeroConcorrente(Aleatorio aleatorio) {
+        return contaRepository.buscarPorNumero(numeros[aleatorio.indice(quantidadeContas)]);
+    }
+
+    @Benchmark
+    public List<Conta> buscarPorCpfCliente(Aleatorio aleatorio) {
+        return contaRepository.buscarPorCpfCliente(cpfs[aleatorio.indice(quantidadeContas)]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<Conta> buscarPorCpfClienteConcorrente(Aleatorio aleatorio) {
+        return contaRepository.buscarPorCpfCliente(cpfs[aleatorio.indice(quantidadeContas)]);
+    }
+
+    @Benchmark
+    public List<Conta> buscarPorCpfVarredura(Aleatorio aleatorio) {
+        String cpf = cpfs[aleatorio.indice(quantidadeContas)];
+        return todasAsContas.stream()
+                .filter(conta -> conta.getCliente().cpf().equals(cpf))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,91 @@
+package br.com.bancodigital.benchmark;
+
+import br.com.bancodigital.model.Cliente;
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.model.ContaCorrente;
+import br.com.bancodigital.model.Dinheiro;
+import br.com.bancodigital.model.HistoricoTransacoes;
+import br.com.bancodigital.model.TipoTransacao;
+import br.com.bancodigital.model.TotaisPorTipo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Totais de um dia (ex: "quanto esta conta sacou hoje?") pelo resumo mantido
+ * a cada transação (ResumoTransacoes), comparado com percorrer o histórico.
+ * O histórico é espalhado pelos últimos 365 dias.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class ResumoBenchmark {
+
+    private static final int DIAS = 365;
+
+    @Param({"1000", "1000000"})
+    private int tamanhoHistorico;
+
+    private Conta conta;
+    private LocalDate hoje;
+    private YearMonth mesAtual;
+    private long inicioDeHoje;
+    private long fimDeHoje;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        conta = new ContaCorrente(new Cliente("Cliente Resumo", GeradorDeMassa.cpf(0)), "0001", "RESUMO");
+        TipoTransacao[] tipos = {TipoTransacao.DEPOSITO, TipoTransacao.SAQUE, TipoTransacao.PIX_RECEBIDO};
+        long agora = System.currentTimeMillis();
+        long intervalo = TimeUnit.DAYS.toMillis(DIAS) / tamanhoHistorico;
+        for (int i = 0; i < tamanhoHistorico; i++) {
+            long instante = agora - (long) (tamanhoHistorico - 1 - i) * intervalo;
+            conta.restaurarTransacao(instante, tipos[i % tipos.length], Dinheiro.reais(1 + i % 500), "Transação " + i);
+        }
+        hoje = LocalDate.now();
+        mesAtual = YearMonth.now();
+        inicioDeHoje = hoje.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        fimDeHoje = hoje.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    @Benchmark
+    public long saquesDeHojePeloResumo() {
+        return conta.getResumoTransacoes().total(hoje, TipoTransacao.SAQUE);
+    }
+
+    // Como era antes do resumo: percorre o histórico inteiro (pelas colunas, sem criar objetos)
+    @Benchmark
+    public long saquesDeHojePercorrendoHistorico() {
+        HistoricoTransacoes historico = conta.getHistoricoTransacoes();
+        long total = 0;
+        for (int i = 0; i < historico.size(); i++) {
+            long instante = historico.instante(i);
+            if (instante >= inicioDeHoje && instante < fimDeHoje && historico.tipo(i) == TipoTransacao.SAQUE) {
+                total += historico.valor(i);
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public TotaisPorTipo totaisDoMesPeloResumo() {
+        return conta.getResumoTransacoes().doMes(mesAtual);
+    }
+}
@@ -0,0 +1,160 @@
+package br.com.bancodigital.benchmark;
+
+import br.com.bancodigital.model.Dinheiro;
+import br.com.bancodigital.repository.ConcorrenteContaRepository;
+import br.com.bancodigital.repository.ContaRepository;
+import br.com.bancodigital.repository.DuravelContaRepository;
+import br.com.bancodigital.repository.IndicesDeContas;
+import br.com.bancodigital.service.ContaService;
+import br.com.bancodigital.service.MotorSequencial;
+import br.com.bancodigital.service.PixService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latência (p50, p99, p99.9 e máximo, no modo SampleTime do JMH) das transferências e PIX
+ * com travas nas contas (ContaService/PixService) e pelo MotorSequencial (uma thread dona
+ * dos saldos), com 1, 8 e 64 chamadores ao mesmo tempo (cada um espera a sua operação antes
+ * da próxima). Com o repositório durável, cada operação espera o fsync do journal.
+ * Para a latência vista pelos clientes da rede, ver o GeradorDeCarga com
+ * ServidorApp -Dbanco.modo=sequencial.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+@State(Scope.Benchmark)
+public class SequencialBenchmark {
+
+    private static final long SALDO_INICIAL = Dinheiro.reais(1_000_000_000L);
+    private static final long VALOR = Dinheiro.reais(1);
+    private static final int CAPACIDADE = 65_536;
+
+    @Param({"10000"})
+    private int quantidadeContas;
+
+    @Param({"concorrente", "duravel"})
+    private String repositorio;
+
+    @Param({"travas", "sequencial"})
+    private String execucao;
+
+    private Path diretorio;
+    private DuravelContaRepository duravel;
+    private ContaService contaService;
+    private PixService pixService;
+    private MotorSequencial motor;
+    private String[] numeros;
+    private String[] cpfs;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        GeradorDeMassa.silenciarConsole();
+        IndicesDeContas indices = new IndicesDeContas();
+        ContaRepository contas;
+        if (repositorio.equals("duravel")) {
+            diretorio = Files.createTempDirectory("sequencial-benchmark");
+            duravel = DuravelContaRepository.novo(diretorio).indices(indices).construir();
+            contas = duravel;
+        } else {
+            contas = ConcorrenteContaRepository.novo().indices(indices).construir();
+        }
+        GeradorDeMassa.popular(contas, indices, quantidadeContas, SALDO_INICIAL);
+        contaService = new ContaService(contas, indices);
+        pixService = new PixService(contas, indices);
+        motor = switch (execucao) {
+            case "travas" -> null;
+            case "sequencial" -> new MotorSequencial(contas, indices.getChavesPix(), CAPACIDADE);
+            default -> throw new IllegalArgumentException("Execução desconhecida: " + execucao);
+        };
+        numeros = GeradorDeMassa.numerosConta(quantidadeContas);
+        cpfs = GeradorDeMassa.cpfs(quantidadeContas);
+    }
+
+    @TearDown(Level.Trial)
+    public void finalizar() throws IOException {
+        if (motor != null) {
+            motor.close();
+        }
+        if (duravel != null) {
+            duravel.close();
+            try (var arquivos = Files.walk(diretorio)) {
+                for (Path arquivo : arquivos.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(arquivo);
+                }
+            }
+        }
+        GeradorDeMassa.restaurarConsole();
+    }
+
+    private boolean transferir(Aleatorio aleatorio) {
+        int origem = aleatorio.indice(quantidadeContas);
+        int destino = aleatorio.outroIndice(quantidadeContas, origem);
+        if (motor == null) {
+            return contaService.transferir(numeros[origem], numeros[destino], VALOR);
+        }
+        return motor.transferir(numeros[origem], numeros[destino], VALOR).join().sucesso();
+    }
+
+    private boolean realizarPix(Aleatorio aleatorio) {
+        int origem = aleatorio.indice(quantidadeContas);
+        int destino = aleatorio.outroIndice(quantidadeContas, origem);
+        if (motor == null) {
+            return pixService.realizarPix(numeros[origem], cpfs[destino], VALOR);
+        }
+        return motor.realizarPix(numeros[origem], cpfs[destino], VALOR).join().sucesso();
+    }
+
+    @Benchmark
+    public boolean transferir1(Aleatorio aleatorio) {
+        return transferir(aleatorio);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean transferir8(Aleatorio aleatorio) {
+        return transferir(aleatorio);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public boolean transferir64(Aleatorio aleatorio) {
+        return transferir(aleatorio);
+    }
+
+    @Benchmark
+    public boolean realizarPix1(Aleatorio aleatorio) {
+        return realizarPix(aleatorio);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean realizarPix8(Aleatorio aleatorio) {
+        return realizarPix(aleatorio);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public boolean realizarPix64(Aleatorio aleatorio) {
+        return realizarPix(aleatorio);
+    }
+}
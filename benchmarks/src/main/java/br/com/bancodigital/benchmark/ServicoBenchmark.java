@@ -0,0 +1,105 @@
+package br.com.bancodigital.benchmark;
+
+import br.com.bancodigital.model.Dinheiro;
+import br.com.bancodigital.repository.ConcorrenteContaRepository;
+import br.com.bancodigital.service.ContaService;
+import br.com.bancodigital.service.PixService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Operações dos serviços (depósito, saque, transferência e PIX), com uma thread e com
+ * várias threads disputando as mesmas contas.
+ * As contas começam com saldo alto para que nenhum saque falhe durante a medição.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+@State(Scope.Benchmark)
+public class ServicoBenchmark {
+
+    private static final long SALDO_INICIAL = Dinheiro.reais(1_000_000_000L);
+    private static final long VALOR = Dinheiro.reais(1);
+
+    @Param({"10000", "1000000"})
+    private int quantidadeContas;
+
+    private ContaService contaService;
+    private PixService pixService;
+    private String[] numeros;
+    private String[] cpfs;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        GeradorDeMassa.silenciarConsole();
+        ConcorrenteContaRepository repositorio = ConcorrenteContaRepository.novo().construir();
+        GeradorDeMassa.popular(repositorio, repositorio.getIndices(), quantidadeContas, SALDO_INICIAL);
+        contaService = new ContaService(repositorio, repositorio.getIndices());
+        pixService = new PixService(repositorio, repositorio.getIndices());
+        numeros = GeradorDeMassa.numerosConta(quantidadeContas);
+        cpfs = GeradorDeMassa.cpfs(quantidadeContas);
+    }
+
+    @TearDown(Level.Trial)
+    public void finalizar() {
+        GeradorDeMassa.restaurarConsole();
+    }
+
+    @Benchmark
+    public void depositar(Aleatorio aleatorio) {
+        contaService.depositar(numeros[aleatorio.indice(quantidadeContas)], VALOR);
+    }
+
+    @Benchmark
+    public void sacar(Aleatorio aleatorio) {
+        contaService.sacar(numeros[aleatorio.indice(quantidadeContas)], VALOR);
+    }
+
+    @Benchmark
+    public void transferir(Aleatorio aleatorio) {
+        int origem = aleatorio.indice(quantidadeContas);
+        int destino = aleatorio.outroIndice(quantidadeContas, origem);
+        contaService.transferir(numeros[origem], numeros[destino], VALOR);
+    }
+
+    @Benchmark
+    public void realizarPix(Aleatorio aleatorio) {
+        int origem = aleatorio.indice(quantidadeContas);
+        int destino = aleatorio.outroIndice(quantidadeContas, origem);
+        pixService.realizarPix(numeros[origem], cpfs[destino], VALOR);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void depositarConcorrente(Aleatorio aleatorio) {
+        depositar(aleatorio);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void transferirConcorrente(Aleatorio aleatorio) {
+        transferir(aleatorio);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void realizarPixConcorrente(Aleatorio aleatorio) {
+        realizarPix(aleatorio);
+    }
+}
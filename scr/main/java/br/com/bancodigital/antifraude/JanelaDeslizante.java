@@ -0,0 +1,121 @@
+package br.com.bancodigital.antifraude;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Duration;
+
+/**
+ * Quantidade e soma dos valores registrados numa janela de tempo que desliza
+ * (ex: "a última hora"), sem travas.
+ *
+ * A janela é um anel de baldes (ex: 6 baldes de 10 minutos para uma hora): cada
+ * balde guarda a sua época (instante / largura do balde), a quantidade e a soma.
+ * Ao registrar num balde de uma época antiga, a primeira thread o reivindica com
+ * um CAS e o zera; as demais esperam a época nova aparecer (um instante).
+ * A leitura soma os baldes das últimas 'baldes' épocas: a janela anda de balde
+ * em balde, então "a última hora" é na verdade entre 50 e 60 minutos.
+ *
+ * Os baldes ficam num long[] só, acessado por um VarHandle (sem AtomicLongArray
+ * no meio): com milhares de janelas, cada leitura custa poucas linhas de cache.
+ *
+ * Quantidade e soma não são lidas juntas atomicamente: com registros ao mesmo
+ * tempo, a leitura pode ver um sem o outro (basta para limites antifraude).
+ */
+public final class JanelaDeslizante {
+
+    // Época de um balde que está sendo zerado
+    private static final long ZERANDO = Long.MIN_VALUE;
+
+    private static final int EPOCA = 0;
+    private static final int QUANTIDADE = 1;
+    private static final int VALOR = 2;
+    private static final int CAMPOS = 3;
+
+    private static final VarHandle CELULA = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long larguraBalde;
+    private final int baldes;
+    private final long[] celulas;
+
+    // Época do último registro (para descartar janelas vazias)
+    private volatile long ultimaEpoca = Long.MIN_VALUE;
+
+    /**
+     * @param duracao Tamanho da janela (ex: 1 hora).
+     * @param baldes Em quantas partes a janela é dividida (mais baldes = janela mais precisa, mais memória).
+     */
+    public JanelaDeslizante(Duration duracao, int baldes) {
+        if (baldes <= 0 || duracao.toMillis() < baldes) {
+            throw new IllegalArgumentException("A janela precisa de pelo menos 1 ms por balde.");
+        }
+        this.larguraBalde = duracao.toMillis() / baldes;
+        this.baldes = baldes;
+        this.celulas = new long[baldes * CAMPOS];
+        for (int i = 0; i < baldes; i++) {
+            celulas[i * CAMPOS + EPOCA] = Long.MIN_VALUE + 1;
+        }
+    }
+
+    /**
+     * @param agora Instante do registro, em epoch millis.
+     * @param valor Em centavos.
+     */
+    public void registrar(long agora, long valor) {
+        long epoca = agora / larguraBalde;
+        int balde = (int) (epoca % baldes) * CAMPOS;
+        while (true) {
+            long atual = (long) CELULA.getVolatile(celulas, balde + EPOCA);
+            if (atual == epoca) {
+                break;
+            }
+            if (atual == ZERANDO) {
+                Thread.yield(); // Outra thread está zerando o balde
+            } else if (atual > epoca) {
+                return; // Registro atrasado: o balde já é de uma época mais nova, fora da janela
+            } else if (CELULA.compareAndSet(celulas, balde + EPOCA, atual, ZERANDO)) {
+                CELULA.setVolatile(celulas, balde + QUANTIDADE, 0L);
+                CELULA.setVolatile(celulas, balde + VALOR, 0L);
+                CELULA.setVolatile(celulas, balde + EPOCA, epoca);
+                break;
+            }
+        }
+        CELULA.getAndAdd(celulas, balde + QUANTIDADE, 1L);
+        CELULA.getAndAdd(celulas, balde + VALOR, valor);
+        if (epoca > ultimaEpoca) {
+            ultimaEpoca = epoca;
+        }
+    }
+
+    /**
+     * @return quantos registros houve na janela que termina em 'agora'.
+     */
+    public long quantidade(long agora) {
+        return somar(agora, QUANTIDADE);
+    }
+
+    /**
+     * @return a soma dos valores registrados na janela que termina em 'agora' (centavos).
+     */
+    public long total(long agora) {
+        return somar(agora, VALOR);
+    }
+
+    /**
+     * @return true se nenhum registro cai mais na janela (pode ser descartada).
+     */
+    public boolean vazia(long agora) {
+        return ultimaEpoca <= agora / larguraBalde - baldes;
+    }
+
+    private long somar(long agora, int campo) {
+        long epoca = agora / larguraBalde;
+        long soma = 0;
+        for (int balde = 0; balde < baldes * CAMPOS; balde += CAMPOS) {
+            long epocaDoBalde = (long) CELULA.getVolatile(celulas, balde + EPOCA);
+            if (epocaDoBalde > epoca - baldes && epocaDoBalde <= epoca) {
+                soma += (long) CELULA.getVolatile(celulas, balde + campo);
+            }
+        }
+        return soma;
+    }
+}
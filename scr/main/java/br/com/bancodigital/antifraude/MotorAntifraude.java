@@ -0,0 +1,271 @@
+package br.com.bancodigital.antifraude;
+
+import br.com.bancodigital.evento.EventoBancario;
+import br.com.bancodigital.evento.PublicadorDeEventos;
+import br.com.bancodigital.exception.OperacaoRecusadaException;
+import br.com.bancodigital.model.Dinheiro;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Regras de velocidade para transferências e PIX, conferidas na hora (dentro da operação):
+ * quanto e quantas vezes a conta de origem enviou, o CPF do destino recebeu
+ * e a origem enviou para aquele CPF, no último minuto e na última hora;
+ * e o valor máximo do primeiro envio para um CPF novo.
+ *
+ * Os serviços chamam verificar com a conta de origem travada (antes do débito)
+ * e registrar depois da gravação. Como a origem está travada, os limites da
+ * origem são exatos; os do destino e do par recebem envios de várias origens
+ * ao mesmo tempo e podem passar do limite pelo que estiver em andamento.
+ *
+ * Os contadores são janelas deslizantes sem travas (ver JanelaDeslizante),
+ * criados no primeiro envio de cada origem/destino/par e descartados quando
+ * ficam uma hora sem movimento (ver descartarInativos). Só as dimensões com
+ * algum limite são contadas: um limite novo (ver setRegras) começa a contar
+ * do zero. Os pares já pagos (para a regra do primeiro pagamento) ficam só em memória.
+ *
+ * As regras podem ser trocadas com o banco funcionando (setRegras), inclusive
+ * lidas de novo do arquivo sempre que ele mudar (iniciarRecargaAutomatica).
+ */
+public class MotorAntifraude implements AutoCloseable {
+
+    /**
+     * Não confere nada (padrão dos serviços).
+     */
+    public static final MotorAntifraude DESLIGADO = new MotorAntifraude(RegrasAntifraude.SEM_LIMITES, null, false);
+
+    private static final Duration MINUTO = Duration.ofMinutes(1);
+    private static final Duration HORA = Duration.ofHours(1);
+    private static final int BALDES_POR_JANELA = 6;
+
+    private final boolean ativo;
+    private final Path arquivo;
+    private volatile RegrasAntifraude regras;
+
+    private final Map<String, Contadores> porOrigem = new ConcurrentHashMap<>();
+    private final Map<String, Contadores> porDestino = new ConcurrentHashMap<>();
+    private final Map<String, Contadores> porPar = new ConcurrentHashMap<>();
+    private final Set<String> paresConhecidos = ConcurrentHashMap.newKeySet();
+
+    private FileTime ultimaModificacao;
+    private ScheduledExecutorService recarga;
+
+    public MotorAntifraude(RegrasAntifraude regras) {
+        this(regras, null, true);
+    }
+
+    private MotorAntifraude(RegrasAntifraude regras, Path arquivo, boolean ativo) {
+        this.regras = regras;
+        this.arquivo = arquivo;
+        this.ativo = ativo;
+    }
+
+    /**
+     * Lê as regras do arquivo (ver RegrasAntifraude.carregar), que pode ser relido depois
+     * com recarregar ou iniciarRecargaAutomatica.
+     */
+    public static MotorAntifraude carregar(Path arquivo) throws IOException {
+        FileTime modificacao = Files.getLastModifiedTime(arquivo);
+        MotorAntifraude motor = new MotorAntifraude(RegrasAntifraude.carregar(arquivo), arquivo, true);
+        motor.ultimaModificacao = modificacao;
+        return motor;
+    }
+
+    public boolean isAtivo() {
+        return ativo;
+    }
+
+    public RegrasAntifraude getRegras() {
+        return regras;
+    }
+
+    /**
+     * Troca as regras; vale a partir da próxima verificação (os contadores continuam).
+     */
+    public void setRegras(RegrasAntifraude regras) {
+        if (!ativo) {
+            throw new IllegalStateException("O motor antifraude desligado não tem regras.");
+        }
+        this.regras = regras;
+    }
+
+    // --- Verificação ---
+
+    /**
+     * Confere se a origem pode enviar 'valor' para o CPF, sem registrar o envio.
+     * Chamar com a conta de origem travada.
+     * @throws OperacaoRecusadaException com o nome da regra que recusou.
+     */
+    public void verificar(String numeroOrigem, String cpfDestino, long valor) {
+        RegrasAntifraude atuais = regras;
+        if (!ativo || atuais.semLimite()) {
+            return;
+        }
+        long agora = System.currentTimeMillis();
+        String par = par(numeroOrigem, cpfDestino);
+        if (atuais.primeiroPagamento() > 0 && valor > atuais.primeiroPagamento() && !paresConhecidos.contains(par)) {
+            throw new OperacaoRecusadaException("Primeiro pagamento para este CPF acima do limite de R$ "
+                    + Dinheiro.formatar(atuais.primeiroPagamento()) + ".", "primeiro.pagamento");
+        }
+        conferir("origem", atuais.origem(), porOrigem.get(numeroOrigem), agora, valor);
+        conferir("destino", atuais.destino(), porDestino.get(cpfDestino), agora, valor);
+        conferir("par", atuais.par(), porPar.get(par), agora, valor);
+    }
+
+    /**
+     * Soma um envio concluído aos contadores.
+     */
+    public void registrar(String numeroOrigem, String cpfDestino, long valor) {
+        if (!ativo) {
+            return;
+        }
+        // Só conta as dimensões com limite (cada origem/destino/par contado custa algumas centenas de bytes)
+        RegrasAntifraude atuais = regras;
+        long agora = System.currentTimeMillis();
+        String par = par(numeroOrigem, cpfDestino);
+        if (!atuais.origem().semLimite()) {
+            porOrigem.computeIfAbsent(numeroOrigem, chave -> new Contadores()).registrar(agora, valor);
+        }
+        if (!atuais.destino().semLimite()) {
+            porDestino.computeIfAbsent(cpfDestino, chave -> new Contadores()).registrar(agora, valor);
+        }
+        if (!atuais.par().semLimite()) {
+            porPar.computeIfAbsent(par, chave -> new Contadores()).registrar(agora, valor);
+        }
+        if (atuais.primeiroPagamento() > 0) {
+            paresConhecidos.add(par);
+        }
+    }
+
+    private static void conferir(String dimensao, RegrasAntifraude.Limites limites, Contadores contadores,
+                                 long agora, long valor) {
+        if (limites.semLimite()) {
+            return;
+        }
+        long valorMinuto = valor;
+        long valorHora = valor;
+        long quantidadeMinuto = 1;
+        long quantidadeHora = 1;
+        if (contadores != null) {
+            valorMinuto += contadores.minuto.total(agora);
+            valorHora += contadores.hora.total(agora);
+            quantidadeMinuto += contadores.minuto.quantidade(agora);
+            quantidadeHora += contadores.hora.quantidade(agora);
+        }
+        recusarSeAcima(dimensao, ".valor.minuto", limites.valorPorMinuto(), valorMinuto, true);
+        recusarSeAcima(dimensao, ".valor.hora", limites.valorPorHora(), valorHora, true);
+        recusarSeAcima(dimensao, ".quantidade.minuto", limites.quantidadePorMinuto(), quantidadeMinuto, false);
+        recusarSeAcima(dimensao, ".quantidade.hora", limites.quantidadePorHora(), quantidadeHora, false);
+    }
+
+    // O nome da regra só é montado na recusa (a verificação não cria objetos)
+    private static void recusarSeAcima(String dimensao, String limiteDe, long limite, long comEsteEnvio, boolean dinheiro) {
+        if (limite > 0 && comEsteEnvio > limite) {
+            String regra = dimensao + limiteDe;
+            String textoLimite = dinheiro ? "R$ " + Dinheiro.formatar(limite) : limite + " operações";
+            throw new OperacaoRecusadaException("Operação recusada pela regra antifraude "
+                    + regra + " (limite " + textoLimite + ").", regra);
+        }
+    }
+
+    private static String par(String numeroOrigem, String cpfDestino) {
+        return numeroOrigem + '>' + cpfDestino;
+    }
+
+    /**
+     * Minuto e hora de uma origem, destino ou par.
+     */
+    private static final class Contadores {
+        final JanelaDeslizante minuto = new JanelaDeslizante(MINUTO, BALDES_POR_JANELA);
+        final JanelaDeslizante hora = new JanelaDeslizante(HORA, BALDES_POR_JANELA);
+
+        void registrar(long agora, long valor) {
+            minuto.registrar(agora, valor);
+            hora.registrar(agora, valor);
+        }
+    }
+
+    // --- Manutenção ---
+
+    /**
+     * Descarta os contadores sem movimento na última hora (não mudam nenhuma verificação).
+     * @return quantos foram descartados.
+     */
+    public int descartarInativos() {
+        long agora = System.currentTimeMillis();
+        int antes = porOrigem.size() + porDestino.size() + porPar.size();
+        porOrigem.values().removeIf(contadores -> contadores.hora.vazia(agora));
+        porDestino.values().removeIf(contadores -> contadores.hora.vazia(agora));
+        porPar.values().removeIf(contadores -> contadores.hora.vazia(agora));
+        return antes - (porOrigem.size() + porDestino.size() + porPar.size());
+    }
+
+    /**
+     * Lê o arquivo de novo, se ele mudou desde a última leitura.
+     * Se o arquivo novo for inválido, as regras atuais continuam valendo.
+     * @return true se as regras foram trocadas.
+     * @throws IllegalArgumentException se o arquivo tiver algum valor inválido.
+     */
+    public synchronized boolean recarregar() throws IOException {
+        if (arquivo == null) {
+            throw new IllegalStateException("O motor antifraude não foi carregado de um arquivo.");
+        }
+        FileTime modificacao = Files.getLastModifiedTime(arquivo);
+        if (modificacao.equals(ultimaModificacao)) {
+            return false;
+        }
+        RegrasAntifraude novas = RegrasAntifraude.carregar(arquivo);
+        ultimaModificacao = modificacao;
+        regras = novas;
+        return true;
+    }
+
+    /**
+     * A cada 'intervalo', relê o arquivo se ele mudou e descarta os contadores inativos,
+     * numa thread de fundo.
+     * @param eventos Recebe cada recarga e as falhas de leitura (as regras anteriores continuam valendo).
+     */
+    public synchronized void iniciarRecargaAutomatica(Duration intervalo, PublicadorDeEventos eventos) {
+        if (arquivo == null) {
+            throw new IllegalStateException("O motor antifraude não foi carregado de um arquivo.");
+        }
+        if (recarga != null) {
+            throw new IllegalStateException("A recarga automática já foi iniciada.");
+        }
+        recarga = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "recarga-antifraude");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodo = intervalo.toMillis();
+        recarga.scheduleWithFixedDelay(() -> {
+            try {
+                if (recarregar()) {
+                    eventos.publicar(new EventoBancario.RegrasAntifraudeRecarregadas(arquivo.toString()));
+                }
+            } catch (IOException | RuntimeException e) {
+                eventos.publicar(new EventoBancario.FalhaEmSegundoPlano("Antifraude",
+                        "Regras mantidas; falha ao ler " + arquivo + ": " + e.getMessage()));
+            }
+            descartarInativos();
+        }, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (recarga != null) {
+            recarga.shutdownNow();
+            recarga = null;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package br.com.bancodigital.antifraude;
+
+import br.com.bancodigital.model.Dinheiro;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * Limites do MotorAntifraude, para transferências e PIX. Zero = sem limite.
+ * @param origem O que a conta de origem pode enviar.
+ * @param destino O que o CPF do destino pode receber (somando todas as origens).
+ * @param par O que a origem pode enviar para o mesmo CPF.
+ * @param primeiroPagamento Valor máximo do primeiro envio da origem para um CPF (centavos).
+ */
+public record RegrasAntifraude(Limites origem, Limites destino, Limites par, long primeiroPagamento) {
+
+    public static final RegrasAntifraude SEM_LIMITES =
+            new RegrasAntifraude(Limites.SEM_LIMITE, Limites.SEM_LIMITE, Limites.SEM_LIMITE, 0);
+
+    /**
+     * Limites de uma dimensão, no último minuto e na última hora.
+     * Valores em centavos.
+     */
+    public record Limites(long valorPorMinuto, long valorPorHora, long quantidadePorMinuto, long quantidadePorHora) {
+
+        public static final Limites SEM_LIMITE = new Limites(0, 0, 0, 0);
+
+        public Limites {
+            if (valorPorMinuto < 0 || valorPorHora < 0 || quantidadePorMinuto < 0 || quantidadePorHora < 0) {
+                throw new IllegalArgumentException("Limites não podem ser negativos.");
+            }
+        }
+
+        boolean semLimite() {
+            return valorPorMinuto == 0 && valorPorHora == 0 && quantidadePorMinuto == 0 && quantidadePorHora == 0;
+        }
+    }
+
+    public RegrasAntifraude {
+        if (primeiroPagamento < 0) {
+            throw new IllegalArgumentException("Limites não podem ser negativos.");
+        }
+    }
+
+    boolean semLimite() {
+        return origem.semLimite() && destino.semLimite() && par.semLimite() && primeiroPagamento == 0;
+    }
+
+    /**
+     * Lê as regras de um arquivo de propriedades. Valores em reais (ex: 5000 ou 5000,00),
+     * quantidades inteiras; a propriedade ausente significa sem limite:
+     * <pre>
+     * origem.valor.minuto=5000
+     * origem.valor.hora=20000
+     * origem.quantidade.minuto=10
+     * origem.quantidade.hora=100
+     * destino.valor.hora=50000
+     * par.quantidade.minuto=3
+     * primeiro.pagamento=1000
+     * </pre>
+     * (destino.* e par.* aceitam os mesmos quatro limites que origem.*)
+     * @throws IllegalArgumentException se algum valor for inválido.
+     */
+    public static RegrasAntifraude carregar(Path arquivo) throws IOException {
+        Properties propriedades = new Properties();
+        try (Reader leitor = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+            propriedades.load(leitor);
+        }
+        return de(propriedades);
+    }
+
+    public static RegrasAntifraude de(Properties propriedades) {
+        return new RegrasAntifraude(limites(propriedades, "origem"), limites(propriedades, "destino"),
+                limites(propriedades, "par"), valor(propriedades, "primeiro.pagamento"));
+    }
+
+    private static Limites limites(Properties propriedades, String dimensao) {
+        return new Limites(valor(propriedades, dimensao + ".valor.minuto"), valor(propriedades, dimensao + ".valor.hora"),
+                quantidade(propriedades, dimensao + ".quantidade.minuto"),
+                quantidade(propriedades, dimensao + ".quantidade.hora"));
+    }
+
+    private static long valor(Properties propriedades, String nome) {
+        String texto = propriedades.getProperty(nome);
+        try {
+            return texto == null || texto.isBlank() ? 0 : Dinheiro.deTexto(texto);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valor inválido em " + nome + ": " + texto);
+        }
+    }
+
+    private static long quantidade(Properties propriedades, String nome) {
+        String texto = propriedades.getProperty(nome);
+        try {
+            return texto == null || texto.isBlank() ? 0 : Long.parseLong(texto.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Quantidade inválida em " + nome + ": " + texto);
+        }
+    }
+}
@@ -1,30 +1,88 @@
 package br.com.bancodigital.app;
 
+import br.com.bancodigital.antifraude.MotorAntifraude;
+import br.com.bancodigital.evento.PublicadorAssincrono;
+import br.com.bancodigital.evento.PublicadorAssincrono.PoliticaFilaCheia;
+import br.com.bancodigital.evento.RenderizadorConsole;
 import br.com.bancodigital.exception.ContaException;
+import br.com.bancodigital.exception.OperacaoRecusadaException;
 import br.com.bancodigital.exception.SaldoInsuficienteException;
+import br.com.bancodigital.metrica.Metricas;
+import br.com.bancodigital.model.ChavePix;
 import br.com.bancodigital.model.Cliente;
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.model.Dinheiro;
+import br.com.bancodigital.model.FiltroExtrato;
+import br.com.bancodigital.model.PaginaExtrato;
+import br.com.bancodigital.model.TipoChavePix;
+import br.com.bancodigital.model.Transacao;
 import br.com.bancodigital.repository.ContaRepository;
+import br.com.bancodigital.repository.DuravelContaRepository;
+import br.com.bancodigital.repository.IndicesDeContas;
+import br.com.bancodigital.repository.MedidoContaRepository;
 import br.com.bancodigital.repository.MemoriaContaRepository;
+import br.com.bancodigital.service.ConciliacaoService;
 import br.com.bancodigital.service.ContaService;
+import br.com.bancodigital.service.Dependencias;
 import br.com.bancodigital.service.PixService;
+import br.com.bancodigital.service.RelatorioConciliacao;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
 import java.util.Scanner;
 
 public class BancoApp {
 
     // --- Configuração das Dependências ---
     // Instanciamos as implementações concretas aqui, na "camada" principal.
+
+    // 0. Os eventos: as mensagens das operações são escritas no console
+    // por uma thread à parte (os serviços só publicam os eventos)
+    private static final PublicadorAssincrono eventos = criarPublicadorDeEventos();
+
+    // Com -Dbanco.metricas=<arquivo> as métricas das operações são exportadas
+    // para o arquivo a cada 10 segundos (e ao sair); sem a propriedade, ficam desligadas.
+    private static final String ARQUIVO_METRICAS = System.getProperty("banco.metricas");
+    private static final Metricas metricas = criarMetricas();
     
     // 1. O Repositório (dados)
-    private static final ContaRepository contaRepository = new MemoriaContaRepository();
+    // Com -Dbanco.dados=<diretório> os dados são gravados em disco (journal, com um snapshot
+    // a cada -Dbanco.snapshot.minutos, padrão 10); sem a propriedade, ficam só em memória.
+    // Os índices (clientes, chaves PIX, totais e idempotência) são mantidos pelo repositório
+    // e usados pelos serviços
+    private static final IndicesDeContas indices = new IndicesDeContas();
+    private static final ContaRepository repositorioBase = criarRepositorio();
+    private static final ContaRepository contaRepository = metricas.isAtivas()
+            ? new MedidoContaRepository(repositorioBase, metricas)
+            : repositorioBase;
     
+    // Com -Dbanco.antifraude=<arquivo> transferências e PIX passam pelas regras do arquivo
+    // (relido sempre que mudar); sem a propriedade, não há limites.
+    private static final MotorAntifraude antifraude = criarAntifraude();
+
     // 2. Os Serviços (regras de negócio), que *usam* o repositório
-    private static final ContaService contaService = new ContaService(contaRepository);
-    private static final PixService pixService = new PixService(contaRepository);
+    private static final Dependencias dependencias = Dependencias.novas()
+            .eventos(eventos)
+            .metricas(metricas)
+            .antifraude(antifraude)
+            .construir();
+    private static final ContaService contaService = new ContaService(contaRepository, indices, dependencias);
+    private static final PixService pixService = new PixService(contaRepository, indices, dependencias);
+    private static final ConciliacaoService conciliacaoService = new ConciliacaoService(contaRepository);
     
     // 3. O utilitário para ler a entrada do console
     private static final Scanner scanner = new Scanner(System.in);
 
+    private static final int TAMANHO_PAGINA_EXTRATO = 20;
+    private static final DateTimeFormatter FORMATO_DATA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
     
     /**
      * Ponto de entrada principal da aplicação.
@@ -62,6 +120,12 @@ public class BancoApp {
                 case "7":
                     exibirExtrato();
                     break;
+                case "8":
+                    cadastrarChavePix();
+                    break;
+                case "9":
+                    conciliar();
+                    break;
                 case "0":
                     executando = false;
                     break;
@@ -69,6 +133,9 @@ public class BancoApp {
                     System.out.println("Opção inválida. Tente novamente.");
             }
             
+            // Mostra as mensagens da operação antes de seguir
+            eventos.aguardarEntrega();
+
             if (executando) {
                 lerString("\nPressione ENTER para continuar...");
             }
@@ -76,6 +143,72 @@ public class BancoApp {
 
         System.out.println("\nObrigado por usar o Banco Digital. Até logo!");
         scanner.close(); // Fecha o Scanner ao sair
+
+        if (repositorioBase instanceof AutoCloseable repositorio) {
+            try {
+                repositorio.close(); // Grava o que estiver pendente no journal
+            } catch (Exception e) {
+                System.out.println("Erro ao fechar o repositório: " + e.getMessage());
+            }
+        }
+        eventos.close();
+        antifraude.close();
+
+        if (metricas.isAtivas()) {
+            metricas.close();
+            try {
+                metricas.exportar(Path.of(ARQUIVO_METRICAS));
+            } catch (IOException e) {
+                System.out.println("Erro ao exportar as métricas: " + e.getMessage());
+            }
+        }
+    }
+
+    private static Metricas criarMetricas() {
+        if (ARQUIVO_METRICAS == null || ARQUIVO_METRICAS.isBlank()) {
+            return Metricas.DESLIGADAS;
+        }
+        Metricas novas = new Metricas();
+        novas.iniciarExportacaoPeriodica(Path.of(ARQUIVO_METRICAS), Duration.ofSeconds(10), eventos);
+        return novas;
+    }
+
+    private static MotorAntifraude criarAntifraude() {
+        String arquivo = System.getProperty("banco.antifraude");
+        if (arquivo == null || arquivo.isBlank()) {
+            return MotorAntifraude.DESLIGADO;
+        }
+        try {
+            MotorAntifraude motor = MotorAntifraude.carregar(Path.of(arquivo));
+            motor.iniciarRecargaAutomatica(Duration.ofSeconds(5), eventos);
+            return motor;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível ler as regras antifraude de " + arquivo, e);
+        }
+    }
+
+    private static PublicadorAssincrono criarPublicadorDeEventos() {
+        // BLOQUEAR: no console nenhuma mensagem pode ser perdida
+        PublicadorAssincrono publicador = new PublicadorAssincrono(1024, PoliticaFilaCheia.BLOQUEAR);
+        publicador.adicionarOuvinte(new RenderizadorConsole(System.out));
+        return publicador;
+    }
+
+    private static ContaRepository criarRepositorio() {
+        String diretorio = System.getProperty("banco.dados");
+        if (diretorio == null || diretorio.isBlank()) {
+            return MemoriaContaRepository.novo().eventos(eventos).indices(indices).construir();
+        }
+        try {
+            DuravelContaRepository duravel = DuravelContaRepository.novo(Path.of(diretorio))
+                    .indices(indices)
+                    .eventos(eventos)
+                    .construir();
+            duravel.iniciarSnapshotsPeriodicos(Duration.ofMinutes(Long.getLong("banco.snapshot.minutos", 10)));
+            return duravel;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível abrir os dados em " + diretorio, e);
+        }
     }
 
     private static void exibirMenuPrincipal() {
@@ -85,8 +218,10 @@ public class BancoApp {
         System.out.println("3. Depositar");
         System.out.println("4. Sacar");
         System.out.println("5. Transferir (entre contas do banco)");
-        System.out.println("6. Realizar PIX (por CPF)");
+        System.out.println("6. Realizar PIX");
         System.out.println("7. Exibir Extrato");
+        System.out.println("8. Cadastrar Chave PIX");
+        System.out.println("9. Conciliação (fechamento do dia)");
         System.out.println("0. Sair");
     }
 
@@ -136,7 +271,7 @@ public class BancoApp {
         System.out.println("\n--- Realizar Depósito ---");
         try {
             String numeroConta = lerString("Número da Conta: ");
-            double valor = lerDouble("Valor do Depósito: ");
+            long valor = lerValor("Valor do Depósito: ");
             
             contaService.depositar(numeroConta, valor);
             // Mensagem de sucesso já é impressa pelo model/service
@@ -152,7 +287,7 @@ public class BancoApp {
         System.out.println("\n--- Realizar Saque ---");
         try {
             String numeroConta = lerString("Número da Conta: ");
-            double valor = lerDouble("Valor do Saque: ");
+            long valor = lerValor("Valor do Saque: ");
             
             contaService.sacar(numeroConta, valor);
             // Mensagem de sucesso já é impressa pelo model/service
@@ -164,12 +299,21 @@ public class BancoApp {
         }
     }
 
+    private static void conciliar() {
+        System.out.println("\n--- Conciliação ---");
+        // Com um núcleo só, o fork/join não ajuda: roda na thread atual
+        RelatorioConciliacao relatorio = Runtime.getRuntime().availableProcessors() > 1
+                ? conciliacaoService.conciliar()
+                : conciliacaoService.conciliarSequencial();
+        System.out.print(relatorio);
+    }
+
     private static void transferir() {
         System.out.println("\n--- Realizar Transferência ---");
         try {
             String numContaOrigem = lerString("Número da Conta de Origem: ");
             String numContaDestino = lerString("Número da Conta de Destino: ");
-            double valor = lerDouble("Valor da Transferência: ");
+            long valor = lerValor("Valor da Transferência: ");
 
             contaService.transferir(numContaOrigem, numContaDestino, valor);
             // Mensagem de sucesso/falha já é impressa pelo model/service
@@ -177,23 +321,56 @@ public class BancoApp {
         } catch (ContaException | SaldoInsuficienteException e) {
             // A exceção de saldo é pega aqui se o 'sacar' falhar
             System.out.println("Erro na transferência: " + e.getMessage());
+        } catch (OperacaoRecusadaException e) {
+            // A recusa já foi impressa (evento TransferenciaRecusada)
         } catch (Exception e) {
             System.out.println("Erro inesperado: " + e.getMessage());
         }
     }
 
     private static void realizarPix() {
-        System.out.println("\n--- Realizar PIX (por CPF) ---");
+        System.out.println("\n--- Realizar PIX ---");
         try {
             String numContaOrigem = lerString("Número da Conta de Origem: ");
-            String cpfDestino = lerString("CPF (Chave PIX) de Destino: ");
-            double valor = lerDouble("Valor do PIX: ");
+            String chaveDestino = lerString("Chave PIX de Destino (CPF, e-mail, +telefone ou aleatória): ");
+            long valor = lerValor("Valor do PIX: ");
 
-            pixService.realizarPix(numContaOrigem, cpfDestino, valor);
+            pixService.realizarPix(numContaOrigem, chaveDestino, valor);
             // Mensagem de sucesso/falha já é impressa pelo model/service
 
         } catch (ContaException | SaldoInsuficienteException e) {
             System.out.println("Erro no PIX: " + e.getMessage());
+        } catch (OperacaoRecusadaException e) {
+            // A recusa já foi impressa (evento PixRecusado)
+        } catch (Exception e) {
+            System.out.println("Erro inesperado: " + e.getMessage());
+        }
+    }
+
+    private static void cadastrarChavePix() {
+        System.out.println("\n--- Cadastrar Chave PIX ---");
+        try {
+            String numeroConta = lerString("Número da Conta: ");
+            contaService.buscarContaPorNumero(numeroConta); // Falha logo se a conta não existe
+            List<ChavePix> chaves = pixService.listarChaves(numeroConta);
+            System.out.println(chaves.isEmpty() ? "A conta ainda não tem chaves." : "Chaves atuais: " + chaves);
+
+            System.out.println("1. CPF  2. E-mail  3. Telefone  4. Aleatória");
+            TipoChavePix tipo = switch (lerString("Tipo da chave: ")) {
+                case "1" -> TipoChavePix.CPF;
+                case "2" -> TipoChavePix.EMAIL;
+                case "3" -> TipoChavePix.TELEFONE;
+                case "4" -> TipoChavePix.ALEATORIA;
+                default -> throw new ContaException("Tipo de chave inválido.");
+            };
+            String valor = tipo == TipoChavePix.ALEATORIA ? null
+                    : lerString(tipo == TipoChavePix.TELEFONE ? "Telefone (ex: +5511999998888): " : tipo.getDescricao() + ": ");
+
+            pixService.registrarChave(numeroConta, tipo, valor);
+            // Mensagem de sucesso já é impressa pelo service
+
+        } catch (ContaException e) {
+            System.out.println("Erro ao cadastrar chave: " + e.getMessage());
         } catch (Exception e) {
             System.out.println("Erro inesperado: " + e.getMessage());
         }
@@ -203,8 +380,47 @@ public class BancoApp {
         System.out.println("\n--- Exibir Extrato ---");
          try {
             String numeroConta = lerString("Número da Conta: ");
-            contaService.exibirExtrato(numeroConta);
-            
+            Conta conta = contaService.buscarContaPorNumero(numeroConta);
+
+            // Filtro opcional por período (ENTER = sem filtro)
+            LocalDate inicio = lerDataOpcional("Data inicial (dd/MM/aaaa, ENTER para todas): ");
+            LocalDate fim = lerDataOpcional("Data final (dd/MM/aaaa, ENTER para todas): ");
+            FiltroExtrato filtro = FiltroExtrato.todos().comPeriodo(
+                    inicio == null ? null : inicio.atStartOfDay(),
+                    fim == null ? null : fim.atTime(LocalTime.MAX));
+
+            System.out.println("--- Extrato da Conta ---");
+            System.out.println("Cliente: " + conta.getCliente().nome());
+            System.out.println("Agência: " + conta.getAgencia());
+            System.out.println("Número: " + conta.getNumero());
+            System.out.println("--------------------------------------------------------------------------");
+            System.out.println("Histórico de Transações:");
+
+            // Mostra o extrato página por página (nunca carrega o histórico inteiro)
+            boolean algumaTransacao = false;
+            int cursor = PaginaExtrato.INICIO;
+            while (true) {
+                PaginaExtrato pagina = contaService.consultarExtrato(numeroConta, filtro, cursor, TAMANHO_PAGINA_EXTRATO);
+                for (Transacao t : pagina.transacoes()) {
+                    System.out.println(t);
+                    algumaTransacao = true;
+                }
+                if (!pagina.temMais()) {
+                    break;
+                }
+                if (!lerString("-- ENTER para continuar, 0 para parar: ").isEmpty()) {
+                    break;
+                }
+                cursor = pagina.proximoCursor();
+            }
+            if (!algumaTransacao) {
+                System.out.println("(Nenhuma transação registrada)");
+            }
+
+            System.out.println("--------------------------------------------------------------------------");
+            System.out.println("SALDO ATUAL: R$ " + Dinheiro.formatar(contaService.consultarSaldo(conta.getNumero())));
+            System.out.println("--------------------------------------------------------------------------");
+
         } catch (ContaException e) {
             System.out.println("Erro ao exibir extrato: " + e.getMessage());
         } catch (Exception e) {
@@ -224,14 +440,32 @@ public class BancoApp {
     }
 
     /**
-     * Lê um valor double do console, tratando erros de formato.
+     * Lê uma data (dd/MM/aaaa) do console; ENTER vazio retorna null.
+     */
+    private static LocalDate lerDataOpcional(String prompt) {
+        while (true) {
+            String input = lerString(prompt).trim();
+            if (input.isEmpty()) {
+                return null;
+            }
+            try {
+                return LocalDate.parse(input, FORMATO_DATA);
+            } catch (DateTimeParseException e) {
+                System.out.println("Data inválida. Use o formato dd/MM/aaaa (ex: 31/01/2024).");
+            }
+        }
+    }
+
+    /**
+     * Lê um valor em dinheiro do console (convertido para centavos),
+     * tratando erros de formato.
      */
-    private static double lerDouble(String prompt) {
+    private static long lerValor(String prompt) {
         while (true) {
             String input = lerString(prompt);
             try {
-                // Tenta converter a string lida para double
-                double valor = Double.parseDouble(input);
+                // Tenta converter a string lida para centavos (ex: "50.75" -> 5075)
+                long valor = Dinheiro.deTexto(input);
                 if (valor <= 0) {
                      System.out.println("Valor deve ser positivo. Tente novamente.");
                 } else {
@@ -0,0 +1,171 @@
+package br.com.bancodigital.app;
+
+import br.com.bancodigital.antifraude.MotorAntifraude;
+import br.com.bancodigital.evento.PublicadorAssincrono;
+import br.com.bancodigital.evento.PublicadorAssincrono.PoliticaFilaCheia;
+import br.com.bancodigital.evento.RenderizadorConsole;
+import br.com.bancodigital.metrica.Metricas;
+import br.com.bancodigital.repository.ConcorrenteContaRepository;
+import br.com.bancodigital.repository.ContaRepository;
+import br.com.bancodigital.repository.DuravelContaRepository;
+import br.com.bancodigital.repository.IndicesDeContas;
+import br.com.bancodigital.repository.MedidoContaRepository;
+import br.com.bancodigital.service.AgendadorDeEncargos;
+import br.com.bancodigital.service.ContaService;
+import br.com.bancodigital.service.Dependencias;
+import br.com.bancodigital.service.MotorSequencial;
+import br.com.bancodigital.service.PixService;
+import br.com.bancodigital.service.PoliticaDeEncargos;
+import br.com.bancodigital.servidor.InterpretadorDeComandos;
+import br.com.bancodigital.servidor.ServidorBanco;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Ponto de entrada do banco em rede (alternativa ao menu do BancoApp, que atende uma pessoa só).
+ * Uso: ServidorApp [porta]   (padrão: 7070)
+ *
+ * Aceita as mesmas propriedades do BancoApp:
+ * -Dbanco.dados=<diretório> (journal em disco) e -Dbanco.metricas=<arquivo>.
+ * Com o journal, um snapshot é gravado a cada -Dbanco.snapshot.minutos (padrão: 10).
+ * Com -Dbanco.antifraude=<arquivo>, transferências e PIX passam pelas regras do arquivo
+ * (ver RegrasAntifraude), relido sempre que mudar.
+ * Com -Dbanco.encargos=true, cobra os encargos do mês anterior (rendimento, tarifa e juros)
+ * assim que o mês vira, sem parar o atendimento (ver AgendadorDeEncargos).
+ * Com -Dbanco.porta.interna=<porta>, o servidor também atende o coordenador das partições
+ * (BancoParticionado.conectar) nessa porta, a única que aceita DEBITAR, CREDITAR e ESTORNAR.
+ * Ela só escuta em 127.0.0.1, a não ser que -Dbanco.endereco.interno=<ip> informe o IP da
+ * rede interna (a porta interna nunca deve ficar acessível aos clientes).
+ * Com -Dbanco.modo=sequencial, depósitos, saques, transferências e PIX passam pelo
+ * MotorSequencial (uma thread dona dos saldos, sem travas) em vez do ContaService/PixService;
+ * como todo o dinheiro tem de passar pelo motor, não combina com a porta interna nem com os encargos.
+ * Para gerar carga: GeradorDeCarga [host] [porta] [conexoes] [segundos] [contas].
+ */
+public class ServidorApp {
+
+    private static final int PORTA_PADRAO = 7070;
+    private static final int CAPACIDADE_MOTOR = 65_536;
+
+    public static void main(String[] args) throws IOException {
+        int porta = args.length > 0 ? Integer.parseInt(args[0]) : PORTA_PADRAO;
+        boolean sequencial = "sequencial".equalsIgnoreCase(System.getProperty("banco.modo"));
+        if (sequencial && (Integer.getInteger("banco.porta.interna") != null || Boolean.getBoolean("banco.encargos"))) {
+            throw new IllegalArgumentException(
+                    "-Dbanco.modo=sequencial não combina com -Dbanco.porta.interna nem com -Dbanco.encargos.");
+        }
+
+        // Só os avisos da infraestrutura vão para o console (recuperação, snapshots, falhas em segundo plano);
+        // DESCARTAR: uma rajada de erros de conexão não pode segurar as threads que atendem
+        PublicadorAssincrono avisos = new PublicadorAssincrono(1024, PoliticaFilaCheia.DESCARTAR);
+        avisos.adicionarOuvinte(new RenderizadorConsole(System.out));
+
+        // Várias conexões ao mesmo tempo: o repositório precisa ser seguro para várias threads
+        // (os índices de clientes, chaves PIX, totais e idempotência são mantidos por ele e usados pelos serviços)
+        String diretorio = System.getProperty("banco.dados");
+        IndicesDeContas indices = new IndicesDeContas();
+        ContaRepository repositorioBase;
+        if (diretorio == null || diretorio.isBlank()) {
+            repositorioBase = ConcorrenteContaRepository.novo().indices(indices).construir();
+        } else {
+            DuravelContaRepository duravel = DuravelContaRepository.novo(Path.of(diretorio))
+                    .indices(indices)
+                    .eventos(avisos)
+                    .construir();
+            // Snapshots periódicos: o journal é apagado até o último snapshot (senão cresce sem limite
+            // e a recuperação reaplica tudo desde a primeira execução)
+            duravel.iniciarSnapshotsPeriodicos(Duration.ofMinutes(Long.getLong("banco.snapshot.minutos", 10)));
+            repositorioBase = duravel;
+        }
+
+        String arquivoMetricas = System.getProperty("banco.metricas");
+        Metricas metricas = Metricas.DESLIGADAS;
+        ContaRepository contaRepository = repositorioBase;
+        if (arquivoMetricas != null && !arquivoMetricas.isBlank()) {
+            metricas = new Metricas();
+            metricas.iniciarExportacaoPeriodica(Path.of(arquivoMetricas), Duration.ofSeconds(10), avisos);
+            contaRepository = new MedidoContaRepository(repositorioBase, metricas);
+        }
+
+        String arquivoAntifraude = System.getProperty("banco.antifraude");
+        MotorAntifraude antifraude = MotorAntifraude.DESLIGADO;
+        if (arquivoAntifraude != null && !arquivoAntifraude.isBlank()) {
+            antifraude = MotorAntifraude.carregar(Path.of(arquivoAntifraude));
+            antifraude.iniciarRecargaAutomatica(Duration.ofSeconds(5), avisos);
+        }
+
+        // Sem os eventos das operações no console: com milhares de clientes, as mensagens só atrapalhariam
+        Dependencias dependencias = Dependencias.novas()
+                .metricas(metricas)
+                .antifraude(antifraude)
+                .construir();
+        ContaService contaService = new ContaService(contaRepository, indices, dependencias);
+        PixService pixService = new PixService(contaRepository, indices, dependencias);
+
+        // O progresso dos encargos fica junto com o journal, para continuar depois de uma queda
+        AgendadorDeEncargos encargos = null;
+        if (Boolean.getBoolean("banco.encargos")) {
+            encargos = new AgendadorDeEncargos(contaRepository, PoliticaDeEncargos.PADRAO,
+                    (diretorio == null || diretorio.isBlank()) ? null : Path.of(diretorio),
+                    Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+            encargos.iniciarAgendamentoMensal(Duration.ofHours(1), avisos);
+        }
+
+        MotorSequencial motor = null;
+        InterpretadorDeComandos interpretador = new InterpretadorDeComandos(contaService, pixService);
+        if (sequencial) {
+            motor = new MotorSequencial(contaRepository, indices.getChavesPix(), CAPACIDADE_MOTOR,
+                    Dependencias.novas().eventos(avisos).antifraude(antifraude).construir());
+            interpretador = new InterpretadorDeComandos(contaService, pixService, motor);
+        }
+
+        ServidorBanco servidor = new ServidorBanco(porta, interpretador, avisos);
+        System.out.println("=== BANCO DIGITAL: servidor ouvindo na porta " + servidor.getPorta()
+                + (sequencial ? " (modo sequencial)" : "") + " ===");
+
+        // Porta do coordenador das partições: as pernas das sagas movem dinheiro de uma conta só
+        Integer portaInterna = Integer.getInteger("banco.porta.interna");
+        ServidorBanco interno = null;
+        if (portaInterna != null) {
+            InetSocketAddress endereco = new InetSocketAddress(
+                    System.getProperty("banco.endereco.interno", "127.0.0.1"), portaInterna);
+            interno = new ServidorBanco(endereco, InterpretadorDeComandos.interno(contaService, pixService), avisos);
+            System.out.println("=== Porta interna (coordenador das partições): " + endereco.getHostString()
+                    + ":" + interno.getPorta() + " ===");
+        }
+
+        // Ctrl+C: fecha as conexões, grava o que estiver pendente e exporta as métricas
+        Metricas metricasFinais = metricas;
+        AgendadorDeEncargos encargosFinais = encargos;
+        ServidorBanco internoFinal = interno;
+        MotorSequencial motorFinal = motor;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                servidor.close();
+                if (internoFinal != null) {
+                    internoFinal.close();
+                }
+                if (motorFinal != null) {
+                    motorFinal.close(); // Processa o que já foi enviado antes de fechar o repositório
+                }
+                if (encargosFinais != null) {
+                    encargosFinais.close();
+                }
+                if (repositorioBase instanceof AutoCloseable repositorio) {
+                    repositorio.close();
+                }
+                if (metricasFinais.isAtivas()) {
+                    metricasFinais.close();
+                    metricasFinais.exportar(Path.of(arquivoMetricas));
+                }
+                avisos.close();
+            } catch (Exception e) {
+                System.out.println("Erro ao encerrar o servidor: " + e.getMessage());
+            }
+            long requisicoes = servidor.getRequisicoes() + (internoFinal == null ? 0 : internoFinal.getRequisicoes());
+            System.out.println("Servidor encerrado após " + requisicoes + " requisições.");
+        }));
+    }
+}
@@ -0,0 +1,89 @@
+package br.com.bancodigital.evento;
+
+/**
+ * Eventos emitidos pelos serviços e repositórios (no lugar das mensagens
+ * impressas direto no console). Cada evento é um record imutável com os
+ * dados da operação; quem decide como exibi-los (ou gravá-los) são os
+ * ouvintes, por exemplo o RenderizadorConsole.
+ * Todos os valores e saldos são em centavos (ver Dinheiro).
+ */
+public sealed interface EventoBancario {
+
+    /**
+     * @param tipoConta "Corrente" ou "Poupança".
+     */
+    record ContaCriada(String numeroConta, String tipoConta, String nomeCliente) implements EventoBancario {
+    }
+
+    record ContaSalva(String numeroConta) implements EventoBancario {
+    }
+
+    record DepositoRealizado(String numeroConta, long valor, long saldo) implements EventoBancario {
+    }
+
+    record SaqueRealizado(String numeroConta, long valor, long saldo) implements EventoBancario {
+    }
+
+    record SaqueRecusado(String numeroConta, long valor, String motivo) implements EventoBancario {
+    }
+
+    record TransferenciaRealizada(String numeroContaOrigem, String numeroContaDestino, long valor)
+            implements EventoBancario {
+    }
+
+    record TransferenciaRecusada(String numeroContaOrigem, String numeroContaDestino, long valor, String motivo)
+            implements EventoBancario {
+    }
+
+    record PixRealizado(String numeroContaOrigem, String nomeOrigem, String nomeDestino, long valor)
+            implements EventoBancario {
+    }
+
+    record PixRecusado(String numeroContaOrigem, String nomeOrigem, String nomeDestino, long valor, String motivo)
+            implements EventoBancario {
+    }
+
+    /**
+     * @param chave A chave no formato de exibição (ex: "E-mail ana@exemplo.com").
+     */
+    record ChavePixRegistrada(String numeroConta, String chave) implements EventoBancario {
+    }
+
+    record ChavePixRemovida(String chave) implements EventoBancario {
+    }
+
+    record LoteProcessado(int operacoes, long sucessos) implements EventoBancario {
+    }
+
+    /**
+     * O DuravelContaRepository carregou o snapshot e reaplicou o journal.
+     */
+    record DadosRecuperados(int contas, long entradasReaplicadas, long milissegundos) implements EventoBancario {
+    }
+
+    /**
+     * Bytes de uma gravação interrompida (ex: queda antes do fsync) descartados do final do journal.
+     */
+    record JournalTruncado(String arquivo, long bytesDescartados) implements EventoBancario {
+    }
+
+    record SnapshotGravado(long contas, long milissegundos) implements EventoBancario {
+    }
+
+    record RegrasAntifraudeRecarregadas(String arquivo) implements EventoBancario {
+    }
+
+    /**
+     * @param relatorio O RelatorioEncargos da execução, já formatado.
+     */
+    record EncargosAplicados(String competencia, String relatorio) implements EventoBancario {
+    }
+
+    /**
+     * Uma tarefa de fundo falhou e seguiu em frente (ex: snapshot periódico, conexão
+     * do servidor, ouvinte do motor): não há quem receba a exceção.
+     * @param componente Quem falhou (ex: "Repo", "Servidor").
+     */
+    record FalhaEmSegundoPlano(String componente, String mensagem) implements EventoBancario {
+    }
+}
@@ -0,0 +1,310 @@
+package br.com.bancodigital.evento;
+
+import br.com.bancodigital.exception.TransacoesPerdidasException;
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.model.HistoricoTransacoes;
+import br.com.bancodigital.model.TipoTransacao;
+import br.com.bancodigital.model.Transacao;
+
+import java.lang.invoke.VarHandle;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fluxo (java.util.concurrent.Flow) das transações registradas pelo ContaService e pelo
+ * PixService, para quem precisa de cada lançamento (extratos, notificações, data warehouse)
+ * sem consultar as contas inteiras.
+ *
+ * - Cada transação recebe uma sequência global (0, 1, 2...) e é copiada para um buffer
+ *   circular pré-alocado, em colunas (como no HistoricoTransacoes): publicar não cria objetos
+ *   e nunca espera os assinantes. Várias threads publicam ao mesmo tempo: cada uma reserva
+ *   a sua sequência e grava a sua posição.
+ * - Cada assinante tem uma thread de entrega e um cursor próprios, e só recebe o que pediu
+ *   (request(n)): um assinante lento não atrasa os outros, nem as operações.
+ * - subscribe() entrega só as transações novas; assinar(assinante, sequencia) reentrega a
+ *   partir de uma sequência que ainda esteja no buffer (ex: a última processada + 1,
+ *   depois de reiniciar o consumidor).
+ * - Um assinante que fica mais de "capacidade" transações para trás perde as que não leu
+ *   (foram sobrescritas): recebe onError(TransacoesPerdidasException) e pode assinar de novo.
+ *
+ * Os objetos Transacao só são montados na thread de entrega. Quem publica não acorda os
+ * assinantes: sem transações novas, cada thread de entrega confere o buffer a cada 0,1 ms.
+ *
+ * Só passam pelo fluxo as transações do ContaService e do PixService (inclusive as enviadas
+ * pelo ProcessadorAssincrono); ProcessadorEmLote, MotorSequencial e AgendadorDeEncargos
+ * registram direto nas contas. Não publique concorrentemente com o close().
+ */
+public class FluxoDeTransacoes implements PublicadorDeTransacoes, Flow.Publisher<TransacaoPublicada>, AutoCloseable {
+
+    private static final long VAZIA = -1;
+    private static final long EM_ESCRITA = -2;
+    private static final long ESPERA_SEM_TRANSACOES_NS = 100_000;
+    private static final TipoTransacao[] TIPOS = TipoTransacao.values();
+
+    // Bit alto do tipo: o detalhe já é a descrição completa (como no HistoricoTransacoes)
+    private static final byte DESCRICAO_COMPLETA = (byte) 0x80;
+
+    private final int capacidade;
+    private final int mascara;
+
+    // Sequência gravada em cada posição (VAZIA, ou EM_ESCRITA enquanto a posição é sobrescrita)
+    private final AtomicLongArray sequencias;
+    private final String[] contas;
+    private final long[] instantes;
+    private final byte[] tipos;
+    private final long[] valores;
+    private final String[] detalhes;
+
+    private final PublicadorDeEventos eventos;
+    private final AtomicLong proxima = new AtomicLong(); // Próxima sequência a reservar
+    private final List<Assinatura> assinaturas = new CopyOnWriteArrayList<>();
+    private final AtomicInteger assinaturasCriadas = new AtomicInteger();
+    private volatile boolean fechado;
+
+    /**
+     * @param capacidade Quantas transações ficam no buffer (para assinantes atrasados e
+     *                   reentregas); arredondado para a próxima potência de 2.
+     */
+    public FluxoDeTransacoes(int capacidade) {
+        this(capacidade, PublicadorDeEventos.NENHUM);
+    }
+
+    /**
+     * @param eventos Recebe as assinaturas encerradas porque o assinante lançou uma exceção.
+     */
+    public FluxoDeTransacoes(int capacidade, PublicadorDeEventos eventos) {
+        if (capacidade <= 0) {
+            throw new IllegalArgumentException("Capacidade deve ser positiva.");
+        }
+        int tamanho = Math.max(2, Integer.highestOneBit(capacidade - 1) << 1);
+        this.capacidade = tamanho;
+        this.eventos = eventos;
+        this.mascara = tamanho - 1;
+        this.sequencias = new AtomicLongArray(tamanho);
+        for (int i = 0; i < tamanho; i++) {
+            sequencias.set(i, VAZIA);
+        }
+        this.contas = new String[tamanho];
+        this.instantes = new long[tamanho];
+        this.tipos = new byte[tamanho];
+        this.valores = new long[tamanho];
+        this.detalhes = new String[tamanho];
+    }
+
+    // --- Publicação (chamada pelos serviços, com a conta travada) ---
+
+    @Override
+    public void publicar(Conta conta, int indice) {
+        if (fechado) {
+            return;
+        }
+        HistoricoTransacoes historico = conta.getHistoricoTransacoes();
+        String numeroConta = conta.getNumero();
+        long instante = historico.instante(indice);
+        byte tipo = (byte) historico.tipo(indice).ordinal();
+        if (historico.descricaoCompleta(indice)) {
+            tipo |= DESCRICAO_COMPLETA;
+        }
+        long valor = historico.valor(indice);
+        String detalhe = historico.detalhe(indice);
+
+        long sequencia = proxima.getAndIncrement();
+        int posicao = (int) sequencia & mascara;
+        // Espera quem publicou nesta posição na volta anterior terminar de gravar
+        // (só acontece com mais de 'capacidade' publicações em andamento ao mesmo tempo)
+        long anterior = sequencia < capacidade ? VAZIA : sequencia - capacidade;
+        while (sequencias.getAcquire(posicao) != anterior) {
+            Thread.onSpinWait();
+        }
+        // Quem estiver lendo a posição antiga percebe a troca (ver ler)
+        sequencias.setOpaque(posicao, EM_ESCRITA);
+        VarHandle.storeStoreFence();
+        contas[posicao] = numeroConta;
+        instantes[posicao] = instante;
+        tipos[posicao] = tipo;
+        valores[posicao] = valor;
+        detalhes[posicao] = detalhe;
+        sequencias.setRelease(posicao, sequencia);
+    }
+
+    // --- Assinaturas ---
+
+    /**
+     * Assina a partir da próxima transação publicada (sem as que já estão no buffer).
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super TransacaoPublicada> assinante) {
+        assinar(assinante, proxima.get());
+    }
+
+    /**
+     * Assina a partir de uma sequência: as transações ainda no buffer são reentregues
+     * (se ela já saiu do buffer, o assinante recebe onError(TransacoesPerdidasException)).
+     * @param aPartirDe Primeira sequência a entregar (ver getPrimeiraDisponivel).
+     */
+    public void assinar(Flow.Subscriber<? super TransacaoPublicada> assinante, long aPartirDe) {
+        Objects.requireNonNull(assinante, "assinante");
+        if (aPartirDe < 0) {
+            throw new IllegalArgumentException("Sequência inválida: " + aPartirDe);
+        }
+        Assinatura assinatura = new Assinatura(assinante, aPartirDe);
+        assinaturas.add(assinatura);
+        assinatura.thread.start();
+    }
+
+    /**
+     * @return a sequência que a próxima transação publicada vai receber.
+     */
+    public long getProximaSequencia() {
+        return proxima.get();
+    }
+
+    /**
+     * @return a sequência mais antiga que ainda pode ser reentregue.
+     */
+    public long getPrimeiraDisponivel() {
+        return Math.max(0, proxima.get() - capacidade);
+    }
+
+    public int getCapacidade() {
+        return capacidade;
+    }
+
+    /**
+     * Lê a transação da sequência.
+     * @return a transação, ou null se ela ainda não foi publicada.
+     * @throws TransacoesPerdidasException se ela já foi sobrescrita.
+     */
+    private TransacaoPublicada ler(long sequencia) {
+        int posicao = (int) sequencia & mascara;
+        if (sequencias.getAcquire(posicao) == sequencia) {
+            String numeroConta = contas[posicao];
+            long instante = instantes[posicao];
+            byte tipo = tipos[posicao];
+            long valor = valores[posicao];
+            String detalhe = detalhes[posicao];
+            // Confere de novo depois de ler: se a posição foi sobrescrita no meio, os campos não valem
+            VarHandle.loadLoadFence();
+            if (sequencias.getOpaque(posicao) == sequencia) {
+                return montar(sequencia, numeroConta, instante, tipo, valor, detalhe);
+            }
+        } else if (proxima.get() - sequencia <= capacidade) {
+            return null;
+        }
+        throw new TransacoesPerdidasException(sequencia, getPrimeiraDisponivel());
+    }
+
+    private static TransacaoPublicada montar(long sequencia, String numeroConta, long instante, byte tipo,
+                                             long valor, String detalhe) {
+        TipoTransacao tipoTransacao = TIPOS[tipo & ~DESCRICAO_COMPLETA];
+        String descricao = (tipo & DESCRICAO_COMPLETA) != 0 ? detalhe : tipoTransacao.getPrefixoDetalhe() + detalhe;
+        LocalDateTime dataHora = LocalDateTime.ofInstant(Instant.ofEpochMilli(instante), ZoneId.systemDefault());
+        return new TransacaoPublicada(sequencia, numeroConta, new Transacao(dataHora, tipoTransacao, valor, descricao));
+    }
+
+    /**
+     * Uma assinatura: cursor, demanda e a thread que entrega ao assinante.
+     */
+    private final class Assinatura implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super TransacaoPublicada> assinante;
+        private final Thread thread;
+        private final AtomicLong pedidas = new AtomicLong(); // Demanda ainda não atendida
+        private long cursor; // Próxima sequência a entregar (só a thread de entrega mexe)
+        private volatile boolean cancelada;
+        private volatile IllegalArgumentException pedidoInvalido;
+
+        Assinatura(Flow.Subscriber<? super TransacaoPublicada> assinante, long aPartirDe) {
+            this.assinante = assinante;
+            this.cursor = aPartirDe;
+            this.thread = new Thread(this::entregar, "fluxo-transacoes-" + assinaturasCriadas.getAndIncrement());
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                // Regra do Flow: um pedido não positivo encerra a assinatura com erro
+                pedidoInvalido = new IllegalArgumentException("Quantidade pedida deve ser positiva: " + n);
+            } else {
+                pedidas.getAndAccumulate(n, (atual, mais) -> atual + mais < 0 ? Long.MAX_VALUE : atual + mais);
+            }
+            LockSupport.unpark(thread);
+        }
+
+        @Override
+        public void cancel() {
+            cancelada = true;
+            LockSupport.unpark(thread);
+        }
+
+        private void entregar() {
+            try {
+                assinante.onSubscribe(this);
+                while (!cancelada) {
+                    if (pedidoInvalido != null) {
+                        assinante.onError(pedidoInvalido);
+                        return;
+                    }
+                    if (pedidas.get() == 0) {
+                        if (fechado) {
+                            assinante.onComplete();
+                            return;
+                        }
+                        LockSupport.park(this); // request, cancel e close acordam a thread
+                        continue;
+                    }
+                    TransacaoPublicada transacao = ler(cursor);
+                    if (transacao == null) {
+                        if (fechado && cursor >= proxima.get()) {
+                            assinante.onComplete();
+                            return;
+                        }
+                        LockSupport.parkNanos(this, ESPERA_SEM_TRANSACOES_NS);
+                        continue;
+                    }
+                    cursor++;
+                    pedidas.decrementAndGet();
+                    assinante.onNext(transacao);
+                }
+            } catch (TransacoesPerdidasException e) {
+                assinante.onError(e);
+            } catch (RuntimeException e) {
+                // O assinante não deveria lançar exceções: a assinatura dele é encerrada
+                eventos.publicar(new EventoBancario.FalhaEmSegundoPlano("Fluxo",
+                        "Assinatura encerrada por erro no assinante: " + e.getMessage()));
+            } finally {
+                assinaturas.remove(this);
+            }
+        }
+    }
+
+    /**
+     * Para de aceitar transações, entrega o que os assinantes já pediram e encerra
+     * as assinaturas com onComplete (quem não tem pedidos pendentes é encerrado na hora).
+     */
+    @Override
+    public void close() {
+        fechado = true;
+        for (Assinatura assinatura : assinaturas) {
+            LockSupport.unpark(assinatura.thread);
+        }
+        for (Assinatura assinatura : assinaturas) {
+            try {
+                assinatura.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
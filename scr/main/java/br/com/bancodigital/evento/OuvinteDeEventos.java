@@ -0,0 +1,13 @@
+package br.com.bancodigital.evento;
+
+import java.util.List;
+
+/**
+ * Recebe os eventos do PublicadorAssincrono, em lotes e na ordem em que foram publicados.
+ * É chamado sempre pela thread de escrita do publicador (nunca por duas threads ao mesmo tempo).
+ */
+@FunctionalInterface
+public interface OuvinteDeEventos {
+
+    void receber(List<EventoBancario> eventos);
+}
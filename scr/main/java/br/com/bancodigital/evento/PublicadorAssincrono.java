@@ -0,0 +1,158 @@
+package br.com.bancodigital.evento;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Publicador que tira o I/O do caminho das operações:
+ * publicar() só coloca o evento numa fila limitada, e UMA thread de escrita
+ * retira os eventos em lotes (drainTo) e entrega cada lote aos ouvintes.
+ *
+ * Assim, o System.out (que é sincronizado) deixa de serializar as threads
+ * que estão depositando, sacando, transferindo...
+ *
+ * Quando a fila está cheia, a PoliticaFilaCheia decide:
+ * - DESCARTAR: o evento é perdido (e contado em getDescartados), a operação não espera;
+ * - BLOQUEAR: a operação espera até haver espaço na fila (nenhum evento é perdido).
+ *
+ * Não publique eventos concorrentemente com o close().
+ */
+public class PublicadorAssincrono implements PublicadorDeEventos, AutoCloseable {
+
+    public enum PoliticaFilaCheia {
+        DESCARTAR,
+        BLOQUEAR
+    }
+
+    private static final int LOTE_MAXIMO = 512;
+    private static final long ESPERA_FILA_VAZIA_MS = 100;
+
+    private final BlockingQueue<EventoBancario> fila;
+    private final PoliticaFilaCheia politica;
+    private final List<OuvinteDeEventos> ouvintes = new CopyOnWriteArrayList<>();
+    private final Thread escritor;
+
+    private final AtomicLong aceitos = new AtomicLong();
+    private final LongAdder descartados = new LongAdder();
+    private final LongAdder falhasDeOuvintes = new LongAdder();
+    private volatile long entregues;
+    private volatile boolean fechado;
+
+    /**
+     * @param capacidade Quantos eventos podem esperar na fila.
+     */
+    public PublicadorAssincrono(int capacidade, PoliticaFilaCheia politica) {
+        // LinkedBlockingQueue tem travas separadas para inserir e retirar:
+        // os serviços (produtores) não disputam a trava com a thread de escrita
+        this.fila = new LinkedBlockingQueue<>(capacidade);
+        this.politica = politica;
+        this.escritor = new Thread(this::escrever, "publicador-eventos");
+        this.escritor.setDaemon(true);
+        this.escritor.start();
+    }
+
+    public void adicionarOuvinte(OuvinteDeEventos ouvinte) {
+        ouvintes.add(ouvinte);
+    }
+
+    @Override
+    public void publicar(EventoBancario evento) {
+        if (fechado) {
+            descartados.increment();
+            return;
+        }
+        if (politica == PoliticaFilaCheia.DESCARTAR) {
+            if (!fila.offer(evento)) {
+                descartados.increment();
+                return;
+            }
+        } else {
+            try {
+                fila.put(evento);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                descartados.increment();
+                return;
+            }
+        }
+        aceitos.incrementAndGet();
+    }
+
+    /**
+     * Espera até que os eventos publicados antes desta chamada tenham sido entregues aos ouvintes.
+     * Útil no console, para as mensagens aparecerem antes do próximo menu.
+     */
+    public void aguardarEntrega() {
+        long alvo = aceitos.get();
+        while (entregues < alvo && escritor.isAlive()) {
+            LockSupport.parkNanos(50_000);
+        }
+    }
+
+    public long getDescartados() {
+        return descartados.sum();
+    }
+
+    /**
+     * Lotes em que um ouvinte lançou exceção. A falha não vira evento:
+     * seria entregue ao mesmo ouvinte, que pode falhar de novo.
+     */
+    public long getFalhasDeOuvintes() {
+        return falhasDeOuvintes.sum();
+    }
+
+    public long getEntregues() {
+        return entregues;
+    }
+
+    // Thread de escrita: retira os eventos em lotes e entrega aos ouvintes
+    private void escrever() {
+        List<EventoBancario> lote = new ArrayList<>(LOTE_MAXIMO);
+        while (true) {
+            EventoBancario primeiro;
+            try {
+                primeiro = fila.poll(ESPERA_FILA_VAZIA_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                primeiro = fila.poll();
+            }
+            if (primeiro == null) {
+                if (fechado) {
+                    return; // Fechado e sem nada pendente
+                }
+                continue;
+            }
+            lote.add(primeiro);
+            fila.drainTo(lote, LOTE_MAXIMO - 1);
+            for (OuvinteDeEventos ouvinte : ouvintes) {
+                try {
+                    ouvinte.receber(lote);
+                } catch (RuntimeException e) {
+                    // Um ouvinte com problema não pode parar a entrega aos demais
+                    falhasDeOuvintes.increment();
+                }
+            }
+            entregues += lote.size();
+            lote.clear();
+        }
+    }
+
+    /**
+     * Entrega os eventos que ainda estão na fila e encerra a thread de escrita.
+     */
+    @Override
+    public void close() {
+        fechado = true;
+        try {
+            escritor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
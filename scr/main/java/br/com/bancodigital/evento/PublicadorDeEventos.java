@@ -0,0 +1,17 @@
+package br.com.bancodigital.evento;
+
+/**
+ * Destino dos eventos emitidos pelos serviços e repositórios.
+ * A implementação é chamada no meio das operações (com as contas travadas),
+ * então deve ser rápida: nada de I/O síncrono aqui (ver PublicadorAssincrono).
+ */
+@FunctionalInterface
+public interface PublicadorDeEventos {
+
+    /**
+     * Publicador "vazio": descarta os eventos. É o padrão quando nenhum é informado.
+     */
+    PublicadorDeEventos NENHUM = evento -> { };
+
+    void publicar(EventoBancario evento);
+}
@@ -0,0 +1,22 @@
+package br.com.bancodigital.evento;
+
+import br.com.bancodigital.model.Conta;
+
+/**
+ * Destino de cada transação registrada pelo ContaService e pelo PixService
+ * (ver FluxoDeTransacoes). Chamado com a conta travada, logo depois de salvá-la:
+ * a implementação deve ser rápida e nunca esperar por quem consome.
+ */
+@FunctionalInterface
+public interface PublicadorDeTransacoes {
+
+    /**
+     * Publicador "vazio": descarta as transações. É o padrão quando nenhum é informado.
+     */
+    PublicadorDeTransacoes NENHUM = (conta, indice) -> { };
+
+    /**
+     * @param indice Posição da transação no histórico da conta.
+     */
+    void publicar(Conta conta, int indice);
+}
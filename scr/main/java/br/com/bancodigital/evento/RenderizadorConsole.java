@@ -0,0 +1,103 @@
+package br.com.bancodigital.evento;
+
+import br.com.bancodigital.evento.EventoBancario.ChavePixRegistrada;
+import br.com.bancodigital.evento.EventoBancario.ChavePixRemovida;
+import br.com.bancodigital.evento.EventoBancario.ContaCriada;
+import br.com.bancodigital.evento.EventoBancario.ContaSalva;
+import br.com.bancodigital.evento.EventoBancario.DadosRecuperados;
+import br.com.bancodigital.evento.EventoBancario.DepositoRealizado;
+import br.com.bancodigital.evento.EventoBancario.EncargosAplicados;
+import br.com.bancodigital.evento.EventoBancario.FalhaEmSegundoPlano;
+import br.com.bancodigital.evento.EventoBancario.JournalTruncado;
+import br.com.bancodigital.evento.EventoBancario.LoteProcessado;
+import br.com.bancodigital.evento.EventoBancario.PixRealizado;
+import br.com.bancodigital.evento.EventoBancario.PixRecusado;
+import br.com.bancodigital.evento.EventoBancario.RegrasAntifraudeRecarregadas;
+import br.com.bancodigital.evento.EventoBancario.SaqueRealizado;
+import br.com.bancodigital.evento.EventoBancario.SaqueRecusado;
+import br.com.bancodigital.evento.EventoBancario.SnapshotGravado;
+import br.com.bancodigital.evento.EventoBancario.TransferenciaRealizada;
+import br.com.bancodigital.evento.EventoBancario.TransferenciaRecusada;
+import br.com.bancodigital.model.Dinheiro;
+
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * Ouvinte que transforma os eventos nas mensagens de console do banco.
+ * Cada lote vira um único texto, escrito de uma vez na saída.
+ */
+public class RenderizadorConsole implements OuvinteDeEventos {
+
+    private final PrintStream saida;
+
+    public RenderizadorConsole(PrintStream saida) {
+        this.saida = saida;
+    }
+
+    @Override
+    public void receber(List<EventoBancario> eventos) {
+        StringBuilder texto = new StringBuilder(eventos.size() * 64);
+        for (EventoBancario evento : eventos) {
+            renderizar(evento, texto);
+        }
+        saida.print(texto);
+        saida.flush();
+    }
+
+    private void renderizar(EventoBancario evento, StringBuilder texto) {
+        if (evento instanceof ContaCriada e) {
+            texto.append("[Service] Conta ").append(e.tipoConta()).append(' ').append(e.numeroConta())
+                    .append(" criada para ").append(e.nomeCliente());
+        } else if (evento instanceof ContaSalva e) {
+            texto.append("[Repo] Conta ").append(e.numeroConta()).append(" salva/atualizada.");
+        } else if (evento instanceof DepositoRealizado e) {
+            texto.append("Depósito de R$").append(Dinheiro.formatar(e.valor()))
+                    .append(" realizado. Saldo atual: R$").append(Dinheiro.formatar(e.saldo()));
+        } else if (evento instanceof SaqueRealizado e) {
+            texto.append("Saque de R$").append(Dinheiro.formatar(e.valor()))
+                    .append(" realizado. Saldo atual: R$").append(Dinheiro.formatar(e.saldo()));
+        } else if (evento instanceof SaqueRecusado e) {
+            texto.append("[Service] Falha no saque: ").append(e.motivo());
+        } else if (evento instanceof TransferenciaRealizada e) {
+            texto.append("Transferência de R$").append(Dinheiro.formatar(e.valor())).append(" realizada com sucesso.");
+        } else if (evento instanceof TransferenciaRecusada e) {
+            texto.append("Não foi possível realizar a transferência: ").append(e.motivo());
+        } else if (evento instanceof PixRealizado e) {
+            texto.append("[PIX] PIX de ").append(e.nomeOrigem()).append(" para ").append(e.nomeDestino()).append('\n')
+                    .append("PIX de R$").append(Dinheiro.formatar(e.valor())).append(" realizado com sucesso.");
+        } else if (evento instanceof PixRecusado e) {
+            texto.append("[PIX] PIX de ").append(e.nomeOrigem()).append(" para ").append(e.nomeDestino()).append('\n')
+                    .append("Não foi possível realizar o PIX: ").append(e.motivo());
+        } else if (evento instanceof ChavePixRegistrada e) {
+            texto.append("[PIX] Chave ").append(e.chave()).append(" cadastrada na conta ").append(e.numeroConta());
+        } else if (evento instanceof ChavePixRemovida e) {
+            texto.append("[PIX] Chave ").append(e.chave()).append(" removida.");
+        } else if (evento instanceof LoteProcessado e) {
+            texto.append("[Lote] ").append(e.operacoes()).append(" operações processadas: ")
+                    .append(e.sucessos()).append(" com sucesso, ")
+                    .append(e.operacoes() - e.sucessos()).append(" com falha.");
+        } else if (evento instanceof DadosRecuperados e) {
+            texto.append("[Repo] Dados recuperados em ").append(e.milissegundos()).append(" ms: ")
+                    .append(e.contas()).append(" contas, ")
+                    .append(e.entradasReaplicadas()).append(" entradas do journal reaplicadas.");
+        } else if (evento instanceof JournalTruncado e) {
+            texto.append("[Journal] Descartando ").append(e.bytesDescartados())
+                    .append(" bytes incompletos no final de ").append(e.arquivo());
+        } else if (evento instanceof SnapshotGravado e) {
+            texto.append("[Repo] Snapshot de ").append(e.contas()).append(" contas gravado em ")
+                    .append(e.milissegundos()).append(" ms.");
+        } else if (evento instanceof RegrasAntifraudeRecarregadas e) {
+            texto.append("[Antifraude] Regras recarregadas de ").append(e.arquivo()).append('.');
+        } else if (evento instanceof EncargosAplicados e) {
+            // O relatório já termina em quebra de linha
+            texto.append(e.relatorio());
+            return;
+        } else if (evento instanceof FalhaEmSegundoPlano e) {
+            texto.append('[').append(e.componente()).append("] ").append(e.mensagem());
+        } else {
+            texto.append(evento);
+        }
+        texto.append('\n');
+    }
+}
@@ -0,0 +1,16 @@
+package br.com.bancodigital.evento;
+
+import br.com.bancodigital.model.Transacao;
+
+/**
+ * Uma transação entregue pelo FluxoDeTransacoes.
+ * @param sequencia Posição da transação no fluxo (0, 1, 2...), única no banco inteiro.
+ *                  As transações de uma mesma conta chegam em ordem crescente de sequência,
+ *                  na ordem do histórico da conta.
+ */
+public record TransacaoPublicada(
+    long sequencia,
+    String numeroConta,
+    Transacao transacao
+) {
+}
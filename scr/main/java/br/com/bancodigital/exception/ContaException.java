@@ -6,4 +6,8 @@ public class ContaException extends RuntimeException {
     public ContaException(String message) {
         super(message);
     }
-}
\ No newline at end of file
+
+    public ContaException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,20 @@
+package br.com.bancodigital.exception;
+
+/**
+ * Operação recusada por uma regra antifraude (ver MotorAntifraude),
+ * ex: valor enviado na última hora acima do limite.
+ */
+public class OperacaoRecusadaException extends RuntimeException {
+
+    // Nome da regra que recusou (ex: "origem.valor.hora")
+    private final String regra;
+
+    public OperacaoRecusadaException(String message, String regra) {
+        super(message);
+        this.regra = regra;
+    }
+
+    public String getRegra() {
+        return regra;
+    }
+}
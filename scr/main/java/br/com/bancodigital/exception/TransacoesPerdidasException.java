@@ -0,0 +1,30 @@
+package br.com.bancodigital.exception;
+
+/**
+ * Um assinante do FluxoDeTransacoes ficou para trás: as transações que ele
+ * ainda não tinha recebido já saíram do buffer (o fluxo não espera assinantes lentos).
+ * Para continuar, assine de novo a partir de getPrimeiraDisponivel() e recupere
+ * a lacuna por outro meio (ex: o extrato das contas).
+ */
+public class TransacoesPerdidasException extends RuntimeException {
+
+    // Primeira sequência que o assinante não recebeu
+    private final long sequenciaPerdida;
+    // Sequência mais antiga ainda no buffer
+    private final long primeiraDisponivel;
+
+    public TransacoesPerdidasException(long sequenciaPerdida, long primeiraDisponivel) {
+        super("Transações a partir da sequência " + sequenciaPerdida + " não estão mais disponíveis"
+                + " (a mais antiga no buffer é " + primeiraDisponivel + ").");
+        this.sequenciaPerdida = sequenciaPerdida;
+        this.primeiraDisponivel = primeiraDisponivel;
+    }
+
+    public long getSequenciaPerdida() {
+        return sequenciaPerdida;
+    }
+
+    public long getPrimeiraDisponivel() {
+        return primeiraDisponivel;
+    }
+}
@@ -0,0 +1,131 @@
+package br.com.bancodigital.metrica;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma log-linear (no estilo do HdrHistogram), sem travas.
+ *
+ * Valores de 0 a 63 têm um balde cada. Acima disso, cada potência de 2
+ * ([64, 128), [128, 256), ...) é dividida em 32 baldes de mesma largura,
+ * então o erro de qualquer percentil fica abaixo de ~3%, de nanossegundos
+ * até anos, com menos de 2 mil contadores.
+ *
+ * registrar() é só um incremento atômico no balde, e pode ser chamado por
+ * várias threads ao mesmo tempo. A soma (e a média) é estimada a partir dos
+ * baldes, com o mesmo erro de ~3%. Para as threads não disputarem
+ * as mesmas linhas de cache, os baldes são "listrados" (como no LongAdder):
+ * cada thread escreve na listra do seu id, e a leitura soma as listras.
+ */
+public class Histograma {
+
+    private static final int BITS_SUB_BALDE = 5;
+    private static final int SUB_BALDES = 1 << BITS_SUB_BALDE; // 32
+    private static final int LIMITE_LINEAR = SUB_BALDES * 2;   // 64: abaixo disso, um balde por valor
+    private static final int QUANTIDADE_BALDES = indice(Long.MAX_VALUE) + 1;
+
+    // Cada listra: os baldes, seguidos do máximo daquela listra
+    private static final int POSICAO_MAXIMO = QUANTIDADE_BALDES;
+    private static final int LISTRAS = Math.min(16,
+            Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+
+    private final AtomicLongArray[] listras = new AtomicLongArray[LISTRAS];
+
+    public Histograma() {
+        for (int i = 0; i < LISTRAS; i++) {
+            listras[i] = new AtomicLongArray(QUANTIDADE_BALDES + 1);
+        }
+    }
+
+    /**
+     * Percentis e totais de um histograma num dado momento.
+     * A soma é estimada (erro de ~3%); contagem e máximo são exatos.
+     */
+    public record Resumo(long contagem, long soma, long maximo, long p50, long p90, long p99, long p999) {
+
+        public long media() {
+            return contagem == 0 ? 0 : soma / contagem;
+        }
+    }
+
+    /**
+     * @param valor Valor a registrar (valores negativos contam como 0).
+     */
+    public void registrar(long valor) {
+        if (valor < 0) {
+            valor = 0;
+        }
+        AtomicLongArray listra = listras[(int) Thread.currentThread().threadId() & (LISTRAS - 1)];
+        listra.incrementAndGet(indice(valor));
+        // Só faz o CAS quando há um novo máximo (raro depois do aquecimento)
+        if (valor > listra.get(POSICAO_MAXIMO)) {
+            listra.accumulateAndGet(POSICAO_MAXIMO, valor, Math::max);
+        }
+    }
+
+    /**
+     * Calcula os percentis sobre uma cópia dos baldes.
+     * Registros feitos durante a cópia podem ou não entrar no resumo.
+     */
+    public Resumo resumir() {
+        long[] copia = new long[QUANTIDADE_BALDES];
+        long total = 0;
+        long max = 0;
+        for (AtomicLongArray listra : listras) {
+            for (int i = 0; i < QUANTIDADE_BALDES; i++) {
+                long quantidade = listra.get(i);
+                copia[i] += quantidade;
+                total += quantidade;
+            }
+            max = Math.max(max, listra.get(POSICAO_MAXIMO));
+        }
+        // Soma estimada: cada registro vale o meio do seu balde
+        long soma = 0;
+        for (int i = 0; i < QUANTIDADE_BALDES; i++) {
+            if (copia[i] > 0) {
+                long menor = i == 0 ? 0 : maiorValorDoBalde(i - 1) + 1;
+                soma += copia[i] * (menor + (Math.min(maiorValorDoBalde(i), max) - menor) / 2);
+            }
+        }
+        return new Resumo(total, soma, max,
+                percentil(copia, total, 0.50, max),
+                percentil(copia, total, 0.90, max),
+                percentil(copia, total, 0.99, max),
+                percentil(copia, total, 0.999, max));
+    }
+
+    private static long percentil(long[] copia, long total, double fracao, long max) {
+        if (total == 0) {
+            return 0;
+        }
+        long posicao = Math.max(1, (long) Math.ceil(total * fracao));
+        long acumulado = 0;
+        for (int i = 0; i < copia.length; i++) {
+            acumulado += copia[i];
+            if (acumulado >= posicao) {
+                return Math.min(maiorValorDoBalde(i), max);
+            }
+        }
+        return max;
+    }
+
+    // Balde de um valor: linear até 63, depois 32 baldes por potência de 2
+    static int indice(long valor) {
+        if (valor < LIMITE_LINEAR) {
+            return (int) valor;
+        }
+        int expoente = 63 - Long.numberOfLeadingZeros(valor);     // >= 6
+        int deslocamento = expoente - BITS_SUB_BALDE;             // >= 1
+        int subBalde = (int) (valor >>> deslocamento);            // 32..63
+        return deslocamento * SUB_BALDES + subBalde;
+    }
+
+    static long maiorValorDoBalde(int indice) {
+        if (indice < LIMITE_LINEAR) {
+            return indice;
+        }
+        int deslocamento = indice / SUB_BALDES - 1;
+        long subBalde = indice % SUB_BALDES + SUB_BALDES;
+        long menor = subBalde << deslocamento;
+        return menor + (1L << deslocamento) - 1;
+    }
+}
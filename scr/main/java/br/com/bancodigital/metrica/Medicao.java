@@ -0,0 +1,43 @@
+package br.com.bancodigital.metrica;
+
+/**
+ * Mede a duração de uma operação. Usada com try-with-resources:
+ *
+ * <pre>
+ * try (Medicao medicao = metricas.medir(Operacao.SACAR)) {
+ *     // ... operação ...
+ *     medicao.sucesso();
+ * }
+ * </pre>
+ *
+ * Se sucesso() não for chamado (ex: uma exceção), a operação conta como falha.
+ */
+public final class Medicao implements AutoCloseable {
+
+    // Medição "vazia", devolvida quando as métricas estão desligadas
+    static final Medicao NENHUMA = new Medicao(null, null, 0);
+
+    private final Metricas metricas;
+    private final Operacao operacao;
+    private final long inicio;
+    private boolean sucesso;
+
+    Medicao(Metricas metricas, Operacao operacao, long inicio) {
+        this.metricas = metricas;
+        this.operacao = operacao;
+        this.inicio = inicio;
+    }
+
+    public void sucesso() {
+        if (metricas != null) { // Não escreve na NENHUMA, que é compartilhada entre as threads
+            sucesso = true;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (metricas != null) {
+            metricas.registrar(operacao, System.nanoTime() - inicio, sucesso);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package br.com.bancodigital.metrica;
+
+import br.com.bancodigital.evento.EventoBancario;
+import br.com.bancodigital.evento.PublicadorDeEventos;
+import br.com.bancodigital.model.TipoTransacao;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas das operações do banco: contadores de sucesso/falha e histogramas de
+ * latência por Operacao, contagem e distribuição de valores por TipoTransacao,
+ * quantidade de saldos insuficientes e quantas contas atingiram cada faixa de
+ * tamanho de histórico (1, 2, 4, 8, ... transações).
+ *
+ * Tudo é sem travas (LongAdder e Histograma), para não serializar as threads
+ * que estão operando. A leitura (exportarTexto) pode acontecer a qualquer momento.
+ */
+public class Metricas implements AutoCloseable {
+
+    /**
+     * Métricas desligadas: medir() não lê o relógio e nada é registrado.
+     * É o padrão dos serviços quando nenhuma Metricas é informada.
+     */
+    public static final Metricas DESLIGADAS = new Metricas(false);
+
+    private final boolean ativas;
+
+    // Indexados por Operacao.ordinal()
+    // (sucessos = contagem do histograma - falhas, para economizar um contador por operação)
+    private final Histograma[] latencias = new Histograma[Operacao.values().length];
+    private final LongAdder[] falhas = new LongAdder[Operacao.values().length];
+
+    // Indexados por TipoTransacao.ordinal()
+    private final Histograma[] valoresPorTipo = new Histograma[TipoTransacao.values().length];
+
+    private final LongAdder saldoInsuficiente = new LongAdder();
+
+    // Posição k: quantas contas chegaram a 2^k transações no histórico.
+    // Só é atualizado quando o tamanho é potência de 2 (quase nunca, no caminho quente).
+    private final LongAdder[] contasPorFaixaDeHistorico = new LongAdder[Integer.SIZE];
+
+    private ScheduledExecutorService agendador;
+
+    public Metricas() {
+        this(true);
+    }
+
+    private Metricas(boolean ativas) {
+        this.ativas = ativas;
+        for (int i = 0; i < latencias.length; i++) {
+            latencias[i] = new Histograma();
+            falhas[i] = new LongAdder();
+        }
+        for (int i = 0; i < valoresPorTipo.length; i++) {
+            valoresPorTipo[i] = new Histograma();
+        }
+        for (int i = 0; i < contasPorFaixaDeHistorico.length; i++) {
+            contasPorFaixaDeHistorico[i] = new LongAdder();
+        }
+    }
+
+    public boolean isAtivas() {
+        return ativas;
+    }
+
+    /**
+     * Começa a medir uma operação (ver Medicao).
+     */
+    public Medicao medir(Operacao operacao) {
+        return ativas ? new Medicao(this, operacao, System.nanoTime()) : Medicao.NENHUMA;
+    }
+
+    void registrar(Operacao operacao, long nanos, boolean sucesso) {
+        latencias[operacao.ordinal()].registrar(nanos);
+        if (!sucesso) {
+            falhas[operacao.ordinal()].increment();
+        }
+    }
+
+    public void contarSaldoInsuficiente() {
+        if (ativas) {
+            saldoInsuficiente.increment();
+        }
+    }
+
+    /**
+     * Registra uma transação lançada no histórico de uma conta.
+     * @param valor Valor em centavos.
+     * @param tamanhoHistorico Tamanho do histórico da conta depois do lançamento.
+     */
+    public void registrarTransacao(TipoTransacao tipo, long valor, int tamanhoHistorico) {
+        if (ativas) {
+            valoresPorTipo[tipo.ordinal()].registrar(valor);
+            if (tamanhoHistorico > 0 && (tamanhoHistorico & (tamanhoHistorico - 1)) == 0) {
+                contasPorFaixaDeHistorico[Integer.numberOfTrailingZeros(tamanhoHistorico)].increment();
+            }
+        }
+    }
+
+    // --- Leitura ---
+
+    public Histograma.Resumo latencia(Operacao operacao) {
+        return latencias[operacao.ordinal()].resumir();
+    }
+
+    public long getSucessos(Operacao operacao) {
+        long falhasAntes = getFalhas(operacao); // Lidas antes, para o resultado nunca ficar negativo
+        return latencias[operacao.ordinal()].resumir().contagem() - falhasAntes;
+    }
+
+    public long getFalhas(Operacao operacao) {
+        return falhas[operacao.ordinal()].sum();
+    }
+
+    public Histograma.Resumo valores(TipoTransacao tipo) {
+        return valoresPorTipo[tipo.ordinal()].resumir();
+    }
+
+    public long getSaldoInsuficiente() {
+        return saldoInsuficiente.sum();
+    }
+
+    /**
+     * @return quantas contas já chegaram a pelo menos 'tamanho' transações
+     *         (tamanho é arredondado para baixo até uma potência de 2).
+     */
+    public long getContasComHistoricoDe(int tamanho) {
+        return contasPorFaixaDeHistorico[31 - Integer.numberOfLeadingZeros(Math.max(1, tamanho))].sum();
+    }
+
+    // --- Exportação ---
+
+    /**
+     * Exporta as métricas em texto, uma por linha, no formato de exposição do Prometheus.
+     * Latências em nanossegundos, valores em centavos.
+     */
+    public String exportarTexto() {
+        StringBuilder texto = new StringBuilder(8192);
+        texto.append("# TYPE banco_operacoes_total counter\n");
+        for (Operacao operacao : Operacao.values()) {
+            linha(texto, "banco_operacoes_total", "operacao=\"" + operacao.nome() + "\",resultado=\"sucesso\"",
+                    getSucessos(operacao));
+            linha(texto, "banco_operacoes_total", "operacao=\"" + operacao.nome() + "\",resultado=\"falha\"",
+                    getFalhas(operacao));
+        }
+        texto.append("# TYPE banco_operacao_latencia_ns summary\n");
+        for (Operacao operacao : Operacao.values()) {
+            resumo(texto, "banco_operacao_latencia_ns", "operacao=\"" + operacao.nome() + "\"", latencia(operacao));
+        }
+        texto.append("# TYPE banco_transacao_valor_centavos summary\n");
+        for (TipoTransacao tipo : TipoTransacao.values()) {
+            resumo(texto, "banco_transacao_valor_centavos", "tipo=\"" + tipo.name() + "\"", valores(tipo));
+        }
+        texto.append("# TYPE banco_saldo_insuficiente_total counter\n");
+        linha(texto, "banco_saldo_insuficiente_total", null, getSaldoInsuficiente());
+        texto.append("# TYPE banco_contas_com_historico gauge\n");
+        for (int i = 0; i < contasPorFaixaDeHistorico.length; i++) {
+            long contas = contasPorFaixaDeHistorico[i].sum();
+            if (contas > 0) {
+                linha(texto, "banco_contas_com_historico", "minimo=\"" + (1L << i) + "\"", contas);
+            }
+        }
+        return texto.toString();
+    }
+
+    /**
+     * Grava exportarTexto() no arquivo (via arquivo temporário + move atômico,
+     * para quem lê nunca ver um arquivo pela metade).
+     */
+    public void exportar(Path arquivo) throws IOException {
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        Files.writeString(temporario, exportarTexto(), StandardCharsets.UTF_8);
+        Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Exporta as métricas para o arquivo periodicamente, em uma thread de fundo.
+     * @param eventos Recebe as falhas de exportação (a próxima tenta de novo).
+     */
+    public synchronized void iniciarExportacaoPeriodica(Path arquivo, Duration intervalo, PublicadorDeEventos eventos) {
+        if (agendador != null) {
+            throw new IllegalStateException("Exportação periódica já foi iniciada.");
+        }
+        agendador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "exportador-metricas");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodo = intervalo.toMillis();
+        agendador.scheduleWithFixedDelay(() -> {
+            try {
+                exportar(arquivo);
+            } catch (IOException | RuntimeException e) {
+                eventos.publicar(new EventoBancario.FalhaEmSegundoPlano("Metricas", "Falha ao exportar: " + e.getMessage()));
+            }
+        }, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (agendador != null) {
+            agendador.shutdownNow();
+        }
+    }
+
+    private static void resumo(StringBuilder texto, String nome, String rotulos, Histograma.Resumo resumo) {
+        String prefixo = rotulos == null ? "" : rotulos + ",";
+        linha(texto, nome, prefixo + "quantil=\"0.5\"", resumo.p50());
+        linha(texto, nome, prefixo + "quantil=\"0.9\"", resumo.p90());
+        linha(texto, nome, prefixo + "quantil=\"0.99\"", resumo.p99());
+        linha(texto, nome, prefixo + "quantil=\"0.999\"", resumo.p999());
+        linha(texto, nome, prefixo + "quantil=\"1\"", resumo.maximo());
+        linha(texto, nome + "_sum", rotulos, resumo.soma());
+        linha(texto, nome + "_count", rotulos, resumo.contagem());
+    }
+
+    private static void linha(StringBuilder texto, String nome, String rotulos, long valor) {
+        texto.append(nome);
+        if (rotulos != null) {
+            texto.append('{').append(rotulos).append('}');
+        }
+        texto.append(' ').append(valor).append('\n');
+    }
+}
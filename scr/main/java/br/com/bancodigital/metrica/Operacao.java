@@ -0,0 +1,32 @@
+package br.com.bancodigital.metrica;
+
+/**
+ * Operações medidas (serviços e repositório).
+ * O nome usado na exportação é o nome em minúsculas.
+ */
+public enum Operacao {
+    // Serviços
+    DEPOSITAR,
+    SACAR,
+    TRANSFERIR,
+    REALIZAR_PIX,
+    CONSULTAR_EXTRATO,
+    CONSULTAR_TOTAIS,
+    DEBITAR,
+    CREDITAR,
+    ESTORNAR,
+    BUSCAR_POR_CHAVE_PIX,
+
+    // Repositório
+    SALVAR,
+    SALVAR_TODAS,
+    BUSCAR_POR_NUMERO,
+    BUSCAR_POR_CPF,
+    LISTAR_TODAS,
+    DELETAR,
+    TRAVAR;
+
+    public String nome() {
+        return name().toLowerCase();
+    }
+}
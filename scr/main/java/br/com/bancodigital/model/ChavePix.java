@@ -0,0 +1,34 @@
+package br.com.bancodigital.model;
+
+/**
+ * Uma chave PIX já normalizada (ver TipoChavePix).
+ * Duas chaves iguais (mesmo tipo e valor) levam sempre à mesma conta.
+ */
+public record ChavePix(TipoChavePix tipo, String valor) {
+
+    /**
+     * @throws br.com.bancodigital.exception.ContaException se o valor não é válido para o tipo.
+     */
+    public static ChavePix de(TipoChavePix tipo, String valor) {
+        return new ChavePix(tipo, tipo.normalizar(valor));
+    }
+
+    /**
+     * Chave digitada pelo usuário, com o tipo identificado pelo formato.
+     */
+    public static ChavePix de(String valor) {
+        return de(TipoChavePix.identificar(valor), valor);
+    }
+
+    /**
+     * Gera uma nova chave aleatória (EVP).
+     */
+    public static ChavePix aleatoria() {
+        return new ChavePix(TipoChavePix.ALEATORIA, TipoChavePix.gerarAleatoria());
+    }
+
+    @Override
+    public String toString() {
+        return tipo.getDescricao() + " " + valor;
+    }
+}
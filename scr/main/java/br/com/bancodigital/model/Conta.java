@@ -1,93 +1,222 @@
 package br.com.bancodigital.model;
 
+import br.com.bancodigital.exception.ContaException;
 import br.com.bancodigital.exception.SaldoInsuficienteException;
 import lombok.Getter;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 
 @Getter
 public abstract class Conta {
 
     protected String agencia;
     protected String numero;
-    protected double saldo;
+    // Saldo em CENTAVOS (ver Dinheiro).
+    // volatile: o saldo é alterado sob trava, mas pode ser lido por outras threads
+    protected volatile long saldo;
     protected Cliente cliente; 
 
-    // NOVO: Lista para guardar o histórico
-    protected List<Transacao> historicoTransacoes;
+    // Histórico guardado em colunas primitivas (ver HistoricoTransacoes)
+    protected HistoricoTransacoes historicoTransacoes;
+
+    // Versão para o modo otimista (ver ProcessadorOtimista): par = estável, ímpar = reservada
+    // por quem está alterando a conta. Nos modos com travas fica em 0.
+    // int (e não long): cabe no espaço que já sobrava no objeto
+    protected volatile int versao;
+
+    private static final VarHandle VERSAO;
+
+    static {
+        try {
+            VERSAO = MethodHandles.lookup().findVarHandle(Conta.class, "versao", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 
     public Conta(Cliente cliente, String agencia, String numero) {
         this.cliente = cliente;
         this.agencia = agencia;
         this.numero = numero;
-        this.saldo = 0.0;
-        // NOVO: Inicializa a lista
-        this.historicoTransacoes = new ArrayList<>(); 
+        this.saldo = 0;
+        this.historicoTransacoes = new HistoricoTransacoes();
     }
 
-    // --- Métodos Internos (agora são 'protected') ---
-    // A camada de Serviço irá chamá-los
+    // --- Métodos Internos (agora são 'public') ---
+    // A camada de Serviço irá chamá-los (ela fica em outro pacote).
+    // Em modo concorrente, o serviço deve chamá-los com a conta travada
+    // (ver ContaRepository.travar).
 
     /**
      * Lógica interna de depósito. Apenas soma ao saldo.
+     * @param valor O valor em centavos.
      * (Removemos o System.out)
+     * @throws ContaException se o valor não é positivo: sem a recusa, o serviço registraria
+     *         (e gravaria) uma transação que não mexeu no saldo, mas que a recuperação aplicaria.
      */
-    protected void depositarInterno(double valor) {
-        if (valor > 0) {
-            this.saldo += valor;
+    public void depositarInterno(long valor) {
+        if (valor <= 0) {
+            throw new ContaException("Valor de depósito deve ser positivo.");
         }
+        this.saldo = Math.addExact(this.saldo, valor);
     }
 
     /**
      * Lógica interna de saque. Apenas subtrai do saldo e lança exceção.
-     * (Mudou de 'sacar' para 'sacarInterno' e ficou 'protected')
+     * (Mudou de 'sacar' para 'sacarInterno' e ficou 'public')
      */
-    protected abstract void sacarInterno(double valor) throws SaldoInsuficienteException; 
+    public abstract void sacarInterno(long valor) throws SaldoInsuficienteException; 
 
     /**
-     * NOVO: Método para o serviço adicionar transações ao histórico.
+     * As regras do sacarInterno, sem alterar nada: confere se o saque seria aceito
+     * com o saldo informado (ex: um saldo lido antes, no modo otimista).
+     * @throws SaldoInsuficienteException se o saque seria recusado (mesma mensagem do sacarInterno).
+     */
+    public abstract void validarSaque(long saldo, long valor) throws SaldoInsuficienteException;
+
+    // --- Versão (modo otimista) ---
+
+    /**
+     * Reserva a conta para alteração, se ela ainda está na versão lida (compare-and-set).
+     * Depois de alterar, chame confirmarVersao; se desistir, desfazerReserva.
+     * @param versaoLida Versão par lida antes da alteração (getVersao).
+     * @return false se a conta mudou (ou está reservada) desde a leitura.
+     */
+    public boolean reservarVersao(int versaoLida) {
+        return (versaoLida & 1) == 0 && VERSAO.compareAndSet(this, versaoLida, versaoLida + 1);
+    }
+
+    /**
+     * Termina a alteração da conta reservada: ela passa para a próxima versão (par).
+     * A escrita volátil publica o saldo e o histórico alterados para quem ler a nova versão.
+     */
+    public void confirmarVersao() {
+        this.versao = this.versao + 1;
+    }
+
+    /**
+     * Devolve a conta reservada sem alterá-la (volta à versão lida).
+     */
+    public void desfazerReserva() {
+        this.versao = this.versao - 1;
+    }
+
+    /**
+     * Volta a conta ao saldo e ao tamanho de histórico lidos antes de uma alteração,
+     * desfazendo as transações registradas depois. Usado quando a gravação da alteração
+     * falha (ex: erro no journal), com a conta ainda travada: quem travar depois não vê
+     * nada do que não foi gravado.
+     * @param saldoAnterior O saldo lido antes da alteração.
+     * @param tamanhoHistoricoAnterior O tamanho do histórico lido antes da alteração.
+     */
+    public void desfazerAlteracoes(long saldoAnterior, int tamanhoHistoricoAnterior) {
+        this.historicoTransacoes.truncar(tamanhoHistoricoAnterior);
+        this.saldo = saldoAnterior;
+    }
+
+    /**
+     * Débito cobrado pelo próprio banco (tarifa, juros do cheque especial).
+     * Não checa saldo nem limite: o encargo é devido mesmo que deixe a conta negativa.
+     * @param valor O valor em centavos.
+     */
+    public void debitarEncargo(long valor) {
+        if (valor > 0) {
+            this.saldo = Math.subtractExact(this.saldo, valor);
+        }
+    }
+
+    /**
+     * Registra uma transação no histórico, com a data/hora atual.
+     * Não cria objetos: o detalhe (ex: nome da contraparte) é guardado como está
+     * e só vira a descrição completa ("Para: " + nome) quando o extrato é lido.
+     * @param detalhe Nome da contraparte ou descrição livre (ex: "Depósito em conta").
+     */
+    public void registrarTransacao(TipoTransacao tipo, long valor, String detalhe) {
+        this.historicoTransacoes.adicionar(System.currentTimeMillis(), tipo, valor, detalhe);
+    }
+
+    /**
+     * Mesmo que registrarTransacao(tipo, valor, detalhe), mas com a data/hora em que a
+     * transação foi feita (ex: um crédito que esperou a consolidação, ver ContasQuentes).
+     * Se o instante for anterior à última transação do histórico, fica com o dela.
+     * @param instante Data/hora em epoch millis.
+     */
+    public void registrarTransacao(long instante, TipoTransacao tipo, long valor, String detalhe) {
+        this.historicoTransacoes.adicionar(instante, tipo, valor, detalhe);
+    }
+
+    /**
+     * Adiciona ao histórico uma transação já montada (com a descrição completa).
      */
     public void adicionarTransacao(Transacao transacao) {
-        this.historicoTransacoes.add(transacao);
+        this.historicoTransacoes.adicionar(transacao);
     }
     
     /**
-     * NOVO: Getter para o histórico (retorna uma lista não modificável).
+     * Reaplica uma transação já registrada (ex: ao recuperar o estado de um journal).
+     * Não valida saldo nem limite: a transação já foi aceita quando aconteceu.
      */
-    public List<Transacao> getHistoricoTransacoes() {
-        return Collections.unmodifiableList(historicoTransacoes);
+    public void restaurarTransacao(Transacao transacao) {
+        aplicarNoSaldo(transacao.tipo(), transacao.valor());
+        this.historicoTransacoes.adicionar(transacao);
     }
 
     /**
-     * Método 'transferir' foi REMOVIDO.
-     * A lógica de transferência agora é de responsabilidade
-     * exclusiva do ContaService, que entende o contexto.
+     * Mesmo que restaurarTransacao(Transacao), mas a partir dos campos
+     * (evita criar o objeto Transacao ao recuperar milhões de registros).
+     * @param instante Data/hora em epoch millis.
+     * @param descricao Descrição completa da transação.
      */
-    
+    public void restaurarTransacao(long instante, TipoTransacao tipo, long valor, String descricao) {
+        restaurarTransacao(instante, tipo, valor, descricao, true);
+    }
+
     /**
-     * ATUALIZADO: ExibirExtrato agora mostra o histórico.
+     * Reaplica uma transação gravada com o texto como estava no histórico: o detalhe
+     * (ex: nome da contraparte, sem o "Para: ") ou, se descricaoCompleta, a descrição inteira.
+     * @param instante Data/hora em epoch millis.
      */
-    public void exibirExtrato() {
-        System.out.println("--- Extrato da Conta ---");
-        System.out.println("Cliente: " + this.cliente.nome());
-        System.out.println("Agência: " + this.agencia);
-        System.out.println("Número: " + this.numero);
-        System.out.println("--------------------------------------------------------------------------");
-        System.out.println("Histórico de Transações:");
+    public void restaurarTransacao(long instante, TipoTransacao tipo, long valor, String texto, boolean descricaoCompleta) {
+        aplicarNoSaldo(tipo, valor);
+        this.historicoTransacoes.restaurar(instante, tipo, valor, texto, descricaoCompleta);
+    }
 
-        if (historicoTransacoes.isEmpty()) {
-            System.out.println("(Nenhuma transação registrada)");
+    private void aplicarNoSaldo(TipoTransacao tipo, long valor) {
+        if (tipo.isCredito()) {
+            this.saldo = Math.addExact(this.saldo, valor);
         } else {
-            for (Transacao t : historicoTransacoes) {
-                // Usa o método toString() customizado do Record 'Transacao'
-                System.out.println(t); 
-            }
+            this.saldo = Math.subtractExact(this.saldo, valor);
         }
-        
-        System.out.println("--------------------------------------------------------------------------");
-        System.out.printf("SALDO ATUAL: R$ %.2f%n", this.saldo);
-        System.out.println("--------------------------------------------------------------------------");
+    }
+
+    /**
+     * Getter para o histórico: uma lista não modificável e "preguiçosa"
+     * (cada Transacao só é criada quando lida).
+     */
+    public HistoricoTransacoes getHistoricoTransacoes() {
+        return historicoTransacoes;
+    }
+
+    /**
+     * Totais por dia e tipo de transação (ver ResumoTransacoes), sem percorrer o histórico.
+     */
+    public ResumoTransacoes getResumoTransacoes() {
+        return historicoTransacoes.getResumo();
+    }
+
+    /**
+     * Método 'transferir' foi REMOVIDO.
+     * A lógica de transferência agora é de responsabilidade
+     * exclusiva do ContaService, que entende o contexto.
+     */
+
+    /**
+     * Consulta uma página do extrato (ver HistoricoTransacoes.consultar).
+     * O método 'exibirExtrato' foi REMOVIDO: quem mostra o extrato na tela é o BancoApp,
+     * usando esta consulta página por página.
+     */
+    public PaginaExtrato consultarExtrato(FiltroExtrato filtro, int cursor, int tamanhoPagina) {
+        return historicoTransacoes.consultar(filtro, cursor, tamanhoPagina);
     }
 }
\ No newline at end of file
@@ -4,22 +4,25 @@ import br.com.bancodigital.exception.SaldoInsuficienteException;
 
 public class ContaCorrente extends Conta {
 
-    private static final double LIMITE_CHEQUE_ESPECIAL = 100.0;
+    // R$ 100,00 (em centavos)
+    private static final long LIMITE_CHEQUE_ESPECIAL = Dinheiro.reais(100);
 
     public ContaCorrente(Cliente cliente, String agencia, String numero) {
         super(cliente, agencia, numero);
     }
 
     @Override
-    protected void sacarInterno(double valor) throws SaldoInsuficienteException {
+    public void sacarInterno(long valor) throws SaldoInsuficienteException {
+        validarSaque(this.saldo, valor);
+        this.saldo -= valor;
+    }
+
+    @Override
+    public void validarSaque(long saldo, long valor) throws SaldoInsuficienteException {
         if (valor <= 0) {
             throw new SaldoInsuficienteException("Valor de saque deve ser positivo.");
         }
-        
-        if ((this.saldo + LIMITE_CHEQUE_ESPECIAL) >= valor) {
-            this.saldo -= valor;
-            // System.out.println removido
-        } else {
+        if ((saldo + LIMITE_CHEQUE_ESPECIAL) < valor) {
             throw new SaldoInsuficienteException("Saque não autorizado (CC). Saldo ou limite insuficiente.");
         }
     }
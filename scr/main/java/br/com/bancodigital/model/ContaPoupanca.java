@@ -9,15 +9,17 @@ public class ContaPoupanca extends Conta {
     }
 
     @Override
-    protected void sacarInterno(double valor) throws SaldoInsuficienteException {
-         if (valor <= 0) {
+    public void sacarInterno(long valor) throws SaldoInsuficienteException {
+        validarSaque(this.saldo, valor);
+        this.saldo -= valor;
+    }
+
+    @Override
+    public void validarSaque(long saldo, long valor) throws SaldoInsuficienteException {
+        if (valor <= 0) {
             throw new SaldoInsuficienteException("Valor de saque deve ser positivo.");
         }
-        
-        if (this.saldo >= valor) {
-            this.saldo -= valor;
-            // System.out.println removido
-        } else {
+        if (saldo < valor) {
             throw new SaldoInsuficienteException("Saque não autorizado (CP). Saldo insuficiente.");
         }
     }
@@ -0,0 +1,26 @@
+package br.com.bancodigital.model;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Conversão entre instantes (epoch millis) e dias do calendário (epoch day),
+ * no fuso do sistema, como no extrato (ver HistoricoTransacoes.get).
+ */
+final class Dias {
+
+    private Dias() {
+    }
+
+    static int diaDe(long instante) {
+        return (int) Instant.ofEpochMilli(instante).atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+    }
+
+    /**
+     * @return o instante em que o dia começa (epoch millis).
+     */
+    static long inicioDoDia(int dia) {
+        return LocalDate.ofEpochDay(dia).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
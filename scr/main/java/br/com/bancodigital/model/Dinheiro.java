@@ -0,0 +1,86 @@
+package br.com.bancodigital.model;
+
+/**
+ * Utilitário para valores monetários em ponto fixo.
+ * Todo valor em dinheiro do sistema é um 'long' com a quantidade de CENTAVOS
+ * (ex: R$ 50,75 -> 5075). Assim não há erro de arredondamento do 'double'
+ * e nenhum objeto é alocado nas operações de saldo.
+ */
+public final class Dinheiro {
+
+    public static final long CENTAVOS_POR_REAL = 100;
+
+    private Dinheiro() {
+        // Classe utilitária: não deve ser instanciada
+    }
+
+    /**
+     * Converte reais inteiros para centavos (ex: 100 -> 10000).
+     */
+    public static long reais(long reais) {
+        return Math.multiplyExact(reais, CENTAVOS_POR_REAL);
+    }
+
+    /**
+     * Converte um texto digitado pelo usuário em centavos.
+     * Aceita ponto ou vírgula como separador decimal e no máximo 2 casas
+     * (ex: "50", "50.7", "50,75").
+     * @throws NumberFormatException se o texto não for um valor válido.
+     */
+    public static long deTexto(String texto) {
+        String valor = texto.trim();
+        if (valor.isEmpty()) {
+            throw new NumberFormatException("Valor vazio.");
+        }
+
+        boolean negativo = valor.charAt(0) == '-';
+        int inicio = (negativo || valor.charAt(0) == '+') ? 1 : 0;
+
+        long reais = 0;
+        long centavos = 0;
+        int casasDecimais = -1; // -1 = ainda não achou o separador
+        boolean temDigito = false;
+
+        for (int i = inicio; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '.' || c == ',') {
+                if (casasDecimais >= 0) {
+                    throw new NumberFormatException("Valor inválido: " + texto);
+                }
+                casasDecimais = 0;
+            } else if (c >= '0' && c <= '9') {
+                temDigito = true;
+                if (casasDecimais < 0) {
+                    reais = Math.addExact(Math.multiplyExact(reais, 10), c - '0');
+                } else if (++casasDecimais <= 2) {
+                    centavos = centavos * 10 + (c - '0');
+                } else {
+                    throw new NumberFormatException("Use no máximo 2 casas decimais: " + texto);
+                }
+            } else {
+                throw new NumberFormatException("Valor inválido: " + texto);
+            }
+        }
+        if (!temDigito) {
+            throw new NumberFormatException("Valor inválido: " + texto);
+        }
+        if (casasDecimais == 1) {
+            centavos *= 10; // "50.7" -> 70 centavos
+        }
+
+        long total = Math.addExact(reais(reais), centavos);
+        return negativo ? -total : total;
+    }
+
+    /**
+     * Formata centavos como texto com 2 casas decimais (ex: 5075 -> "50.75").
+     */
+    public static String formatar(long centavos) {
+        String sinal = centavos < 0 ? "-" : "";
+        // Math.abs(Long.MIN_VALUE) é negativo, por isso dividimos antes
+        long reais = Math.abs(centavos / CENTAVOS_POR_REAL);
+        int resto = (int) Math.abs(centavos % CENTAVOS_POR_REAL);
+        // Concatenação direta: a String sai do tamanho certo, sem StringBuilder intermediário
+        return resto < 10 ? sinal + reais + ".0" + resto : sinal + reais + "." + resto;
+    }
+}
@@ -0,0 +1,56 @@
+package br.com.bancodigital.model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Filtro para consultas de extrato: período (inclusive nas duas pontas) e tipos de transação.
+ * Campos nulos significam "sem filtro".
+ */
+public record FiltroExtrato(
+    LocalDateTime inicio,
+    LocalDateTime fim,
+    Set<TipoTransacao> tipos
+) {
+
+    private static final FiltroExtrato TODOS = new FiltroExtrato(null, null, null);
+
+    public FiltroExtrato {
+        if (inicio != null && fim != null && fim.isBefore(inicio)) {
+            throw new IllegalArgumentException("O fim do período não pode ser antes do início.");
+        }
+        // Cópia defensiva (EnumSet é compacto e rápido para contains)
+        tipos = (tipos == null || tipos.isEmpty()) ? null : EnumSet.copyOf(tipos);
+    }
+
+    /**
+     * @return um filtro que aceita todas as transações.
+     */
+    public static FiltroExtrato todos() {
+        return TODOS;
+    }
+
+    public FiltroExtrato comPeriodo(LocalDateTime inicio, LocalDateTime fim) {
+        return new FiltroExtrato(inicio, fim, tipos);
+    }
+
+    public FiltroExtrato comTipos(Set<TipoTransacao> tipos) {
+        return new FiltroExtrato(inicio, fim, tipos);
+    }
+
+    // --- Usados pelo HistoricoTransacoes (instantes em epoch millis) ---
+
+    long inicioEmMillis() {
+        return inicio == null ? Long.MIN_VALUE : inicio.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    long fimEmMillis() {
+        return fim == null ? Long.MAX_VALUE : fim.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    boolean aceitaTipo(TipoTransacao tipo) {
+        return tipos == null || tipos.contains(tipo);
+    }
+}
@@ -0,0 +1,245 @@
+package br.com.bancodigital.model;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Histórico de transações de uma conta, guardado em "colunas" de tipos primitivos
+ * (um array para cada campo) em vez de uma lista de objetos Transacao.
+ *
+ * Cada transação ocupa ~21 bytes (instante, tipo, valor e a referência ao detalhe),
+ * contra ~165 bytes de um Transacao com LocalDateTime e descrição concatenada.
+ * Os objetos Transacao só são criados quando alguém lê (get), por isso esta
+ * classe funciona como uma "visão" preguiçosa e não modificável da lista.
+ *
+ * Alterações são feitas só pela Conta, que deve estar travada (ver ContaRepository.travar).
+ *
+ * Índice de tempo: as transações registradas ficam em ordem cronológica, então
+ * a coluna de instantes já é um índice ordenado. Uma consulta por período
+ * começa com busca binária e custa proporcional à página, não ao histórico.
+ * Para totais (ex: quanto foi sacado hoje), use getResumo(), que não percorre o histórico.
+ */
+public class HistoricoTransacoes extends AbstractList<Transacao> {
+
+    private static final int CAPACIDADE_INICIAL = 4;
+    private static final TipoTransacao[] TIPOS = TipoTransacao.values(); // values() copia o array a cada chamada
+
+    // Bit alto do tipo: o detalhe já é a descrição completa (não leva o prefixo do tipo)
+    private static final byte DESCRICAO_COMPLETA = (byte) 0x80;
+
+    private long[] instantes = new long[CAPACIDADE_INICIAL]; // epoch millis
+    private byte[] tipos = new byte[CAPACIDADE_INICIAL];     // ordinal do TipoTransacao (+ flag)
+    private long[] valores = new long[CAPACIDADE_INICIAL];   // centavos
+    private String[] detalhes = new String[CAPACIDADE_INICIAL];
+    private int tamanho;
+
+    // false se alguma transação foi adicionada fora de ordem (aí a busca binária não vale)
+    private boolean emOrdem = true;
+
+    // Totais por dia e tipo, atualizados a cada transação adicionada
+    private final ResumoTransacoes resumo = new ResumoTransacoes();
+
+    /**
+     * Adiciona uma transação.
+     * @param detalhe Nome da contraparte (transferência/PIX), completado com o
+     *                prefixo do tipo só na leitura (ex: "Para: " + nome).
+     */
+    void adicionar(long instante, TipoTransacao tipo, long valor, String detalhe) {
+        // Se o relógio voltar, mantém a ordem (não desfaz o índice de tempo)
+        if (tamanho > 0 && instante < instantes[tamanho - 1]) {
+            instante = instantes[tamanho - 1];
+        }
+        adicionar(instante, (byte) tipo.ordinal(), valor, detalhe);
+    }
+
+    /**
+     * Adiciona uma transação já pronta (descrição completa).
+     */
+    void adicionar(Transacao transacao) {
+        long instante = transacao.dataHora().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        adicionarComDescricao(instante, transacao.tipo(), transacao.valor(), transacao.descricaoAdicional());
+    }
+
+    /**
+     * Adiciona uma transação cuja descrição já está completa (não recebe o prefixo do tipo).
+     */
+    void adicionarComDescricao(long instante, TipoTransacao tipo, long valor, String descricao) {
+        adicionar(instante, (byte) (tipo.ordinal() | DESCRICAO_COMPLETA), valor, descricao);
+    }
+
+    /**
+     * Adiciona uma transação como ela foi gravada (recuperação do journal ou de um snapshot):
+     * o instante como está e o texto como estava guardado, detalhe ou descrição completa.
+     */
+    void restaurar(long instante, TipoTransacao tipo, long valor, String texto, boolean descricaoCompleta) {
+        adicionar(instante, (byte) (descricaoCompleta ? tipo.ordinal() | DESCRICAO_COMPLETA : tipo.ordinal()), valor, texto);
+    }
+
+    private void adicionar(long instante, byte tipo, long valor, String detalhe) {
+        if (tamanho > 0 && instante < instantes[tamanho - 1]) {
+            emOrdem = false;
+        }
+        if (tamanho == instantes.length) {
+            crescer();
+        }
+        instantes[tamanho] = instante;
+        tipos[tamanho] = tipo;
+        valores[tamanho] = valor;
+        detalhes[tamanho] = detalhe;
+        tamanho++;
+        resumo.registrar(instante, tipo & ~DESCRICAO_COMPLETA, valor);
+    }
+
+    /**
+     * Desfaz as transações a partir da posição 'tamanho' (inclusive), e tira-as dos totais.
+     * Usado quando a gravação delas falhou (ver Conta.desfazerAlteracoes).
+     */
+    void truncar(int tamanho) {
+        for (int i = this.tamanho - 1; i >= tamanho; i--) {
+            resumo.desfazer(instantes[i], tipos[i] & ~DESCRICAO_COMPLETA, valores[i]);
+            detalhes[i] = null;
+        }
+        this.tamanho = Math.min(this.tamanho, tamanho);
+    }
+
+    private void crescer() {
+        int novaCapacidade = instantes.length + (instantes.length >> 1) + 1;
+        instantes = Arrays.copyOf(instantes, novaCapacidade);
+        tipos = Arrays.copyOf(tipos, novaCapacidade);
+        valores = Arrays.copyOf(valores, novaCapacidade);
+        detalhes = Arrays.copyOf(detalhes, novaCapacidade);
+    }
+
+    // --- Acesso direto às colunas (sem criar objetos) ---
+
+    public long instante(int indice) {
+        checarIndice(indice);
+        return instantes[indice];
+    }
+
+    public TipoTransacao tipo(int indice) {
+        checarIndice(indice);
+        return TIPOS[tipos[indice] & ~DESCRICAO_COMPLETA];
+    }
+
+    public long valor(int indice) {
+        checarIndice(indice);
+        return valores[indice];
+    }
+
+    public String descricao(int indice) {
+        checarIndice(indice);
+        if ((tipos[indice] & DESCRICAO_COMPLETA) != 0) {
+            return detalhes[indice];
+        }
+        return tipo(indice).getPrefixoDetalhe() + detalhes[indice];
+    }
+
+    /**
+     * O detalhe como foi guardado: a descrição é o prefixo do tipo + o detalhe,
+     * a não ser que descricaoCompleta(indice) seja true. Serve para copiar a
+     * transação sem montar a descrição (ver FluxoDeTransacoes).
+     */
+    public String detalhe(int indice) {
+        checarIndice(indice);
+        return detalhes[indice];
+    }
+
+    public boolean descricaoCompleta(int indice) {
+        checarIndice(indice);
+        return (tipos[indice] & DESCRICAO_COMPLETA) != 0;
+    }
+
+    /**
+     * @return os totais por dia e tipo deste histórico (mantidos a cada transação).
+     */
+    public ResumoTransacoes getResumo() {
+        return resumo;
+    }
+
+    // --- Consulta paginada ---
+
+    /**
+     * Consulta uma página do histórico.
+     * @param filtro Período e tipos aceitos.
+     * @param cursor Posição onde a página começa (PaginaExtrato.INICIO ou o proximoCursor da página anterior).
+     * @param limite Quantidade máxima de transações na página.
+     */
+    public PaginaExtrato consultar(FiltroExtrato filtro, int cursor, int limite) {
+        if (limite <= 0) {
+            throw new IllegalArgumentException("O tamanho da página deve ser positivo.");
+        }
+        if (cursor < 0) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor);
+        }
+        long inicio = filtro.inicioEmMillis();
+        long fim = filtro.fimEmMillis();
+
+        // 1. Pula direto para o início do período (busca binária no índice de tempo)
+        int posicao = cursor;
+        if (emOrdem) {
+            posicao = Math.max(posicao, primeiraPosicaoDesde(inicio));
+        }
+
+        // 2. Percorre só até encher a página
+        List<Transacao> transacoes = new ArrayList<>(Math.min(limite, 64));
+        while (posicao < tamanho && transacoes.size() < limite) {
+            long instante = instantes[posicao];
+            if (emOrdem && instante > fim) {
+                posicao = tamanho; // Passou do período: não há mais nada
+                break;
+            }
+            if (instante >= inicio && instante <= fim && filtro.aceitaTipo(tipo(posicao))) {
+                transacoes.add(get(posicao));
+            }
+            posicao++;
+        }
+
+        boolean temMais = posicao < tamanho && !(emOrdem && instantes[posicao] > fim);
+        return new PaginaExtrato(transacoes, temMais ? posicao : PaginaExtrato.FIM);
+    }
+
+    /**
+     * @return a primeira posição com instante >= o informado (busca binária).
+     */
+    private int primeiraPosicaoDesde(long instante) {
+        int baixo = 0;
+        int alto = tamanho;
+        while (baixo < alto) {
+            int meio = (baixo + alto) >>> 1;
+            if (instantes[meio] < instante) {
+                baixo = meio + 1;
+            } else {
+                alto = meio;
+            }
+        }
+        return baixo;
+    }
+
+    // --- Visão como List<Transacao> ---
+
+    /**
+     * Monta (sob demanda) o objeto Transacao da posição informada.
+     */
+    @Override
+    public Transacao get(int indice) {
+        LocalDateTime dataHora = LocalDateTime.ofInstant(Instant.ofEpochMilli(instante(indice)), ZoneId.systemDefault());
+        return new Transacao(dataHora, tipo(indice), valores[indice], descricao(indice));
+    }
+
+    @Override
+    public int size() {
+        return tamanho;
+    }
+
+    private void checarIndice(int indice) {
+        if (indice < 0 || indice >= tamanho) {
+            throw new IndexOutOfBoundsException("Índice " + indice + " fora do histórico (tamanho " + tamanho + ").");
+        }
+    }
+}
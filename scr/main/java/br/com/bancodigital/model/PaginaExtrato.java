@@ -0,0 +1,21 @@
+package br.com.bancodigital.model;
+
+import java.util.List;
+
+/**
+ * Uma página de uma consulta de extrato.
+ * @param transacoes As transações da página, em ordem cronológica.
+ * @param proximoCursor Onde a próxima página começa, ou FIM se não há mais transações.
+ */
+public record PaginaExtrato(
+    List<Transacao> transacoes,
+    int proximoCursor
+) {
+
+    public static final int INICIO = 0;
+    public static final int FIM = -1;
+
+    public boolean temMais() {
+        return proximoCursor != FIM;
+    }
+}
@@ -0,0 +1,138 @@
+package br.com.bancodigital.model;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Totais de todas as contas de um repositório, por dia e por tipo de transação,
+ * mais os totais gerais. É a soma dos ResumoTransacoes vinculados a ele
+ * (o repositório vincula cada conta ao salvá-la e desvincula ao removê-la).
+ *
+ * Recebe as transações de várias contas ao mesmo tempo (cada uma travada
+ * pela sua thread), por isso os contadores são LongAdder: threads diferentes
+ * somam em células diferentes, sem disputar a mesma linha de cache.
+ * As consultas são O(1) (geral e dia) ou O(dias) (mês e período).
+ */
+public class ResumoBanco {
+
+    private static final int TIPOS = TipoTransacao.values().length;
+
+    /**
+     * Contadores de um dia.
+     */
+    private static final class Dia {
+        final int dia;
+        final long inicio;
+        final long fim;
+        final LongAdder[] quantidades = novosContadores();
+        final LongAdder[] valores = novosContadores();
+
+        Dia(int dia) {
+            this.dia = dia;
+            this.inicio = Dias.inicioDoDia(dia);
+            this.fim = Dias.inicioDoDia(dia + 1);
+        }
+
+        void somar(int tipo, long quantidade, long valor) {
+            quantidades[tipo].add(quantidade);
+            valores[tipo].add(valor);
+        }
+    }
+
+    private final Map<Integer, Dia> dias = new ConcurrentHashMap<>();
+    private final LongAdder[] quantidadesGerais = novosContadores();
+    private final LongAdder[] valoresGerais = novosContadores();
+
+    // Dia da última transação (quase todas as transações são de hoje)
+    private volatile Dia ultimoDia;
+
+    void registrar(long instante, int tipo, long valor) {
+        Dia dia = ultimoDia;
+        if (dia == null || instante < dia.inicio || instante >= dia.fim) {
+            dia = dias.computeIfAbsent(Dias.diaDe(instante), Dia::new);
+            if (ultimoDia == null || dia.dia > ultimoDia.dia) {
+                ultimoDia = dia;
+            }
+        }
+        dia.somar(tipo, 1, valor);
+        quantidadesGerais[tipo].increment();
+        valoresGerais[tipo].add(valor);
+    }
+
+    void desfazer(long instante, int tipo, long valor) {
+        dias.computeIfAbsent(Dias.diaDe(instante), Dia::new).somar(tipo, -1, -valor);
+        quantidadesGerais[tipo].decrement();
+        valoresGerais[tipo].add(-valor);
+    }
+
+    // Soma (sinal 1) ou subtrai (sinal -1) os totais de uma conta
+    void somar(ResumoTransacoes conta, int sinal) {
+        conta.paraCada((dia, tipo, quantidade, valor) -> {
+            dias.computeIfAbsent(dia, Dia::new).somar(tipo, sinal * quantidade, sinal * valor);
+            quantidadesGerais[tipo].add(sinal * quantidade);
+            valoresGerais[tipo].add(sinal * valor);
+        });
+    }
+
+    // --- Consultas ---
+
+    /**
+     * @return a soma das transações do tipo no dia, em todas as contas (centavos).
+     */
+    public long total(LocalDate dia, TipoTransacao tipo) {
+        Dia contadores = dias.get((int) dia.toEpochDay());
+        return contadores == null ? 0 : contadores.valores[tipo.ordinal()].sum();
+    }
+
+    public long quantidade(LocalDate dia, TipoTransacao tipo) {
+        Dia contadores = dias.get((int) dia.toEpochDay());
+        return contadores == null ? 0 : contadores.quantidades[tipo.ordinal()].sum();
+    }
+
+    public TotaisPorTipo doDia(LocalDate dia) {
+        return doPeriodo(dia, dia);
+    }
+
+    public TotaisPorTipo doMes(YearMonth mes) {
+        return doPeriodo(mes.atDay(1), mes.atEndOfMonth());
+    }
+
+    /**
+     * @param inicio Primeiro dia (inclusive).
+     * @param fim Último dia (inclusive).
+     */
+    public TotaisPorTipo doPeriodo(LocalDate inicio, LocalDate fim) {
+        TotaisPorTipo totais = new TotaisPorTipo();
+        for (long dia = inicio.toEpochDay(); dia <= fim.toEpochDay(); dia++) {
+            Dia contadores = dias.get((int) dia);
+            if (contadores != null) {
+                for (int tipo = 0; tipo < TIPOS; tipo++) {
+                    totais.somar(tipo, contadores.quantidades[tipo].sum(), contadores.valores[tipo].sum());
+                }
+            }
+        }
+        return totais;
+    }
+
+    /**
+     * @return os totais de todas as transações de todas as contas.
+     */
+    public TotaisPorTipo geral() {
+        TotaisPorTipo totais = new TotaisPorTipo();
+        for (int tipo = 0; tipo < TIPOS; tipo++) {
+            totais.somar(tipo, quantidadesGerais[tipo].sum(), valoresGerais[tipo].sum());
+        }
+        return totais;
+    }
+
+    private static LongAdder[] novosContadores() {
+        LongAdder[] contadores = new LongAdder[TIPOS];
+        for (int i = 0; i < TIPOS; i++) {
+            contadores[i] = new LongAdder();
+        }
+        return contadores;
+    }
+}
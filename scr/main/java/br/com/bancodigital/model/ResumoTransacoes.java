@@ -0,0 +1,240 @@
+package br.com.bancodigital.model;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+
+/**
+ * Totais diários de uma conta, por tipo de transação (quantidade e soma dos valores),
+ * mantidos a cada transação registrada no histórico. Assim, "quanto esta conta
+ * sacou hoje?" não precisa percorrer o histórico inteiro.
+ *
+ * Só guarda os pares (dia, tipo) que tiveram transações, em arrays ordenados
+ * pela chave dia * 16 + tipo: cada par ocupa 16 bytes. Como as transações chegam
+ * em ordem cronológica, os pares de hoje ficam no fim e o registro é O(1);
+ * consultas de um dia usam busca binária e as de mês/período custam
+ * proporcional aos dias com movimento.
+ *
+ * É alterado só pelo HistoricoTransacoes (com a conta travada); para ler com
+ * outras threads alterando a conta, trave a conta (ver ContaService.consultarTotais).
+ * Não é gravado: na recuperação de um repositório durável, as transações
+ * restauradas o reconstroem.
+ *
+ * Se estiver vinculado a um ResumoBanco (ver vincular), cada transação também
+ * é somada nos totais do banco.
+ */
+public class ResumoTransacoes {
+
+    private static final int TIPOS_POR_DIA = 16;
+    private static final int CAPACIDADE_INICIAL = 4;
+
+    static {
+        if (TipoTransacao.values().length > TIPOS_POR_DIA) {
+            throw new ExceptionInInitializerError("TipoTransacao tem mais de " + TIPOS_POR_DIA + " tipos.");
+        }
+    }
+
+    // Criados na primeira transação (muitas contas nunca movimentam)
+    private int[] chaves;        // dia * TIPOS_POR_DIA + tipo, em ordem crescente
+    private int[] quantidades;
+    private long[] valores;      // centavos
+    private int tamanho;
+
+    // Dia da última transação, para não converter o instante a cada registro
+    private long inicioUltimoDia = Long.MAX_VALUE;
+    private long fimUltimoDia = Long.MIN_VALUE;
+    private int ultimoDia;
+
+    private ResumoBanco banco;
+
+    /**
+     * Soma uma transação (chamado pelo HistoricoTransacoes).
+     * @param tipo Ordinal do TipoTransacao.
+     */
+    void registrar(long instante, int tipo, long valor) {
+        int dia = diaDe(instante);
+        int chave = dia * TIPOS_POR_DIA + tipo;
+
+        int posicao = -1;
+        if (tamanho > 0 && chaves[tamanho - 1] >= (dia + 1) * TIPOS_POR_DIA) {
+            posicao = posicao(chave); // Transação fora de ordem (dia anterior ao último)
+        } else {
+            // Caminho comum: o par, se existe, está entre os últimos (mesmo dia)
+            for (int i = tamanho - 1; i >= 0 && chaves[i] >= dia * TIPOS_POR_DIA; i--) {
+                if (chaves[i] == chave) {
+                    posicao = i;
+                    break;
+                }
+            }
+        }
+        if (posicao < 0) {
+            posicao = inserir(chave);
+        }
+        quantidades[posicao]++;
+        valores[posicao] += valor;
+
+        if (banco != null) {
+            banco.registrar(instante, tipo, valor);
+        }
+    }
+
+    /**
+     * Tira uma transação já somada (o registro dela foi desfeito, ver HistoricoTransacoes.truncar).
+     * O par (dia, tipo) continua guardado, com a quantidade e o valor diminuídos.
+     */
+    void desfazer(long instante, int tipo, long valor) {
+        int posicao = posicao(diaDe(instante) * TIPOS_POR_DIA + tipo);
+        if (posicao < 0) {
+            return;
+        }
+        quantidades[posicao]--;
+        valores[posicao] -= valor;
+
+        if (banco != null) {
+            banco.desfazer(instante, tipo, valor);
+        }
+    }
+
+    private int diaDe(long instante) {
+        if (instante < inicioUltimoDia || instante >= fimUltimoDia) {
+            ultimoDia = Dias.diaDe(instante);
+            inicioUltimoDia = Dias.inicioDoDia(ultimoDia);
+            fimUltimoDia = Dias.inicioDoDia(ultimoDia + 1);
+        }
+        return ultimoDia;
+    }
+
+    // Abre um par novo na posição ordenada (no fim, exceto se a transação chegou fora de ordem)
+    private int inserir(int chave) {
+        if (chaves == null) {
+            chaves = new int[CAPACIDADE_INICIAL];
+            quantidades = new int[CAPACIDADE_INICIAL];
+            valores = new long[CAPACIDADE_INICIAL];
+        } else if (tamanho == chaves.length) {
+            int novaCapacidade = chaves.length + (chaves.length >> 1) + 1;
+            chaves = Arrays.copyOf(chaves, novaCapacidade);
+            quantidades = Arrays.copyOf(quantidades, novaCapacidade);
+            valores = Arrays.copyOf(valores, novaCapacidade);
+        }
+        int posicao = tamanho;
+        if (tamanho > 0 && chaves[tamanho - 1] > chave) {
+            posicao = -Arrays.binarySearch(chaves, 0, tamanho, chave) - 1;
+            System.arraycopy(chaves, posicao, chaves, posicao + 1, tamanho - posicao);
+            System.arraycopy(quantidades, posicao, quantidades, posicao + 1, tamanho - posicao);
+            System.arraycopy(valores, posicao, valores, posicao + 1, tamanho - posicao);
+        }
+        chaves[posicao] = chave;
+        quantidades[posicao] = 0;
+        valores[posicao] = 0;
+        tamanho++;
+        return posicao;
+    }
+
+    // --- Consultas ---
+
+    /**
+     * @return a soma das transações do tipo no dia, em centavos (O(log n)).
+     */
+    public long total(LocalDate dia, TipoTransacao tipo) {
+        int posicao = posicao((int) dia.toEpochDay() * TIPOS_POR_DIA + tipo.ordinal());
+        return posicao < 0 ? 0 : valores[posicao];
+    }
+
+    /**
+     * @return quantas transações do tipo houve no dia (O(log n)).
+     */
+    public long quantidade(LocalDate dia, TipoTransacao tipo) {
+        int posicao = posicao((int) dia.toEpochDay() * TIPOS_POR_DIA + tipo.ordinal());
+        return posicao < 0 ? 0 : quantidades[posicao];
+    }
+
+    public TotaisPorTipo doDia(LocalDate dia) {
+        return doPeriodo(dia, dia);
+    }
+
+    public TotaisPorTipo doMes(YearMonth mes) {
+        return doPeriodo(mes.atDay(1), mes.atEndOfMonth());
+    }
+
+    /**
+     * @param inicio Primeiro dia (inclusive).
+     * @param fim Último dia (inclusive).
+     */
+    public TotaisPorTipo doPeriodo(LocalDate inicio, LocalDate fim) {
+        TotaisPorTipo totais = new TotaisPorTipo();
+        int primeira = (int) inicio.toEpochDay() * TIPOS_POR_DIA;
+        int ultima = (int) fim.toEpochDay() * TIPOS_POR_DIA + TIPOS_POR_DIA - 1;
+        int posicao = posicao(primeira);
+        if (posicao < 0) {
+            posicao = -posicao - 1;
+        }
+        for (; posicao < tamanho && chaves[posicao] <= ultima; posicao++) {
+            totais.somar(chaves[posicao] % TIPOS_POR_DIA, quantidades[posicao], valores[posicao]);
+        }
+        return totais;
+    }
+
+    /**
+     * @return os totais de todo o histórico da conta.
+     */
+    public TotaisPorTipo geral() {
+        TotaisPorTipo totais = new TotaisPorTipo();
+        somarEm(totais);
+        return totais;
+    }
+
+    void somarEm(TotaisPorTipo totais) {
+        for (int i = 0; i < tamanho; i++) {
+            totais.somar(chaves[i] % TIPOS_POR_DIA, quantidades[i], valores[i]);
+        }
+    }
+
+    /**
+     * @return quantos pares (dia, tipo) estão guardados.
+     */
+    public int tamanho() {
+        return tamanho;
+    }
+
+    private int posicao(int chave) {
+        return tamanho == 0 ? -1 : Arrays.binarySearch(chaves, 0, tamanho, chave);
+    }
+
+    // --- Totais do banco ---
+
+    /**
+     * Passa a somar as transações desta conta nos totais do banco, incluindo as que
+     * já estão aqui (e as tira do banco ao qual estava vinculado, se houver).
+     * Chamado pelo repositório ao salvar a conta, com ela travada; sem efeito se já está vinculado.
+     */
+    public void vincular(ResumoBanco novoBanco) {
+        if (banco == novoBanco) {
+            return;
+        }
+        desvincular();
+        novoBanco.somar(this, 1);
+        banco = novoBanco;
+    }
+
+    /**
+     * Tira as transações desta conta dos totais do banco (ex: ao remover a conta do repositório).
+     */
+    public void desvincular() {
+        if (banco != null) {
+            banco.somar(this, -1);
+            banco = null;
+        }
+    }
+
+    // Percorre os pares para o ResumoBanco: (dia, tipo, quantidade, valor)
+    void paraCada(LeitorDePares leitor) {
+        for (int i = 0; i < tamanho; i++) {
+            leitor.ler(chaves[i] / TIPOS_POR_DIA, chaves[i] % TIPOS_POR_DIA, quantidades[i], valores[i]);
+        }
+    }
+
+    @FunctionalInterface
+    interface LeitorDePares {
+        void ler(int dia, int tipo, long quantidade, long valor);
+    }
+}
@@ -0,0 +1,92 @@
+package br.com.bancodigital.model;
+
+import br.com.bancodigital.exception.ContaException;
+import lombok.Getter;
+
+import java.util.Locale;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Tipos de chave PIX, cada um com sua forma "normalizada" (a que fica no diretório):
+ * - CPF: 11 dígitos, sem pontuação;
+ * - EMAIL: em minúsculas;
+ * - TELEFONE: +, código do país e número, só dígitos (ex: +5511999998888);
+ * - ALEATORIA: UUID gerado pelo banco, em minúsculas.
+ */
+@Getter
+public enum TipoChavePix {
+
+    CPF("CPF"),
+    EMAIL("E-mail"),
+    TELEFONE("Telefone"),
+    ALEATORIA("Chave aleatória");
+
+    private static final Pattern EMAIL_VALIDO = Pattern.compile("[^@\\s]+@[^@\\s]+\\.[^@\\s]+");
+    private static final Pattern TELEFONE_VALIDO = Pattern.compile("\\+[1-9][0-9]{7,14}");
+    private static final Pattern UUID_VALIDO = Pattern.compile(
+            "[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+
+    private final String descricao;
+
+    TipoChavePix(String descricao) {
+        this.descricao = descricao;
+    }
+
+    /**
+     * Deixa a chave na forma guardada no diretório (ex: "123.456.789-00" -> "12345678900").
+     * @throws ContaException se o valor não é uma chave válida deste tipo.
+     */
+    public String normalizar(String valor) {
+        String normalizado = switch (this) {
+            case CPF -> valor.replace(".", "").replace("-", "").trim();
+            case EMAIL, ALEATORIA -> valor.trim().toLowerCase(Locale.ROOT);
+            case TELEFONE -> valor.replace(" ", "").replace("-", "").replace("(", "").replace(")", "");
+        };
+        boolean valido = switch (this) {
+            case CPF -> normalizado.length() == 11 && somenteDigitos(normalizado);
+            case EMAIL -> normalizado.length() <= 77 && EMAIL_VALIDO.matcher(normalizado).matches();
+            case TELEFONE -> TELEFONE_VALIDO.matcher(normalizado).matches();
+            case ALEATORIA -> UUID_VALIDO.matcher(normalizado).matches();
+        };
+        if (!valido) {
+            throw new ContaException(descricao + " inválido como chave PIX: " + valor);
+        }
+        return normalizado;
+    }
+
+    /**
+     * Descobre o tipo de uma chave digitada pelo usuário:
+     * com "@" é e-mail, começando com "+" é telefone, no formato UUID é aleatória;
+     * o resto é tratado como CPF.
+     */
+    public static TipoChavePix identificar(String valor) {
+        String texto = valor.trim();
+        if (texto.indexOf('@') >= 0) {
+            return EMAIL;
+        }
+        if (texto.startsWith("+")) {
+            return TELEFONE;
+        }
+        if (UUID_VALIDO.matcher(texto.toLowerCase(Locale.ROOT)).matches()) {
+            return ALEATORIA;
+        }
+        return CPF;
+    }
+
+    private static boolean somenteDigitos(String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) < '0' || texto.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return o valor de uma nova chave aleatória.
+     */
+    static String gerarAleatoria() {
+        return UUID.randomUUID().toString();
+    }
+}
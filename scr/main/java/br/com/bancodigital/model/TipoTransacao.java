@@ -5,16 +5,30 @@ import lombok.Getter;
 @Getter
 public enum TipoTransacao {
     
-    DEPOSITO("Depósito"),
-    SAQUE("Saque"),
-    TRANSFERENCIA_ENVIADA("Transferência Enviada"),
-    TRANSFERENCIA_RECEBIDA("Transferência Recebida"),
-    PIX_ENVIADO("PIX Enviado"),
-    PIX_RECEBIDO("PIX Recebido");
+    DEPOSITO("Depósito", true, ""),
+    SAQUE("Saque", false, ""),
+    TRANSFERENCIA_ENVIADA("Transferência Enviada", false, "Para: "),
+    TRANSFERENCIA_RECEBIDA("Transferência Recebida", true, "De: "),
+    PIX_ENVIADO("PIX Enviado", false, "PIX para: "),
+    PIX_RECEBIDO("PIX Recebido", true, "PIX de: "),
+    // Devolução de um débito cuja outra metade não pôde ser concluída (ex: transferência entre partições)
+    ESTORNO("Estorno", true, "Estorno: "),
+    // Encargos mensais (ver AgendadorDeEncargos); o detalhe é a competência (ex: "2026-10")
+    RENDIMENTO("Rendimento", true, "Competência "),
+    TARIFA("Tarifa", false, "Competência "),
+    JUROS_CHEQUE_ESPECIAL("Juros do Cheque Especial", false, "Competência ");
 
     private final String descricao;
 
-    TipoTransacao(String descricao) {
+    // true = entra dinheiro na conta (crédito); false = sai dinheiro (débito)
+    private final boolean credito;
+
+    // Texto que vem antes do detalhe no extrato (ex: "Para: " + nome da contraparte)
+    private final String prefixoDetalhe;
+
+    TipoTransacao(String descricao, boolean credito, String prefixoDetalhe) {
         this.descricao = descricao;
+        this.credito = credito;
+        this.prefixoDetalhe = prefixoDetalhe;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,93 @@
+package br.com.bancodigital.model;
+
+/**
+ * Quantidade e soma dos valores (em centavos) das transações de um período, por tipo.
+ * É uma cópia: não muda se novas transações forem registradas depois.
+ */
+public final class TotaisPorTipo {
+
+    private static final TipoTransacao[] TIPOS = TipoTransacao.values();
+
+    private final long[] quantidades;
+    private final long[] valores;
+
+    TotaisPorTipo() {
+        this.quantidades = new long[TIPOS.length];
+        this.valores = new long[TIPOS.length];
+    }
+
+    /**
+     * @param quantidades Quantidade por tipo, indexada pelo ordinal do TipoTransacao (o array é copiado).
+     * @param valores Soma por tipo, em centavos, indexada da mesma forma.
+     */
+    public static TotaisPorTipo de(long[] quantidades, long[] valores) {
+        if (quantidades.length != TIPOS.length || valores.length != TIPOS.length) {
+            throw new IllegalArgumentException("Informe um valor por TipoTransacao.");
+        }
+        TotaisPorTipo totais = new TotaisPorTipo();
+        for (int tipo = 0; tipo < TIPOS.length; tipo++) {
+            totais.somar(tipo, quantidades[tipo], valores[tipo]);
+        }
+        return totais;
+    }
+
+    void somar(int tipo, long quantidade, long valor) {
+        quantidades[tipo] += quantidade;
+        valores[tipo] += valor;
+    }
+
+    public long quantidade(TipoTransacao tipo) {
+        return quantidades[tipo.ordinal()];
+    }
+
+    /**
+     * @return a soma dos valores do tipo, em centavos.
+     */
+    public long total(TipoTransacao tipo) {
+        return valores[tipo.ordinal()];
+    }
+
+    /**
+     * @return quanto entrou (soma dos tipos de crédito), em centavos.
+     */
+    public long totalCreditos() {
+        return somar(true);
+    }
+
+    /**
+     * @return quanto saiu (soma dos tipos de débito), em centavos.
+     */
+    public long totalDebitos() {
+        return somar(false);
+    }
+
+    public long quantidadeTotal() {
+        long soma = 0;
+        for (long quantidade : quantidades) {
+            soma += quantidade;
+        }
+        return soma;
+    }
+
+    private long somar(boolean credito) {
+        long soma = 0;
+        for (TipoTransacao tipo : TIPOS) {
+            if (tipo.isCredito() == credito) {
+                soma += valores[tipo.ordinal()];
+            }
+        }
+        return soma;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder texto = new StringBuilder();
+        for (TipoTransacao tipo : TIPOS) {
+            if (quantidades[tipo.ordinal()] != 0) {
+                texto.append(String.format("%-25s | %6d | R$ %12s%n",
+                        tipo.getDescricao(), quantidades[tipo.ordinal()], Dinheiro.formatar(valores[tipo.ordinal()])));
+            }
+        }
+        return texto.toString();
+    }
+}
@@ -10,7 +10,7 @@ import java.time.format.DateTimeFormatter;
 public record Transacao(
     LocalDateTime dataHora,
     TipoTransacao tipo,
-    double valor,
+    long valor, // em centavos
     String descricaoAdicional
 ) {
 
@@ -20,10 +20,10 @@ public record Transacao(
     @Override
     public String toString() {
         // Formata a transação para ser bonita no extrato
-        return String.format("[%s] %-25s | R$ %10.2f | %s",
+        return String.format("[%s] %-25s | R$ %10s | %s",
                 dataHora.format(FORMATADOR),
                 tipo.getDescricao(),
-                valor,
+                Dinheiro.formatar(valor),
                 descricaoAdicional
         );
     }
@@ -0,0 +1,470 @@
+package br.com.bancodigital.particao;
+
+import br.com.bancodigital.exception.ContaException;
+import br.com.bancodigital.model.ChavePix;
+import br.com.bancodigital.model.Cliente;
+import br.com.bancodigital.model.TipoChavePix;
+import br.com.bancodigital.model.TipoTransacao;
+import br.com.bancodigital.service.ResultadoOperacao;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coordenador de um banco dividido em partições (shards): cada conta mora em
+ * uma partição (ver Particionador), que pode estar neste processo ou em outro.
+ *
+ * - Operações de uma conta só (depósito, saque, saldo) vão direto para a partição dona.
+ * - Transferência/PIX com as duas contas na mesma partição: caminho rápido,
+ *   a própria partição faz a operação atômica (uma trava, uma gravação).
+ * - Contas em partições diferentes: uma saga em três passos, cada um idempotente
+ *   (com uma chave derivada da chave da operação):
+ *     1. debitar na origem (se falhar, nada aconteceu);
+ *     2. creditar no destino;
+ *     3. se o crédito falhou, estornar o débito na origem (compensação).
+ *   Falhas de rede são repetidas com a mesma chave. Se ainda assim um passo não
+ *   tem resposta, a saga fica pendente: reprocessarPendentes() (ou repetir a operação
+ *   com a mesma chave) a continua da etapa em que parou.
+ *   Um estorno que não pode ser feito (partição sem resposta ou conta recusando) também
+ *   fica pendente, na etapa ESTORNO, até dar certo (ver getEstornosPendentes).
+ *
+ * As regras antifraude (se as partições as têm, ver ParticaoLocal e ServidorApp) valem
+ * nos dois caminhos: na saga, o débito (passo 1) é conferido pela partição da origem,
+ * com a conta travada, como uma transferência local. Os limites da origem e do par
+ * origem/CPF são exatos; os do CPF de destino são contados por partição de origem.
+ *
+ * Entre o débito e o crédito o dinheiro está "em trânsito": a soma dos saldos
+ * das partições fica momentaneamente menor (não há isolamento entre partições).
+ * A etapa de cada saga é gravada no DiarioDeSagas antes do passo seguinte: com um
+ * diretório, um coordenador que cair no meio continua as sagas ao reabrir, sem repetir
+ * os passos já feitos (sem diretório, o estado fica só em memória).
+ *
+ * Chaves PIX: cada partição guarda as chaves das suas contas, e o coordenador guarda
+ * a rota de cada chave (a partição dona), registrada ao criar a conta (chave CPF) e ao
+ * cadastrar a chave. A resolução pergunta só à partição da rota; todas as partições
+ * só são consultadas para uma chave sem rota (ex: cadastrada direto na partição), e a
+ * de menor índice ganha. A unicidade entre partições é verificada no cadastro, mas sem
+ * trava global; e a chave CPF, cadastrada automaticamente na primeira conta do cliente,
+ * fica em cada partição onde ele tem conta (a rota aponta a de menor índice).
+ */
+public class BancoParticionado implements AutoCloseable {
+
+    private static final int TENTATIVAS = 3;
+    private static final long ESPERA_ENTRE_TENTATIVAS_MS = 50;
+    private static final String MOTIVO_PENDENTE = "Transferência pendente (partição sem resposta); repita com a mesma chave.";
+    private static final String MOTIVO_ESTORNO_PENDENTE = "Transferência não concluída; o estorno está pendente e será refeito: ";
+
+    /**
+     * Uma transferência entre partições (os dados da saga).
+     */
+    record Saga(String chave, int particaoOrigem, String numeroContaOrigem, String nomeOrigem,
+                int particaoDestino, String numeroContaDestino, String nomeDestino, String cpfDestino,
+                long valor, boolean pix) {
+    }
+
+    /**
+     * O próximo passo de uma saga em andamento (a ordem importa: uma saga só avança).
+     */
+    enum Etapa {
+        DEBITO,
+        CREDITO,
+        ESTORNO
+    }
+
+    /**
+     * Chave PIX resolvida: a partição e a conta dona.
+     */
+    private record Resolucao(int particao, Particao.DestinoPix destino) {
+    }
+
+    private final List<Particao> particoes;
+    private final Particionador particionador;
+
+    // Chaves geradas para operações sem chave do cliente: prefixo aleatório + contador
+    private final String prefixoChaves = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong sequencia = new AtomicLong();
+
+    // Sagas em andamento e rotas das chaves PIX
+    private final DiarioDeSagas diario;
+
+    /**
+     * Coordenador com o estado das sagas e as rotas só em memória.
+     */
+    public BancoParticionado(List<? extends Particao> particoes) {
+        this(particoes, DiarioDeSagas.emMemoria());
+    }
+
+    /**
+     * Coordenador com o estado das sagas e as rotas gravados em 'diretorio' (ver DiarioDeSagas).
+     * As sagas que estavam em andamento quando o coordenador parou ficam pendentes:
+     * continue-as com reprocessarPendentes.
+     */
+    public BancoParticionado(List<? extends Particao> particoes, Path diretorio) throws IOException {
+        this(particoes, DiarioDeSagas.abrir(diretorio));
+    }
+
+    private BancoParticionado(List<? extends Particao> particoes, DiarioDeSagas diario) {
+        if (particoes.isEmpty()) {
+            throw new IllegalArgumentException("Informe ao menos uma partição.");
+        }
+        this.particoes = List.copyOf(particoes);
+        this.particionador = new Particionador(particoes.size());
+        this.diario = diario;
+    }
+
+    /**
+     * Conecta a partições remotas (ServidorApp).
+     * @param enderecos "host:porta,host:porta,..." com a porta INTERNA de cada ServidorApp
+     *                  (-Dbanco.porta.interna, a que aceita as pernas das sagas);
+     *                  a ordem define o índice de cada partição.
+     */
+    public static BancoParticionado conectar(String enderecos, int conexoesPorParticao) {
+        return new BancoParticionado(conectarParticoes(enderecos, conexoesPorParticao));
+    }
+
+    /**
+     * Conecta a partições remotas, com o estado das sagas gravado em 'diretorio'.
+     */
+    public static BancoParticionado conectar(String enderecos, int conexoesPorParticao, Path diretorio)
+            throws IOException {
+        return new BancoParticionado(conectarParticoes(enderecos, conexoesPorParticao), diretorio);
+    }
+
+    private static List<Particao> conectarParticoes(String enderecos, int conexoesPorParticao) {
+        List<Particao> remotas = new ArrayList<>();
+        for (String endereco : enderecos.split(",")) {
+            String[] partes = endereco.trim().split(":");
+            if (partes.length != 2) {
+                throw new IllegalArgumentException("Endereço inválido (use host:porta): " + endereco);
+            }
+            remotas.add(new ParticaoRemota(partes[0], Integer.parseInt(partes[1]), conexoesPorParticao));
+        }
+        return remotas;
+    }
+
+    public void criarContaCorrente(Cliente cliente, String agencia, String numeroConta) {
+        criarConta(cliente, agencia, numeroConta, true);
+    }
+
+    public void criarContaPoupanca(Cliente cliente, String agencia, String numeroConta) {
+        criarConta(cliente, agencia, numeroConta, false);
+    }
+
+    private void criarConta(Cliente cliente, String agencia, String numeroConta, boolean corrente) {
+        int particao = particionador.particaoDe(numeroConta);
+        particoes.get(particao).criarConta(cliente, agencia, numeroConta, corrente);
+        // A partição cadastra o CPF como chave PIX (se válido): a rota já fica conhecida
+        try {
+            diario.registrarRota(ChavePix.de(TipoChavePix.CPF, cliente.cpf()).valor(), particao);
+        } catch (ContaException cpfInvalido) {
+            // Sem chave CPF, sem rota
+        }
+    }
+
+    public long saldo(String numeroConta) {
+        return particaoDe(numeroConta).saldo(numeroConta);
+    }
+
+    public ResultadoOperacao depositar(String numeroConta, long valor) {
+        return depositar(novaChave(), numeroConta, valor);
+    }
+
+    public ResultadoOperacao depositar(String chaveIdempotencia, String numeroConta, long valor) {
+        Particao particao = particaoDe(numeroConta);
+        return repetir(() -> particao.depositar(chaveIdempotencia, numeroConta, valor));
+    }
+
+    public ResultadoOperacao sacar(String numeroConta, long valor) {
+        return sacar(novaChave(), numeroConta, valor);
+    }
+
+    public ResultadoOperacao sacar(String chaveIdempotencia, String numeroConta, long valor) {
+        Particao particao = particaoDe(numeroConta);
+        return repetir(() -> particao.sacar(chaveIdempotencia, numeroConta, valor));
+    }
+
+    public ResultadoOperacao transferir(String numeroContaOrigem, String numeroContaDestino, long valor) {
+        return transferir(novaChave(), numeroContaOrigem, numeroContaDestino, valor);
+    }
+
+    /**
+     * @return o resultado, com o saldo da origem. Se a saga ficou pendente (falha de rede),
+     *         é uma falha com o motivo "Transferência pendente"; repetir com a mesma chave
+     *         conclui a saga e devolve o resultado final.
+     */
+    public ResultadoOperacao transferir(String chaveIdempotencia, String numeroContaOrigem,
+                                        String numeroContaDestino, long valor) {
+        int origem = particionador.particaoDe(numeroContaOrigem);
+        int destino = particionador.particaoDe(numeroContaDestino);
+        if (origem == destino) {
+            Particao particao = particoes.get(origem);
+            return repetir(() -> particao.transferir(chaveIdempotencia, numeroContaOrigem, numeroContaDestino, valor));
+        }
+        DiarioDeSagas.Andamento emAndamento = diario.andamento(chaveIdempotencia);
+        if (emAndamento != null) {
+            return continuar(emAndamento, numeroContaOrigem, valor, false);
+        }
+
+        // Os nomes vão para os extratos; buscar antes do débito também evita
+        // debitar (e estornar) quando o destino nem existe
+        Cliente titularOrigem;
+        Cliente titularDestino;
+        try {
+            titularDestino = particoes.get(destino).titular(numeroContaDestino);
+            titularOrigem = particoes.get(origem).titular(numeroContaOrigem);
+        } catch (ContaException e) {
+            return ResultadoOperacao.falha(e.getMessage());
+        }
+        return executarSaga(new Saga(chaveIdempotencia, origem, numeroContaOrigem, titularOrigem.nome(),
+                destino, numeroContaDestino, titularDestino.nome(), titularDestino.cpf(), valor, false));
+    }
+
+    public ResultadoOperacao realizarPix(String numeroContaOrigem, String chaveDestino, long valor) {
+        return realizarPix(novaChave(), numeroContaOrigem, chaveDestino, valor);
+    }
+
+    /**
+     * PIX: resolve a chave entre as partições e segue como uma transferência
+     * (caminho rápido se a conta da chave está na mesma partição da origem).
+     */
+    public ResultadoOperacao realizarPix(String chaveIdempotencia, String numeroContaOrigem,
+                                         String chaveDestino, long valor) {
+        ChavePix chave;
+        try {
+            chave = ChavePix.de(chaveDestino);
+        } catch (ContaException e) {
+            return ResultadoOperacao.falha(e.getMessage());
+        }
+        int origem = particionador.particaoDe(numeroContaOrigem);
+        DiarioDeSagas.Andamento emAndamento = diario.andamento(chaveIdempotencia);
+        if (emAndamento != null) {
+            return continuar(emAndamento, numeroContaOrigem, valor, true);
+        }
+        Optional<Resolucao> resolucao = resolver(chave);
+        if (resolucao.isEmpty()) {
+            return ResultadoOperacao.falha("Chave PIX não encontrada.");
+        }
+        int destino = resolucao.get().particao();
+        Particao.DestinoPix conta = resolucao.get().destino();
+        if (origem == destino) {
+            Particao particao = particoes.get(origem);
+            return repetir(() -> particao.realizarPix(chaveIdempotencia, numeroContaOrigem, chave.valor(), valor));
+        }
+
+        String nomeOrigem;
+        try {
+            nomeOrigem = particoes.get(origem).titular(numeroContaOrigem).nome();
+        } catch (ContaException e) {
+            return ResultadoOperacao.falha(e.getMessage());
+        }
+        return executarSaga(new Saga(chaveIdempotencia, origem, numeroContaOrigem, nomeOrigem,
+                destino, conta.numeroConta(), conta.nomeTitular(), conta.cpfTitular(), valor, true));
+    }
+
+    /**
+     * Cadastra uma chave PIX na partição da conta, se nenhuma outra partição já a tem.
+     */
+    public ChavePix registrarChavePix(String numeroConta, TipoChavePix tipo, String valor) {
+        int dona = particionador.particaoDe(numeroConta);
+        if (valor != null) {
+            ChavePix chave = ChavePix.de(tipo, valor);
+            for (int i = 0; i < particoes.size(); i++) {
+                if (i != dona && particoes.get(i).resolverChavePix(chave.valor()).isPresent()) {
+                    throw new ContaException("Chave PIX já cadastrada: " + chave);
+                }
+            }
+        }
+        ChavePix registrada = particoes.get(dona).registrarChavePix(numeroConta, tipo, valor);
+        diario.registrarRota(registrada.valor(), dona);
+        return registrada;
+    }
+
+    /**
+     * Continua as sagas pendentes, cada uma da etapa em que parou (ver a descrição da classe).
+     * @return quantas foram concluídas (com sucesso ou falha); as outras continuam pendentes.
+     */
+    public int reprocessarPendentes() {
+        int concluidas = 0;
+        for (DiarioDeSagas.Andamento andamento : diario.pendentes()) {
+            executarSaga(andamento);
+            if (diario.andamento(andamento.saga().chave()) == null) {
+                concluidas++;
+            }
+        }
+        return concluidas;
+    }
+
+    /**
+     * @return quantas sagas estão em andamento ou pendentes (inclusive os estornos pendentes).
+     */
+    public int getSagasPendentes() {
+        return diario.quantidadePendentes();
+    }
+
+    /**
+     * @return quantas sagas têm o crédito recusado e o estorno ainda por fazer: o valor
+     *         saiu da origem e ainda não voltou (reprocessarPendentes tenta de novo).
+     */
+    public int getEstornosPendentes() {
+        return diario.quantidadeNaEtapa(Etapa.ESTORNO);
+    }
+
+    public int getQuantidadeParticoes() {
+        return particoes.size();
+    }
+
+    /**
+     * @return o índice da partição dona da conta.
+     */
+    public int particaoDaConta(String numeroConta) {
+        return particionador.particaoDe(numeroConta);
+    }
+
+    public Particao getParticao(int indice) {
+        return particoes.get(indice);
+    }
+
+    @Override
+    public void close() {
+        try {
+            particoes.forEach(Particao::close);
+        } finally {
+            diario.close();
+        }
+    }
+
+    // --- Saga ---
+
+    // A mesma chave de uma saga em andamento: continua a saga, se for a mesma operação
+    private ResultadoOperacao continuar(DiarioDeSagas.Andamento andamento, String numeroContaOrigem,
+                                       long valor, boolean pix) {
+        Saga saga = andamento.saga();
+        if (!saga.numeroContaOrigem().equals(numeroContaOrigem) || saga.valor() != valor || saga.pix() != pix) {
+            return ResultadoOperacao.falha("Chave de idempotência já usada em outra operação.");
+        }
+        return executarSaga(andamento);
+    }
+
+    private ResultadoOperacao executarSaga(Saga saga) {
+        return executarSaga(diario.iniciar(saga));
+    }
+
+    // Executa a saga a partir da etapa gravada; cada etapa concluída é gravada antes da seguinte
+    private ResultadoOperacao executarSaga(DiarioDeSagas.Andamento andamento) {
+        Saga saga = andamento.saga();
+        Particao origem = particoes.get(saga.particaoOrigem());
+        Particao destino = particoes.get(saga.particaoDestino());
+        TipoTransacao envio = saga.pix() ? TipoTransacao.PIX_ENVIADO : TipoTransacao.TRANSFERENCIA_ENVIADA;
+        TipoTransacao recebimento = saga.pix() ? TipoTransacao.PIX_RECEBIDO : TipoTransacao.TRANSFERENCIA_RECEBIDA;
+
+        try {
+            // 1. Débito: se falhar (ex: saldo insuficiente), nada mais a fazer
+            if (andamento.etapa() == Etapa.DEBITO) {
+                ResultadoOperacao debito = repetir(() -> origem.debitar(saga.chave() + ":D",
+                        saga.numeroContaOrigem(), saga.valor(), envio, saga.cpfDestino(), saga.nomeDestino()));
+                if (!debito.sucesso()) {
+                    diario.concluir(saga.chave());
+                    return debito;
+                }
+                andamento = diario.avancar(saga.chave(), Etapa.CREDITO, debito.saldo(), "");
+                if (andamento == null) {
+                    return debito; // Outra execução da mesma chave já concluiu a saga
+                }
+            }
+
+            // 2. Crédito
+            if (andamento.etapa() == Etapa.CREDITO) {
+                ResultadoOperacao credito = repetir(() -> destino.creditar(saga.chave() + ":C",
+                        saga.numeroContaDestino(), saga.valor(), recebimento, saga.nomeOrigem()));
+                if (credito.sucesso()) {
+                    diario.concluir(saga.chave());
+                    return ResultadoOperacao.sucesso(andamento.saldoOrigem()); // Como na transferência local
+                }
+                andamento = diario.avancar(saga.chave(), Etapa.ESTORNO, andamento.saldoOrigem(), credito.motivoFalha());
+                if (andamento == null) {
+                    return ResultadoOperacao.falha(credito.motivoFalha());
+                }
+            }
+
+            // 3. Compensação: devolve o valor à origem
+            ResultadoOperacao estorno = repetir(() -> origem.estornar(saga.chave() + ":E",
+                    saga.numeroContaOrigem(), saga.valor(),
+                    (saga.pix() ? "PIX para " : "Transferência para ") + saga.numeroContaDestino() + " não concluída"));
+            if (!estorno.sucesso()) {
+                // Ex: a conta de origem sumiu entre o débito e o estorno. A saga fica parada
+                // na etapa ESTORNO (o valor não se perde) até reprocessarPendentes conseguir
+                return ResultadoOperacao.falha(MOTIVO_ESTORNO_PENDENTE + estorno.motivoFalha());
+            }
+            diario.concluir(saga.chave());
+            return ResultadoOperacao.falha(andamento.motivo());
+
+        } catch (UncheckedIOException e) {
+            // Não se sabe se o último passo foi feito: a saga continua da etapa gravada
+            DiarioDeSagas.Andamento atual = diario.andamento(saga.chave());
+            return ResultadoOperacao.falha(atual != null && atual.etapa() == Etapa.ESTORNO
+                    ? MOTIVO_ESTORNO_PENDENTE + e.getMessage()
+                    : MOTIVO_PENDENTE);
+        }
+    }
+
+    // Repete a chamada em falhas de rede (é seguro: toda chamada leva uma chave de idempotência)
+    private static ResultadoOperacao repetir(Supplier<ResultadoOperacao> chamada) {
+        UncheckedIOException ultimaFalha = null;
+        for (int tentativa = 0; tentativa < TENTATIVAS; tentativa++) {
+            try {
+                return chamada.get();
+            } catch (UncheckedIOException e) {
+                ultimaFalha = e;
+                esperar(ESPERA_ENTRE_TENTATIVAS_MS << tentativa);
+            }
+        }
+        throw ultimaFalha;
+    }
+
+    private static void esperar(long milissegundos) {
+        try {
+            Thread.sleep(milissegundos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // --- Resolução de chaves PIX ---
+
+    private Optional<Resolucao> resolver(ChavePix chave) {
+        // Com rota: pergunta só à partição dona (a resposta traz a conta atual)
+        Optional<Integer> rota = diario.rota(chave.valor());
+        if (rota.isPresent()) {
+            Optional<Particao.DestinoPix> destino = particoes.get(rota.get()).resolverChavePix(chave.valor());
+            if (destino.isPresent()) {
+                return Optional.of(new Resolucao(rota.get(), destino.get()));
+            }
+            diario.removerRota(chave.valor(), rota.get()); // A chave foi removida (ou mudou de partição)
+        }
+
+        // Sem rota (ex: chave cadastrada direto na partição): pergunta a todas uma vez
+        for (int i = 0; i < particoes.size(); i++) {
+            Optional<Particao.DestinoPix> destino = particoes.get(i).resolverChavePix(chave.valor());
+            if (destino.isPresent()) {
+                diario.registrarRota(chave.valor(), i);
+                return Optional.of(new Resolucao(i, destino.get()));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private Particao particaoDe(String numeroConta) {
+        return particoes.get(particionador.particaoDe(numeroConta));
+    }
+
+    private String novaChave() {
+        return prefixoChaves + "-" + sequencia.incrementAndGet();
+    }
+}
@@ -0,0 +1,363 @@
+package br.com.bancodigital.particao;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * O estado do coordenador (BancoParticionado) que precisa sobreviver a ele:
+ * - as sagas em andamento, com a etapa em que cada uma está (ver BancoParticionado.Etapa);
+ * - a rota de cada chave PIX (a partição onde ela está cadastrada).
+ *
+ * Um arquivo só (coordenador.diario), só de acréscimos: cada mudança é um registro
+ * (SAGA ao começar, ETAPA a cada passo concluído, FIM ao terminar, ROTA ao cadastrar).
+ * Os registros das sagas são gravados com fsync ANTES do passo seguinte: depois de
+ * uma queda, a saga continua da etapa gravada, em vez de repetir o débito (a chave
+ * de idempotência da partição pode já ter expirado, e o débito seria feito de novo).
+ * As rotas são gravadas sem fsync: uma rota perdida é refeita perguntando às partições.
+ *
+ * Ao abrir, o arquivo é lido e reescrito só com o que ainda vale (sagas pendentes e rotas),
+ * num temporário trocado de uma vez (ATOMIC_MOVE); o mesmo acontece quando os registros
+ * superados passam do dobro dos que valem. Um registro cortado no fim (queda no meio da
+ * gravação) é descartado: a saga dele ainda não tinha começado.
+ *
+ * Sem diretório, o estado fica só em memória (e se perde se o coordenador cair).
+ */
+final class DiarioDeSagas implements AutoCloseable {
+
+    private static final int MAGICO = 0x53414741; // "SAGA"
+    private static final int VERSAO = 1;
+    private static final String NOME_ARQUIVO = "coordenador.diario";
+    private static final int MINIMO_PARA_COMPACTAR = 10_000;
+
+    private static final byte REGISTRO_SAGA = 1;
+    private static final byte REGISTRO_ETAPA = 2;
+    private static final byte REGISTRO_FIM = 3;
+    private static final byte REGISTRO_ROTA = 4;
+
+    /**
+     * Uma saga em andamento e o que já se sabe dela.
+     * @param saldoOrigem Saldo da origem depois do débito (a partir da etapa CREDITO).
+     * @param motivo Por que o crédito falhou (na etapa ESTORNO).
+     */
+    record Andamento(BancoParticionado.Saga saga, BancoParticionado.Etapa etapa, long saldoOrigem, String motivo) {
+    }
+
+    private final Path arquivo;
+    private final Map<String, Andamento> sagas = new ConcurrentHashMap<>();
+    private final Map<String, Integer> rotas = new ConcurrentHashMap<>();
+    private FileChannel canal;
+    private long registrosSuperados;
+
+    private DiarioDeSagas(Path arquivo) {
+        this.arquivo = arquivo;
+    }
+
+    /**
+     * Diário sem arquivo: o estado fica só em memória.
+     */
+    static DiarioDeSagas emMemoria() {
+        return new DiarioDeSagas(null);
+    }
+
+    /**
+     * @param diretorio Onde fica o arquivo; null para manter tudo só em memória.
+     */
+    static DiarioDeSagas abrir(Path diretorio) throws IOException {
+        if (diretorio == null) {
+            return emMemoria();
+        }
+        Files.createDirectories(diretorio);
+        DiarioDeSagas diario = new DiarioDeSagas(diretorio.resolve(NOME_ARQUIVO));
+        if (Files.exists(diario.arquivo)) {
+            diario.ler(Files.readAllBytes(diario.arquivo));
+        }
+        diario.compactar();
+        return diario;
+    }
+
+    // --- Sagas ---
+
+    /**
+     * Grava o início da saga (antes do débito).
+     * @return o andamento já gravado com a mesma chave, se houver (a saga continua dele),
+     *         ou o andamento novo, na etapa DEBITO.
+     */
+    synchronized Andamento iniciar(BancoParticionado.Saga saga) {
+        Andamento existente = sagas.get(saga.chave());
+        if (existente != null) {
+            return existente;
+        }
+        Andamento novo = new Andamento(saga, BancoParticionado.Etapa.DEBITO, 0, "");
+        gravar(registroSaga(saga), true);
+        sagas.put(saga.chave(), novo);
+        return novo;
+    }
+
+    /**
+     * Grava a etapa seguinte da saga. Sem efeito se a saga já terminou ou já passou
+     * dessa etapa (outra execução da mesma chave, ao mesmo tempo, chegou antes).
+     * @return o andamento atual da saga.
+     */
+    synchronized Andamento avancar(String chave, BancoParticionado.Etapa etapa, long saldoOrigem, String motivo) {
+        Andamento atual = sagas.get(chave);
+        if (atual == null || atual.etapa().ordinal() >= etapa.ordinal()) {
+            return atual;
+        }
+        Andamento novo = new Andamento(atual.saga(), etapa, saldoOrigem, motivo);
+        gravar(registroEtapa(novo), true);
+        sagas.put(chave, novo);
+        registrosSuperados++;
+        return novo;
+    }
+
+    /**
+     * Grava o fim da saga (com sucesso, com o débito recusado ou com o estorno feito).
+     */
+    synchronized void concluir(String chave) {
+        if (sagas.remove(chave) == null) {
+            return;
+        }
+        gravar(registro(REGISTRO_FIM, saida -> saida.writeUTF(chave)), true);
+        registrosSuperados += 2;
+        compactarSeNecessario();
+    }
+
+    Andamento andamento(String chave) {
+        return sagas.get(chave);
+    }
+
+    List<Andamento> pendentes() {
+        return new ArrayList<>(sagas.values());
+    }
+
+    int quantidadePendentes() {
+        return sagas.size();
+    }
+
+    int quantidadeNaEtapa(BancoParticionado.Etapa etapa) {
+        int quantidade = 0;
+        for (Andamento andamento : sagas.values()) {
+            if (andamento.etapa() == etapa) {
+                quantidade++;
+            }
+        }
+        return quantidade;
+    }
+
+    // --- Rotas das chaves PIX ---
+
+    Optional<Integer> rota(String chavePix) {
+        return Optional.ofNullable(rotas.get(chavePix));
+    }
+
+    /**
+     * Guarda a partição da chave. Se a chave já tem rota para uma partição de índice
+     * menor, ela continua valendo (a mesma regra da resolução sem rota).
+     */
+    synchronized void registrarRota(String chavePix, int particao) {
+        Integer atual = rotas.get(chavePix);
+        if (atual != null && atual <= particao) {
+            return;
+        }
+        gravar(registroRota(chavePix, particao), false);
+        rotas.put(chavePix, particao);
+        if (atual != null) {
+            registrosSuperados++;
+        }
+    }
+
+    /**
+     * Esquece a rota (a partição não tem mais a chave).
+     */
+    synchronized void removerRota(String chavePix, int particao) {
+        if (!rotas.remove(chavePix, particao)) {
+            return;
+        }
+        gravar(registroRota(chavePix, -1), false);
+        registrosSuperados += 2;
+        compactarSeNecessario();
+    }
+
+    int quantidadeRotas() {
+        return rotas.size();
+    }
+
+    // --- Arquivo ---
+
+    private interface Escrita {
+        void escrever(DataOutputStream saida) throws IOException;
+    }
+
+    private static byte[] registro(byte tipo, Escrita escrita) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream saida = new DataOutputStream(bytes);
+            saida.writeByte(tipo);
+            escrita.escrever(saida);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Em memória: não acontece
+        }
+    }
+
+    private static byte[] registroSaga(BancoParticionado.Saga saga) {
+        return registro(REGISTRO_SAGA, saida -> {
+            saida.writeUTF(saga.chave());
+            saida.writeInt(saga.particaoOrigem());
+            saida.writeUTF(saga.numeroContaOrigem());
+            saida.writeUTF(saga.nomeOrigem());
+            saida.writeInt(saga.particaoDestino());
+            saida.writeUTF(saga.numeroContaDestino());
+            saida.writeUTF(saga.nomeDestino());
+            saida.writeUTF(saga.cpfDestino());
+            saida.writeLong(saga.valor());
+            saida.writeBoolean(saga.pix());
+        });
+    }
+
+    private static byte[] registroEtapa(Andamento andamento) {
+        return registro(REGISTRO_ETAPA, saida -> {
+            saida.writeUTF(andamento.saga().chave());
+            saida.writeByte(andamento.etapa().ordinal());
+            saida.writeLong(andamento.saldoOrigem());
+            saida.writeUTF(andamento.motivo());
+        });
+    }
+
+    private static byte[] registroRota(String chavePix, int particao) {
+        return registro(REGISTRO_ROTA, saida -> {
+            saida.writeUTF(chavePix);
+            saida.writeInt(particao);
+        });
+    }
+
+    private void gravar(byte[] registro, boolean sincronizar) {
+        if (canal == null) {
+            return;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(registro);
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+            if (sincronizar) {
+                canal.force(false);
+            }
+        } catch (IOException e) {
+            // Sem o registro gravado, o passo seguinte da saga não pode ser feito
+            throw new UncheckedIOException("Falha ao gravar o diário de sagas " + arquivo + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void ler(byte[] conteudo) throws IOException {
+        DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(conteudo));
+        if (entrada.readInt() != MAGICO || entrada.readInt() != VERSAO) {
+            throw new IOException("Diário de sagas inválido: " + arquivo);
+        }
+        try {
+            while (true) {
+                byte tipo = entrada.readByte();
+                switch (tipo) {
+                    case REGISTRO_SAGA -> {
+                        BancoParticionado.Saga saga = new BancoParticionado.Saga(entrada.readUTF(), entrada.readInt(),
+                                entrada.readUTF(), entrada.readUTF(), entrada.readInt(), entrada.readUTF(),
+                                entrada.readUTF(), entrada.readUTF(), entrada.readLong(), entrada.readBoolean());
+                        sagas.put(saga.chave(), new Andamento(saga, BancoParticionado.Etapa.DEBITO, 0, ""));
+                    }
+                    case REGISTRO_ETAPA -> {
+                        String chave = entrada.readUTF();
+                        BancoParticionado.Etapa etapa = BancoParticionado.Etapa.values()[entrada.readByte()];
+                        long saldoOrigem = entrada.readLong();
+                        String motivo = entrada.readUTF();
+                        sagas.computeIfPresent(chave, (c, atual) -> new Andamento(atual.saga(), etapa, saldoOrigem, motivo));
+                    }
+                    case REGISTRO_FIM -> sagas.remove(entrada.readUTF());
+                    case REGISTRO_ROTA -> {
+                        String chavePix = entrada.readUTF();
+                        int particao = entrada.readInt();
+                        if (particao < 0) {
+                            rotas.remove(chavePix);
+                        } else {
+                            rotas.put(chavePix, particao);
+                        }
+                    }
+                    default -> throw new IOException("Registro desconhecido (" + tipo + ") no diário de sagas " + arquivo);
+                }
+            }
+        } catch (EOFException e) {
+            // Fim do arquivo (ou registro cortado por uma queda no meio da gravação)
+        }
+    }
+
+    private void compactarSeNecessario() {
+        if (canal != null && registrosSuperados > MINIMO_PARA_COMPACTAR
+                && registrosSuperados > 2L * (sagas.size() + rotas.size())) {
+            try {
+                compactar();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Falha ao compactar o diário de sagas " + arquivo + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    // Reescreve o arquivo só com o que vale e passa a acrescentar nele
+    private synchronized void compactar() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024 + 64 * (sagas.size() + rotas.size()));
+        DataOutputStream saida = new DataOutputStream(bytes);
+        saida.writeInt(MAGICO);
+        saida.writeInt(VERSAO);
+        for (Andamento andamento : sagas.values()) {
+            saida.write(registroSaga(andamento.saga()));
+            if (andamento.etapa() != BancoParticionado.Etapa.DEBITO) {
+                saida.write(registroEtapa(andamento));
+            }
+        }
+        for (Map.Entry<String, Integer> rota : rotas.entrySet()) {
+            saida.write(registroRota(rota.getKey(), rota.getValue()));
+        }
+
+        if (canal != null) {
+            canal.close();
+            canal = null;
+        }
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        try (FileOutputStream arquivoSaida = new FileOutputStream(temporario.toFile())) {
+            bytes.writeTo(arquivoSaida);
+            arquivoSaida.getFD().sync();
+        }
+        Files.move(temporario, arquivo, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        canal = FileChannel.open(arquivo, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        registrosSuperados = 0;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (canal == null) {
+            return;
+        }
+        try {
+            canal.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao fechar o diário de sagas " + arquivo + ": " + e.getMessage(), e);
+        } finally {
+            canal = null;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package br.com.bancodigital.particao;
+
+import br.com.bancodigital.exception.ContaException;
+import br.com.bancodigital.model.ChavePix;
+import br.com.bancodigital.model.Cliente;
+import br.com.bancodigital.model.TipoChavePix;
+import br.com.bancodigital.model.TipoTransacao;
+import br.com.bancodigital.service.ResultadoOperacao;
+
+import java.io.UncheckedIOException;
+import java.util.Optional;
+
+/**
+ * Uma partição (shard) do banco: guarda parte das contas e executa as operações
+ * sobre elas. Pode estar no mesmo processo (ParticaoLocal) ou em outro,
+ * acessada pelo protocolo de linha do ServidorBanco (ParticaoRemota).
+ *
+ * Operações que movem dinheiro recebem uma chave de idempotência: o
+ * BancoParticionado pode repeti-las após uma falha de rede sem mover o dinheiro duas vezes.
+ * Falhas de negócio voltam como ResultadoOperacao.falha (ou ContaException nas consultas);
+ * falhas de comunicação, como UncheckedIOException.
+ */
+public interface Particao extends AutoCloseable {
+
+    /**
+     * Conta resolvida a partir de uma chave PIX.
+     */
+    record DestinoPix(String numeroConta, String nomeTitular, String cpfTitular) {
+    }
+
+    /**
+     * @throws ContaException se o número já existe.
+     */
+    void criarConta(Cliente cliente, String agencia, String numeroConta, boolean corrente);
+
+    ResultadoOperacao depositar(String chaveIdempotencia, String numeroConta, long valor);
+
+    ResultadoOperacao sacar(String chaveIdempotencia, String numeroConta, long valor);
+
+    /**
+     * Transferência com as duas contas nesta partição (atômica, sem saga).
+     */
+    ResultadoOperacao transferir(String chaveIdempotencia, String numeroContaOrigem,
+                                 String numeroContaDestino, long valor);
+
+    /**
+     * PIX com as duas contas nesta partição (atômico, sem saga).
+     */
+    ResultadoOperacao realizarPix(String chaveIdempotencia, String numeroContaOrigem, String chavePix, long valor);
+
+    /**
+     * Perna de débito de uma transferência entre partições (ver ContaService.debitar).
+     * @param cpfDestino CPF do titular do destino, para as regras antifraude da partição.
+     */
+    ResultadoOperacao debitar(String chaveIdempotencia, String numeroConta, long valor,
+                              TipoTransacao tipo, String cpfDestino, String contraparte);
+
+    /**
+     * Perna de crédito de uma transferência entre partições (ver ContaService.creditar).
+     */
+    ResultadoOperacao creditar(String chaveIdempotencia, String numeroConta, long valor,
+                               TipoTransacao tipo, String contraparte);
+
+    /**
+     * Compensação de um débito cuja perna de crédito falhou (ver ContaService.estornar).
+     */
+    ResultadoOperacao estornar(String chaveIdempotencia, String numeroConta, long valor, String motivo);
+
+    /**
+     * @throws ContaException se a conta não existe.
+     */
+    long saldo(String numeroConta);
+
+    /**
+     * @throws ContaException se a conta não existe.
+     */
+    Cliente titular(String numeroConta);
+
+    /**
+     * @return a conta dona da chave, se a chave está cadastrada NESTA partição.
+     */
+    Optional<DestinoPix> resolverChavePix(String chavePix);
+
+    ChavePix registrarChavePix(String numeroConta, TipoChavePix tipo, String valor);
+
+    @Override
+    void close();
+}
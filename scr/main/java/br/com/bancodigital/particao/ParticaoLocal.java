@@ -0,0 +1,145 @@
+package br.com.bancodigital.particao;
+
+import br.com.bancodigital.exception.ContaException;
+import br.com.bancodigital.model.ChavePix;
+import br.com.bancodigital.model.Cliente;
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.model.TipoChavePix;
+import br.com.bancodigital.model.TipoTransacao;
+import br.com.bancodigital.repository.ConcorrenteContaRepository;
+import br.com.bancodigital.repository.ContaRepository;
+import br.com.bancodigital.repository.IndicesDeContas;
+import br.com.bancodigital.service.ContaService;
+import br.com.bancodigital.service.Dependencias;
+import br.com.bancodigital.service.PixService;
+import br.com.bancodigital.service.ResultadoOperacao;
+
+import java.util.Optional;
+
+/**
+ * Partição no mesmo processo: repassa as operações para ContaService e PixService
+ * sobre o repositório da partição.
+ */
+public class ParticaoLocal implements Particao {
+
+    private final ContaRepository repositorio;
+    private final ContaService contaService;
+    private final PixService pixService;
+
+    public ParticaoLocal() {
+        this(new IndicesDeContas());
+    }
+
+    private ParticaoLocal(IndicesDeContas indices) {
+        this(ConcorrenteContaRepository.novo().indices(indices).construir(), indices);
+    }
+
+    /**
+     * @param repositorio Precisa ser seguro para várias threads (ex: ConcorrenteContaRepository).
+     * @param indices Os índices mantidos pelo repositório.
+     */
+    public ParticaoLocal(ContaRepository repositorio, IndicesDeContas indices) {
+        // Sem eventos no console: quem mostra as mensagens é quem chamou o BancoParticionado
+        this(repositorio, indices, Dependencias.NENHUMA);
+    }
+
+    /**
+     * @param dependencias Dos serviços da partição (ex: o antifraude, que também confere
+     *                     os débitos das transferências entre partições).
+     */
+    public ParticaoLocal(ContaRepository repositorio, IndicesDeContas indices, Dependencias dependencias) {
+        this.repositorio = repositorio;
+        this.contaService = new ContaService(repositorio, indices, dependencias);
+        this.pixService = new PixService(repositorio, indices, dependencias);
+    }
+
+    @Override
+    public void criarConta(Cliente cliente, String agencia, String numeroConta, boolean corrente) {
+        if (corrente) {
+            contaService.criarContaCorrente(cliente, agencia, numeroConta);
+        } else {
+            contaService.criarContaPoupanca(cliente, agencia, numeroConta);
+        }
+    }
+
+    @Override
+    public ResultadoOperacao depositar(String chaveIdempotencia, String numeroConta, long valor) {
+        return contaService.depositar(chaveIdempotencia, numeroConta, valor);
+    }
+
+    @Override
+    public ResultadoOperacao sacar(String chaveIdempotencia, String numeroConta, long valor) {
+        return contaService.sacar(chaveIdempotencia, numeroConta, valor);
+    }
+
+    @Override
+    public ResultadoOperacao transferir(String chaveIdempotencia, String numeroContaOrigem,
+                                        String numeroContaDestino, long valor) {
+        return contaService.transferir(chaveIdempotencia, numeroContaOrigem, numeroContaDestino, valor);
+    }
+
+    @Override
+    public ResultadoOperacao realizarPix(String chaveIdempotencia, String numeroContaOrigem, String chavePix, long valor) {
+        return pixService.realizarPix(chaveIdempotencia, numeroContaOrigem, chavePix, valor);
+    }
+
+    @Override
+    public ResultadoOperacao debitar(String chaveIdempotencia, String numeroConta, long valor,
+                                     TipoTransacao tipo, String cpfDestino, String contraparte) {
+        return contaService.debitar(chaveIdempotencia, numeroConta, valor, tipo, cpfDestino, contraparte);
+    }
+
+    @Override
+    public ResultadoOperacao creditar(String chaveIdempotencia, String numeroConta, long valor,
+                                      TipoTransacao tipo, String contraparte) {
+        return contaService.creditar(chaveIdempotencia, numeroConta, valor, tipo, contraparte);
+    }
+
+    @Override
+    public ResultadoOperacao estornar(String chaveIdempotencia, String numeroConta, long valor, String motivo) {
+        return contaService.estornar(chaveIdempotencia, numeroConta, valor, motivo);
+    }
+
+    @Override
+    public long saldo(String numeroConta) {
+        return contaService.consultarSaldo(numeroConta);
+    }
+
+    @Override
+    public Cliente titular(String numeroConta) {
+        return contaService.buscarContaPorNumero(numeroConta).getCliente();
+    }
+
+    @Override
+    public Optional<DestinoPix> resolverChavePix(String chavePix) {
+        try {
+            Conta conta = pixService.buscarContaPorChave(chavePix);
+            return Optional.of(new DestinoPix(conta.getNumero(), conta.getCliente().nome(), conta.getCliente().cpf()));
+        } catch (ContaException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public ChavePix registrarChavePix(String numeroConta, TipoChavePix tipo, String valor) {
+        return pixService.registrarChave(numeroConta, tipo, valor);
+    }
+
+    /**
+     * @return o repositório da partição (ex: para conferir saldos em testes de carga).
+     */
+    public ContaRepository getRepositorio() {
+        return repositorio;
+    }
+
+    @Override
+    public void close() {
+        if (repositorio instanceof AutoCloseable fechavel) {
+            try {
+                fechavel.close();
+            } catch (Exception e) {
+                throw new ContaException("Falha ao fechar o repositório da partição: " + e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package br.com.bancodigital.particao;
+
+import br.com.bancodigital.exception.ContaException;
+import br.com.bancodigital.model.ChavePix;
+import br.com.bancodigital.model.Cliente;
+import br.com.bancodigital.model.Dinheiro;
+import br.com.bancodigital.model.TipoChavePix;
+import br.com.bancodigital.model.TipoTransacao;
+import br.com.bancodigital.service.ResultadoOperacao;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Partição em outro processo (um ServidorApp), acessada pelo protocolo de linha
+ * do InterpretadorDeComandos: envia uma linha e lê uma linha de resposta.
+ * Conecte à porta interna do servidor (-Dbanco.porta.interna): a porta dos
+ * clientes recusa as pernas das transferências entre partições.
+ *
+ * Mantém um pool de conexões abertas (criadas sob demanda, até o limite):
+ * cada chamada pega uma conexão livre e a devolve no fim, então várias
+ * threads podem usar a mesma ParticaoRemota. Se a conexão falha no meio
+ * de uma chamada, ela é descartada e a chamada lança UncheckedIOException;
+ * como não se sabe se o servidor executou o comando, quem chamou deve repetir
+ * com a mesma chave de idempotência.
+ */
+public class ParticaoRemota implements Particao {
+
+    private static final int TEMPO_LIMITE_CONEXAO_MS = 5_000;
+
+    private final String host;
+    private final int porta;
+    private final int maximoConexoes;
+    private final BlockingQueue<Conexao> livres;
+    private final AtomicInteger abertas = new AtomicInteger();
+    private volatile boolean fechada;
+
+    public ParticaoRemota(String host, int porta, int maximoConexoes) {
+        if (maximoConexoes <= 0) {
+            throw new IllegalArgumentException("O número de conexões deve ser positivo.");
+        }
+        this.host = host;
+        this.porta = porta;
+        this.maximoConexoes = maximoConexoes;
+        this.livres = new ArrayBlockingQueue<>(maximoConexoes);
+    }
+
+    @Override
+    public void criarConta(Cliente cliente, String agencia, String numeroConta, boolean corrente) {
+        exigirOk(enviar((corrente ? "CRIAR_CORRENTE " : "CRIAR_POUPANCA ")
+                + agencia + " " + numeroConta + " " + cliente.cpf() + " " + cliente.nome()));
+    }
+
+    @Override
+    public ResultadoOperacao depositar(String chaveIdempotencia, String numeroConta, long valor) {
+        return resultado(enviar("DEPOSITAR " + numeroConta + " " + Dinheiro.formatar(valor) + " " + chaveIdempotencia));
+    }
+
+    @Override
+    public ResultadoOperacao sacar(String chaveIdempotencia, String numeroConta, long valor) {
+        return resultado(enviar("SACAR " + numeroConta + " " + Dinheiro.formatar(valor) + " " + chaveIdempotencia));
+    }
+
+    @Override
+    public ResultadoOperacao transferir(String chaveIdempotencia, String numeroContaOrigem,
+                                        String numeroContaDestino, long valor) {
+        return resultado(enviar("TRANSFERIR " + numeroContaOrigem + " " + numeroContaDestino + " "
+                + Dinheiro.formatar(valor) + " " + chaveIdempotencia));
+    }
+
+    @Override
+    public ResultadoOperacao realizarPix(String chaveIdempotencia, String numeroContaOrigem, String chavePix, long valor) {
+        return resultado(enviar("PIX " + numeroContaOrigem + " " + chavePix + " "
+                + Dinheiro.formatar(valor) + " " + chaveIdempotencia));
+    }
+
+    @Override
+    public ResultadoOperacao debitar(String chaveIdempotencia, String numeroConta, long valor,
+                                     TipoTransacao tipo, String cpfDestino, String contraparte) {
+        return resultado(enviar("DEBITAR " + chaveIdempotencia + " " + numeroConta + " "
+                + Dinheiro.formatar(valor) + " " + tipo.name() + " " + cpfDestino + " " + contraparte));
+    }
+
+    @Override
+    public ResultadoOperacao creditar(String chaveIdempotencia, String numeroConta, long valor,
+                                      TipoTransacao tipo, String contraparte) {
+        return resultado(enviar("CREDITAR " + chaveIdempotencia + " " + numeroConta + " "
+                + Dinheiro.formatar(valor) + " " + tipo.name() + " " + contraparte));
+    }
+
+    @Override
+    public ResultadoOperacao estornar(String chaveIdempotencia, String numeroConta, long valor, String motivo) {
+        return resultado(enviar("ESTORNAR " + chaveIdempotencia + " " + numeroConta + " "
+                + Dinheiro.formatar(valor) + " " + motivo));
+    }
+
+    @Override
+    public long saldo(String numeroConta) {
+        return Dinheiro.deTexto(exigirOk(enviar("SALDO " + numeroConta)));
+    }
+
+    @Override
+    public Cliente titular(String numeroConta) {
+        String[] campos = exigirOk(enviar("CONTA " + numeroConta)).split(" ", 2);
+        return new Cliente(campos.length > 1 ? campos[1] : "", campos[0]);
+    }
+
+    @Override
+    public Optional<DestinoPix> resolverChavePix(String chavePix) {
+        String resposta = enviar("RESOLVER_CHAVE " + chavePix);
+        if (!resposta.startsWith("OK ")) {
+            return Optional.empty();
+        }
+        String[] campos = resposta.substring(3).split(" ", 3);
+        return Optional.of(new DestinoPix(campos[0], campos.length > 2 ? campos[2] : "", campos[1]));
+    }
+
+    @Override
+    public ChavePix registrarChavePix(String numeroConta, TipoChavePix tipo, String valor) {
+        String resposta = exigirOk(enviar("REGISTRAR_CHAVE " + numeroConta + " " + tipo.name()
+                + (valor == null ? "" : " " + valor)));
+        return ChavePix.de(tipo, resposta);
+    }
+
+    // "OK <resto>" -> resto; "ERRO <mensagem>" -> ContaException
+    private static String exigirOk(String resposta) {
+        if (resposta.equals("OK")) {
+            return "";
+        }
+        if (resposta.startsWith("OK ")) {
+            return resposta.substring(3);
+        }
+        throw new ContaException(motivo(resposta));
+    }
+
+    private static ResultadoOperacao resultado(String resposta) {
+        if (resposta.startsWith("OK ")) {
+            return ResultadoOperacao.sucesso(Dinheiro.deTexto(resposta.substring(3)));
+        }
+        return ResultadoOperacao.falha(motivo(resposta));
+    }
+
+    private static String motivo(String resposta) {
+        return resposta.startsWith("ERRO ") ? resposta.substring(5) : resposta;
+    }
+
+    /**
+     * Envia um comando e espera a resposta (uma linha).
+     * @throws UncheckedIOException se a conexão falhar.
+     */
+    String enviar(String comando) {
+        Conexao conexao = obterConexao();
+        try {
+            String resposta = conexao.executar(comando);
+            if (fechada) {
+                descartar(conexao);
+            } else {
+                livres.offer(conexao);
+            }
+            return resposta;
+        } catch (IOException e) {
+            descartar(conexao);
+            throw new UncheckedIOException("Falha na partição " + host + ":" + porta + ": " + e.getMessage(), e);
+        }
+    }
+
+    private Conexao obterConexao() {
+        if (fechada) {
+            throw new IllegalStateException("A partição " + host + ":" + porta + " foi fechada.");
+        }
+        Conexao conexao = livres.poll();
+        if (conexao != null) {
+            return conexao;
+        }
+        // Abre uma conexão nova se ainda cabe no limite; senão, espera uma ser devolvida
+        while (true) {
+            int atual = abertas.get();
+            if (atual >= maximoConexoes) {
+                break;
+            }
+            if (abertas.compareAndSet(atual, atual + 1)) {
+                try {
+                    return new Conexao(host, porta);
+                } catch (IOException e) {
+                    abertas.decrementAndGet();
+                    throw new UncheckedIOException("Não foi possível conectar à partição " + host + ":" + porta, e);
+                }
+            }
+        }
+        try {
+            return livres.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido esperando uma conexão livre.", e);
+        }
+    }
+
+    private void descartar(Conexao conexao) {
+        conexao.fechar();
+        abertas.decrementAndGet();
+    }
+
+    /**
+     * Fecha as conexões livres. Conexões em uso são fechadas quando devolvidas
+     * (a próxima chamada falha com IllegalStateException).
+     */
+    @Override
+    public void close() {
+        fechada = true;
+        Conexao conexao;
+        while ((conexao = livres.poll()) != null) {
+            descartar(conexao);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return host + ":" + porta;
+    }
+
+    private static final class Conexao {
+
+        private final Socket socket;
+        private final BufferedReader entrada;
+        private final BufferedWriter saida;
+
+        Conexao(String host, int porta) throws IOException {
+            socket = new Socket();
+            try {
+                socket.setTcpNoDelay(true); // Uma requisição pequena por vez: sem esperar o Nagle
+                socket.connect(new InetSocketAddress(host, porta), TEMPO_LIMITE_CONEXAO_MS);
+                entrada = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                saida = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                socket.close();
+                throw e;
+            }
+        }
+
+        String executar(String comando) throws IOException {
+            saida.write(comando);
+            saida.write('\n');
+            saida.flush();
+            String resposta = entrada.readLine();
+            if (resposta == null) {
+                throw new EOFException("conexão encerrada pelo servidor");
+            }
+            return resposta;
+        }
+
+        void fechar() {
+            try {
+                socket.close();
+            } catch (IOException ignorada) {
+                // Já está sendo descartada
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package br.com.bancodigital.particao;
+
+/**
+ * Decide a partição dona de cada conta, pelo hash do número.
+ *
+ * A função é estável (String.hashCode é definido pela especificação do Java),
+ * então qualquer processo com a mesma quantidade de partições chega à mesma resposta.
+ * Mudar a quantidade muda o dono da maioria das contas: não há rebalanceamento.
+ */
+public final class Particionador {
+
+    private final int quantidade;
+
+    public Particionador(int quantidade) {
+        if (quantidade <= 0) {
+            throw new IllegalArgumentException("A quantidade de partições deve ser positiva.");
+        }
+        this.quantidade = quantidade;
+    }
+
+    /**
+     * @return o índice da partição dona da conta (0 a quantidade - 1).
+     */
+    public int particaoDe(String numeroConta) {
+        return Math.floorMod(misturar(numeroConta.hashCode()), quantidade);
+    }
+
+    public int getQuantidade() {
+        return quantidade;
+    }
+
+    // Finalizador do MurmurHash3: números sequenciais ("10001-0", "10002-0"...)
+    // têm hashCodes próximos, e sem a mistura cairiam em poucas partições com alguns módulos
+    private static int misturar(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -0,0 +1,74 @@
+package br.com.bancodigital.repository;
+
+/**
+ * "Impressão digital" de 128 bits de uma chave de idempotência enviada pelo cliente
+ * (ex: um UUID). Guardar só os 16 bytes, e não o texto, é o que permite manter
+ * milhões de chaves com pouca memória. Com 128 bits, a chance de duas chaves
+ * diferentes colidirem é desprezível (~10^-26 com um milhão de chaves).
+ */
+public record ChaveIdempotencia(long alta, long baixa) {
+
+    /**
+     * Impressão de um resultado gravado sem a operação (snapshots e journals antigos):
+     * vale para qualquer operação.
+     */
+    public static final long SEM_IMPRESSAO = 0;
+
+    /**
+     * Calcula a impressão digital da chave (dois hashes de 64 bits independentes).
+     */
+    public static ChaveIdempotencia de(String chave) {
+        if (chave == null || chave.isBlank()) {
+            throw new IllegalArgumentException("Chave de idempotência não informada.");
+        }
+        long alta = 0xCBF29CE484222325L;  // FNV-1a
+        long baixa = 0x9E3779B97F4A7C15L; // Multiplicativo, com rotação
+        for (int i = 0; i < chave.length(); i++) {
+            char c = chave.charAt(i);
+            alta = (alta ^ c) * 0x100000001B3L;
+            baixa = Long.rotateLeft(baixa ^ (c * 0xC2B2AE3D27D4EB4FL), 31) * 0x9E3779B97F4A7C15L;
+        }
+        alta = misturar(alta ^ chave.length());
+        baixa = misturar(baixa + chave.length());
+        // (0, 0) marca posição vazia na TabelaIdempotencia
+        return new ChaveIdempotencia(alta, alta == 0 && baixa == 0 ? 1 : baixa);
+    }
+
+    /**
+     * "Impressão digital" de 64 bits da operação que usa a chave: o tipo, as contas e o valor.
+     * Fica junto com o resultado (ver TabelaIdempotencia): a mesma chave reenviada para
+     * outra operação é recusada, em vez de devolver o resultado de uma operação diferente.
+     * @param operacao O tipo da operação (ex: "TRANSFERENCIA").
+     * @param contas As contas envolvidas, na ordem da operação (ex: origem e destino).
+     * @return nunca SEM_IMPRESSAO.
+     */
+    public static long impressaoDaOperacao(String operacao, long valor, String... contas) {
+        long h = 0xCBF29CE484222325L; // FNV-1a
+        h = somar(h, operacao);
+        for (String conta : contas) {
+            h = somar(h, conta);
+        }
+        h = misturar(h ^ valor);
+        return h == SEM_IMPRESSAO ? 1 : h;
+    }
+
+    // Um separador depois do texto: ("ab", "c") e ("a", "bc") não dão a mesma impressão
+    private static long somar(long h, String texto) {
+        if (texto != null) {
+            for (int i = 0; i < texto.length(); i++) {
+                h = (h ^ texto.charAt(i)) * 0x100000001B3L;
+            }
+        }
+        return (h ^ 0xFFFF) * 0x100000001B3L;
+    }
+
+    // Finalizador do MurmurHash3: espalha os bits (todos os bits de entrada afetam todos os de saída)
+    private static long misturar(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,150 @@
+package br.com.bancodigital.repository;
+
+import br.com.bancodigital.evento.EventoBancario;
+import br.com.bancodigital.evento.PublicadorDeEventos;
+import br.com.bancodigital.model.Conta;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implementação em memória do ContaRepository, segura para uso com várias threads.
+ * Usa um ConcurrentHashMap no lugar do HashMap e travas "listradas"
+ * (TravaDeContas) para que os serviços alterem o saldo das contas com exclusividade.
+ */
+public class ConcorrenteContaRepository implements ContaRepository {
+
+    private static final int LISTRAS_PADRAO = 1024;
+
+    private final Map<String, Conta> bancoDeDados = new ConcurrentHashMap<>();
+    private final IndicesDeContas indices;
+    private final TravaDeContas travas;
+    private final PublicadorDeEventos eventos;
+
+    /**
+     * Use novo(); este construtor existe para as subclasses: super(novo().listras(n)).
+     */
+    protected ConcorrenteContaRepository(Construtor construtor) {
+        this.travas = new TravaDeContas(construtor.quantidadeDeListras);
+        this.eventos = construtor.eventos;
+        this.indices = construtor.indices;
+    }
+
+    /**
+     * Monta um repositório com as opções informadas; as outras ficam no padrão:
+     *
+     * <pre>
+     * ConcorrenteContaRepository repositorio = ConcorrenteContaRepository.novo()
+     *         .indices(indices)
+     *         .construir();
+     * </pre>
+     */
+    public static Construtor novo() {
+        return new Construtor();
+    }
+
+    @Override
+    public void salvar(Conta conta) {
+        registrar(conta);
+        eventos.publicar(new EventoBancario.ContaSalva(conta.getNumero()));
+    }
+
+    /**
+     * Coloca a conta no Map e no índice, sem publicar evento
+     * (usado também na recuperação do DuravelContaRepository).
+     * @return a conta que estava salva com o mesmo número, ou null.
+     */
+    Conta registrar(Conta conta) {
+        Conta anterior = bancoDeDados.put(conta.getNumero(), conta);
+        indices.contaSalva(anterior, conta);
+        return anterior;
+    }
+
+    @Override
+    public Optional<Conta> buscarPorNumero(String numeroConta) {
+        return Optional.ofNullable(bancoDeDados.get(numeroConta));
+    }
+
+    @Override
+    public List<Conta> buscarPorCpfCliente(String cpf) {
+        return indices.getClientes().contas(cpf);
+    }
+
+    @Override
+    public List<Conta> listarTodas() {
+        return new ArrayList<>(bancoDeDados.values());
+    }
+
+    @Override
+    public Collection<Conta> visaoDasContas() {
+        return Collections.unmodifiableCollection(bancoDeDados.values());
+    }
+
+    @Override
+    public boolean deletar(String numeroConta) {
+        Conta removida = bancoDeDados.remove(numeroConta);
+        if (removida == null) {
+            return false;
+        }
+        indices.contaRemovida(removida);
+        return true;
+    }
+
+    /**
+     * Clientes, chaves PIX, totais e idempotência destas contas (para os serviços).
+     */
+    public IndicesDeContas getIndices() {
+        return indices;
+    }
+
+    @Override
+    public Trava travar(String... numerosConta) {
+        return travas.travar(numerosConta);
+    }
+
+    /**
+     * Monta o ConcorrenteContaRepository (ver novo).
+     */
+    public static final class Construtor {
+
+        private int quantidadeDeListras = LISTRAS_PADRAO;
+        private PublicadorDeEventos eventos = PublicadorDeEventos.NENHUM;
+        private IndicesDeContas indices = new IndicesDeContas();
+
+        private Construtor() {
+        }
+
+        /**
+         * @param quantidadeDeListras Travas das contas (ver TravaDeContas).
+         */
+        public Construtor listras(int quantidadeDeListras) {
+            this.quantidadeDeListras = quantidadeDeListras;
+            return this;
+        }
+
+        /**
+         * @param eventos Recebe um ContaSalva a cada salvar.
+         */
+        public Construtor eventos(PublicadorDeEventos eventos) {
+            this.eventos = eventos;
+            return this;
+        }
+
+        /**
+         * @param indices Índices ainda vazios, que os serviços também vão receber.
+         */
+        public Construtor indices(IndicesDeContas indices) {
+            this.indices = indices;
+            return this;
+        }
+
+        public ConcorrenteContaRepository construir() {
+            return new ConcorrenteContaRepository(this);
+        }
+    }
+}
@@ -1,14 +1,19 @@
 package br.com.bancodigital.repository;
 
 import br.com.bancodigital.model.Conta;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Interface (Contrato) para o repositório de Contas.
  * Define os métodos que qualquer implementação de repositório de contas deve ter.
  * Isso permite trocar a implementação (de memória para banco de dados) 
  * sem alterar o resto do sistema.
+ * Clientes, chaves PIX, totais e idempotência não fazem parte do contrato:
+ * as implementações os mantêm num IndicesDeContas, que os serviços recebem no construtor.
  */
 public interface ContaRepository {
 
@@ -18,6 +23,52 @@ public interface ContaRepository {
      */
     void salvar(Conta conta);
 
+    /**
+     * Salva várias contas de uma vez (ex: origem e destino de uma transferência).
+     * Implementações duráveis devem gravar todas juntas, de forma atômica.
+     * @param contas As contas a serem salvas.
+     */
+    default void salvarTodas(Conta... contas) {
+        for (Conta conta : contas) {
+            salvar(conta);
+        }
+    }
+
+    /**
+     * Salva as contas e guarda o resultado de uma operação idempotente na tabela
+     * (ver TabelaIdempotencia). Implementações duráveis devem gravar os dois juntos:
+     * se as contas sobreviverem a uma queda, a chave também sobrevive.
+     * @param idempotencia A tabela dos índices deste repositório (ver IndicesDeContas).
+     * @param chave A chave de idempotência da operação.
+     * @param saldo O saldo da conta de origem depois da operação (devolvido nas repetições).
+     * @param contas As contas a serem salvas.
+     */
+    default void salvarTodas(TabelaIdempotencia idempotencia, ChaveIdempotencia chave, long saldo, Conta... contas) {
+        salvarTodas(contas);
+        idempotencia.registrarSucesso(chave, saldo);
+    }
+
+    /**
+     * Versão assíncrona do salvarTodas: inicia a gravação e retorna sem esperar
+     * o disco. O estado em memória já fica visível ao retornar.
+     * A implementação padrão salva na hora e retorna um futuro já completo.
+     * @return um futuro que completa quando as contas estiverem gravadas.
+     */
+    default CompletableFuture<Void> salvarTodasAssincrono(Conta... contas) {
+        salvarTodas(contas);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * @return true se o que é salvo sobrevive a uma queda (ex: journal em disco). Quem guarda
+     *         estado fora do repositório (ex: os créditos pendentes das ContasQuentes) consulta
+     *         aqui, e não o tipo da implementação: o repositório pode estar embrulhado
+     *         (ex: MedidoContaRepository). A implementação padrão só guarda em memória.
+     */
+    default boolean isDuravel() {
+        return false;
+    }
+
     /**
      * Busca uma conta pelo número.
      * @param numeroConta O número da conta a ser buscada.
@@ -28,7 +79,7 @@ public interface ContaRepository {
     /**
      * Busca todas as contas associadas a um CPF de cliente.
      * @param cpf O CPF do cliente.
-     * @return Uma lista de contas (pode estar vazia).
+     * @return Uma lista (não modificável) de contas, na ordem em que foram salvas (pode estar vazia).
      */
     List<Conta> buscarPorCpfCliente(String cpf);
 
@@ -37,6 +88,18 @@ public interface ContaRepository {
      * @return Uma lista com todas as contas.
      */
     List<Conta> listarTodas();
+
+    /**
+     * Todas as contas, sem copiar (diferente de listarTodas): uma visão não modificável
+     * do armazenamento, para percorrer milhões de contas sem alocar outra lista.
+     * Em repositórios concorrentes a iteração é "fracamente consistente": contas salvas
+     * ou removidas durante a iteração podem ou não aparecer. O Spliterator da visão
+     * se divide sem cópia (ver ConciliacaoService).
+     * A implementação padrão copia (listarTodas).
+     */
+    default Collection<Conta> visaoDasContas() {
+        return Collections.unmodifiableList(listarTodas());
+    }
     
     /**
      * (Opcional, mas útil) Remove uma conta pelo número.
@@ -44,4 +107,17 @@ public interface ContaRepository {
      * @return true se a conta foi removida, false caso contrário.
      */
     boolean deletar(String numeroConta);
+
+    /**
+     * Adquire exclusividade sobre as contas informadas, para que o serviço
+     * possa alterar saldo e histórico sem interferência de outras threads.
+     * As implementações concorrentes devem travar sempre na mesma ordem
+     * (independente da ordem dos argumentos), evitando deadlock.
+     * A implementação padrão não trava nada (uso com uma única thread).
+     * @param numerosConta Os números das contas envolvidas na operação.
+     * @return a Trava, que deve ser fechada ao fim da operação (try-with-resources).
+     */
+    default Trava travar(String... numerosConta) {
+        return Trava.NENHUMA;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,311 @@
+package br.com.bancodigital.repository;
+
+import br.com.bancodigital.exception.ContaException;
+import br.com.bancodigital.model.ChavePix;
+import br.com.bancodigital.model.Conta;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Diretório de chaves PIX (CPF, e-mail, telefone, aleatória) de um repositório:
+ * cada chave aponta para exatamente UMA conta (pelo número).
+ *
+ * Resolver uma chave é o caminho quente do PIX, então as resoluções ficam num
+ * cache chave -> Conta: um acerto é uma única consulta a um ConcurrentHashMap,
+ * sem passar pelo repositório. O cache é limitado (despejo pelo algoritmo do
+ * "relógio", uma aproximação barata do LRU) e é invalidado quando a chave é
+ * removida, quando a conta é removida (ContaRepository.deletar) ou quando
+ * outra Conta é salva com o mesmo número.
+ *
+ * Leituras não travam; alterações (raras) são sincronizadas no próprio diretório.
+ */
+public class DiretorioChavesPix {
+
+    // Limite do Banco Central para contas de pessoa física
+    public static final int MAXIMO_CHAVES_POR_CONTA = 5;
+    public static final int CAPACIDADE_CACHE_PADRAO = 100_000;
+
+    /**
+     * Recebe as chaves cadastradas (usado para gravá-las no snapshot).
+     */
+    @FunctionalInterface
+    interface LeitorDeChaves {
+        void ler(ChavePix chave, String numeroConta) throws IOException;
+    }
+
+    /**
+     * Grava cada cadastro e remoção antes de valer (usado pelo DuravelContaRepository, no journal).
+     * É chamado com o diretório travado: a ordem gravada é a mesma das alterações.
+     * Se lançar exceção, a alteração não acontece.
+     */
+    interface GravadorDeChaves {
+        GravadorDeChaves NENHUM = new GravadorDeChaves() {
+            @Override
+            public void registrada(ChavePix chave, String numeroConta) {
+            }
+
+            @Override
+            public void removida(ChavePix chave, String numeroConta) {
+            }
+        };
+
+        void registrada(ChavePix chave, String numeroConta);
+
+        void removida(ChavePix chave, String numeroConta);
+    }
+
+    private final Map<ChavePix, String> contaPorChave = new ConcurrentHashMap<>();
+    // Número da conta -> chaves dela (listas imutáveis, trocadas a cada alteração)
+    private final Map<String, List<ChavePix>> chavesPorConta = new ConcurrentHashMap<>();
+    private final CacheResolucao cache;
+    private GravadorDeChaves gravador = GravadorDeChaves.NENHUM; // Protegido por 'this'
+
+    // Muda a cada alteração: uma resolução que cruzou com uma alteração não fica no cache
+    private volatile long versao;
+
+    public DiretorioChavesPix() {
+        this(CAPACIDADE_CACHE_PADRAO);
+    }
+
+    public DiretorioChavesPix(int capacidadeCache) {
+        this.cache = new CacheResolucao(capacidadeCache);
+    }
+
+    /**
+     * Não confere se a conta existe: quem cadastra (o PixService) confere no repositório.
+     * @throws ContaException se a chave já pertence a uma conta ou se a conta já tem o máximo de chaves.
+     */
+    public synchronized void registrar(ChavePix chave, String numeroConta) {
+        validarRegistro(chave, numeroConta);
+        gravador.registrada(chave, numeroConta);
+        restaurar(chave, numeroConta);
+    }
+
+    /**
+     * Passa a gravar os cadastros e remoções seguintes (depois da recuperação).
+     */
+    synchronized void gravarCom(GravadorDeChaves gravador) {
+        this.gravador = gravador;
+    }
+
+    private void validarRegistro(ChavePix chave, String numeroConta) {
+        String dona = contaPorChave.get(chave);
+        if (dona != null) {
+            throw new ContaException(dona.equals(numeroConta)
+                    ? "A chave PIX " + chave + " já está cadastrada nesta conta."
+                    : "A chave PIX " + chave + " já está cadastrada em outra conta.");
+        }
+        if (listarChaves(numeroConta).size() >= MAXIMO_CHAVES_POR_CONTA) {
+            throw new ContaException("A conta " + numeroConta + " já tem " + MAXIMO_CHAVES_POR_CONTA + " chaves PIX.");
+        }
+    }
+
+    /**
+     * Registra sem validar (recuperação: o registro já foi validado quando foi gravado).
+     */
+    synchronized void restaurar(ChavePix chave, String numeroConta) {
+        String anterior = contaPorChave.put(chave, numeroConta);
+        if (anterior != null) {
+            removerDaConta(anterior, chave);
+        }
+        chavesPorConta.compute(numeroConta, (numero, chaves) -> {
+            List<ChavePix> novas = chaves == null ? new ArrayList<>(1) : new ArrayList<>(chaves);
+            novas.add(chave);
+            return Collections.unmodifiableList(novas);
+        });
+        alterado(chave);
+    }
+
+    /**
+     * @return true se a chave existia e foi removida.
+     */
+    public synchronized boolean remover(ChavePix chave) {
+        String numeroConta = contaPorChave.get(chave);
+        if (numeroConta == null) {
+            return false;
+        }
+        gravador.removida(chave, numeroConta);
+        contaPorChave.remove(chave);
+        removerDaConta(numeroConta, chave);
+        alterado(chave);
+        return true;
+    }
+
+    /**
+     * Remove todas as chaves da conta (a conta foi removida).
+     */
+    synchronized void removerConta(String numeroConta) {
+        List<ChavePix> chaves = chavesPorConta.remove(numeroConta);
+        if (chaves != null) {
+            for (ChavePix chave : chaves) {
+                contaPorChave.remove(chave);
+                alterado(chave);
+            }
+        }
+    }
+
+    /**
+     * Outra Conta foi salva com este número: as resoluções em cache apontam para o objeto antigo.
+     */
+    synchronized void invalidar(String numeroConta) {
+        versao++;
+        for (ChavePix chave : listarChaves(numeroConta)) {
+            cache.remover(chave);
+        }
+    }
+
+    /**
+     * Resolve a chave para a conta, primeiro pelo cache.
+     * @param buscarConta Busca a conta pelo número, no repositório (só em caso de falta no cache).
+     */
+    public Optional<Conta> resolver(ChavePix chave, Function<String, Optional<Conta>> buscarConta) {
+        Conta conta = cache.buscar(chave);
+        if (conta != null) {
+            return Optional.of(conta);
+        }
+
+        long versaoInicial = versao;
+        String numeroConta = contaPorChave.get(chave);
+        if (numeroConta == null) {
+            return Optional.empty();
+        }
+        Optional<Conta> encontrada = buscarConta.apply(numeroConta);
+        if (encontrada.isPresent()) {
+            cache.colocar(chave, encontrada.get());
+            if (versao != versaoInicial) {
+                cache.remover(chave); // Pode estar desatualizada
+            }
+        }
+        return encontrada;
+    }
+
+    /**
+     * @return o número da conta dona da chave, se a chave está cadastrada.
+     */
+    public Optional<String> buscarNumeroConta(ChavePix chave) {
+        return Optional.ofNullable(contaPorChave.get(chave));
+    }
+
+    /**
+     * @return as chaves da conta (lista não modificável, pode estar vazia).
+     */
+    public List<ChavePix> listarChaves(String numeroConta) {
+        return chavesPorConta.getOrDefault(numeroConta, List.of());
+    }
+
+    /**
+     * @return quantas chaves estão cadastradas.
+     */
+    public int tamanho() {
+        return contaPorChave.size();
+    }
+
+    /**
+     * @return quantas resoluções estão no cache.
+     */
+    public int tamanhoCache() {
+        return cache.entradas.size();
+    }
+
+    /**
+     * Percorre todas as chaves (usado para gravá-las no snapshot), sem permitir alterações enquanto isso.
+     */
+    synchronized void paraCada(LeitorDeChaves leitor) throws IOException {
+        for (Map.Entry<ChavePix, String> entrada : contaPorChave.entrySet()) {
+            leitor.ler(entrada.getKey(), entrada.getValue());
+        }
+    }
+
+    private void removerDaConta(String numeroConta, ChavePix chave) {
+        chavesPorConta.computeIfPresent(numeroConta, (numero, chaves) -> {
+            List<ChavePix> restantes = new ArrayList<>(chaves);
+            restantes.remove(chave);
+            return restantes.isEmpty() ? null : Collections.unmodifiableList(restantes);
+        });
+    }
+
+    // A versão muda ANTES de limpar o cache (ver resolver)
+    private void alterado(ChavePix chave) {
+        versao++;
+        cache.remover(chave);
+    }
+
+    /**
+     * Cache limitado com despejo pelo algoritmo do relógio (CLOCK): cada entrada tem
+     * um bit "usada", ligado a cada acerto. Para abrir espaço, um ponteiro percorre
+     * as entradas em círculo: desliga o bit das usadas e despeja a primeira que
+     * encontrar com o bit desligado (não foi usada desde a última volta).
+     * Acertos não travam nada; só o despejo (em uma falta com o cache cheio) é sincronizado.
+     */
+    private static final class CacheResolucao {
+
+        private final int capacidade;
+        private final ConcurrentHashMap<ChavePix, Entrada> entradas;
+        private Iterator<ChavePix> ponteiro; // Protegido por 'this'
+
+        private static final class Entrada {
+            final Conta conta;
+            volatile boolean usada;
+
+            Entrada(Conta conta) {
+                this.conta = conta;
+            }
+        }
+
+        CacheResolucao(int capacidade) {
+            this.capacidade = capacidade;
+            this.entradas = new ConcurrentHashMap<>(Math.min(capacidade, 1 << 16));
+        }
+
+        Conta buscar(ChavePix chave) {
+            Entrada entrada = entradas.get(chave);
+            if (entrada == null) {
+                return null;
+            }
+            if (!entrada.usada) {
+                entrada.usada = true; // Só escreve quando muda (evita disputa pela linha de cache)
+            }
+            return entrada.conta;
+        }
+
+        void colocar(ChavePix chave, Conta conta) {
+            entradas.put(chave, new Entrada(conta));
+            if (entradas.size() > capacidade) {
+                despejar();
+            }
+        }
+
+        void remover(ChavePix chave) {
+            entradas.remove(chave);
+        }
+
+        private synchronized void despejar() {
+            while (entradas.size() > capacidade) {
+                if (ponteiro == null || !ponteiro.hasNext()) {
+                    ponteiro = entradas.keySet().iterator();
+                    if (!ponteiro.hasNext()) {
+                        return;
+                    }
+                }
+                ChavePix chave = ponteiro.next();
+                Entrada entrada = entradas.get(chave);
+                if (entrada == null) {
+                    continue;
+                }
+                if (entrada.usada) {
+                    entrada.usada = false; // Segunda chance
+                } else {
+                    entradas.remove(chave, entrada);
+                }
+            }
+        }
+    }
+}
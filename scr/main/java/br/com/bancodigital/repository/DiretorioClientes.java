@@ -0,0 +1,302 @@
+package br.com.bancodigital.repository;
+
+import br.com.bancodigital.model.Cliente;
+import br.com.bancodigital.model.Conta;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Diretório de clientes de um repositório: um Cliente por CPF (deduplicado)
+ * e as contas de cada um (é o índice usado por buscarPorCpfCliente, em todo PIX).
+ *
+ * Feito para dezenas de milhões de clientes, sem um objeto por entrada:
+ * - cada cliente recebe um id (0, 1, 2...) na ordem em que foi registrado;
+ * - o CPF (11 dígitos, ignorando '.' e '-') vira um número de 37 bits, guardado
+ *   junto com o id num único long de uma tabela de endereçamento aberto: a busca
+ *   lê uma posição (uma linha de cache) e não cria objetos (nem Long, nem nó de
+ *   HashMap, nem a String normalizada);
+ * - as contas de cada id ficam em dois arrays: a própria Conta quando o cliente
+ *   tem uma só (o caso comum, sem lista), ou uma lista imutável quando já teve mais.
+ * CPFs fora do formato (ex: com letras) não viram long: ficam num Map à parte,
+ * com o mesmo espaço de ids.
+ *
+ * Os nomes continuam Strings dentro do Cliente, sem uma "arena" de nomes: a String
+ * do nome é a mesma guardada como detalhe em cada transferência e PIX do histórico
+ * (ver HistoricoTransacoes), então o Cliente e as suas Strings (~136 bytes) são pagos
+ * uma vez por cliente. Com os nomes numa arena, cada transação criaria a sua própria
+ * String (ou o histórico teria de guardar ids de cliente), e a busca por CPF, que não
+ * lê o nome, não ficaria mais rápida.
+ *
+ * Leituras não travam: as alterações (sincronizadas) preenchem os arrays por id
+ * antes de publicar a posição na tabela (VarHandle, release/acquire), e trocam
+ * a tabela inteira (volatile) quando ela cresce. Um id achado numa tabela existe
+ * em todas as seguintes, por isso as leituras buscam o id e só depois leem a
+ * tabela atual. Clientes nunca são removidos: um cliente sem contas continua com o seu id.
+ */
+public class DiretorioClientes {
+
+    private static final int CAPACIDADE_INICIAL = 1024;
+    private static final long NAO_NUMERICO = -1;
+
+    // Posição = CPF << BITS_ID | (id + 1); 0 = vazia. CPFs têm até 37 bits (< 10^11)
+    private static final int BITS_ID = 27;
+    private static final long MASCARA_ID = (1L << BITS_ID) - 1;
+    public static final int MAXIMO_CLIENTES = (int) MASCARA_ID - 1;
+
+    private static final VarHandle POSICAO = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle UNICA = MethodHandles.arrayElementVarHandle(Conta[].class);
+    private static final VarHandle VARIAS = MethodHandles.arrayElementVarHandle(List[].class);
+
+    private volatile Tabela tabela = new Tabela(CAPACIDADE_INICIAL);
+    private volatile int quantidade;
+
+    // CPFs fora do formato -> id (os demais ficam só na tabela)
+    private final Map<String, Integer> irregulares = new ConcurrentHashMap<>();
+
+    /**
+     * Arrays de uma "geração" do diretório: trocados juntos quando ele cresce.
+     */
+    private static final class Tabela {
+        final long[] posicoes;     // CPF e id; tamanho potência de 2, no máximo metade ocupada
+        final Cliente[] clientes;  // id -> cliente
+        final Conta[] unicas;      // id -> a conta, se o cliente tem só uma
+        final List<Conta>[] varias; // id -> as contas (imutável), se o cliente já teve mais de uma
+
+        @SuppressWarnings({"unchecked", "rawtypes"}) // Não existe new List<Conta>[n]
+        Tabela(int capacidade) {
+            this.posicoes = new long[capacidade * 2];
+            this.clientes = new Cliente[capacidade];
+            this.unicas = new Conta[capacidade];
+            this.varias = new List[capacidade];
+        }
+
+        Tabela(Tabela anterior, int capacidade) {
+            this.posicoes = new long[capacidade * 2];
+            this.clientes = Arrays.copyOf(anterior.clientes, capacidade);
+            this.unicas = Arrays.copyOf(anterior.unicas, capacidade);
+            this.varias = Arrays.copyOf(anterior.varias, capacidade);
+            for (long posicao : anterior.posicoes) {
+                if (posicao != 0) {
+                    posicoes[posicaoLivre(this, posicao >>> BITS_ID)] = posicao;
+                }
+            }
+        }
+    }
+
+    // --- Clientes ---
+
+    /**
+     * Registra o cliente, se o CPF ainda não tem um.
+     * @return o Cliente do CPF: o já registrado (com o nome dele) ou este.
+     *         Use o retornado ao criar a conta, para que todas as contas do CPF
+     *         compartilhem a mesma instância (e as mesmas Strings).
+     */
+    public synchronized Cliente registrar(Cliente cliente) {
+        int id = idDe(tabela, cliente.cpf());
+        if (id < 0) {
+            id = novo(cliente, null);
+        }
+        return tabela.clientes[id];
+    }
+
+    /**
+     * @return o cliente do CPF (com ou sem '.' e '-'), se registrado.
+     */
+    public Optional<Cliente> buscar(String cpf) {
+        int id = idDe(tabela, cpf);
+        return id < 0 ? Optional.empty() : Optional.of(tabela.clientes[id]);
+    }
+
+    /**
+     * @return o id do cliente do CPF, ou -1 se não registrado.
+     */
+    public int idDe(String cpf) {
+        return idDe(tabela, cpf);
+    }
+
+    /**
+     * @return o cliente com o id informado.
+     * @throws IndexOutOfBoundsException se o id não existe.
+     */
+    public Cliente cliente(int id) {
+        if (id < 0 || id >= quantidade) {
+            throw new IndexOutOfBoundsException("Cliente " + id + " não existe.");
+        }
+        return tabela.clientes[id];
+    }
+
+    public int quantidade() {
+        return quantidade;
+    }
+
+    /**
+     * @return as contas do CPF, na ordem em que foram salvas (lista imutável, pode estar vazia).
+     */
+    @SuppressWarnings("unchecked")
+    public List<Conta> contas(String cpf) {
+        int id = idDe(tabela, cpf);
+        if (id < 0) {
+            return List.of();
+        }
+        // A única primeiro: ao passar para a lista, a lista é gravada antes de a única ser apagada
+        Tabela atual = tabela;
+        Conta unica = (Conta) UNICA.getAcquire(atual.unicas, id);
+        if (unica != null) {
+            return List.of(unica);
+        }
+        List<Conta> varias = (List<Conta>) VARIAS.getAcquire(atual.varias, id);
+        return varias == null ? List.of() : varias;
+    }
+
+    // --- Índice de contas (mantido pelos repositórios) ---
+
+    /**
+     * Atualiza as contas do cliente após um salvar.
+     * O cliente de uma Conta não muda, então salvar a mesma instância (todo depósito,
+     * saque, transferência...) não mexe no diretório.
+     * @param anterior A conta que estava salva com o mesmo número (ou null).
+     * @param conta A conta que acabou de ser salva.
+     */
+    void atualizar(Conta anterior, Conta conta) {
+        if (anterior == conta) {
+            return;
+        }
+        synchronized (this) {
+            if (anterior != null) {
+                remover(anterior);
+            }
+            int id = idDe(tabela, conta.getCliente().cpf());
+            if (id < 0) {
+                novo(conta.getCliente(), conta);
+                return;
+            }
+            Tabela atual = tabela;
+            Conta unica = atual.unicas[id];
+            List<Conta> varias = atual.varias[id];
+            if (unica == null && varias == null) {
+                UNICA.setRelease(atual.unicas, id, conta);
+                return;
+            }
+            // Depois de ter mais de uma conta, o cliente fica na lista (mesmo voltando a ter uma):
+            // assim uma leitura nunca pega a única já apagada e a lista ainda não gravada
+            List<Conta> novas = new ArrayList<>(unica != null ? List.of(unica) : varias);
+            novas.add(conta);
+            VARIAS.setRelease(atual.varias, id, List.copyOf(novas));
+            if (unica != null) {
+                UNICA.setRelease(atual.unicas, id, null);
+            }
+        }
+    }
+
+    /**
+     * Tira a conta (removida do repositório) das contas do cliente; o cliente continua registrado.
+     */
+    synchronized void remover(Conta conta) {
+        int id = idDe(tabela, conta.getCliente().cpf());
+        if (id < 0) {
+            return;
+        }
+        Tabela atual = tabela;
+        Conta unica = atual.unicas[id];
+        if (unica != null) {
+            if (unica.getNumero().equals(conta.getNumero())) {
+                UNICA.setRelease(atual.unicas, id, null);
+            }
+            return;
+        }
+        if (atual.varias[id] != null) {
+            List<Conta> restantes = new ArrayList<>(atual.varias[id]);
+            restantes.removeIf(c -> c.getNumero().equals(conta.getNumero()));
+            VARIAS.setRelease(atual.varias, id, restantes.isEmpty() ? null : List.copyOf(restantes));
+        }
+    }
+
+    // --- Tabela ---
+
+    // Chamar sincronizado, com o CPF ainda não registrado.
+    // O cliente aparece para as leituras já com a primeira conta (ou nenhuma)
+    private int novo(Cliente cliente, Conta primeiraConta) {
+        int id = quantidade;
+        if (id == MAXIMO_CLIENTES) {
+            throw new IllegalStateException("O diretório já tem o máximo de " + MAXIMO_CLIENTES + " clientes.");
+        }
+        Tabela atual = tabela;
+        if (id == atual.clientes.length) {
+            atual = new Tabela(atual, atual.clientes.length * 2);
+            tabela = atual;
+        }
+        long cpf = comoNumero(cliente.cpf());
+        atual.clientes[id] = cliente;
+        atual.unicas[id] = primeiraConta;
+        if (cpf == NAO_NUMERICO) {
+            irregulares.put(cliente.cpf(), id);
+        } else {
+            // Publica a posição depois: quem a enxerga enxerga também o cliente e a conta
+            POSICAO.setRelease(atual.posicoes, posicaoLivre(atual, cpf), cpf << BITS_ID | (id + 1));
+        }
+        quantidade = id + 1;
+        return id;
+    }
+
+    private int idDe(Tabela atual, String cpf) {
+        long numero = comoNumero(cpf);
+        if (numero == NAO_NUMERICO) {
+            Integer id = irregulares.get(cpf);
+            return id == null ? -1 : id;
+        }
+        long[] posicoes = atual.posicoes;
+        int mascara = posicoes.length - 1;
+        for (int p = espalhar(numero) & mascara; ; p = (p + 1) & mascara) {
+            long posicao = (long) POSICAO.getAcquire(posicoes, p);
+            if (posicao == 0) {
+                return -1;
+            }
+            if (posicao >>> BITS_ID == numero) {
+                return (int) (posicao & MASCARA_ID) - 1;
+            }
+        }
+    }
+
+    private static int posicaoLivre(Tabela atual, long cpf) {
+        int mascara = atual.posicoes.length - 1;
+        int p = espalhar(cpf) & mascara;
+        while (atual.posicoes[p] != 0) {
+            p = (p + 1) & mascara;
+        }
+        return p;
+    }
+
+    // Mistura os bits (CPFs sequenciais não podem cair em posições vizinhas)
+    private static int espalhar(long cpf) {
+        long h = cpf * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * CPF como número: exatamente 11 dígitos, ignorando '.' e '-' (sem criar Strings).
+     * @return o número, ou NAO_NUMERICO se o CPF está fora do formato.
+     */
+    static long comoNumero(String cpf) {
+        long numero = 0;
+        int digitos = 0;
+        for (int i = 0; i < cpf.length(); i++) {
+            char c = cpf.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digitos > 11) {
+                    return NAO_NUMERICO;
+                }
+                numero = numero * 10 + (c - '0');
+            } else if (c != '.' && c != '-') {
+                return NAO_NUMERICO;
+            }
+        }
+        return digitos == 11 ? numero : NAO_NUMERICO;
+    }
+}
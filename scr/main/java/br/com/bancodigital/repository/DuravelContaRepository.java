@@ -0,0 +1,591 @@
+package br.com.bancodigital.repository;
+
+import br.com.bancodigital.evento.EventoBancario;
+import br.com.bancodigital.evento.PublicadorDeEventos;
+import br.com.bancodigital.exception.ContaException;
+import br.com.bancodigital.model.ChavePix;
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.model.HistoricoTransacoes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Implementação DURÁVEL do ContaRepository.
+ * O estado continua em memória (ConcorrenteContaRepository), e cada salvar grava
+ * as alterações em um Journal em disco antes de publicá-las no mapa e nos índices.
+ *
+ * O que o journal NÃO garante sozinho: os serviços alteram o objeto Conta (saldo e
+ * histórico) antes de chamar o salvar, com a conta travada. Se a gravação falhar,
+ * quem alterou desfaz (Conta.desfazerAlteracoes) antes de soltar a trava. Assim,
+ * quem lê com a conta travada (ex: ContaService.consultarSaldo) só vê o que já
+ * foi gravado; já quem lê conta.getSaldo() sem a trava pode ver uma operação em
+ * andamento. Com salvarTodasAssincrono (MotorSequencial, ProcessadorOtimista,
+ * AgendadorDeEncargos) a trava é solta antes do fsync: uma falha chega depois,
+ * pelo CompletableFuture, e a memória fica à frente do disco até o próximo reinício.
+ *
+ * Cada salvar/salvarTodas gera UMA entrada no journal (gravada de forma atômica),
+ * contendo registros binários compactos:
+ * - CONTA: a conta foi criada (tipo, agência, número, cliente);
+ * - TRANSACAO_COM_DETALHE: uma nova transação no histórico (número, posição no histórico, tipo, data, valor
+ *   e o detalhe como está no HistoricoTransacoes; journals antigos têm TRANSACAO, com a descrição completa);
+ * - REMOCAO: a conta foi removida;
+ * - IDEMPOTENCIA: o resultado de uma operação idempotente (chave, saldo, instante e a
+ *   impressão da operação), na mesma entrada das contas que ela alterou (journals antigos
+ *   têm o registro sem a impressão, ainda lido);
+ * - CHAVE_PIX / REMOCAO_CHAVE_PIX: uma chave PIX foi cadastrada ou removida.
+ *
+ * Snapshots: de tempos em tempos o journal passa para um novo segmento (arquivo)
+ * e todas as contas são gravadas em um Snapshot. Ao iniciar, o snapshot mais
+ * recente é carregado (via memória mapeada) e só os segmentos do journal
+ * a partir dele são reaplicados.
+ *
+ * Contas criadas ou removidas entram no mapa só depois de gravadas; por isso o
+ * cadastro e a remoção não cruzam com a rotação do journal (ver tirarSnapshot).
+ */
+public class DuravelContaRepository implements ContaRepository, AutoCloseable {
+
+    private static final String PREFIXO_JOURNAL = "journal-";
+    private static final String SUFIXO_JOURNAL = ".log";
+    private static final String PREFIXO_SNAPSHOT = "snapshot-";
+    private static final String SUFIXO_SNAPSHOT = ".bin";
+
+    private static final byte REGISTRO_CONTA = 1;
+    private static final byte REGISTRO_TRANSACAO = 2;
+    private static final byte REGISTRO_REMOCAO = 3;
+    private static final byte REGISTRO_IDEMPOTENCIA = 4;
+    private static final byte REGISTRO_CHAVE_PIX = 5;
+    private static final byte REGISTRO_REMOCAO_CHAVE_PIX = 6;
+    private static final byte REGISTRO_IDEMPOTENCIA_COM_IMPRESSAO = 7;
+    private static final byte REGISTRO_TRANSACAO_COM_DETALHE = 8;
+
+    private final Path diretorio;
+    private final ConcorrenteContaRepository memoria;
+    private final IndicesDeContas indices;
+    private final PublicadorDeEventos eventos;
+    private final TabelaIdempotencia idempotencia;
+    private final Journal journal;
+    private volatile long segmentoAtual;
+    private ScheduledExecutorService agendador;
+
+    // Número da conta -> quantas transações do histórico já foram para o journal
+    private final Map<String, Integer> transacoesGravadas = new ConcurrentHashMap<>();
+
+    // Leitura: gravar e publicar um cadastro ou remoção de conta. Escrita: rotacionar o journal
+    private final ReentrantReadWriteLock cadastros = new ReentrantReadWriteLock();
+
+    /**
+     * Monta um repositório com as opções informadas; as outras ficam no padrão:
+     *
+     * <pre>
+     * DuravelContaRepository repositorio = DuravelContaRepository.novo(diretorio)
+     *         .indices(indices)
+     *         .eventos(eventos)
+     *         .construir();
+     * </pre>
+     *
+     * @param diretorio Diretório onde ficam o journal e os snapshots.
+     */
+    public static Construtor novo(Path diretorio) {
+        return new Construtor(diretorio);
+    }
+
+    private DuravelContaRepository(Construtor construtor) throws IOException {
+        Path diretorio = construtor.diretorio;
+        IndicesDeContas indices = construtor.indices;
+        this.diretorio = diretorio;
+        this.eventos = construtor.eventos;
+        this.memoria = ConcorrenteContaRepository.novo().indices(indices).construir();
+        this.indices = indices;
+        this.idempotencia = indices.getIdempotencia();
+        Files.createDirectories(diretorio);
+
+        // 1. Carrega o snapshot mais recente (se houver)
+        long inicio = System.nanoTime();
+        RegistrosBinarios.Textos textos = new RegistrosBinarios.Textos();
+        TreeMap<Long, Path> snapshots = listarArquivos(PREFIXO_SNAPSHOT, SUFIXO_SNAPSHOT);
+        long primeiroSegmento = 0;
+        if (!snapshots.isEmpty()) {
+            primeiroSegmento = Snapshot.carregar(snapshots.lastEntry().getValue(), memoria::registrar, idempotencia,
+                    indices.getChavesPix(), indices.getClientes(), textos);
+        }
+
+        // 2. Reaplica só a "cauda" do journal (segmentos a partir do snapshot)
+        long entradas = 0;
+        TreeMap<Long, Path> segmentos = listarArquivos(PREFIXO_JOURNAL, SUFIXO_JOURNAL);
+        for (Map.Entry<Long, Path> segmento : segmentos.tailMap(primeiroSegmento).entrySet()) {
+            boolean ultimo = segmento.getKey().equals(segmentos.lastKey());
+            entradas += Journal.ler(segmento.getValue(), ultimo, entrada -> reaplicarEntrada(entrada, textos), eventos);
+        }
+        for (Conta conta : memoria.listarTodas()) {
+            transacoesGravadas.put(conta.getNumero(), conta.getHistoricoTransacoes().size());
+        }
+        eventos.publicar(new EventoBancario.DadosRecuperados(transacoesGravadas.size(), entradas,
+                (System.nanoTime() - inicio) / 1_000_000));
+
+        // 3. Novas gravações vão para um segmento novo
+        this.segmentoAtual = segmentos.isEmpty() ? primeiroSegmento : Math.max(segmentos.lastKey() + 1, primeiroSegmento);
+        this.journal = new Journal(arquivoJournal(segmentoAtual), construtor.tamanhoLoteFsync);
+
+        // 4. Daqui em diante, cada cadastro ou remoção de chave PIX vai para o journal antes de valer
+        indices.getChavesPix().gravarCom(new DiretorioChavesPix.GravadorDeChaves() {
+            @Override
+            public void registrada(ChavePix chave, String numeroConta) {
+                gravarNoJournal(codificarChavePix(REGISTRO_CHAVE_PIX, chave, numeroConta));
+            }
+
+            @Override
+            public void removida(ChavePix chave, String numeroConta) {
+                gravarNoJournal(codificarChavePix(REGISTRO_REMOCAO_CHAVE_PIX, chave, numeroConta));
+            }
+        });
+    }
+
+    @Override
+    public void salvar(Conta conta) {
+        salvarTodas(conta);
+    }
+
+    @Override
+    public void salvarTodas(Conta... contas) {
+        // Primeiro grava no disco, depois publica no mapa e nos índices.
+        // Se a gravação falhar, nada é publicado: quem alterou a conta desfaz (ver a documentação da classe)
+        boolean cadastro = travarSeCadastro(contas);
+        try {
+            gravarNoJournal(codificarAlteracoes(contas));
+            publicarEmMemoria(contas);
+        } finally {
+            soltarSeCadastro(cadastro);
+        }
+    }
+
+    /**
+     * A chave vai na mesma entrada do journal que as contas: depois de uma queda,
+     * ou as duas coisas foram gravadas, ou nenhuma.
+     * @param idempotencia Precisa ser a tabela de getIndices() (a que é recuperada e vai para os snapshots).
+     */
+    @Override
+    public void salvarTodas(TabelaIdempotencia idempotencia, ChaveIdempotencia chave, long saldo, Conta... contas) {
+        if (idempotencia != this.idempotencia) {
+            throw new IllegalArgumentException("Use a tabela de idempotência do repositório (getIndices).");
+        }
+        long instante = Instant.now().toEpochMilli();
+        boolean cadastro = travarSeCadastro(contas);
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(160);
+            DataOutputStream saida = new DataOutputStream(bytes);
+            try {
+                for (Conta conta : contas) {
+                    escreverAlteracoes(saida, conta);
+                }
+                saida.writeByte(REGISTRO_IDEMPOTENCIA_COM_IMPRESSAO);
+                saida.writeLong(chave.alta());
+                saida.writeLong(chave.baixa());
+                saida.writeLong(saldo);
+                saida.writeLong(instante);
+                saida.writeLong(idempotencia.impressaoDaReserva(chave));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            gravarNoJournal(bytes.toByteArray());
+            publicarEmMemoria(contas);
+        } finally {
+            soltarSeCadastro(cadastro);
+        }
+        idempotencia.registrarSucesso(chave, saldo, instante);
+    }
+
+    /**
+     * Enfileira a entrada no journal e publica em memória sem esperar o fsync.
+     * Quem precisar da garantia de durabilidade espera o futuro retornado.
+     */
+    @Override
+    public CompletableFuture<Void> salvarTodasAssincrono(Conta... contas) {
+        boolean cadastro = travarSeCadastro(contas);
+        try {
+            CompletableFuture<Void> gravada = journal.anexar(codificarAlteracoes(contas));
+            publicarEmMemoria(contas);
+            return gravada;
+        } finally {
+            soltarSeCadastro(cadastro);
+        }
+    }
+
+    private byte[] codificarAlteracoes(Conta... contas) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream saida = new DataOutputStream(bytes);
+        try {
+            for (Conta conta : contas) {
+                escreverAlteracoes(saida, conta);
+            }
+        } catch (IOException e) {
+            // ByteArrayOutputStream não lança IOException de verdade
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Se alguma das contas é nova (ou outro objeto com o mesmo número), impede a rotação
+     * do journal até ela estar no mapa. As demais só acrescentam transações a contas que
+     * já estão no mapa, e o snapshot as copia de qualquer forma: não travam nada.
+     * @return true se travou (chamar soltarSeCadastro depois de publicar).
+     */
+    private boolean travarSeCadastro(Conta... contas) {
+        for (Conta conta : contas) {
+            if (memoria.buscarPorNumero(conta.getNumero()).orElse(null) != conta) {
+                cadastros.readLock().lock();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void soltarSeCadastro(boolean travou) {
+        if (travou) {
+            cadastros.readLock().unlock();
+        }
+    }
+
+    private void publicarEmMemoria(Conta... contas) {
+        for (Conta conta : contas) {
+            transacoesGravadas.put(conta.getNumero(), conta.getHistoricoTransacoes().size());
+            memoria.salvar(conta);
+        }
+    }
+
+    @Override
+    public boolean isDuravel() {
+        return true;
+    }
+
+    @Override
+    public Optional<Conta> buscarPorNumero(String numeroConta) {
+        return memoria.buscarPorNumero(numeroConta);
+    }
+
+    @Override
+    public List<Conta> buscarPorCpfCliente(String cpf) {
+        return memoria.buscarPorCpfCliente(cpf);
+    }
+
+    @Override
+    public List<Conta> listarTodas() {
+        return memoria.listarTodas();
+    }
+
+    @Override
+    public Collection<Conta> visaoDasContas() {
+        return memoria.visaoDasContas();
+    }
+
+    @Override
+    public boolean deletar(String numeroConta) {
+        if (memoria.buscarPorNumero(numeroConta).isEmpty()) {
+            return false;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        try (DataOutputStream saida = new DataOutputStream(bytes)) {
+            saida.writeByte(REGISTRO_REMOCAO);
+            RegistrosBinarios.escreverTexto(saida, numeroConta);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        cadastros.readLock().lock();
+        try {
+            gravarNoJournal(bytes.toByteArray());
+            transacoesGravadas.remove(numeroConta);
+            return memoria.deletar(numeroConta);
+        } finally {
+            cadastros.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Trava travar(String... numerosConta) {
+        return memoria.travar(numerosConta);
+    }
+
+    /**
+     * Clientes, chaves PIX, totais e idempotência destas contas (para os serviços).
+     * As chaves PIX e os sucessos das operações idempotentes ficam no journal e nos snapshots
+     * (as falhas, só em memória); clientes e totais são reconstruídos junto com as contas.
+     */
+    public IndicesDeContas getIndices() {
+        return indices;
+    }
+
+    /**
+     * @return o journal (útil para acompanhar entradas gravadas e fsyncs).
+     */
+    public Journal getJournal() {
+        return journal;
+    }
+
+    // --- Snapshots ---
+
+    /**
+     * Grava um snapshot de todas as contas, sem parar as demais operações.
+     * Depois disso, os segmentos antigos do journal (e snapshots antigos) são apagados.
+     * @return a quantidade de contas no snapshot.
+     */
+    public synchronized long tirarSnapshot() throws IOException {
+        long inicio = System.nanoTime();
+
+        // 1. As próximas entradas vão para um novo segmento.
+        //    Tudo que está nos segmentos anteriores já está refletido nas contas: um cadastro
+        //    ou remoção gravado antes da rotação já está no mapa quando ela termina (a conta
+        //    nova não pode ficar de fora do snapshot depois de o seu segmento ser apagado).
+        long novoSegmento = segmentoAtual + 1;
+        cadastros.writeLock().lock();
+        try {
+            journal.rotacionar(arquivoJournal(novoSegmento)).join();
+        } catch (RuntimeException e) {
+            throw new IOException("Falha ao rotacionar o journal.", e.getCause());
+        } finally {
+            cadastros.writeLock().unlock();
+        }
+        segmentoAtual = novoSegmento;
+
+        // 2. Grava as contas (cada uma travada só enquanto é copiada) e as chaves de idempotência.
+        //    As chaves vêm depois das contas: quem gravou no segmento antigo ainda segura a trava
+        //    da conta, e só a solta depois de colocar a chave na tabela.
+        long contas = Snapshot.gravar(arquivoSnapshot(novoSegmento), novoSegmento, memoria.visaoDasContas(), memoria,
+                idempotencia, indices.getChavesPix());
+
+        // 3. Apaga o que ficou para trás
+        for (Path antigo : listarArquivos(PREFIXO_SNAPSHOT, SUFIXO_SNAPSHOT).headMap(novoSegmento).values()) {
+            Files.deleteIfExists(antigo);
+        }
+        for (Path antigo : listarArquivos(PREFIXO_JOURNAL, SUFIXO_JOURNAL).headMap(novoSegmento).values()) {
+            Files.deleteIfExists(antigo);
+        }
+
+        eventos.publicar(new EventoBancario.SnapshotGravado(contas, (System.nanoTime() - inicio) / 1_000_000));
+        return contas;
+    }
+
+    /**
+     * Tira snapshots periodicamente, em uma thread de fundo.
+     */
+    public synchronized void iniciarSnapshotsPeriodicos(Duration intervalo) {
+        if (agendador != null) {
+            throw new IllegalStateException("Snapshots periódicos já foram iniciados.");
+        }
+        agendador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "snapshot-contas");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodo = intervalo.toMillis();
+        agendador.scheduleWithFixedDelay(() -> {
+            try {
+                tirarSnapshot();
+            } catch (IOException | RuntimeException e) {
+                eventos.publicar(new EventoBancario.FalhaEmSegundoPlano("Repo", "Falha ao gravar snapshot: " + e.getMessage()));
+            }
+        }, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (agendador != null) {
+                agendador.shutdownNow();
+            }
+        }
+        journal.close();
+    }
+
+    // --- Gravação ---
+
+    private void gravarNoJournal(byte[] entrada) {
+        try {
+            journal.anexarEAguardar(entrada);
+        } catch (UncheckedIOException e) {
+            throw new ContaException("Falha ao gravar no journal: " + e.getCause().getMessage(), e);
+        }
+    }
+
+    private byte[] codificarChavePix(byte tipoRegistro, ChavePix chave, String numeroConta) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream saida = new DataOutputStream(bytes)) {
+            saida.writeByte(tipoRegistro);
+            RegistrosBinarios.escreverChavePix(saida, chave, numeroConta);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void escreverAlteracoes(DataOutputStream saida, Conta conta) throws IOException {
+        String numero = conta.getNumero();
+        Integer jaGravadas = transacoesGravadas.get(numero);
+
+        // Conta nova (ou outro objeto substituindo a conta com o mesmo número)
+        Conta atual = memoria.buscarPorNumero(numero).orElse(null);
+        if (jaGravadas == null || atual != conta) {
+            saida.writeByte(REGISTRO_CONTA);
+            RegistrosBinarios.escreverConta(saida, conta);
+            jaGravadas = 0;
+        }
+
+        // Só as transações que ainda não estão no journal
+        HistoricoTransacoes historico = conta.getHistoricoTransacoes();
+        for (int i = jaGravadas; i < historico.size(); i++) {
+            saida.writeByte(REGISTRO_TRANSACAO_COM_DETALHE);
+            RegistrosBinarios.escreverTexto(saida, numero);
+            saida.writeInt(i);
+            RegistrosBinarios.escreverTransacao(saida, historico, i);
+        }
+    }
+
+    // --- Recuperação ---
+
+    private void reaplicarEntrada(ByteBuffer entrada, RegistrosBinarios.Textos textos) {
+        while (entrada.hasRemaining()) {
+            byte tipoRegistro = entrada.get();
+            switch (tipoRegistro) {
+                case REGISTRO_CONTA -> reaplicarConta(entrada, textos);
+                case REGISTRO_TRANSACAO -> reaplicarTransacao(entrada, textos, false);
+                case REGISTRO_TRANSACAO_COM_DETALHE -> reaplicarTransacao(entrada, textos, true);
+                case REGISTRO_REMOCAO -> memoria.deletar(RegistrosBinarios.lerTexto(entrada));
+                case REGISTRO_IDEMPOTENCIA -> idempotencia.restaurar(entrada.getLong(), entrada.getLong(),
+                        entrada.getLong(), entrada.getLong(), ChaveIdempotencia.SEM_IMPRESSAO);
+                case REGISTRO_IDEMPOTENCIA_COM_IMPRESSAO -> idempotencia.restaurar(entrada.getLong(), entrada.getLong(),
+                        entrada.getLong(), entrada.getLong(), entrada.getLong());
+                case REGISTRO_CHAVE_PIX -> indices.getChavesPix().restaurar(
+                        RegistrosBinarios.lerChavePix(entrada), RegistrosBinarios.lerTexto(entrada));
+                case REGISTRO_REMOCAO_CHAVE_PIX -> {
+                    indices.getChavesPix().remover(RegistrosBinarios.lerChavePix(entrada));
+                    RegistrosBinarios.pularTexto(entrada);
+                }
+                default -> throw new ContaException("Registro desconhecido no journal: " + tipoRegistro);
+            }
+        }
+    }
+
+    private void reaplicarConta(ByteBuffer entrada, RegistrosBinarios.Textos textos) {
+        Conta conta = RegistrosBinarios.lerConta(entrada, indices.getClientes(), textos);
+        Conta existente = memoria.buscarPorNumero(conta.getNumero()).orElse(null);
+        if (existente != null && RegistrosBinarios.mesmosDados(existente, conta)) {
+            return; // Mesma conta, já carregada (ex: pelo snapshot)
+        }
+        memoria.registrar(conta);
+    }
+
+    private void reaplicarTransacao(ByteBuffer entrada, RegistrosBinarios.Textos textos, boolean comDetalhe) {
+        String numero = RegistrosBinarios.lerTexto(entrada);
+        int indice = entrada.getInt();
+
+        Conta conta = memoria.buscarPorNumero(numero)
+                .orElseThrow(() -> new ContaException("Journal inconsistente: conta " + numero + " não existe."));
+        int tamanhoHistorico = conta.getHistoricoTransacoes().size();
+        if (indice < tamanhoHistorico) {
+            RegistrosBinarios.pularTransacao(entrada); // Já aplicada (ex: estava no snapshot): só pula
+            return;
+        }
+        if (indice > tamanhoHistorico) {
+            throw new ContaException("Journal inconsistente: faltam transações da conta " + numero);
+        }
+        if (comDetalhe) {
+            RegistrosBinarios.restaurarTransacao(entrada, conta, textos);
+        } else {
+            RegistrosBinarios.restaurarTransacaoComDescricao(entrada, conta, textos);
+        }
+    }
+
+    // --- Arquivos ---
+
+    private Path arquivoJournal(long segmento) {
+        return diretorio.resolve(String.format("%s%016d%s", PREFIXO_JOURNAL, segmento, SUFIXO_JOURNAL));
+    }
+
+    private Path arquivoSnapshot(long segmento) {
+        return diretorio.resolve(String.format("%s%016d%s", PREFIXO_SNAPSHOT, segmento, SUFIXO_SNAPSHOT));
+    }
+
+    /**
+     * @return os arquivos com o prefixo/sufixo informados, ordenados pelo número do segmento.
+     */
+    private TreeMap<Long, Path> listarArquivos(String prefixo, String sufixo) throws IOException {
+        TreeMap<Long, Path> arquivos = new TreeMap<>();
+        try (Stream<Path> caminhos = Files.list(diretorio)) {
+            caminhos.forEach(caminho -> {
+                String nome = caminho.getFileName().toString();
+                if (nome.startsWith(prefixo) && nome.endsWith(sufixo)) {
+                    String numero = nome.substring(prefixo.length(), nome.length() - sufixo.length());
+                    try {
+                        arquivos.put(Long.parseLong(numero), caminho);
+                    } catch (NumberFormatException e) {
+                        // Não é um arquivo nosso: ignora
+                    }
+                }
+            });
+        }
+        return arquivos;
+    }
+
+    /**
+     * Monta o DuravelContaRepository (ver novo); construir abre o diretório e recupera os dados.
+     */
+    public static final class Construtor {
+
+        private final Path diretorio;
+        private int tamanhoLoteFsync = Journal.LOTE_PADRAO;
+        private IndicesDeContas indices = new IndicesDeContas();
+        private PublicadorDeEventos eventos = PublicadorDeEventos.NENHUM;
+
+        private Construtor(Path diretorio) {
+            this.diretorio = diretorio;
+        }
+
+        /**
+         * @param tamanhoLoteFsync Máximo de entradas gravadas por fsync (group commit).
+         */
+        public Construtor loteFsync(int tamanhoLoteFsync) {
+            this.tamanhoLoteFsync = tamanhoLoteFsync;
+            return this;
+        }
+
+        /**
+         * @param indices Índices ainda vazios, que os serviços também vão receber
+         *                (a recuperação preenche os clientes, as chaves PIX, os totais e a idempotência).
+         */
+        public Construtor indices(IndicesDeContas indices) {
+            this.indices = indices;
+            return this;
+        }
+
+        /**
+         * @param eventos Recebe a recuperação, os snapshots e as falhas dos snapshots periódicos.
+         */
+        public Construtor eventos(PublicadorDeEventos eventos) {
+            this.eventos = eventos;
+            return this;
+        }
+
+        public DuravelContaRepository construir() throws IOException {
+            return new DuravelContaRepository(this);
+        }
+    }
+}
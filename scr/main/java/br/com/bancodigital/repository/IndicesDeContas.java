@@ -0,0 +1,76 @@
+package br.com.bancodigital.repository;
+
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.model.ResumoBanco;
+
+/**
+ * Os índices que acompanham as contas de um repositório: clientes (um por CPF),
+ * chaves PIX, totais do banco e resultados das operações idempotentes.
+ *
+ * Não fazem parte do ContaRepository: o repositório os mantém atualizados
+ * (a cada conta salva ou removida) e os serviços os recebem no construtor,
+ * sempre a mesma instância usada pelo repositório:
+ *
+ * <pre>
+ * ConcorrenteContaRepository repositorio = ConcorrenteContaRepository.novo().construir();
+ * ContaService contaService = new ContaService(repositorio, repositorio.getIndices());
+ * </pre>
+ */
+public final class IndicesDeContas {
+
+    private final DiretorioClientes clientes = new DiretorioClientes();
+    private final DiretorioChavesPix chavesPix = new DiretorioChavesPix();
+    private final ResumoBanco resumo = new ResumoBanco();
+    private final TabelaIdempotencia idempotencia = new TabelaIdempotencia();
+
+    /**
+     * Clientes e as contas de cada um.
+     * Ao criar uma conta, use o Cliente devolvido por registrar,
+     * para que as contas do mesmo CPF compartilhem a mesma instância.
+     */
+    public DiretorioClientes getClientes() {
+        return clientes;
+    }
+
+    /**
+     * Chaves PIX das contas. Ao remover uma conta, as chaves dela também são removidas.
+     */
+    public DiretorioChavesPix getChavesPix() {
+        return chavesPix;
+    }
+
+    /**
+     * Totais por dia e tipo de transação de todas as contas (ver ResumoBanco).
+     */
+    public ResumoBanco getResumo() {
+        return resumo;
+    }
+
+    /**
+     * Resultados das operações idempotentes (ver ContaRepository.salvarTodas com chave).
+     */
+    public TabelaIdempotencia getIdempotencia() {
+        return idempotencia;
+    }
+
+    /**
+     * A conta foi salva (nova, ou substituindo 'anterior' com o mesmo número).
+     */
+    void contaSalva(Conta anterior, Conta conta) {
+        clientes.atualizar(anterior, conta);
+        if (anterior != null && anterior != conta) {
+            chavesPix.invalidar(conta.getNumero());
+            anterior.getResumoTransacoes().desvincular();
+        }
+        conta.getResumoTransacoes().vincular(resumo);
+    }
+
+    /**
+     * A conta foi removida: sai do cliente, perde as chaves e deixa os totais.
+     */
+    void contaRemovida(Conta conta) {
+        clientes.remover(conta);
+        chavesPix.removerConta(conta.getNumero());
+        conta.getResumoTransacoes().desvincular();
+    }
+}
@@ -0,0 +1,333 @@
+package br.com.bancodigital.repository;
+
+import br.com.bancodigital.evento.EventoBancario;
+import br.com.bancodigital.evento.PublicadorDeEventos;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Journal (write-ahead log) somente de escrita no final (append-only).
+ *
+ * Cada entrada é gravada como: [tamanho (int)][crc32c (int)][bytes da entrada].
+ * Uma entrada é a unidade de atomicidade: na recuperação, ou ela é lida
+ * inteira (CRC confere) ou é descartada junto com tudo que vem depois.
+ *
+ * Group commit: as threads chamam anexar() e recebem um CompletableFuture.
+ * Uma única thread escritora junta as entradas pendentes (até tamanhoMaximoLote),
+ * grava todas com um só write e faz UM fsync para o lote inteiro.
+ * Com tamanhoMaximoLote = 1 temos um fsync por operação.
+ *
+ * O journal pode ser dividido em segmentos (arquivos): rotacionar() faz as
+ * entradas seguintes irem para um novo arquivo, permitindo apagar os antigos
+ * depois de um snapshot.
+ */
+public class Journal implements AutoCloseable {
+
+    public static final int LOTE_PADRAO = 256;
+
+    private static final int TAMANHO_CABECALHO = 8;
+
+    // Entrada aguardando gravação + o futuro de quem está esperando por ela.
+    // Se novoArquivo != null, não é uma entrada e sim um pedido de rotação.
+    private record Pendente(byte[] entrada, CompletableFuture<Void> gravada, Path novoArquivo) {
+    }
+
+    // Sinaliza para a thread escritora que o journal foi fechado
+    private static final Pendente FIM = new Pendente(new byte[0], null, null);
+
+    private FileChannel canal; // Só trocado pela thread escritora (rotação)
+    private final int tamanhoMaximoLote;
+    private final BlockingQueue<Pendente> fila = new LinkedBlockingQueue<>();
+    private final Thread escritor;
+
+    private volatile IOException falha;
+    private volatile boolean fechado;
+
+    // Estatísticas (escritas só pela thread escritora)
+    private volatile long totalEntradas;
+    private volatile long totalFsyncs;
+
+    /**
+     * Abre (ou cria) o arquivo de journal para novas entradas no final.
+     * Use Journal.ler() antes, para recuperar o conteúdo existente.
+     * @param arquivo O arquivo do journal.
+     * @param tamanhoMaximoLote Quantidade máxima de entradas por fsync.
+     */
+    public Journal(Path arquivo, int tamanhoMaximoLote) throws IOException {
+        if (tamanhoMaximoLote <= 0) {
+            throw new IllegalArgumentException("Tamanho do lote deve ser positivo.");
+        }
+        this.tamanhoMaximoLote = tamanhoMaximoLote;
+        this.canal = abrirParaAnexar(arquivo);
+
+        this.escritor = new Thread(this::executarEscritor, "journal-escritor");
+        this.escritor.setDaemon(true);
+        this.escritor.start();
+    }
+
+    /**
+     * Enfileira uma entrada para gravação.
+     * @return um futuro que completa quando a entrada estiver em disco (após o fsync).
+     */
+    public CompletableFuture<Void> anexar(byte[] entrada) {
+        CompletableFuture<Void> gravada = new CompletableFuture<>();
+        // synchronized com close(): nada entra na fila depois do FIM
+        synchronized (this) {
+            if (fechado) {
+                gravada.completeExceptionally(new IOException("Journal fechado."));
+            } else if (falha != null) {
+                gravada.completeExceptionally(falha);
+            } else {
+                fila.add(new Pendente(entrada, gravada, null));
+            }
+        }
+        return gravada;
+    }
+
+    /**
+     * Faz as próximas entradas irem para um novo arquivo (segmento).
+     * Tudo que foi anexado antes desta chamada fica no arquivo atual.
+     * @return um futuro que completa quando o arquivo atual estiver em disco e fechado.
+     */
+    public CompletableFuture<Void> rotacionar(Path novoArquivo) {
+        CompletableFuture<Void> rotacionado = new CompletableFuture<>();
+        synchronized (this) {
+            if (fechado) {
+                rotacionado.completeExceptionally(new IOException("Journal fechado."));
+            } else {
+                fila.add(new Pendente(null, rotacionado, novoArquivo));
+            }
+        }
+        return rotacionado;
+    }
+
+    /**
+     * Enfileira uma entrada e espera ela chegar ao disco.
+     * @throws UncheckedIOException se a gravação falhar.
+     */
+    public void anexarEAguardar(byte[] entrada) {
+        try {
+            anexar(entrada).join();
+        } catch (RuntimeException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof IOException io) {
+                throw new UncheckedIOException(io);
+            }
+            throw e;
+        }
+    }
+
+    public long getTotalEntradas() {
+        return totalEntradas;
+    }
+
+    public long getTotalFsyncs() {
+        return totalFsyncs;
+    }
+
+    private void executarEscritor() {
+        List<Pendente> pendentes = new ArrayList<>(tamanhoMaximoLote);
+        List<Pendente> lote = new ArrayList<>(tamanhoMaximoLote);
+        boolean continuar = true;
+        while (continuar) {
+            try {
+                // 1. Espera pela primeira entrada e pega o que mais estiver pendente
+                pendentes.add(fila.take());
+                fila.drainTo(pendentes, tamanhoMaximoLote - 1);
+
+                for (Pendente p : pendentes) {
+                    if (p == FIM) {
+                        // O FIM é sempre o último da fila
+                        continuar = false;
+                    } else if (p.novoArquivo() != null) {
+                        // Grava o que veio antes no arquivo atual e só então troca
+                        gravarLote(lote);
+                        lote.clear();
+                        trocarArquivo(p);
+                    } else {
+                        lote.add(p);
+                    }
+                }
+                gravarLote(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                continuar = false;
+            } finally {
+                pendentes.clear();
+                lote.clear();
+            }
+        }
+    }
+
+    private void trocarArquivo(Pendente rotacao) {
+        try {
+            if (falha != null) {
+                throw falha;
+            }
+            FileChannel novo = abrirParaAnexar(rotacao.novoArquivo());
+            canal.force(true);
+            canal.close();
+            canal = novo;
+            rotacao.gravada().complete(null);
+        } catch (IOException e) {
+            falha = e;
+            rotacao.gravada().completeExceptionally(e);
+        }
+    }
+
+    private static FileChannel abrirParaAnexar(Path arquivo) throws IOException {
+        FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        canal.position(canal.size());
+        return canal;
+    }
+
+    private void gravarLote(List<Pendente> lote) {
+        if (lote.isEmpty()) {
+            return;
+        }
+        try {
+            if (falha != null) {
+                throw falha;
+            }
+
+            // 2. Um write (gathering) para o lote inteiro
+            ByteBuffer[] buffers = new ByteBuffer[lote.size()];
+            CRC32C crc = new CRC32C();
+            for (int i = 0; i < lote.size(); i++) {
+                byte[] entrada = lote.get(i).entrada();
+                crc.reset();
+                crc.update(entrada);
+                ByteBuffer buffer = ByteBuffer.allocate(TAMANHO_CABECALHO + entrada.length);
+                buffer.putInt(entrada.length).putInt((int) crc.getValue()).put(entrada).flip();
+                buffers[i] = buffer;
+            }
+            while (buffers[buffers.length - 1].hasRemaining()) {
+                canal.write(buffers);
+            }
+
+            // 3. Um fsync para o lote inteiro (group commit)
+            canal.force(false);
+            totalEntradas += lote.size();
+            totalFsyncs++;
+
+            for (Pendente p : lote) {
+                p.gravada().complete(null);
+            }
+        } catch (IOException e) {
+            // Depois de uma falha de disco não sabemos o que foi gravado:
+            // recusamos tudo dali em diante.
+            falha = e;
+            for (Pendente p : lote) {
+                p.gravada().completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Lê todas as entradas válidas de um arquivo de journal, em ordem.
+     *
+     * Só o último segmento pode terminar incompleto: uma queda interrompe no máximo o lote
+     * que estava sendo gravado, e a rotação faz o fsync do segmento antigo antes de trocar.
+     * Então, no último segmento, um final incompleto ou corrompido é truncado na última
+     * entrada válida; em qualquer outro segmento é um erro (o arquivo foi danificado depois
+     * de gravado, e truncar apagaria operações já confirmadas).
+     * @param arquivo O arquivo do journal (se não existir, nada é lido).
+     * @param ultimoSegmento Se este é o segmento mais recente (o único que pode ser truncado).
+     * @param leitor Recebe o conteúdo de cada entrada.
+     * @param eventos Recebe um JournalTruncado se o final do último segmento for descartado.
+     * @return a quantidade de entradas lidas.
+     * @throws IOException se um segmento que não é o último está incompleto ou corrompido.
+     */
+    public static long ler(Path arquivo, boolean ultimoSegmento, Consumer<ByteBuffer> leitor,
+                           PublicadorDeEventos eventos) throws IOException {
+        if (!Files.exists(arquivo)) {
+            return 0;
+        }
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long tamanhoArquivo = canal.size();
+            long posicao = 0;
+            long lidas = 0;
+            ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO);
+            CRC32C crc = new CRC32C();
+
+            while (posicao + TAMANHO_CABECALHO <= tamanhoArquivo) {
+                cabecalho.clear();
+                lerCompleto(canal, cabecalho, posicao);
+                cabecalho.flip();
+                int tamanho = cabecalho.getInt();
+                int crcEsperado = cabecalho.getInt();
+                if (tamanho < 0 || posicao + TAMANHO_CABECALHO + tamanho > tamanhoArquivo) {
+                    break; // Entrada incompleta no final do arquivo
+                }
+
+                ByteBuffer entrada = ByteBuffer.allocate(tamanho);
+                lerCompleto(canal, entrada, posicao + TAMANHO_CABECALHO);
+                entrada.flip();
+                crc.reset();
+                crc.update(entrada.duplicate());
+                if ((int) crc.getValue() != crcEsperado) {
+                    break; // Entrada corrompida
+                }
+
+                leitor.accept(entrada);
+                posicao += TAMANHO_CABECALHO + tamanho;
+                lidas++;
+            }
+
+            if (posicao < tamanhoArquivo) {
+                if (!ultimoSegmento) {
+                    throw new IOException("Segmento do journal corrompido: " + arquivo.getFileName()
+                            + " (entrada inválida na posição " + posicao + " de " + tamanhoArquivo + " bytes).");
+                }
+                eventos.publicar(new EventoBancario.JournalTruncado(
+                        arquivo.getFileName().toString(), tamanhoArquivo - posicao));
+                canal.truncate(posicao);
+                canal.force(true);
+            }
+            return lidas;
+        }
+    }
+
+    private static void lerCompleto(FileChannel canal, ByteBuffer destino, long posicao) throws IOException {
+        while (destino.hasRemaining()) {
+            int lidos = canal.read(destino, posicao);
+            if (lidos < 0) {
+                throw new IOException("Fim inesperado do arquivo de journal.");
+            }
+            posicao += lidos;
+        }
+    }
+
+    /**
+     * Grava o que estiver pendente e fecha o arquivo.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (fechado) {
+                return;
+            }
+            fechado = true;
+            fila.add(FIM);
+        }
+        try {
+            escritor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        canal.close();
+    }
+}
@@ -0,0 +1,130 @@
+package br.com.bancodigital.repository;
+
+import br.com.bancodigital.metrica.Medicao;
+import br.com.bancodigital.metrica.Metricas;
+import br.com.bancodigital.metrica.Operacao;
+import br.com.bancodigital.model.Conta;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Decorator que mede as operações de outro ContaRepository (latência e sucesso/falha),
+ * sem mudar o comportamento dele. Todas as chamadas são repassadas,
+ * inclusive salvarTodas e travar (que o repositório decorado pode ter especializado).
+ *
+ * <pre>
+ * ContaRepository repositorio = new MedidoContaRepository(ConcorrenteContaRepository.novo().construir(), metricas);
+ * </pre>
+ */
+public class MedidoContaRepository implements ContaRepository {
+
+    private final ContaRepository repositorio;
+    private final Metricas metricas;
+
+    public MedidoContaRepository(ContaRepository repositorio, Metricas metricas) {
+        this.repositorio = repositorio;
+        this.metricas = metricas;
+    }
+
+    @Override
+    public void salvar(Conta conta) {
+        try (Medicao medicao = metricas.medir(Operacao.SALVAR)) {
+            repositorio.salvar(conta);
+            medicao.sucesso();
+        }
+    }
+
+    @Override
+    public void salvarTodas(Conta... contas) {
+        try (Medicao medicao = metricas.medir(Operacao.SALVAR_TODAS)) {
+            repositorio.salvarTodas(contas);
+            medicao.sucesso();
+        }
+    }
+
+    @Override
+    public void salvarTodas(TabelaIdempotencia idempotencia, ChaveIdempotencia chave, long saldo, Conta... contas) {
+        try (Medicao medicao = metricas.medir(Operacao.SALVAR_TODAS)) {
+            repositorio.salvarTodas(idempotencia, chave, saldo, contas);
+            medicao.sucesso();
+        }
+    }
+
+    /**
+     * Não é medido: o tempo de gravação fica no futuro, fora desta chamada.
+     */
+    @Override
+    public CompletableFuture<Void> salvarTodasAssincrono(Conta... contas) {
+        return repositorio.salvarTodasAssincrono(contas);
+    }
+
+    @Override
+    public boolean isDuravel() {
+        return repositorio.isDuravel();
+    }
+
+    @Override
+    public Optional<Conta> buscarPorNumero(String numeroConta) {
+        try (Medicao medicao = metricas.medir(Operacao.BUSCAR_POR_NUMERO)) {
+            Optional<Conta> conta = repositorio.buscarPorNumero(numeroConta);
+            if (conta.isPresent()) {
+                medicao.sucesso();
+            }
+            return conta;
+        }
+    }
+
+    @Override
+    public List<Conta> buscarPorCpfCliente(String cpf) {
+        try (Medicao medicao = metricas.medir(Operacao.BUSCAR_POR_CPF)) {
+            List<Conta> contas = repositorio.buscarPorCpfCliente(cpf);
+            if (!contas.isEmpty()) {
+                medicao.sucesso();
+            }
+            return contas;
+        }
+    }
+
+    @Override
+    public List<Conta> listarTodas() {
+        try (Medicao medicao = metricas.medir(Operacao.LISTAR_TODAS)) {
+            List<Conta> contas = repositorio.listarTodas();
+            medicao.sucesso();
+            return contas;
+        }
+    }
+
+    /**
+     * Não é medido: a visão é criada na hora; o custo fica em quem a percorre.
+     */
+    @Override
+    public Collection<Conta> visaoDasContas() {
+        return repositorio.visaoDasContas();
+    }
+
+    @Override
+    public boolean deletar(String numeroConta) {
+        try (Medicao medicao = metricas.medir(Operacao.DELETAR)) {
+            boolean removida = repositorio.deletar(numeroConta);
+            if (removida) {
+                medicao.sucesso();
+            }
+            return removida;
+        }
+    }
+
+    /**
+     * Mede o tempo de espera pelas travas (contenção entre threads).
+     */
+    @Override
+    public Trava travar(String... numerosConta) {
+        try (Medicao medicao = metricas.medir(Operacao.TRAVAR)) {
+            Trava trava = repositorio.travar(numerosConta);
+            medicao.sucesso();
+            return trava;
+        }
+    }
+}
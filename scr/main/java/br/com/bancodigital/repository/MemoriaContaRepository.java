@@ -1,13 +1,16 @@
 package br.com.bancodigital.repository;
 
+import br.com.bancodigital.evento.EventoBancario;
+import br.com.bancodigital.evento.PublicadorDeEventos;
 import br.com.bancodigital.model.Conta;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * Implementação em memória do ContaRepository.
@@ -20,12 +23,39 @@ public class MemoriaContaRepository implements ContaRepository {
     // O valor (Conta) será o objeto da conta.
     private Map<String, Conta> bancoDeDados = new HashMap<>();
 
+    // Clientes (um por CPF), chaves PIX, totais do banco e idempotência,
+    // atualizados a cada conta salva ou removida (só em memória)
+    private final IndicesDeContas indices;
+
+    // Recebe um ContaSalva a cada salvar (por padrão, ninguém)
+    private final PublicadorDeEventos eventos;
+
+    private MemoriaContaRepository(Construtor construtor) {
+        this.eventos = construtor.eventos;
+        this.indices = construtor.indices;
+    }
+
+    /**
+     * Monta um repositório com as opções informadas; as outras ficam no padrão:
+     *
+     * <pre>
+     * MemoriaContaRepository repositorio = MemoriaContaRepository.novo()
+     *         .eventos(eventos)
+     *         .indices(indices)
+     *         .construir();
+     * </pre>
+     */
+    public static Construtor novo() {
+        return new Construtor();
+    }
+
     @Override
     public void salvar(Conta conta) {
         // O método put() do Map já lida com inserção (se não existe) 
         // e atualização (se a chave já existe).
-        bancoDeDados.put(conta.getNumero(), conta);
-        System.out.println("[Repo] Conta " + conta.getNumero() + " salva/atualizada.");
+        Conta anterior = bancoDeDados.put(conta.getNumero(), conta);
+        indices.contaSalva(anterior, conta);
+        eventos.publicar(new EventoBancario.ContaSalva(conta.getNumero()));
     }
 
     @Override
@@ -38,11 +68,8 @@ public class MemoriaContaRepository implements ContaRepository {
 
     @Override
     public List<Conta> buscarPorCpfCliente(String cpf) {
-        // Usamos a API de Streams do Java 8+
-        return bancoDeDados.values() // Pega todos os valores (todas as Contas) do Map
-                .stream()             // Cria um fluxo (stream) para processá-los
-                .filter(conta -> conta.getCliente().cpf().equals(cpf)) // Filtra apenas as contas cujo CPF do cliente bate com o buscado
-                .collect(Collectors.toList()); // Coleta os resultados em uma nova Lista
+        // Consulta o diretório (O(1)) em vez de filtrar todas as contas do Map
+        return indices.getClientes().contas(cpf);
     }
 
     @Override
@@ -51,13 +78,60 @@ public class MemoriaContaRepository implements ContaRepository {
         return new ArrayList<>(bancoDeDados.values());
     }
 
+    @Override
+    public Collection<Conta> visaoDasContas() {
+        return Collections.unmodifiableCollection(bancoDeDados.values());
+    }
+
     @Override
     public boolean deletar(String numeroConta) {
         // O método remove() do Map retorna o objeto removido se ele existia,
         // ou null se a chave não existia.
         Conta contaRemovida = bancoDeDados.remove(numeroConta);
+        if (contaRemovida != null) {
+            indices.contaRemovida(contaRemovida);
+        }
         
         // Se contaRemovida não for null, a remoção foi bem-sucedida.
         return contaRemovida != null;
     }
-}
\ No newline at end of file
+
+    /**
+     * Clientes, chaves PIX, totais e idempotência destas contas (para os serviços).
+     */
+    public IndicesDeContas getIndices() {
+        return indices;
+    }
+
+    /**
+     * Monta o MemoriaContaRepository (ver novo).
+     */
+    public static final class Construtor {
+
+        private PublicadorDeEventos eventos = PublicadorDeEventos.NENHUM;
+        private IndicesDeContas indices = new IndicesDeContas();
+
+        private Construtor() {
+        }
+
+        /**
+         * @param eventos Recebe um ContaSalva a cada salvar.
+         */
+        public Construtor eventos(PublicadorDeEventos eventos) {
+            this.eventos = eventos;
+            return this;
+        }
+
+        /**
+         * @param indices Índices ainda vazios, que os serviços também vão receber.
+         */
+        public Construtor indices(IndicesDeContas indices) {
+            this.indices = indices;
+            return this;
+        }
+
+        public MemoriaContaRepository construir() {
+            return new MemoriaContaRepository(this);
+        }
+    }
+}
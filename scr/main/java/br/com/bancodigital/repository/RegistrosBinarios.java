@@ -0,0 +1,171 @@
+package br.com.bancodigital.repository;
+
+import br.com.bancodigital.exception.ContaException;
+import br.com.bancodigital.model.ChavePix;
+import br.com.bancodigital.model.Cliente;
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.model.ContaCorrente;
+import br.com.bancodigital.model.ContaPoupanca;
+import br.com.bancodigital.model.HistoricoTransacoes;
+import br.com.bancodigital.model.TipoChavePix;
+import br.com.bancodigital.model.TipoTransacao;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Formato binário compacto de contas, transações e chaves PIX,
+ * compartilhado pelo journal e pelos snapshots do DuravelContaRepository.
+ */
+final class RegistrosBinarios {
+
+    private static final byte CONTA_CORRENTE = 'C';
+    private static final byte CONTA_POUPANCA = 'P';
+    private static final TipoTransacao[] TIPOS = TipoTransacao.values();
+
+    // Bit alto do tipo da transação: o texto é a descrição completa; sem ele, é o detalhe
+    // (a descrição é o prefixo do tipo + o detalhe, como no HistoricoTransacoes)
+    private static final int DESCRICAO_COMPLETA = 0x80;
+
+    private RegistrosBinarios() {
+    }
+
+    /**
+     * Dados fixos da conta: tipo, agência, número e cliente (sem saldo nem histórico).
+     */
+    static void escreverConta(DataOutputStream saida, Conta conta) throws IOException {
+        saida.writeByte(conta instanceof ContaPoupanca ? CONTA_POUPANCA : CONTA_CORRENTE);
+        escreverTexto(saida, conta.getAgencia());
+        escreverTexto(saida, conta.getNumero());
+        escreverTexto(saida, conta.getCliente().nome());
+        escreverTexto(saida, conta.getCliente().cpf());
+    }
+
+    /**
+     * Lê os dados gravados por escreverConta e cria uma conta nova (saldo zero, sem histórico).
+     * @param clientes Fornece o Cliente já registrado do CPF (as contas do mesmo cliente
+     *                 compartilham a instância, como quando foram criadas).
+     * @param textos O nome do cliente passa por aqui: é a mesma String dos detalhes das
+     *               transferências e PIX para ele (ver Textos).
+     */
+    static Conta lerConta(ByteBuffer entrada, DiretorioClientes clientes, Textos textos) {
+        byte tipoConta = entrada.get();
+        String agencia = lerTexto(entrada);
+        String numero = lerTexto(entrada);
+        Cliente cliente = clientes.registrar(new Cliente(textos.ler(entrada), lerTexto(entrada)));
+        return tipoConta == CONTA_POUPANCA
+                ? new ContaPoupanca(cliente, agencia, numero)
+                : new ContaCorrente(cliente, agencia, numero);
+    }
+
+    /**
+     * @return true se as duas contas têm o mesmo tipo, agência, número e cliente.
+     */
+    static boolean mesmosDados(Conta a, Conta b) {
+        return a.getClass() == b.getClass()
+                && a.getNumero().equals(b.getNumero())
+                && a.getAgencia().equals(b.getAgencia())
+                && a.getCliente().equals(b.getCliente());
+    }
+
+    /**
+     * Transação da posição 'indice' do histórico, lida direto das colunas (sem criar Transacao):
+     * [tipo (ordinal, + DESCRICAO_COMPLETA)][instante][valor][detalhe], sem montar a descrição.
+     */
+    static void escreverTransacao(DataOutputStream saida, HistoricoTransacoes historico, int indice) throws IOException {
+        int tipo = historico.tipo(indice).ordinal();
+        saida.writeByte(historico.descricaoCompleta(indice) ? tipo | DESCRICAO_COMPLETA : tipo);
+        saida.writeLong(historico.instante(indice));
+        saida.writeLong(historico.valor(indice));
+        escreverTexto(saida, historico.detalhe(indice));
+    }
+
+    /**
+     * Lê uma transação gravada por escreverTransacao e a reaplica na conta,
+     * com o detalhe guardado como estava (a descrição continua sendo montada só na leitura).
+     */
+    static void restaurarTransacao(ByteBuffer entrada, Conta conta, Textos textos) {
+        int tipo = Byte.toUnsignedInt(entrada.get());
+        long instante = entrada.getLong();
+        long valor = entrada.getLong();
+        conta.restaurarTransacao(instante, TIPOS[tipo & ~DESCRICAO_COMPLETA], valor, textos.ler(entrada),
+                (tipo & DESCRICAO_COMPLETA) != 0);
+    }
+
+    /**
+     * Lê uma transação do formato antigo (sempre com a descrição completa) e a reaplica na conta.
+     */
+    static void restaurarTransacaoComDescricao(ByteBuffer entrada, Conta conta, Textos textos) {
+        TipoTransacao tipo = TIPOS[entrada.get()];
+        long instante = entrada.getLong();
+        long valor = entrada.getLong();
+        conta.restaurarTransacao(instante, tipo, valor, textos.ler(entrada));
+    }
+
+    /**
+     * Avança sobre uma transação gravada por escreverTransacao, sem lê-la.
+     */
+    static void pularTransacao(ByteBuffer entrada) {
+        entrada.position(entrada.position() + 1 + Long.BYTES + Long.BYTES);
+        pularTexto(entrada);
+    }
+
+    /**
+     * Chave PIX e conta dona: [tipo (ordinal)][valor][número da conta].
+     */
+    static void escreverChavePix(DataOutputStream saida, ChavePix chave, String numeroConta) throws IOException {
+        saida.writeByte(chave.tipo().ordinal());
+        escreverTexto(saida, chave.valor());
+        escreverTexto(saida, numeroConta);
+    }
+
+    /**
+     * Lê a chave (o número da conta vem logo depois, com lerTexto).
+     */
+    static ChavePix lerChavePix(ByteBuffer entrada) {
+        TipoChavePix tipo = TipoChavePix.values()[entrada.get()];
+        return new ChavePix(tipo, lerTexto(entrada));
+    }
+
+    // Texto = 2 bytes de tamanho + bytes em UTF-8
+    static void escreverTexto(DataOutputStream saida, String texto) throws IOException {
+        byte[] utf8 = texto.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length > 0xFFFF) {
+            throw new ContaException("Texto longo demais para gravação em disco.");
+        }
+        saida.writeShort(utf8.length);
+        saida.write(utf8);
+    }
+
+    static void pularTexto(ByteBuffer entrada) {
+        int tamanho = Short.toUnsignedInt(entrada.getShort());
+        entrada.position(entrada.position() + tamanho);
+    }
+
+    static String lerTexto(ByteBuffer entrada) {
+        byte[] utf8 = new byte[Short.toUnsignedInt(entrada.getShort())];
+        entrada.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Textos lidos durante uma recuperação, um objeto por texto diferente.
+     * Antes do reinício, todas as transferências para um cliente guardam a String do nome
+     * dele, e todos os depósitos a mesma constante; lendo cada registro com lerTexto, cada
+     * transação voltaria com a sua própria cópia. Só vive enquanto a recuperação dura.
+     */
+    static final class Textos {
+
+        private final Map<String, String> lidos = new HashMap<>();
+
+        String ler(ByteBuffer entrada) {
+            String texto = lerTexto(entrada);
+            String anterior = lidos.putIfAbsent(texto, texto);
+            return anterior != null ? anterior : texto;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package br.com.bancodigital.repository;
+
+import br.com.bancodigital.exception.ContaException;
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.model.HistoricoTransacoes;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Snapshot (fotografia) binário de todas as contas do DuravelContaRepository.
+ *
+ * Formato do arquivo:
+ * - cabeçalho: [MAGICO (long)][VERSAO (int)][segmento do journal (long)]
+ * - uma entrada por conta: [tamanho (int)][dados da conta][saldo (long)][quantidade de transações (int)][transações...]
+ *   (até a versão 4 cada transação tem a descrição completa; desde a 5, o detalhe, ver RegistrosBinarios)
+ * - rodapé: [-1 (int)][quantidade de contas (long)]
+ * - chaves de idempotência (desde a versão 2): [1 (int)][alta][baixa][saldo][instante (longs)] por chave,
+ *   mais [impressão da operação (long)] desde a versão 4; depois [0 (int)][quantidade de chaves (long)]
+ * - chaves PIX (desde a versão 3): [tamanho (int)][tipo][valor][número da conta] por chave,
+ *   depois [0 (int)][quantidade de chaves (long)]
+ *
+ * O "segmento" indica a partir de qual arquivo do journal a recuperação continua.
+ * A quantidade de transações de cada conta funciona como ponteiro para o histórico:
+ * na recuperação, registros do journal com posição menor já estão no snapshot e são ignorados.
+ */
+final class Snapshot {
+
+    private static final long MAGICO = 0x42414E434F534E50L; // "BANCOSNP"
+    private static final int VERSAO = 5;
+    private static final int VERSAO_SEM_IDEMPOTENCIA = 1; // Versões antigas ainda são lidas
+    private static final int VERSAO_SEM_CHAVES_PIX = 2;
+    private static final int VERSAO_SEM_IMPRESSAO = 3;
+    private static final int VERSAO_SEM_DETALHE = 4;
+    private static final int FIM_DAS_CONTAS = -1;
+    private static final int CHAVE = 1;
+    private static final int FIM_DAS_CHAVES = 0;
+
+    // Tamanho da região mapeada em memória por vez (arquivos podem passar de 2 GB)
+    private static final int TAMANHO_JANELA = 64 * 1024 * 1024;
+
+    private Snapshot() {
+    }
+
+    /**
+     * Grava o snapshot sem parar as demais operações: cada conta é travada
+     * só pelo tempo de copiar seu estado para um buffer.
+     * O arquivo é escrito em um temporário e renomeado no final (troca atômica).
+     * @return a quantidade de contas gravadas.
+     */
+    static long gravar(Path arquivo, long segmento, Collection<Conta> contas, ContaRepository repositorio,
+                       TabelaIdempotencia idempotencia, DiretorioChavesPix chavesPix) throws IOException {
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        long quantidade = 0;
+
+        try (FileOutputStream arquivoSaida = new FileOutputStream(temporario.toFile());
+             DataOutputStream saida = new DataOutputStream(new BufferedOutputStream(arquivoSaida, 1 << 16))) {
+            saida.writeLong(MAGICO);
+            saida.writeInt(VERSAO);
+            saida.writeLong(segmento);
+
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+            DataOutputStream registro = new DataOutputStream(buffer);
+            for (Conta conta : contas) {
+                buffer.reset();
+                try (Trava trava = repositorio.travar(conta.getNumero())) {
+                    if (repositorio.buscarPorNumero(conta.getNumero()).orElse(null) != conta) {
+                        continue; // Removida (ou substituída) depois da listagem
+                    }
+                    RegistrosBinarios.escreverConta(registro, conta);
+                    registro.writeLong(conta.getSaldo());
+                    HistoricoTransacoes historico = conta.getHistoricoTransacoes();
+                    registro.writeInt(historico.size());
+                    for (int i = 0; i < historico.size(); i++) {
+                        RegistrosBinarios.escreverTransacao(registro, historico, i);
+                    }
+                }
+                saida.writeInt(buffer.size());
+                buffer.writeTo(saida);
+                quantidade++;
+            }
+
+            saida.writeInt(FIM_DAS_CONTAS);
+            saida.writeLong(quantidade);
+
+            long[] chaves = {0};
+            idempotencia.paraCadaSucesso((alta, baixa, saldo, instante, impressao) -> {
+                saida.writeInt(CHAVE);
+                saida.writeLong(alta);
+                saida.writeLong(baixa);
+                saida.writeLong(saldo);
+                saida.writeLong(instante);
+                saida.writeLong(impressao);
+                chaves[0]++;
+            });
+            saida.writeInt(FIM_DAS_CHAVES);
+            saida.writeLong(chaves[0]);
+
+            long[] chavesPixGravadas = {0};
+            chavesPix.paraCada((chave, numeroConta) -> {
+                buffer.reset();
+                RegistrosBinarios.escreverChavePix(registro, chave, numeroConta);
+                saida.writeInt(buffer.size());
+                buffer.writeTo(saida);
+                chavesPixGravadas[0]++;
+            });
+            saida.writeInt(FIM_DAS_CHAVES);
+            saida.writeLong(chavesPixGravadas[0]);
+            saida.flush();
+            arquivoSaida.getFD().sync();
+        }
+
+        Files.move(temporario, arquivo, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return quantidade;
+    }
+
+    /**
+     * Carrega um snapshot usando memória mapeada (MappedByteBuffer).
+     * @param destino Recebe cada conta já com saldo e histórico restaurados.
+     * @param idempotencia Recebe as chaves de idempotência (snapshots da versão 1 não têm).
+     * @param chavesPix Recebe as chaves PIX (snapshots das versões 1 e 2 não têm).
+     * @param clientes Fornece os clientes das contas (um por CPF).
+     * @param textos Os nomes e detalhes lidos (compartilhados com o resto da recuperação).
+     * @return o segmento do journal a partir do qual a recuperação deve continuar.
+     */
+    static long carregar(Path arquivo, Consumer<Conta> destino, TabelaIdempotencia idempotencia,
+                         DiretorioChavesPix chavesPix, DiretorioClientes clientes,
+                         RegistrosBinarios.Textos textos) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            JanelaMapeada janela = new JanelaMapeada(canal);
+
+            ByteBuffer cabecalho = janela.proximos(Long.BYTES + Integer.BYTES + Long.BYTES);
+            long magico = cabecalho.getLong();
+            int versao = cabecalho.getInt();
+            if (magico != MAGICO || versao < VERSAO_SEM_IDEMPOTENCIA || versao > VERSAO) {
+                throw new IOException("Arquivo de snapshot inválido: " + arquivo);
+            }
+            long segmento = cabecalho.getLong();
+
+            long quantidade = 0;
+            int tamanho;
+            boolean comDetalhe = versao > VERSAO_SEM_DETALHE;
+            while ((tamanho = janela.proximos(Integer.BYTES).getInt()) != FIM_DAS_CONTAS) {
+                destino.accept(lerConta(janela.proximos(tamanho), clientes, textos, comDetalhe));
+                quantidade++;
+            }
+            if (janela.proximos(Long.BYTES).getLong() != quantidade) {
+                throw new IOException("Snapshot incompleto: " + arquivo);
+            }
+
+            if (versao != VERSAO_SEM_IDEMPOTENCIA) {
+                long chaves = 0;
+                boolean comImpressao = versao > VERSAO_SEM_IMPRESSAO;
+                while (janela.proximos(Integer.BYTES).getInt() == CHAVE) {
+                    ByteBuffer chave = janela.proximos((comImpressao ? 5 : 4) * Long.BYTES);
+                    idempotencia.restaurar(chave.getLong(), chave.getLong(), chave.getLong(), chave.getLong(),
+                            comImpressao ? chave.getLong() : ChaveIdempotencia.SEM_IMPRESSAO);
+                    chaves++;
+                }
+                if (janela.proximos(Long.BYTES).getLong() != chaves) {
+                    throw new IOException("Snapshot incompleto: " + arquivo);
+                }
+            }
+
+            if (versao > VERSAO_SEM_CHAVES_PIX) {
+                long chaves = 0;
+                while ((tamanho = janela.proximos(Integer.BYTES).getInt()) != FIM_DAS_CHAVES) {
+                    ByteBuffer registro = janela.proximos(tamanho);
+                    chavesPix.restaurar(RegistrosBinarios.lerChavePix(registro), RegistrosBinarios.lerTexto(registro));
+                    chaves++;
+                }
+                if (janela.proximos(Long.BYTES).getLong() != chaves) {
+                    throw new IOException("Snapshot incompleto: " + arquivo);
+                }
+            }
+            return segmento;
+        }
+    }
+
+    private static Conta lerConta(ByteBuffer registro, DiretorioClientes clientes, RegistrosBinarios.Textos textos,
+                                  boolean comDetalhe) {
+        Conta conta = RegistrosBinarios.lerConta(registro, clientes, textos);
+        long saldo = registro.getLong();
+        int quantidadeTransacoes = registro.getInt();
+        for (int i = 0; i < quantidadeTransacoes; i++) {
+            if (comDetalhe) {
+                RegistrosBinarios.restaurarTransacao(registro, conta, textos);
+            } else {
+                RegistrosBinarios.restaurarTransacaoComDescricao(registro, conta, textos);
+            }
+        }
+        if (conta.getSaldo() != saldo) {
+            throw new ContaException("Snapshot inconsistente: saldo da conta " + conta.getNumero()
+                    + " não bate com o histórico.");
+        }
+        return conta;
+    }
+
+    /**
+     * Lê o arquivo sequencialmente, mapeando uma "janela" de cada vez.
+     */
+    private static final class JanelaMapeada {
+
+        private final FileChannel canal;
+        private final long tamanhoArquivo;
+        private MappedByteBuffer janela;
+        private long inicioJanela;
+
+        JanelaMapeada(FileChannel canal) throws IOException {
+            this.canal = canal;
+            this.tamanhoArquivo = canal.size();
+        }
+
+        /**
+         * @return um buffer com os próximos 'quantidade' bytes do arquivo.
+         */
+        ByteBuffer proximos(int quantidade) throws IOException {
+            if (janela == null || janela.remaining() < quantidade) {
+                long posicao = janela == null ? 0 : inicioJanela + janela.position();
+                if (quantidade < 0 || posicao + quantidade > tamanhoArquivo) {
+                    throw new IOException("Snapshot truncado.");
+                }
+                long tamanho = Math.min(Math.max(TAMANHO_JANELA, quantidade), tamanhoArquivo - posicao);
+                janela = canal.map(FileChannel.MapMode.READ_ONLY, posicao, tamanho);
+                inicioJanela = posicao;
+            }
+            ByteBuffer fatia = janela.slice(janela.position(), quantidade);
+            janela.position(janela.position() + quantidade);
+            return fatia;
+        }
+    }
+}
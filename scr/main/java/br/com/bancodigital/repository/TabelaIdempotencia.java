@@ -0,0 +1,412 @@
+package br.com.bancodigital.repository;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Resultados de operações idempotentes, por ChaveIdempotencia: se o cliente
+ * repetir a operação (ex: depois de um timeout), o serviço devolve o resultado
+ * guardado em vez de mover o dinheiro de novo.
+ *
+ * Limitada e com validade:
+ * - cada chave vale por 'validade' (ex: 24 horas) e depois é esquecida;
+ * - no máximo 'capacidade' chaves; as mais antigas saem primeiro.
+ *
+ * Pouca memória: nenhum objeto por chave. Os registros ficam num long[]
+ * (tabela hash de endereçamento aberto), ~53 bytes por chave com a tabela cheia
+ * (ex: ~85 MB para a capacidade padrão).
+ * Para expirar sem apagar item por item, cada segmento tem duas "gerações":
+ * as chaves novas entram na atual; quando ela enche (ou passa metade da validade),
+ * a anterior é descartada inteira e a atual passa a ser a anterior.
+ *
+ * Duas execuções da mesma chave ao mesmo tempo: a primeira reserva a chave
+ * (reservar), a segunda espera até a primeira registrar o resultado.
+ *
+ * Cada resultado guarda a impressão da operação que reservou a chave
+ * (ChaveIdempotencia.impressaoDaOperacao): quem reenvia a chave com outra
+ * operação recebe o registro e vê, em mesmaOperacao, que ele não é seu.
+ */
+public class TabelaIdempotencia {
+
+    public static final int CAPACIDADE_PADRAO = 2_000_000; // Na prática ~1,5 milhão (ver construtor)
+    public static final Duration VALIDADE_PADRAO = Duration.ofHours(24);
+
+    private static final int SEGMENTOS = 64; // Potência de 2
+    private static final int TAMANHO_INICIAL = 16;
+
+    /**
+     * Resultado guardado de uma operação.
+     * @param saldo Saldo da conta de origem logo depois da operação (só no sucesso).
+     * @param instante Quando a operação foi registrada (epoch em milissegundos).
+     * @param impressao A impressão da operação (ou ChaveIdempotencia.SEM_IMPRESSAO).
+     */
+    public record Registro(boolean sucesso, long saldo, String motivoFalha, long instante, long impressao) {
+
+        /**
+         * @return se o resultado é da operação com esta impressão (sempre, nos registros sem impressão).
+         */
+        public boolean mesmaOperacao(long impressao) {
+            return this.impressao == ChaveIdempotencia.SEM_IMPRESSAO || this.impressao == impressao;
+        }
+    }
+
+    /**
+     * Recebe os registros de sucesso (usado para gravá-los no snapshot).
+     */
+    @FunctionalInterface
+    interface LeitorDeRegistros {
+        void ler(long alta, long baixa, long saldo, long instante, long impressao) throws IOException;
+    }
+
+    private final Segmento[] segmentos = new Segmento[SEGMENTOS];
+    private final long validadeMillis;
+    private final int maximoPorGeracao;
+    private final LongSupplier relogio;
+
+    public TabelaIdempotencia() {
+        this(CAPACIDADE_PADRAO, VALIDADE_PADRAO);
+    }
+
+    public TabelaIdempotencia(int capacidade, Duration validade) {
+        this(capacidade, validade, System::currentTimeMillis);
+    }
+
+    TabelaIdempotencia(int capacidade, Duration validade, LongSupplier relogio) {
+        this.validadeMillis = validade.toMillis();
+        // Metade da capacidade em cada geração (as duas juntas guardam no máximo 'capacidade'),
+        // arredondada para 3/4 de uma potência de 2: a geração cheia ocupa a tabela no limite de crescer
+        int porGeracao = Math.max(TAMANHO_INICIAL, capacidade / SEGMENTOS / 2);
+        int posicoes = Integer.highestOneBit(porGeracao * 4 / 3);
+        this.maximoPorGeracao = posicoes / 4 * 3;
+        this.relogio = relogio;
+        long agora = relogio.getAsLong();
+        for (int i = 0; i < SEGMENTOS; i++) {
+            segmentos[i] = new Segmento(agora);
+        }
+    }
+
+    /**
+     * @return o resultado guardado para a chave, ou null (nunca executada, expirada ou em andamento).
+     */
+    public Registro buscar(ChaveIdempotencia chave) {
+        Segmento segmento = segmento(chave);
+        segmento.trava.lock();
+        try {
+            return segmento.buscar(chave.alta(), chave.baixa(), relogio.getAsLong());
+        } finally {
+            segmento.trava.unlock();
+        }
+    }
+
+    /**
+     * Reserva a chave para quem chamou executar a operação.
+     * Se outra thread já está executando a mesma chave, espera ela terminar.
+     * @param impressao A impressão da operação, guardada com o resultado.
+     * @return null se a chave foi reservada (execute e depois chame registrarSucesso,
+     *         registrarFalha ou liberar); ou o resultado da execução anterior
+     *         (confira mesmaOperacao: pode ser de outra operação com a mesma chave).
+     */
+    public Registro reservar(ChaveIdempotencia chave, long impressao) {
+        Segmento segmento = segmento(chave);
+        segmento.trava.lock();
+        try {
+            while (true) {
+                Registro anterior = segmento.buscar(chave.alta(), chave.baixa(), relogio.getAsLong());
+                if (anterior != null) {
+                    return anterior;
+                }
+                if (segmento.emAndamento.putIfAbsent(chave, impressao) == null) {
+                    return null;
+                }
+                segmento.concluida.awaitUninterruptibly();
+            }
+        } finally {
+            segmento.trava.unlock();
+        }
+    }
+
+    /**
+     * Guarda o sucesso, com a impressão da reserva (sem reserva, SEM_IMPRESSAO).
+     * @param saldo Saldo da conta de origem logo depois da operação.
+     */
+    public void registrarSucesso(ChaveIdempotencia chave, long saldo) {
+        registrarSucesso(chave, saldo, relogio.getAsLong());
+    }
+
+    void registrarSucesso(ChaveIdempotencia chave, long saldo, long instante) {
+        concluir(chave, saldo, null, instante);
+    }
+
+    /**
+     * A impressão com que a chave foi reservada (SEM_IMPRESSAO se não está reservada),
+     * para o journal gravá-la junto com o resultado.
+     */
+    long impressaoDaReserva(ChaveIdempotencia chave) {
+        Segmento segmento = segmento(chave);
+        segmento.trava.lock();
+        try {
+            return segmento.emAndamento.getOrDefault(chave, ChaveIdempotencia.SEM_IMPRESSAO);
+        } finally {
+            segmento.trava.unlock();
+        }
+    }
+
+    /**
+     * Guarda uma falha de negócio (ex: saldo insuficiente), que também é o resultado da operação.
+     */
+    public void registrarFalha(ChaveIdempotencia chave, String motivo) {
+        concluir(chave, 0, motivo == null ? "Operação recusada." : motivo, relogio.getAsLong());
+    }
+
+    /**
+     * Desfaz a reserva sem guardar resultado (ex: falha de disco): a operação pode ser tentada de novo.
+     */
+    public void liberar(ChaveIdempotencia chave) {
+        Segmento segmento = segmento(chave);
+        segmento.trava.lock();
+        try {
+            segmento.emAndamento.remove(chave);
+            segmento.concluida.signalAll();
+        } finally {
+            segmento.trava.unlock();
+        }
+    }
+
+    /**
+     * Recoloca um sucesso lido do journal ou do snapshot (recuperação).
+     */
+    void restaurar(long alta, long baixa, long saldo, long instante, long impressao) {
+        if (instante + validadeMillis > relogio.getAsLong()) {
+            Segmento segmento = segmento(new ChaveIdempotencia(alta, baixa));
+            segmento.trava.lock();
+            try {
+                segmento.rotacionarSeNecessario(relogio.getAsLong());
+                segmento.atual.gravar(alta, baixa, saldo, null, instante, impressao);
+            } finally {
+                segmento.trava.unlock();
+            }
+        }
+    }
+
+    /**
+     * Percorre os sucessos ainda válidos (as falhas não são persistidas).
+     */
+    void paraCadaSucesso(LeitorDeRegistros leitor) throws IOException {
+        long agora = relogio.getAsLong();
+        for (Segmento segmento : segmentos) {
+            segmento.trava.lock();
+            try {
+                for (Geracao geracao : new Geracao[] {segmento.anterior, segmento.atual}) {
+                    if (geracao == null) {
+                        continue;
+                    }
+                    for (int i = 0; i < geracao.posicoes; i++) {
+                        if (geracao.sucesso(i) && geracao.instante(i) + validadeMillis > agora) {
+                            leitor.ler(geracao.alta(i), geracao.baixa(i), geracao.saldo(i), geracao.instante(i),
+                                    geracao.impressao(i));
+                        }
+                    }
+                }
+            } finally {
+                segmento.trava.unlock();
+            }
+        }
+    }
+
+    /**
+     * @return quantos registros estão guardados (pode incluir alguns já expirados).
+     */
+    public long tamanho() {
+        long total = 0;
+        for (Segmento segmento : segmentos) {
+            segmento.trava.lock();
+            try {
+                total += segmento.atual.tamanho + (segmento.anterior == null ? 0 : segmento.anterior.tamanho);
+            } finally {
+                segmento.trava.unlock();
+            }
+        }
+        return total;
+    }
+
+    private void concluir(ChaveIdempotencia chave, long saldo, String motivo, long instante) {
+        Segmento segmento = segmento(chave);
+        segmento.trava.lock();
+        try {
+            segmento.rotacionarSeNecessario(relogio.getAsLong());
+            Long impressao = segmento.emAndamento.remove(chave);
+            segmento.atual.gravar(chave.alta(), chave.baixa(), saldo, motivo, instante,
+                    impressao == null ? ChaveIdempotencia.SEM_IMPRESSAO : impressao);
+            segmento.concluida.signalAll();
+        } finally {
+            segmento.trava.unlock();
+        }
+    }
+
+    private Segmento segmento(ChaveIdempotencia chave) {
+        return segmentos[(int) (chave.baixa() >>> 32) & (SEGMENTOS - 1)];
+    }
+
+    private final class Segmento {
+
+        final ReentrantLock trava = new ReentrantLock();
+        final Condition concluida = trava.newCondition();
+        // Chaves sendo executadas agora (poucas de cada vez), com a impressão da operação
+        final Map<ChaveIdempotencia, Long> emAndamento = new HashMap<>();
+        Geracao atual;
+        Geracao anterior;
+
+        Segmento(long agora) {
+            this.atual = new Geracao(agora);
+        }
+
+        Registro buscar(long alta, long baixa, long agora) {
+            Registro registro = atual.buscar(alta, baixa);
+            if (registro == null && anterior != null) {
+                registro = anterior.buscar(alta, baixa);
+            }
+            if (registro == null || registro.instante() + validadeMillis <= agora) {
+                return null;
+            }
+            return registro;
+        }
+
+        void rotacionarSeNecessario(long agora) {
+            if (atual.tamanho >= maximoPorGeracao || agora - atual.criadaEm >= validadeMillis / 2) {
+                anterior = atual;
+                atual = new Geracao(agora);
+            }
+        }
+    }
+
+    /**
+     * Tabela hash de endereçamento aberto (sondagem linear). Cada posição ocupa
+     * 5 longs seguidos [alta][baixa][saldo][instante][impressao] (40 bytes): achar a chave
+     * e ler o resultado costuma custar um ou dois acessos à memória (linhas de cache vizinhas).
+     * Posição vazia: alta == 0 e baixa == 0 (ChaveIdempotencia.de nunca gera essa chave).
+     */
+    private static final class Geracao {
+
+        private static final int LONGS_POR_POSICAO = 5;
+
+        final long criadaEm;
+        long[] dados;
+        String[] motivos; // Só existe depois da primeira falha; motivo != null indica falha
+        int posicoes;
+        int tamanho;
+
+        Geracao(long criadaEm) {
+            this.criadaEm = criadaEm;
+            alocar(TAMANHO_INICIAL);
+        }
+
+        Registro buscar(long alta, long baixa) {
+            int i = posicao(alta, baixa);
+            if (vazia(i)) {
+                return null;
+            }
+            String motivo = motivos == null ? null : motivos[i];
+            int base = i * LONGS_POR_POSICAO;
+            return new Registro(motivo == null, dados[base + 2], motivo, dados[base + 3], dados[base + 4]);
+        }
+
+        /**
+         * @param motivo null para sucesso; o motivo da falha, caso contrário.
+         */
+        void gravar(long alta, long baixa, long saldo, String motivo, long instante, long impressao) {
+            int i = posicao(alta, baixa);
+            if (vazia(i)) {
+                // Ocupação máxima de 3/4: acima disso a sondagem fica longa
+                if ((tamanho + 1) * 4 > posicoes * 3) {
+                    crescer();
+                    i = posicao(alta, baixa);
+                }
+                tamanho++;
+            }
+            int base = i * LONGS_POR_POSICAO;
+            dados[base] = alta;
+            dados[base + 1] = baixa;
+            dados[base + 2] = saldo;
+            dados[base + 3] = instante;
+            dados[base + 4] = impressao;
+            if (motivo != null || motivos != null) {
+                if (motivos == null) {
+                    motivos = new String[posicoes];
+                }
+                motivos[i] = motivo;
+            }
+        }
+
+        boolean sucesso(int i) {
+            return !vazia(i) && (motivos == null || motivos[i] == null);
+        }
+
+        long alta(int i) {
+            return dados[i * LONGS_POR_POSICAO];
+        }
+
+        long baixa(int i) {
+            return dados[i * LONGS_POR_POSICAO + 1];
+        }
+
+        long saldo(int i) {
+            return dados[i * LONGS_POR_POSICAO + 2];
+        }
+
+        long instante(int i) {
+            return dados[i * LONGS_POR_POSICAO + 3];
+        }
+
+        long impressao(int i) {
+            return dados[i * LONGS_POR_POSICAO + 4];
+        }
+
+        private boolean vazia(int i) {
+            int base = i * LONGS_POR_POSICAO;
+            return dados[base] == 0 && dados[base + 1] == 0;
+        }
+
+        // Posição da chave, ou da posição vazia onde ela entraria
+        private int posicao(long alta, long baixa) {
+            int mascara = posicoes - 1;
+            int i = (int) alta & mascara;
+            while (true) {
+                int base = i * LONGS_POR_POSICAO;
+                long a = dados[base];
+                long b = dados[base + 1];
+                if ((a == alta && b == baixa) || (a == 0 && b == 0)) {
+                    return i;
+                }
+                i = (i + 1) & mascara;
+            }
+        }
+
+        private void alocar(int quantidadePosicoes) {
+            posicoes = quantidadePosicoes;
+            dados = new long[quantidadePosicoes * LONGS_POR_POSICAO];
+            motivos = null;
+        }
+
+        private void crescer() {
+            long[] dadosAntigos = dados;
+            String[] motivosAntigos = motivos;
+            int posicoesAntigas = posicoes;
+
+            alocar(posicoesAntigas * 2);
+            tamanho = 0;
+            for (int i = 0; i < posicoesAntigas; i++) {
+                int base = i * LONGS_POR_POSICAO;
+                if (dadosAntigos[base] != 0 || dadosAntigos[base + 1] != 0) {
+                    gravar(dadosAntigos[base], dadosAntigos[base + 1], dadosAntigos[base + 2],
+                            motivosAntigos == null ? null : motivosAntigos[i], dadosAntigos[base + 3],
+                            dadosAntigos[base + 4]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package br.com.bancodigital.repository;
+
+/**
+ * Representa as travas (locks) adquiridas sobre uma ou mais contas.
+ * Estende AutoCloseable para ser usada com try-with-resources:
+ *
+ * <pre>
+ * try (Trava trava = contaRepository.travar(origem, destino)) {
+ *     // ... opera nas contas com exclusividade ...
+ * }
+ * </pre>
+ */
+public interface Trava extends AutoCloseable {
+
+    /**
+     * Trava "vazia", usada pelos repositórios que não precisam de sincronização
+     * (ex: o MemoriaContaRepository, pensado para uso de uma única thread).
+     */
+    Trava NENHUMA = () -> { };
+
+    /**
+     * Libera as travas. Não lança exceção checada (diferente do AutoCloseable original).
+     */
+    @Override
+    void close();
+}
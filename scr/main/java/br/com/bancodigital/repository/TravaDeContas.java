@@ -0,0 +1,85 @@
+package br.com.bancodigital.repository;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Conjunto de travas "listradas" (lock striping) para contas.
+ * Em vez de um lock por conta (milhões de objetos), cada número de conta
+ * é mapeado para uma entre N travas fixas.
+ *
+ * Para evitar deadlock, quando uma operação precisa de várias contas
+ * (ex: transferir, realizarPix) as travas são SEMPRE adquiridas na mesma
+ * ordem: pelo índice da listra, que é derivado do número da conta.
+ * Duas contas na mesma listra usam a mesma trava, adquirida uma única vez.
+ */
+public class TravaDeContas {
+
+    private final ReentrantLock[] listras;
+    private final int mascara;
+
+    /**
+     * @param quantidadeDeListras quantidade de travas; arredondada para a próxima potência de 2.
+     */
+    public TravaDeContas(int quantidadeDeListras) {
+        if (quantidadeDeListras <= 0) {
+            throw new IllegalArgumentException("Quantidade de listras deve ser positiva.");
+        }
+        int tamanho = Integer.highestOneBit(quantidadeDeListras - 1) << 1;
+        if (tamanho <= 0) {
+            tamanho = 1;
+        }
+        this.listras = new ReentrantLock[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            listras[i] = new ReentrantLock();
+        }
+        this.mascara = tamanho - 1;
+    }
+
+    private int indiceDaListra(String numeroConta) {
+        // Espalha os bits do hashCode (mesma ideia do HashMap)
+        int h = numeroConta.hashCode();
+        return (h ^ (h >>> 16)) & mascara;
+    }
+
+    /**
+     * Adquire as travas de todas as contas informadas, em ordem fixa.
+     * @param numerosConta os números das contas envolvidas na operação.
+     * @return a Trava que deve ser fechada (close) ao fim da operação.
+     */
+    public Trava travar(String... numerosConta) {
+        if (numerosConta.length == 1) {
+            ReentrantLock lock = listras[indiceDaListra(numerosConta[0])];
+            lock.lock();
+            return lock::unlock;
+        }
+
+        // 1. Descobre as listras envolvidas e ordena (ordem global fixa)
+        int[] indices = new int[numerosConta.length];
+        for (int i = 0; i < numerosConta.length; i++) {
+            indices[i] = indiceDaListra(numerosConta[i]);
+        }
+        Arrays.sort(indices);
+
+        // 2. Remove repetidas (contas diferentes na mesma listra)
+        int distintas = 0;
+        for (int i = 0; i < indices.length; i++) {
+            if (i == 0 || indices[i] != indices[i - 1]) {
+                indices[distintas++] = indices[i];
+            }
+        }
+
+        // 3. Adquire em ordem crescente
+        for (int i = 0; i < distintas; i++) {
+            listras[indices[i]].lock();
+        }
+
+        final int quantidade = distintas;
+        return () -> {
+            // Libera na ordem inversa
+            for (int i = quantidade - 1; i >= 0; i--) {
+                listras[indices[i]].unlock();
+            }
+        };
+    }
+}
@@ -0,0 +1,331 @@
+package br.com.bancodigital.service;
+
+import br.com.bancodigital.evento.EventoBancario;
+import br.com.bancodigital.evento.PublicadorDeEventos;
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.model.ContaCorrente;
+import br.com.bancodigital.model.ContaPoupanca;
+import br.com.bancodigital.model.HistoricoTransacoes;
+import br.com.bancodigital.model.TipoTransacao;
+import br.com.bancodigital.model.TotaisPorTipo;
+import br.com.bancodigital.particao.Particionador;
+import br.com.bancodigital.repository.ContaRepository;
+import br.com.bancodigital.repository.Trava;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Encargos mensais: rendimento da poupança, juros do cheque especial e tarifa
+ * da conta corrente (taxas em PoliticaDeEncargos).
+ *
+ * Sem parar o banco: as contas são divididas em BALDES pelo hash do número
+ * (o mesmo Particionador das partições) e os baldes são cobrados por algumas
+ * threads ao mesmo tempo. Cada conta fica travada só enquanto é cobrada,
+ * então depósitos, saques e PIX continuam no meio da execução.
+ *
+ * Retomável: ao terminar um balde (com as contas já gravadas), o balde é
+ * marcado no checkpoint da competência (ver CheckpointDeEncargos). Depois de
+ * uma queda, aplicar(competencia) pula os baldes concluídos; nos pendentes,
+ * as contas que já têm o lançamento da competência (procurado no histórico,
+ * só entre as transações feitas desde o início da primeira execução) não são
+ * cobradas de novo.
+ *
+ * Contas criadas durante a execução ficam para a competência seguinte.
+ */
+public class AgendadorDeEncargos implements AutoCloseable {
+
+    /**
+     * Em quantas partes as contas são divididas (a unidade do checkpoint).
+     */
+    public static final int BALDES = 1_024;
+
+    private static final TipoTransacao[] TIPOS = TipoTransacao.values();
+
+    private final ContaRepository contaRepository;
+    private final PoliticaDeEncargos politica;
+    private final Path diretorioCheckpoints;
+    private final int paralelismo;
+    private final Particionador particionador = new Particionador(BALDES);
+
+    // Checkpoint da última execução (é o único registro do progresso quando não há diretório)
+    private CheckpointDeEncargos ultimoCheckpoint;
+    private ScheduledExecutorService agendador;
+
+    /**
+     * Taxas padrão, sem checkpoint em disco, usando metade dos núcleos (a outra metade fica para as operações).
+     */
+    public AgendadorDeEncargos(ContaRepository contaRepository) {
+        this(contaRepository, PoliticaDeEncargos.PADRAO, null,
+                Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    /**
+     * @param diretorioCheckpoints Onde gravar o progresso de cada competência (ex: o diretório
+     *                             do DuravelContaRepository); null para guardar só em memória.
+     * @param paralelismo Quantas threads cobram baldes ao mesmo tempo.
+     */
+    public AgendadorDeEncargos(ContaRepository contaRepository, PoliticaDeEncargos politica,
+                               Path diretorioCheckpoints, int paralelismo) {
+        if (paralelismo <= 0) {
+            throw new IllegalArgumentException("O paralelismo deve ser positivo.");
+        }
+        this.contaRepository = contaRepository;
+        this.politica = politica;
+        this.diretorioCheckpoints = diretorioCheckpoints;
+        this.paralelismo = paralelismo;
+    }
+
+    /**
+     * Cobra os encargos da competência em todas as contas (ou termina uma execução interrompida).
+     * Chamar de novo depois de concluída não cobra nada.
+     * @throws IOException se o checkpoint não puder ser lido ou gravado.
+     */
+    public synchronized RelatorioEncargos aplicar(YearMonth competencia) throws IOException {
+        long inicio = System.nanoTime();
+        CheckpointDeEncargos checkpoint;
+        if (ultimoCheckpoint != null && ultimoCheckpoint.getCompetencia().equals(competencia)) {
+            checkpoint = ultimoCheckpoint;
+            checkpoint.retomar();
+        } else {
+            checkpoint = CheckpointDeEncargos.abrir(diretorioCheckpoints, competencia, BALDES, System.currentTimeMillis());
+            ultimoCheckpoint = checkpoint;
+        }
+
+        int jaConcluidos = checkpoint.quantidadeConcluida();
+        if (checkpoint.completo()) {
+            return new RelatorioEncargos(competencia, 0, jaConcluidos, 0, 0,
+                    TotaisPorTipo.de(new long[TIPOS.length], new long[TIPOS.length]),
+                    Duration.ofNanos(System.nanoTime() - inicio));
+        }
+
+        List<List<Conta>> baldes = agrupar(checkpoint);
+        AtomicInteger proximoBalde = new AtomicInteger();
+        AtomicInteger contadorThreads = new AtomicInteger();
+        ExecutorService threads = Executors.newFixedThreadPool(paralelismo, tarefa -> {
+            Thread thread = new Thread(tarefa, "encargos-" + contadorThreads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Parcial>> execucoes = new ArrayList<>(paralelismo);
+            for (int i = 0; i < paralelismo; i++) {
+                execucoes.add(threads.submit(() -> {
+                    Parcial parcial = new Parcial(competencia, checkpoint);
+                    int balde;
+                    while ((balde = proximoBalde.getAndIncrement()) < BALDES) {
+                        List<Conta> contas = baldes.get(balde);
+                        if (contas != null) {
+                            parcial.cobrar(contas);
+                            checkpoint.concluir(balde);
+                            baldes.set(balde, null); // Libera a lista
+                            parcial.baldes++;
+                        }
+                    }
+                    return parcial;
+                }));
+            }
+
+            Parcial total = new Parcial(competencia, checkpoint);
+            for (Future<Parcial> execucao : execucoes) {
+                total.juntar(execucao.get());
+            }
+            return total.relatorio(jaConcluidos, Duration.ofNanos(System.nanoTime() - inicio));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException erro) {
+                throw erro;
+            }
+            if (e.getCause() instanceof RuntimeException erro) {
+                throw erro;
+            }
+            throw new IllegalStateException("Falha ao aplicar os encargos de " + competencia + ".", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Aplicação dos encargos de " + competencia + " interrompida.", e);
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    // Uma passada pela visão das contas; os baldes já concluídos ficam null
+    private List<List<Conta>> agrupar(CheckpointDeEncargos checkpoint) {
+        int porBalde = contaRepository.visaoDasContas().size() / BALDES + 16;
+        List<List<Conta>> baldes = new ArrayList<>(BALDES);
+        for (int balde = 0; balde < BALDES; balde++) {
+            baldes.add(checkpoint.concluido(balde) ? null : new ArrayList<>(porBalde));
+        }
+        for (Conta conta : contaRepository.visaoDasContas()) {
+            List<Conta> contas = baldes.get(particionador.particaoDe(conta.getNumero()));
+            if (contas != null) {
+                contas.add(conta);
+            }
+        }
+        return baldes;
+    }
+
+    /**
+     * Todo mês cobra a competência anterior, numa thread de fundo: a cada 'intervalo'
+     * confere se ela já foi aplicada (a primeira conferência é imediata, para
+     * terminar uma execução interrompida por uma queda).
+     * @param eventos Recebe o relatório de cada execução que cobrou algo, e as falhas.
+     */
+    public synchronized void iniciarAgendamentoMensal(Duration intervalo, PublicadorDeEventos eventos) {
+        if (agendador != null) {
+            throw new IllegalStateException("O agendamento dos encargos já foi iniciado.");
+        }
+        agendador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "agendador-encargos");
+            thread.setDaemon(true);
+            return thread;
+        });
+        agendador.scheduleWithFixedDelay(() -> {
+            YearMonth competencia = YearMonth.now().minusMonths(1);
+            try {
+                RelatorioEncargos relatorio = aplicar(competencia);
+                if (relatorio.baldesProcessados() > 0) {
+                    eventos.publicar(new EventoBancario.EncargosAplicados(competencia.toString(), relatorio.toString()));
+                }
+            } catch (IOException | RuntimeException e) {
+                eventos.publicar(new EventoBancario.FalhaEmSegundoPlano("Encargos",
+                        "Falha ao aplicar a competência " + competencia + ": " + e.getMessage()));
+            }
+        }, 0, intervalo.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (agendador != null) {
+            agendador.shutdownNow();
+            agendador = null;
+        }
+    }
+
+    /**
+     * O que uma thread cobrou (cada uma tem o seu; no fim são somados).
+     */
+    private final class Parcial {
+
+        private final String detalhe;
+        private final String descricao;
+        private final CheckpointDeEncargos checkpoint;
+
+        private int baldes;
+        private long contas;
+        private long jaCobradas;
+        private final long[] quantidades = new long[TIPOS.length];
+        private final long[] valores = new long[TIPOS.length];
+
+        Parcial(YearMonth competencia, CheckpointDeEncargos checkpoint) {
+            this.detalhe = competencia.toString();
+            // Os três tipos de encargo têm o mesmo prefixo
+            this.descricao = TipoTransacao.RENDIMENTO.getPrefixoDetalhe() + detalhe;
+            this.checkpoint = checkpoint;
+        }
+
+        /**
+         * Cobra as contas de um balde e espera a gravação de todas
+         * (só depois disso o balde pode ser marcado como concluído).
+         */
+        void cobrar(List<Conta> contasDoBalde) {
+            boolean retomado = checkpoint.isRetomado();
+            List<CompletableFuture<Void>> gravacoes = new ArrayList<>();
+            for (Conta conta : contasDoBalde) {
+                CompletableFuture<Void> gravacao = cobrar(conta, retomado);
+                if (gravacao != null) {
+                    gravacoes.add(gravacao);
+                }
+            }
+            CompletableFuture.allOf(gravacoes.toArray(new CompletableFuture<?>[0])).join();
+        }
+
+        // A gravação não espera o disco (salvarTodasAssincrono): a trava da conta é solta logo
+        private CompletableFuture<Void> cobrar(Conta conta, boolean retomado) {
+            String numero = conta.getNumero();
+            try (Trava trava = contaRepository.travar(numero)) {
+                // Removida (ou trocada) depois do agrupamento
+                if (contaRepository.buscarPorNumero(numero).orElse(null) != conta) {
+                    return null;
+                }
+                contas++;
+                if (retomado && jaCobrada(conta)) {
+                    jaCobradas++;
+                    return null;
+                }
+
+                long saldoAnterior = conta.getSaldo();
+                int historicoAnterior = conta.getHistoricoTransacoes().size();
+                try {
+                    boolean alterada = false;
+                    if (conta instanceof ContaPoupanca) {
+                        alterada = lancar(conta, TipoTransacao.RENDIMENTO, politica.rendimento(conta.getSaldo()));
+                    } else if (conta instanceof ContaCorrente) {
+                        // Juros sobre o saldo negativo do mês, antes da tarifa
+                        alterada = lancar(conta, TipoTransacao.JUROS_CHEQUE_ESPECIAL, politica.juros(conta.getSaldo()));
+                        alterada |= lancar(conta, TipoTransacao.TARIFA, politica.tarifaCorrente());
+                    }
+                    return alterada ? contaRepository.salvarTodasAssincrono(conta) : null;
+                } catch (RuntimeException e) {
+                    // Falhou antes de entregar a gravação (ex: saldo fora do limite): a conta volta ao que era.
+                    // Uma falha da gravação já entregue chega depois, pelo CompletableFuture, sem desfazer.
+                    conta.desfazerAlteracoes(saldoAnterior, historicoAnterior);
+                    throw e;
+                }
+            }
+        }
+
+        private boolean lancar(Conta conta, TipoTransacao tipo, long valor) {
+            if (valor <= 0) {
+                return false;
+            }
+            if (tipo.isCredito()) {
+                conta.depositarInterno(valor);
+            } else {
+                conta.debitarEncargo(valor);
+            }
+            conta.registrarTransacao(tipo, valor, detalhe);
+            quantidades[tipo.ordinal()]++;
+            valores[tipo.ordinal()] += valor;
+            return true;
+        }
+
+        // Procura um lançamento desta competência entre as transações feitas desde o início da primeira execução
+        private boolean jaCobrada(Conta conta) {
+            HistoricoTransacoes historico = conta.getHistoricoTransacoes();
+            for (int i = historico.size() - 1; i >= 0 && historico.instante(i) >= checkpoint.getInicio(); i--) {
+                TipoTransacao tipo = historico.tipo(i);
+                if ((tipo == TipoTransacao.RENDIMENTO || tipo == TipoTransacao.TARIFA
+                        || tipo == TipoTransacao.JUROS_CHEQUE_ESPECIAL) && historico.descricao(i).equals(descricao)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void juntar(Parcial outra) {
+            baldes += outra.baldes;
+            contas += outra.contas;
+            jaCobradas += outra.jaCobradas;
+            for (int i = 0; i < TIPOS.length; i++) {
+                quantidades[i] += outra.quantidades[i];
+                valores[i] += outra.valores[i];
+            }
+        }
+
+        RelatorioEncargos relatorio(int baldesJaConcluidos, Duration duracao) {
+            return new RelatorioEncargos(checkpoint.getCompetencia(), baldes, baldesJaConcluidos, contas, jaCobradas,
+                    TotaisPorTipo.de(quantidades, valores), duracao);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package br.com.bancodigital.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.YearMonth;
+import java.util.BitSet;
+
+/**
+ * Quais baldes de contas já receberam os encargos de uma competência
+ * (um arquivo por competência: encargos-2026-10.checkpoint).
+ *
+ * Formato: MAGICO, VERSAO, ano, mês, instante do início da primeira execução,
+ * quantidade de baldes e o BitSet dos baldes concluídos.
+ * Cada atualização grava o arquivo inteiro num temporário, faz fsync e troca
+ * o arquivo de uma vez (ATOMIC_MOVE): depois de uma queda, vale o antigo ou o novo.
+ *
+ * Sem diretório (repositório só em memória), o progresso fica só em memória.
+ */
+final class CheckpointDeEncargos {
+
+    private static final int MAGICO = 0x454E4347; // "ENCG"
+    private static final int VERSAO = 1;
+
+    private final Path arquivo;
+    private final YearMonth competencia;
+    private final long inicio;
+    private final int baldes;
+    private final BitSet concluidos;
+    private boolean retomado;
+
+    private CheckpointDeEncargos(Path arquivo, YearMonth competencia, long inicio, int baldes,
+                                 BitSet concluidos, boolean retomado) {
+        this.arquivo = arquivo;
+        this.competencia = competencia;
+        this.inicio = inicio;
+        this.baldes = baldes;
+        this.concluidos = concluidos;
+        this.retomado = retomado;
+    }
+
+    /**
+     * Lê o checkpoint da competência, ou começa um novo (sem nada concluído).
+     * @param diretorio Onde ficam os arquivos; null para não gravar.
+     * @param agora Início desta execução (vale se o checkpoint for novo).
+     */
+    static CheckpointDeEncargos abrir(Path diretorio, YearMonth competencia, int baldes, long agora) throws IOException {
+        if (diretorio == null) {
+            return new CheckpointDeEncargos(null, competencia, agora, baldes, new BitSet(baldes), false);
+        }
+        Path arquivo = diretorio.resolve("encargos-" + competencia + ".checkpoint");
+        if (!Files.exists(arquivo)) {
+            // Gravado antes de cobrar a primeira conta: se cair no meio do primeiro balde,
+            // a próxima execução sabe que precisa conferir as contas já cobradas
+            Files.createDirectories(diretorio);
+            CheckpointDeEncargos novo = new CheckpointDeEncargos(arquivo, competencia, agora, baldes, new BitSet(baldes), false);
+            novo.gravar();
+            return novo;
+        }
+
+        try (DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(arquivo)))) {
+            if (entrada.readInt() != MAGICO || entrada.readInt() != VERSAO) {
+                throw new IOException("Checkpoint de encargos inválido: " + arquivo);
+            }
+            YearMonth gravada = YearMonth.of(entrada.readInt(), entrada.readInt());
+            long inicio = entrada.readLong();
+            int baldesGravados = entrada.readInt();
+            if (!gravada.equals(competencia) || baldesGravados != baldes) {
+                throw new IOException("Checkpoint de encargos de outra competência ou divisão: " + arquivo);
+            }
+            byte[] bits = new byte[entrada.readInt()];
+            entrada.readFully(bits);
+            return new CheckpointDeEncargos(arquivo, competencia, inicio, baldes, BitSet.valueOf(bits), true);
+        }
+    }
+
+    synchronized boolean concluido(int balde) {
+        return concluidos.get(balde);
+    }
+
+    synchronized boolean completo() {
+        return concluidos.cardinality() == baldes;
+    }
+
+    synchronized int quantidadeConcluida() {
+        return concluidos.cardinality();
+    }
+
+    /**
+     * Marca o balde como concluído e grava o arquivo (as contas do balde já devem estar gravadas).
+     */
+    synchronized void concluir(int balde) throws IOException {
+        concluidos.set(balde);
+        gravar();
+    }
+
+    private void gravar() throws IOException {
+        if (arquivo == null) {
+            return;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + baldes / 8);
+        DataOutputStream saida = new DataOutputStream(bytes);
+        saida.writeInt(MAGICO);
+        saida.writeInt(VERSAO);
+        saida.writeInt(competencia.getYear());
+        saida.writeInt(competencia.getMonthValue());
+        saida.writeLong(inicio);
+        saida.writeInt(baldes);
+        byte[] bits = concluidos.toByteArray();
+        saida.writeInt(bits.length);
+        saida.write(bits);
+
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        try (FileOutputStream arquivoSaida = new FileOutputStream(temporario.toFile())) {
+            bytes.writeTo(arquivoSaida);
+            arquivoSaida.getFD().sync();
+        }
+        Files.move(temporario, arquivo, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Instante (epoch millis) em que a primeira execução desta competência começou.
+     */
+    long getInicio() {
+        return inicio;
+    }
+
+    /**
+     * true se o checkpoint veio do disco: uma execução anterior foi interrompida
+     * e as contas dos baldes pendentes podem já ter sido cobradas.
+     */
+    synchronized boolean isRetomado() {
+        return retomado;
+    }
+
+    /**
+     * Usa de novo um checkpoint já aberto (ex: depois de uma execução que falhou no meio).
+     */
+    synchronized void retomar() {
+        retomado = true;
+    }
+
+    YearMonth getCompetencia() {
+        return competencia;
+    }
+}
@@ -0,0 +1,162 @@
+package br.com.bancodigital.service;
+
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.model.HistoricoTransacoes;
+import br.com.bancodigital.model.TipoTransacao;
+import br.com.bancodigital.model.TotaisPorTipo;
+import br.com.bancodigital.repository.ContaRepository;
+import br.com.bancodigital.repository.Trava;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Conciliação de fim de dia:
+ * - o saldo de cada conta é igual à soma do seu histórico (créditos - débitos)?
+ * - todo envio (transferência/PIX) tem o recebimento correspondente? (ver RelatorioConciliacao.paresConferem)
+ *
+ * Percorre a visão das contas do repositório (visaoDasContas, sem copiar a lista).
+ * No modo paralelo, o Spliterator da visão é dividido em tarefas de fork/join:
+ * cada tarefa divide a sua parte enquanto ela é grande, entrega a metade para
+ * outra thread (fork) e confere o resto; threads livres "roubam" as metades pendentes.
+ *
+ * Cada conta é travada enquanto é conferida, então operações em andamento
+ * não geram divergências falsas de saldo. Já a conferência dos pares pode
+ * acusar diferença se houver sagas entre partições em andamento (débito feito,
+ * crédito ainda não): rode com o banco parado, como num fechamento de dia.
+ */
+public class ConciliacaoService {
+
+    /**
+     * Máximo de contas divergentes listadas no relatório (a contagem é sempre completa).
+     */
+    public static final int MAXIMO_EXEMPLOS = 100;
+
+    // Abaixo disso, a tarefa confere as contas em vez de se dividir
+    private static final int CONTAS_POR_TAREFA = 4_096;
+
+    private static final TipoTransacao[] TIPOS = TipoTransacao.values();
+
+    private final ContaRepository contaRepository;
+
+    public ConciliacaoService(ContaRepository contaRepository) {
+        this.contaRepository = contaRepository;
+    }
+
+    /**
+     * Conciliação paralela, no pool comum do fork/join.
+     */
+    public RelatorioConciliacao conciliar() {
+        return conciliar(ForkJoinPool.commonPool());
+    }
+
+    public RelatorioConciliacao conciliar(ForkJoinPool pool) {
+        long inicio = System.nanoTime();
+        Parcial parcial = pool.invoke(new Tarefa(contaRepository.visaoDasContas().spliterator()));
+        return parcial.relatorio(true, Duration.ofNanos(System.nanoTime() - inicio));
+    }
+
+    /**
+     * Conciliação em uma thread só (para comparar com a paralela, ou em máquinas com um núcleo).
+     */
+    public RelatorioConciliacao conciliarSequencial() {
+        long inicio = System.nanoTime();
+        Parcial parcial = new Parcial();
+        for (Conta conta : contaRepository.visaoDasContas()) {
+            parcial.conferir(conta);
+        }
+        return parcial.relatorio(false, Duration.ofNanos(System.nanoTime() - inicio));
+    }
+
+    private final class Tarefa extends RecursiveTask<Parcial> {
+
+        private final Spliterator<Conta> contas;
+
+        Tarefa(Spliterator<Conta> contas) {
+            this.contas = contas;
+        }
+
+        @Override
+        protected Parcial compute() {
+            List<Tarefa> subtarefas = new ArrayList<>();
+            Spliterator<Conta> metade;
+            while (contas.estimateSize() > CONTAS_POR_TAREFA && (metade = contas.trySplit()) != null) {
+                Tarefa subtarefa = new Tarefa(metade);
+                subtarefa.fork();
+                subtarefas.add(subtarefa);
+            }
+
+            Parcial parcial = new Parcial();
+            contas.forEachRemaining(parcial::conferir);
+
+            // Na ordem inversa do fork: a última ainda pode estar na fila desta thread
+            for (int i = subtarefas.size() - 1; i >= 0; i--) {
+                parcial.juntar(subtarefas.get(i).join());
+            }
+            return parcial;
+        }
+    }
+
+    /**
+     * Resultado de uma parte das contas (cada tarefa tem o seu; depois são somados).
+     */
+    private final class Parcial {
+
+        private long contas;
+        private long transacoes;
+        private long divergentes;
+        private final List<RelatorioConciliacao.Divergencia> exemplos = new ArrayList<>();
+        private final long[] quantidades = new long[TIPOS.length];
+        private final long[] valores = new long[TIPOS.length];
+
+        void conferir(Conta conta) {
+            long saldo;
+            long saldoPeloHistorico = 0;
+            try (Trava trava = contaRepository.travar(conta.getNumero())) {
+                saldo = conta.getSaldo();
+                HistoricoTransacoes historico = conta.getHistoricoTransacoes();
+                int tamanho = historico.size();
+                for (int i = 0; i < tamanho; i++) {
+                    TipoTransacao tipo = historico.tipo(i);
+                    long valor = historico.valor(i);
+                    saldoPeloHistorico += tipo.isCredito() ? valor : -valor;
+                    quantidades[tipo.ordinal()]++;
+                    valores[tipo.ordinal()] += valor;
+                }
+                transacoes += tamanho;
+            }
+            contas++;
+            if (saldo != saldoPeloHistorico) {
+                divergentes++;
+                if (exemplos.size() < MAXIMO_EXEMPLOS) {
+                    exemplos.add(new RelatorioConciliacao.Divergencia(conta.getNumero(), saldo, saldoPeloHistorico));
+                }
+            }
+        }
+
+        void juntar(Parcial outra) {
+            contas += outra.contas;
+            transacoes += outra.transacoes;
+            divergentes += outra.divergentes;
+            for (RelatorioConciliacao.Divergencia divergencia : outra.exemplos) {
+                if (exemplos.size() == MAXIMO_EXEMPLOS) {
+                    break;
+                }
+                exemplos.add(divergencia);
+            }
+            for (int i = 0; i < TIPOS.length; i++) {
+                quantidades[i] += outra.quantidades[i];
+                valores[i] += outra.valores[i];
+            }
+        }
+
+        RelatorioConciliacao relatorio(boolean paralela, Duration duracao) {
+            return new RelatorioConciliacao(contas, transacoes, divergentes, List.copyOf(exemplos),
+                    TotaisPorTipo.de(quantidades, valores), paralela, duracao);
+        }
+    }
+}
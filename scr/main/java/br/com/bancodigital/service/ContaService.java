@@ -1,145 +1,543 @@
 package br.com.bancodigital.service;
 
+import br.com.bancodigital.antifraude.MotorAntifraude;
+import br.com.bancodigital.evento.EventoBancario;
+import br.com.bancodigital.evento.PublicadorDeEventos;
+import br.com.bancodigital.evento.PublicadorDeTransacoes;
 import br.com.bancodigital.exception.ContaException;
+import br.com.bancodigital.exception.OperacaoRecusadaException;
+import br.com.bancodigital.metrica.Medicao;
+import br.com.bancodigital.metrica.Metricas;
+import br.com.bancodigital.metrica.Operacao;
 import br.com.bancodigital.exception.SaldoInsuficienteException;
+import br.com.bancodigital.model.ChavePix;
 import br.com.bancodigital.model.Cliente;
 import br.com.bancodigital.model.Conta;
 import br.com.bancodigital.model.ContaCorrente;
 import br.com.bancodigital.model.ContaPoupanca;
+import br.com.bancodigital.model.FiltroExtrato;
+import br.com.bancodigital.model.PaginaExtrato;
+import br.com.bancodigital.model.ResumoBanco;
+import br.com.bancodigital.model.TipoChavePix;
 import br.com.bancodigital.model.TipoTransacao;
+import br.com.bancodigital.model.TotaisPorTipo;
 import br.com.bancodigital.model.Transacao;
+import br.com.bancodigital.repository.ChaveIdempotencia;
 import br.com.bancodigital.repository.ContaRepository;
+import br.com.bancodigital.repository.DiretorioChavesPix;
+import br.com.bancodigital.repository.DiretorioClientes;
+import br.com.bancodigital.repository.IndicesDeContas;
+import br.com.bancodigital.repository.TabelaIdempotencia;
+import br.com.bancodigital.repository.Trava;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-import java.time.LocalDateTime;
 
 /**
  * Camada de Serviço para Contas (Refatorada).
  * Agora é responsável por orquestrar a lógica de saldo E o registro de transações.
+ * Todos os valores são em centavos (ver Dinheiro).
+ * As mensagens das operações são publicadas como eventos (ver PublicadorDeEventos)
+ * e a duração de cada uma é medida (ver Metricas).
+ * Depósito, saque e transferência também aceitam uma chave de idempotência
+ * (repetições devolvem o resultado da primeira execução).
+ * Transferências (e os débitos das transferências entre partições) passam pelas regras
+ * antifraude (ver MotorAntifraude), se houver.
+ * Cada transação registrada, depois de salva, vai para o PublicadorDeTransacoes (ver FluxoDeTransacoes).
+ * Nas contas quentes (ver ContasQuentes), os créditos pendentes são consolidados antes de
+ * cada débito e de cada consulta ao extrato.
  */
 public class ContaService {
 
+    // Quantas transações o streamExtrato lê de cada vez
+    private static final int TAMANHO_PAGINA_STREAM = 256;
+
     private ContaRepository contaRepository;
+    private final DiretorioClientes clientes;
+    private final DiretorioChavesPix chavesPix;
+    private final ResumoBanco resumo;
+    private final TabelaIdempotencia idempotencia;
+    private final PublicadorDeEventos eventos;
+    private final Metricas metricas;
+    private final MotorAntifraude antifraude;
+    private final PublicadorDeTransacoes transacoes;
+    private final ContasQuentes quentes;
 
-    public ContaService(ContaRepository contaRepository) {
+    /**
+     * @param indices Os índices mantidos pelo repositório (ex: ConcorrenteContaRepository.getIndices()).
+     */
+    public ContaService(ContaRepository contaRepository, IndicesDeContas indices) {
+        this(contaRepository, indices, Dependencias.NENHUMA);
+    }
+
+    /**
+     * @param indices Os índices mantidos pelo repositório (ex: ConcorrenteContaRepository.getIndices()).
+     * @param dependencias Eventos, métricas, antifraude, fluxo de transações e contas quentes
+     *                     (ver Dependencias; o que não for informado fica desligado).
+     */
+    public ContaService(ContaRepository contaRepository, IndicesDeContas indices, Dependencias dependencias) {
         this.contaRepository = contaRepository;
+        this.clientes = indices.getClientes();
+        this.chavesPix = indices.getChavesPix();
+        this.resumo = indices.getResumo();
+        this.idempotencia = indices.getIdempotencia();
+        this.eventos = dependencias.getEventos();
+        this.metricas = dependencias.getMetricas();
+        this.antifraude = dependencias.getAntifraude();
+        this.transacoes = dependencias.getTransacoes();
+        this.quentes = dependencias.getQuentes();
     }
 
-    private Conta buscarContaPorNumero(String numeroConta) {
+    public Conta buscarContaPorNumero(String numeroConta) {
         return contaRepository.buscarPorNumero(numeroConta)
                 .orElseThrow(() -> new ContaException("Conta número " + numeroConta + " não encontrada."));
     }
 
+    /**
+     * Saldo da conta, lido com a conta travada: só enxerga operações já gravadas
+     * (conta.getSaldo() direto pode ver uma operação em andamento, que ainda pode ser desfeita).
+     */
+    public long consultarSaldo(String numeroConta) {
+        Conta conta = buscarContaPorNumero(numeroConta);
+        try (Trava trava = contaRepository.travar(numeroConta)) {
+            quentes.consolidar(conta);
+            return conta.getSaldo();
+        }
+    }
+
     public Conta criarContaCorrente(Cliente cliente, String agencia, String numero) {
-        if (contaRepository.buscarPorNumero(numero).isPresent()) {
-            throw new ContaException("Já existe uma conta com o número " + numero);
+        // Trava o número para que duas threads não criem a mesma conta
+        try (Trava trava = contaRepository.travar(numero)) {
+            if (contaRepository.buscarPorNumero(numero).isPresent()) {
+                throw new ContaException("Já existe uma conta com o número " + numero);
+            }
+            // Um Cliente por CPF: as contas do mesmo cliente compartilham a instância (e o nome)
+            Cliente titular = clientes.registrar(cliente);
+            Conta cc = new ContaCorrente(titular, agencia, numero);
+            contaRepository.salvar(cc);
+            registrarChaveCpf(cc);
+            eventos.publicar(new EventoBancario.ContaCriada(numero, "Corrente", titular.nome()));
+            return cc;
         }
-        Conta cc = new ContaCorrente(cliente, agencia, numero);
-        contaRepository.salvar(cc);
-        System.out.println("[Service] Conta Corrente " + numero + " criada para " + cliente.nome());
-        return cc;
     }
 
     public Conta criarContaPoupanca(Cliente cliente, String agencia, String numero) {
         // ... (lógica idêntica ao criarContaCorrente) ...
-        if (contaRepository.buscarPorNumero(numero).isPresent()) {
-            throw new ContaException("Já existe uma conta com o número " + numero);
+        try (Trava trava = contaRepository.travar(numero)) {
+            if (contaRepository.buscarPorNumero(numero).isPresent()) {
+                throw new ContaException("Já existe uma conta com o número " + numero);
+            }
+            Cliente titular = clientes.registrar(cliente);
+            Conta cp = new ContaPoupanca(titular, agencia, numero);
+            contaRepository.salvar(cp);
+            registrarChaveCpf(cp);
+            eventos.publicar(new EventoBancario.ContaCriada(numero, "Poupança", titular.nome()));
+            return cp;
         }
-        Conta cp = new ContaPoupanca(cliente, agencia, numero);
-        contaRepository.salvar(cp);
-        System.out.println("[Service] Conta Poupança " + numero + " criada para " + cliente.nome());
-        return cp;
     }
 
-    public void depositar(String numeroConta, double valor) {
-        Conta conta = buscarContaPorNumero(numeroConta);
-
-        // 1. Executa a lógica interna (só mexe no saldo)
-        // (precisamos fazer os métodos internos da Conta serem 'protected' ou 'public')
-        // *Já fizemos isso na Etapa 5.B, estão 'protected'*
-        
-        // (Ops, precisamos de acesso... como Service está em outro pacote,
-        // vamos mudar depositarInterno e sacarInterno para 'public' em Conta.java
-        // e 'public' nas filhas. Ou, melhor: mantê-los 'protected' e
-        // criar métodos 'public' no service que os chamam)
-        
-        // **Correção Rápida**: Mude 'depositarInterno' e 'sacarInterno' para 'public'
-        // em Conta, ContaCorrente e ContaPoupanca.
-        
-        /* * NOTA: Para este exercício, vamos expor os métodos.
-         * Mude: 'protected void depositarInterno' -> 'public void depositarInterno' (em Conta.java)
-         * Mude: 'protected abstract void sacarInterno' -> 'public abstract void sacarInterno' (em Conta.java)
-         * Mude: 'protected void sacarInterno' -> 'public void sacarInterno' (em ContaCorrente e ContaPoupanca)
-        */
-
-        conta.depositarInterno(valor);
-
-        // 2. Cria e registra a transação
-        Transacao transacao = new Transacao(LocalDateTime.now(), TipoTransacao.DEPOSITO, valor, "Depósito em conta");
-        conta.adicionarTransacao(transacao);
-
-        // 3. Salva o estado da conta
-        contaRepository.salvar(conta); 
-        System.out.println("Depósito de R$" + valor + " realizado. Saldo atual: R$" + conta.getSaldo());
-    }
-
-    public void sacar(String numeroConta, double valor) {
-        Conta conta = buscarContaPorNumero(numeroConta);
-        
+    /**
+     * A primeira conta de cada cliente recebe o CPF como chave PIX
+     * (as demais podem cadastrar outras chaves pelo PixService).
+     * CPFs fora do formato (11 dígitos) não viram chave.
+     */
+    private void registrarChaveCpf(Conta conta) {
+        ChavePix chave;
         try {
-            // 1. Executa a lógica interna (mexe no saldo e pode lançar exceção)
-            conta.sacarInterno(valor);
-
-            // 2. Se o saque deu certo, cria e registra a transação
-            Transacao transacao = new Transacao(LocalDateTime.now(), TipoTransacao.SAQUE, valor, "Saque em terminal/app");
-            conta.adicionarTransacao(transacao);
-
-            // 3. Salva o estado
-            contaRepository.salvar(conta); 
-            System.out.println("Saque de R$" + valor + " realizado. Saldo atual: R$" + conta.getSaldo());
-            
-        } catch (SaldoInsuficienteException e) {
-            System.out.println("[Service] Falha no saque: " + e.getMessage());
-            throw e; 
+            chave = ChavePix.de(TipoChavePix.CPF, conta.getCliente().cpf());
+        } catch (ContaException e) {
+            return;
+        }
+        if (chavesPix.buscarNumeroConta(chave).isEmpty()) {
+            try {
+                chavesPix.registrar(chave, conta.getNumero());
+            } catch (ContaException e) {
+                // Outra conta do mesmo cliente, criada ao mesmo tempo, ficou com a chave
+            }
+        }
+    }
+
+    public void depositar(String numeroConta, long valor) {
+        executarDeposito(null, numeroConta, valor);
+    }
+
+    /**
+     * Depósito idempotente: repetir com a mesma chave (ex: depois de um timeout)
+     * devolve o resultado da primeira execução, sem depositar de novo.
+     * @param chaveIdempotencia Gerada pelo cliente, única por operação (ex: um UUID).
+     */
+    public ResultadoOperacao depositar(String chaveIdempotencia, String numeroConta, long valor) {
+        return ExecucaoIdempotente.executar(idempotencia, chaveIdempotencia,
+                ChaveIdempotencia.impressaoDaOperacao("DEPOSITO", valor, numeroConta),
+                chave -> executarDeposito(chave, numeroConta, valor));
+    }
+
+    public void sacar(String numeroConta, long valor) {
+        executarSaque(null, numeroConta, valor);
+    }
+
+    /**
+     * Saque idempotente (ver depositar com chave). O saldo insuficiente vira um resultado de falha.
+     */
+    public ResultadoOperacao sacar(String chaveIdempotencia, String numeroConta, long valor) {
+        return ExecucaoIdempotente.executar(idempotencia, chaveIdempotencia,
+                ChaveIdempotencia.impressaoDaOperacao("SAQUE", valor, numeroConta),
+                chave -> executarSaque(chave, numeroConta, valor));
+    }
+
+    /**
+     * @return true se a transferência foi feita; false se a origem não tinha saldo
+     *         (a recusa também é publicada como evento).
+     * @throws OperacaoRecusadaException se uma regra antifraude recusou (também publicada como evento).
+     */
+    public boolean transferir(String numeroContaOrigem, String numeroContaDestino, long valor) {
+        return executarTransferencia(null, numeroContaOrigem, numeroContaDestino, valor).sucesso();
+    }
+
+    /**
+     * Transferência idempotente (ver depositar com chave).
+     * @return o resultado, com o saldo da origem; nas repetições, o da primeira execução.
+     */
+    public ResultadoOperacao transferir(String chaveIdempotencia, String numeroContaOrigem,
+                                        String numeroContaDestino, long valor) {
+        return ExecucaoIdempotente.executar(idempotencia, chaveIdempotencia,
+                ChaveIdempotencia.impressaoDaOperacao("TRANSFERENCIA", valor, numeroContaOrigem, numeroContaDestino),
+                chave -> executarTransferencia(chave, numeroContaOrigem, numeroContaDestino, valor));
+    }
+
+    /**
+     * Uma "perna" de transferência entre partições (ver BancoParticionado): só o débito
+     * na conta desta partição, registrado com o tipo e a contraparte informados.
+     * Sempre idempotente, para que o coordenador possa repetir a chamada após uma falha de rede.
+     * Passa pelas regras antifraude como uma transferência (a recusa volta como falha).
+     * @param tipo TRANSFERENCIA_ENVIADA ou PIX_ENVIADO.
+     * @param cpfDestino CPF do titular da outra conta (para as regras antifraude).
+     * @param contraparte Nome do titular da outra conta (vai para o extrato).
+     */
+    public ResultadoOperacao debitar(String chaveIdempotencia, String numeroConta, long valor,
+                                     TipoTransacao tipo, String cpfDestino, String contraparte) {
+        if (tipo.isCredito()) {
+            throw new IllegalArgumentException("Tipo de débito inválido: " + tipo);
         }
+        return ExecucaoIdempotente.executar(idempotencia, chaveIdempotencia,
+                ChaveIdempotencia.impressaoDaOperacao(tipo.name(), valor, numeroConta, cpfDestino),
+                chave -> executarMovimento(chave, Operacao.DEBITAR, numeroConta, valor, tipo, cpfDestino, contraparte));
     }
 
-    public void transferir(String numeroContaOrigem, String numeroContaDestino, double valor) {
-        Conta contaOrigem = buscarContaPorNumero(numeroContaOrigem);
-        Conta contaDestino = buscarContaPorNumero(numeroContaDestino);
-        
-        if(contaOrigem.getNumero().equals(contaDestino.getNumero())){
-            throw new ContaException("Transferência para a própria conta não é permitida.");
+    /**
+     * A outra "perna": o crédito na conta desta partição (ver debitar).
+     * @param tipo TRANSFERENCIA_RECEBIDA ou PIX_RECEBIDO.
+     */
+    public ResultadoOperacao creditar(String chaveIdempotencia, String numeroConta, long valor,
+                                      TipoTransacao tipo, String contraparte) {
+        if (!tipo.isCredito()) {
+            throw new IllegalArgumentException("Tipo de crédito inválido: " + tipo);
         }
+        return ExecucaoIdempotente.executar(idempotencia, chaveIdempotencia,
+                ChaveIdempotencia.impressaoDaOperacao(tipo.name(), valor, numeroConta),
+                chave -> executarMovimento(chave, Operacao.CREDITAR, numeroConta, valor, tipo, null, contraparte));
+    }
 
-        try {
-            // 1. Saca da origem
-            contaOrigem.sacarInterno(valor);
+    /**
+     * Compensação: devolve um débito cuja outra perna falhou (transação ESTORNO).
+     * @param motivo Vai para o extrato (ex: "Transferência para 123-4 não concluída").
+     */
+    public ResultadoOperacao estornar(String chaveIdempotencia, String numeroConta, long valor, String motivo) {
+        return ExecucaoIdempotente.executar(idempotencia, chaveIdempotencia,
+                ChaveIdempotencia.impressaoDaOperacao(TipoTransacao.ESTORNO.name(), valor, numeroConta),
+                chave -> executarMovimento(chave, Operacao.ESTORNAR, numeroConta, valor, TipoTransacao.ESTORNO, null, motivo));
+    }
+
+    // As operações abaixo recebem a chave de idempotência já calculada, ou null (operação sem chave).
+    // O ProcessadorAssincrono também as chama (sem chave), para ter o resultado completo
+
+    ResultadoOperacao executarDeposito(ChaveIdempotencia chave, String numeroConta, long valor) {
+        try (Medicao medicao = metricas.medir(Operacao.DEPOSITAR)) {
+            Conta conta = buscarContaPorNumero(numeroConta);
+
+            // Trava a conta durante a operação (no-op no repositório de uma thread só)
+            try (Trava trava = contaRepository.travar(numeroConta)) {
+                long saldoAnterior = conta.getSaldo();
+                int historicoAnterior = conta.getHistoricoTransacoes().size();
+                int transacao;
+                try {
+                    // 1. Executa a lógica interna (só mexe no saldo)
+                    // (depositarInterno e sacarInterno agora são 'public' em Conta,
+                    // pois o Service está em outro pacote)
+                    conta.depositarInterno(valor);
+
+                    // 2. Cria e registra a transação
+                    conta.registrarTransacao(TipoTransacao.DEPOSITO, valor, "Depósito em conta");
+                    transacao = conta.getHistoricoTransacoes().size() - 1;
+
+                    // 3. Salva o estado da conta (e o resultado, se houver chave)
+                    salvar(chave, conta.getSaldo(), conta);
+                } catch (RuntimeException e) {
+                    // Não foi gravado: desfaz em memória antes de soltar a trava
+                    conta.desfazerAlteracoes(saldoAnterior, historicoAnterior);
+                    throw e;
+                }
+                metricas.registrarTransacao(TipoTransacao.DEPOSITO, valor, transacao + 1);
+                transacoes.publicar(conta, transacao);
+                eventos.publicar(new EventoBancario.DepositoRealizado(numeroConta, valor, conta.getSaldo()));
+                medicao.sucesso();
+                return ResultadoOperacao.sucesso(conta.getSaldo(), transacao);
+            }
+        }
+    }
+
+    ResultadoOperacao executarSaque(ChaveIdempotencia chave, String numeroConta, long valor) {
+        try (Medicao medicao = metricas.medir(Operacao.SACAR)) {
+            Conta conta = buscarContaPorNumero(numeroConta);
+
+            try (Trava trava = contaRepository.travar(numeroConta)) {
+                quentes.consolidar(conta); // Conta quente: o saque vê os créditos pendentes
+                long saldoAnterior = conta.getSaldo();
+                int historicoAnterior = conta.getHistoricoTransacoes().size();
+                int transacao;
+                try {
+                    // 1. Executa a lógica interna (mexe no saldo e pode lançar exceção)
+                    conta.sacarInterno(valor);
+
+                    // 2. Se o saque deu certo, cria e registra a transação
+                    conta.registrarTransacao(TipoTransacao.SAQUE, valor, "Saque em terminal/app");
+                    transacao = conta.getHistoricoTransacoes().size() - 1;
+
+                    // 3. Salva o estado
+                    salvar(chave, conta.getSaldo(), conta);
+                } catch (RuntimeException e) {
+                    conta.desfazerAlteracoes(saldoAnterior, historicoAnterior);
+                    throw e;
+                }
+                metricas.registrarTransacao(TipoTransacao.SAQUE, valor, transacao + 1);
+                transacoes.publicar(conta, transacao);
+                eventos.publicar(new EventoBancario.SaqueRealizado(numeroConta, valor, conta.getSaldo()));
+                medicao.sucesso();
+                return ResultadoOperacao.sucesso(conta.getSaldo(), transacao);
+
+            } catch (SaldoInsuficienteException e) {
+                metricas.contarSaldoInsuficiente();
+                eventos.publicar(new EventoBancario.SaqueRecusado(numeroConta, valor, e.getMessage()));
+                throw e; 
+            }
+        }
+    }
+
+    ResultadoOperacao executarTransferencia(ChaveIdempotencia chave, String numeroContaOrigem,
+                                                    String numeroContaDestino, long valor) {
+        try (Medicao medicao = metricas.medir(Operacao.TRANSFERIR)) {
+            Conta contaOrigem = buscarContaPorNumero(numeroContaOrigem);
+            Conta contaDestino = buscarContaPorNumero(numeroContaDestino);
 
-            // 2. Deposita no destino
-            contaDestino.depositarInterno(valor);
+            if(contaOrigem.getNumero().equals(contaDestino.getNumero())){
+                throw new ContaException("Transferência para a própria conta não é permitida.");
+            }
 
-            // 3. Registra as transações (agora com o contexto correto!)
-            Transacao tOrigem = new Transacao(LocalDateTime.now(), TipoTransacao.TRANSFERENCIA_ENVIADA, valor, "Para: " + contaDestino.getCliente().nome());
-            Transacao tDestino = new Transacao(LocalDateTime.now(), TipoTransacao.TRANSFERENCIA_RECEBIDA, valor, "De: " + contaOrigem.getCliente().nome());
+            // Trava as DUAS contas (em ordem fixa, para não haver deadlock)
+            String cpfDestino = contaDestino.getCliente().cpf();
+            try (Trava trava = contaRepository.travar(numeroContaOrigem, numeroContaDestino)) {
+                // 0. Regras antifraude (com a origem travada, os limites dela são exatos)
+                antifraude.verificar(numeroContaOrigem, cpfDestino, valor);
+
+                // Com os créditos pendentes, se a origem for uma conta quente
+                quentes.consolidar(contaOrigem);
+
+                // Estado antes das alterações: se algo falhar até a gravação, as duas contas voltam a ele
+                long saldoOrigem = contaOrigem.getSaldo();
+                int historicoOrigem = contaOrigem.getHistoricoTransacoes().size();
+                long saldoDestino = contaDestino.getSaldo();
+                int historicoDestino = contaDestino.getHistoricoTransacoes().size();
+                int envio;
+                int recebimento;
+                try {
+                    // 1. Saca da origem
+                    contaOrigem.sacarInterno(valor);
+
+                    // 2. Deposita no destino
+                    contaDestino.depositarInterno(valor);
+
+                    // 3. Registra as transações (agora com o contexto correto!)
+                    // (o histórico guarda só o nome; "Para: "/"De: " entra na leitura do extrato)
+                    contaOrigem.registrarTransacao(TipoTransacao.TRANSFERENCIA_ENVIADA, valor, contaDestino.getCliente().nome());
+                    contaDestino.registrarTransacao(TipoTransacao.TRANSFERENCIA_RECEBIDA, valor, contaOrigem.getCliente().nome());
+                    envio = contaOrigem.getHistoricoTransacoes().size() - 1;
+                    recebimento = contaDestino.getHistoricoTransacoes().size() - 1;
+
+                    // 4. Salva o estado de AMBAS as contas (juntas, numa única gravação)
+                    salvarTodas(chave, contaOrigem.getSaldo(), contaOrigem, contaDestino);
+                } catch (RuntimeException e) {
+                    contaOrigem.desfazerAlteracoes(saldoOrigem, historicoOrigem);
+                    contaDestino.desfazerAlteracoes(saldoDestino, historicoDestino);
+                    throw e;
+                }
+                metricas.registrarTransacao(TipoTransacao.TRANSFERENCIA_ENVIADA, valor, envio + 1);
+                metricas.registrarTransacao(TipoTransacao.TRANSFERENCIA_RECEBIDA, valor, recebimento + 1);
+                transacoes.publicar(contaOrigem, envio);
+                transacoes.publicar(contaDestino, recebimento);
+                antifraude.registrar(numeroContaOrigem, cpfDestino, valor);
+
+                eventos.publicar(new EventoBancario.TransferenciaRealizada(numeroContaOrigem, numeroContaDestino, valor));
+                medicao.sucesso();
+                return ResultadoOperacao.sucesso(contaOrigem.getSaldo(), envio);
+
+            } catch (SaldoInsuficienteException e) {
+                metricas.contarSaldoInsuficiente();
+                eventos.publicar(new EventoBancario.TransferenciaRecusada(
+                        numeroContaOrigem, numeroContaDestino, valor, e.getMessage()));
+                // Não precisamos relançar, o app.java já trata
+                return ResultadoOperacao.falha(e.getMessage());
+            } catch (OperacaoRecusadaException e) {
+                eventos.publicar(new EventoBancario.TransferenciaRecusada(
+                        numeroContaOrigem, numeroContaDestino, valor, e.getMessage()));
+                throw e;
+            }
+        }
+    }
 
-            contaOrigem.adicionarTransacao(tOrigem);
-            contaDestino.adicionarTransacao(tDestino);
+    // cpfDestino: só nos débitos (regras antifraude); null nos créditos e estornos
+    private ResultadoOperacao executarMovimento(ChaveIdempotencia chave, Operacao operacao, String numeroConta,
+                                                long valor, TipoTransacao tipo, String cpfDestino, String detalhe) {
+        try (Medicao medicao = metricas.medir(operacao)) {
+            Conta conta = buscarContaPorNumero(numeroConta);
+            try (Trava trava = contaRepository.travar(numeroConta)) {
+                if (cpfDestino != null) {
+                    antifraude.verificar(numeroConta, cpfDestino, valor);
+                }
+                quentes.consolidar(conta);
+                long saldoAnterior = conta.getSaldo();
+                int historicoAnterior = conta.getHistoricoTransacoes().size();
+                int transacao;
+                try {
+                    if (tipo.isCredito()) {
+                        conta.depositarInterno(valor);
+                    } else {
+                        conta.sacarInterno(valor); // Pode lançar SaldoInsuficienteException
+                    }
+                    conta.registrarTransacao(tipo, valor, detalhe);
+                    transacao = conta.getHistoricoTransacoes().size() - 1;
+                    contaRepository.salvarTodas(idempotencia, chave, conta.getSaldo(), conta);
+                } catch (RuntimeException e) {
+                    conta.desfazerAlteracoes(saldoAnterior, historicoAnterior);
+                    throw e;
+                }
+                metricas.registrarTransacao(tipo, valor, transacao + 1);
+                transacoes.publicar(conta, transacao);
+                if (cpfDestino != null) {
+                    antifraude.registrar(numeroConta, cpfDestino, valor);
+                }
+                medicao.sucesso();
+                return ResultadoOperacao.sucesso(conta.getSaldo(), transacao);
+            } catch (SaldoInsuficienteException e) {
+                metricas.contarSaldoInsuficiente();
+                throw e;
+            }
+        }
+    }
 
-            // 4. Salva o estado de AMBAS as contas
-            contaRepository.salvar(contaOrigem);
-            contaRepository.salvar(contaDestino);
-            
-            System.out.println("Transferência de R$" + valor + " realizada com sucesso.");
+    private void salvar(ChaveIdempotencia chave, long saldo, Conta conta) {
+        if (chave == null) {
+            contaRepository.salvar(conta);
+        } else {
+            contaRepository.salvarTodas(idempotencia, chave, saldo, conta);
+        }
+    }
 
-        } catch (SaldoInsuficienteException e) {
-            System.out.println("Não foi possível realizar a transferência: " + e.getMessage());
-            // Não precisamos relançar, o app.java já trata
+    private void salvarTodas(ChaveIdempotencia chave, long saldo, Conta... contas) {
+        if (chave == null) {
+            contaRepository.salvarTodas(contas);
+        } else {
+            contaRepository.salvarTodas(idempotencia, chave, saldo, contas);
         }
     }
     
-    public void exibirExtrato(String numeroConta) {
-        Conta conta = buscarContaPorNumero(numeroConta);
-        // O método exibirExtrato() da Conta já foi atualizado
-        conta.exibirExtrato();
+    /**
+     * Consulta uma página do extrato, com filtro de período e tipo.
+     * O custo depende do tamanho da página, não do tamanho do histórico.
+     * @param cursor PaginaExtrato.INICIO ou o proximoCursor da página anterior.
+     */
+    public PaginaExtrato consultarExtrato(String numeroConta, FiltroExtrato filtro, int cursor, int tamanhoPagina) {
+        try (Medicao medicao = metricas.medir(Operacao.CONSULTAR_EXTRATO)) {
+            Conta conta = buscarContaPorNumero(numeroConta);
+            // Trava só enquanto lê a página (o histórico pode estar crescendo)
+            try (Trava trava = contaRepository.travar(numeroConta)) {
+                quentes.consolidar(conta);
+                PaginaExtrato pagina = conta.consultarExtrato(filtro, cursor, tamanhoPagina);
+                medicao.sucesso();
+                return pagina;
+            }
+        }
+    }
+
+    /**
+     * Totais da conta por tipo de transação em um período (quantidade e soma),
+     * a partir do resumo mantido a cada transação (ver ResumoTransacoes):
+     * o custo depende dos dias com movimento no período, não do histórico.
+     * @param inicio Primeiro dia (inclusive).
+     * @param fim Último dia (inclusive).
+     */
+    public TotaisPorTipo consultarTotais(String numeroConta, LocalDate inicio, LocalDate fim) {
+        try (Medicao medicao = metricas.medir(Operacao.CONSULTAR_TOTAIS)) {
+            Conta conta = buscarContaPorNumero(numeroConta);
+            try (Trava trava = contaRepository.travar(numeroConta)) {
+                quentes.consolidar(conta);
+                TotaisPorTipo totais = conta.getResumoTransacoes().doPeriodo(inicio, fim);
+                medicao.sucesso();
+                return totais;
+            }
+        }
+    }
+
+    public TotaisPorTipo consultarTotais(String numeroConta, YearMonth mes) {
+        return consultarTotais(numeroConta, mes.atDay(1), mes.atEndOfMonth());
+    }
+
+    /**
+     * Totais de todas as contas no período (ver ResumoBanco). Não trava nenhuma conta:
+     * com operações em andamento, o resultado é uma soma aproximada daquele instante.
+     */
+    public TotaisPorTipo consultarTotaisDoBanco(LocalDate inicio, LocalDate fim) {
+        return resumo.doPeriodo(inicio, fim);
+    }
+
+    /**
+     * Extrato como Stream: as transações são lidas de página em página,
+     * conforme o Stream é consumido (nunca o histórico inteiro de uma vez).
+     */
+    public Stream<Transacao> streamExtrato(String numeroConta, FiltroExtrato filtro) {
+        buscarContaPorNumero(numeroConta); // Falha logo se a conta não existe
+
+        Iterator<Transacao> iterador = new Iterator<>() {
+            private Iterator<Transacao> paginaAtual = Collections.emptyIterator();
+            private int proximoCursor = PaginaExtrato.INICIO;
+
+            @Override
+            public boolean hasNext() {
+                // Busca a próxima página (pode vir vazia por causa do filtro de tipo)
+                while (!paginaAtual.hasNext() && proximoCursor != PaginaExtrato.FIM) {
+                    PaginaExtrato pagina = consultarExtrato(numeroConta, filtro, proximoCursor, TAMANHO_PAGINA_STREAM);
+                    paginaAtual = pagina.transacoes().iterator();
+                    proximoCursor = pagina.proximoCursor();
+                }
+                return paginaAtual.hasNext();
+            }
+
+            @Override
+            public Transacao next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return paginaAtual.next();
+            }
+        };
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterador, Spliterator.ORDERED | Spliterator.NONNULL), false);
     }
 }
\ No newline at end of file
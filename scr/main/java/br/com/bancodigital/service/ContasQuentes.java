@@ -0,0 +1,496 @@
+package br.com.bancodigital.service;
+
+import br.com.bancodigital.evento.EventoBancario;
+import br.com.bancodigital.evento.PublicadorDeEventos;
+import br.com.bancodigital.evento.PublicadorDeTransacoes;
+import br.com.bancodigital.exception.ContaException;
+import br.com.bancodigital.metrica.Metricas;
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.model.HistoricoTransacoes;
+import br.com.bancodigital.model.TipoTransacao;
+import br.com.bancodigital.repository.ContaRepository;
+import br.com.bancodigital.repository.Trava;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Contas "quentes": contas que recebem milhares de PIX por segundo (lojistas, fontes pagadoras).
+ * Normalmente cada PIX trava a conta de destino para somar o saldo e registrar o histórico,
+ * e todos os créditos da conta passam, um de cada vez, pela mesma trava.
+ *
+ * Numa conta marcada como quente, o PixService só trava a origem: o crédito vai para uma das
+ * "listras" da conta (saldo pendente + buffer de histórico, cada uma com a sua trava), escolhida
+ * pela thread, como as células do LongAdder. Se a listra da thread está ocupada, o crédito tenta
+ * a seguinte. Créditos de threads diferentes quase nunca disputam a mesma listra.
+ *
+ * Consolidar é levar as listras para a conta: com a conta travada, trava TODAS as listras, copia
+ * e esvazia (um retrato único: nenhum crédito fica "pela metade"), e depois soma o saldo e
+ * registra no histórico em ordem de data/hora. A consolidação acontece:
+ * - antes de todo débito e de toda consulta de extrato/totais feitos pelo ContaService e pelo
+ *   PixService (com a conta já travada): o saque, a transferência, o PIX enviado e o limite do
+ *   cheque especial (ver ContaCorrente.validarSaque) veem todos os créditos já confirmados;
+ * - a cada intervalo, numa thread de fundo (iniciarConsolidacaoPeriodica);
+ * - em consultarSaldo e no close.
+ * As transações consolidadas são salvas, publicadas (PublicadorDeTransacoes) e contadas nas
+ * Metricas nesse momento, com o tamanho que o histórico da conta tem depois de cada uma.
+ *
+ * Quem lê a conta sem passar pelos serviços (conta.getSaldo(), AgendadorDeEncargos,
+ * ProcessadorEmLote, ConciliacaoService) vê só o que já foi consolidado: um saldo menor ou
+ * igual ao real, atrasado no máximo um intervalo. Saldo e histórico continuam batendo entre si.
+ *
+ * Os créditos pendentes só existem em memória: repositórios duráveis (ContaRepository.isDuravel,
+ * ex: DuravelContaRepository) não aceitam contas quentes.
+ * Uma conta marcada continua quente até o close, que deve ser chamado depois de parar as operações.
+ */
+public class ContasQuentes implements AutoCloseable {
+
+    /**
+     * Nenhuma conta quente (os serviços usam quando não recebem um ContasQuentes).
+     */
+    public static final ContasQuentes NENHUMA =
+            new ContasQuentes(null, PublicadorDeTransacoes.NENHUM, Metricas.DESLIGADAS, 1);
+
+    private static final TipoTransacao[] TIPOS = TipoTransacao.values();
+    private static final int CAPACIDADE_INICIAL = 16;
+
+    // Chave da ordenação: (instante - menor instante) << BITS_INDICE | índice
+    private static final int BITS_INDICE = 24;
+    private static final long MASCARA_INDICE = (1L << BITS_INDICE) - 1;
+
+    private final ContaRepository contaRepository;
+    private final PublicadorDeTransacoes transacoes;
+    private final Metricas metricas;
+    private final int quantidadeDeListras;
+    private final Map<String, Creditos> quentes = new ConcurrentHashMap<>();
+    private ScheduledExecutorService consolidador;
+
+    /**
+     * Duas listras por núcleo.
+     */
+    public ContasQuentes(ContaRepository contaRepository, PublicadorDeTransacoes transacoes, Metricas metricas) {
+        this(contaRepository, transacoes, metricas, 2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param transacoes Recebe as transações consolidadas (o mesmo dos serviços, ex: FluxoDeTransacoes).
+     * @param metricas Conta os créditos consolidados (a mesma dos serviços: o PixService não conta
+     *                 o recebimento numa conta quente).
+     * @param quantidadeDeListras Listras por conta quente; arredondado para a próxima potência de 2.
+     */
+    public ContasQuentes(ContaRepository contaRepository, PublicadorDeTransacoes transacoes, Metricas metricas,
+                         int quantidadeDeListras) {
+        if (quantidadeDeListras <= 0) {
+            throw new IllegalArgumentException("A quantidade de listras deve ser positiva.");
+        }
+        this.contaRepository = contaRepository;
+        this.transacoes = transacoes;
+        this.metricas = metricas;
+        this.quantidadeDeListras = quantidadeDeListras == 1 ? 1 : Integer.highestOneBit(quantidadeDeListras - 1) << 1;
+    }
+
+    /**
+     * Passa a acumular os créditos PIX da conta em listras.
+     * @throws ContaException se a conta não existe, se o repositório é durável ou se este
+     *         é o ContasQuentes.NENHUMA.
+     */
+    public void marcar(String numeroConta) {
+        if (contaRepository == null) {
+            throw new ContaException("ContasQuentes.NENHUMA não aceita contas quentes.");
+        }
+        if (contaRepository.isDuravel()) {
+            throw new ContaException("Contas quentes não são aceitas no repositório durável "
+                    + "(os créditos pendentes não seriam gravados).");
+        }
+        Conta conta = contaRepository.buscarPorNumero(numeroConta)
+                .orElseThrow(() -> new ContaException("Conta número " + numeroConta + " não encontrada."));
+        try (Trava trava = contaRepository.travar(numeroConta)) {
+            quentes.computeIfAbsent(numeroConta, numero -> new Creditos(quantidadeDeListras, conta.getSaldo()));
+        }
+    }
+
+    public boolean isQuente(String numeroConta) {
+        return quentes.containsKey(numeroConta);
+    }
+
+    /**
+     * Saldo exato: trava a conta e consolida antes de ler.
+     */
+    public long consultarSaldo(String numeroConta) {
+        Conta conta = contaRepository.buscarPorNumero(numeroConta)
+                .orElseThrow(() -> new ContaException("Conta número " + numeroConta + " não encontrada."));
+        try (Trava trava = contaRepository.travar(numeroConta)) {
+            consolidar(conta);
+            return conta.getSaldo();
+        }
+    }
+
+    /**
+     * @return quanto a conta já recebeu e ainda não foi consolidado (uma soma aproximada
+     *         se houver créditos em andamento, como o LongAdder.sum).
+     */
+    public long getPendente(String numeroConta) {
+        Creditos creditos = quentes.get(numeroConta);
+        return creditos == null ? 0 : creditos.pendente();
+    }
+
+    /**
+     * Consolida todas as contas quentes a cada intervalo, numa thread de fundo.
+     * @param eventos Recebe as falhas de consolidação (a próxima tenta de novo).
+     */
+    public synchronized void iniciarConsolidacaoPeriodica(Duration intervalo, PublicadorDeEventos eventos) {
+        if (consolidador != null) {
+            throw new IllegalStateException("A consolidação periódica já foi iniciada.");
+        }
+        consolidador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "consolidador-contas-quentes");
+            thread.setDaemon(true);
+            return thread;
+        });
+        consolidador.scheduleWithFixedDelay(() -> {
+            try {
+                consolidarTodas();
+            } catch (RuntimeException e) {
+                eventos.publicar(new EventoBancario.FalhaEmSegundoPlano("ContasQuentes",
+                        "Falha na consolidação: " + e.getMessage()));
+            }
+        }, intervalo.toMillis(), intervalo.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Consolida cada conta quente (travando uma de cada vez).
+     */
+    public void consolidarTodas() {
+        for (String numeroConta : quentes.keySet()) {
+            contaRepository.buscarPorNumero(numeroConta).ifPresent(conta -> {
+                try (Trava trava = contaRepository.travar(numeroConta)) {
+                    consolidar(conta);
+                }
+            });
+        }
+    }
+
+    /**
+     * Para a consolidação periódica e consolida o que ficou pendente.
+     */
+    @Override
+    public synchronized void close() {
+        if (consolidador != null) {
+            consolidador.shutdown();
+            try {
+                consolidador.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            consolidador = null;
+        }
+        if (contaRepository != null) {
+            consolidarTodas();
+        }
+    }
+
+    // --- Usado pelo ContaService e pelo PixService ---
+
+    /**
+     * @return as listras da conta, ou null se ela não é quente.
+     */
+    Creditos creditos(Conta conta) {
+        return quentes.isEmpty() ? null : quentes.get(conta.getNumero());
+    }
+
+    /**
+     * Leva os créditos pendentes para a conta, que deve estar travada por quem chama.
+     * As transações consolidadas são salvas e publicadas. Se a gravação falhar, a conta
+     * volta ao que era e os créditos voltam a ficar pendentes (a próxima consolidação tenta de novo).
+     * @return quantas transações foram consolidadas.
+     */
+    int consolidar(Conta conta) {
+        Creditos creditos = creditos(conta);
+        if (creditos == null) {
+            return 0;
+        }
+        long saldoAnterior = conta.getSaldo();
+        int historicoAnterior = conta.getHistoricoTransacoes().size();
+        int consolidadas = creditos.consolidar(conta);
+        if (consolidadas == 0) {
+            return 0;
+        }
+        try {
+            contaRepository.salvar(conta);
+        } catch (RuntimeException e) {
+            conta.desfazerAlteracoes(saldoAnterior, historicoAnterior);
+            creditos.devolver();
+            throw e;
+        }
+        creditos.confirmar(conta);
+        HistoricoTransacoes historico = conta.getHistoricoTransacoes();
+        for (int i = historicoAnterior; i < historicoAnterior + consolidadas; i++) {
+            transacoes.publicar(conta, i);
+            metricas.registrarTransacao(historico.tipo(i), historico.valor(i), i + 1);
+        }
+        return consolidadas;
+    }
+
+    /**
+     * As listras de uma conta quente, e o espaço (reaproveitado) da consolidação.
+     */
+    static final class Creditos {
+
+        private final Listra[] listras;
+        private final int mascara;
+
+        // Saldo que a conta terá depois de consolidar tudo o que foi aceito: a base (o saldo visto na
+        // última consolidação, ou 0 se negativo) + os créditos reservados ANTES do débito da origem.
+        // Depois do débito, creditar não pode mais falhar (o saldo pendente nunca passa do long).
+        // Um contador só: reservar não lê o saldo da conta, que muda sob a trava dela.
+        // Créditos feitos direto na conta (ex: um depósito) entram na base na próxima consolidação
+        private final AtomicLong projetado;
+        private long base; // Só com a conta travada
+
+        // Usados só na consolidação, com a conta travada. Guardam os créditos retirados das listras
+        // até a gravação (confirmar), para devolvê-los se ela falhar (devolver)
+        private long[] chaves = new long[0];
+        private long[] instantes = new long[0];
+        private byte[] tipos = new byte[0];
+        private long[] valores = new long[0];
+        private String[] detalhes = new String[0];
+        private int retirados;
+        private long totalRetirado;
+
+        /**
+         * @param saldoConta Saldo da conta, lido com ela travada.
+         */
+        Creditos(int quantidadeDeListras, long saldoConta) {
+            // Cada listra aloca os próprios buffers ao ser criada: listras vizinhas ficam
+            // separadas na memória por eles (não disputam a mesma linha de cache)
+            this.listras = new Listra[quantidadeDeListras];
+            for (int i = 0; i < quantidadeDeListras; i++) {
+                listras[i] = new Listra();
+            }
+            this.mascara = quantidadeDeListras - 1;
+            this.base = Math.max(saldoConta, 0);
+            this.projetado = new AtomicLong(base);
+        }
+
+        /**
+         * Reserva espaço para um crédito, sem travar a conta: chame antes de debitar a origem e,
+         * se o débito falhar, devolva com liberar.
+         * @throws ContaException se a conta (saldo + pendente + valor) passaria do maior saldo possível.
+         */
+        void reservar(long valor) {
+            long atual;
+            long novo;
+            do {
+                atual = projetado.get();
+                novo = atual + valor;
+                if (novo < atual) {
+                    throw new ContaException("Valor fora do limite para a conta de destino.");
+                }
+            } while (!projetado.compareAndSet(atual, novo));
+        }
+
+        void liberar(long valor) {
+            projetado.addAndGet(-valor);
+        }
+
+        /**
+         * Acumula um crédito já reservado (sem travar a conta).
+         */
+        void creditar(TipoTransacao tipo, long valor, String detalhe) {
+            long instante = System.currentTimeMillis();
+            Listra listra = travarListra();
+            try {
+                listra.adicionar(instante, (byte) tipo.ordinal(), valor, detalhe);
+            } finally {
+                listra.unlock();
+            }
+        }
+
+        // A listra da thread; se estiver ocupada, a primeira livre das seguintes (ou espera a da thread)
+        private Listra travarListra() {
+            long id = Thread.currentThread().threadId();
+            int inicio = (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & mascara;
+            for (int i = 0; i <= mascara; i++) {
+                Listra listra = listras[(inicio + i) & mascara];
+                if (listra.tryLock()) {
+                    return listra;
+                }
+            }
+            Listra listra = listras[inicio];
+            listra.lock();
+            return listra;
+        }
+
+        long pendente() {
+            long soma = 0;
+            for (Listra listra : listras) {
+                listra.lock();
+                try {
+                    soma += listra.pendente;
+                } finally {
+                    listra.unlock();
+                }
+            }
+            return soma;
+        }
+
+        int consolidar(Conta conta) {
+            // 0. O que mudou no saldo sem passar pelas listras (débitos, depósitos) entra na base
+            atualizarBase(conta.getSaldo(), 0);
+
+            // 1. Retrato de todas as listras ao mesmo tempo (os créditos param só durante a cópia)
+            int quantidade = 0;
+            long total = 0;
+            for (Listra listra : listras) {
+                listra.lock();
+            }
+            try {
+                for (Listra listra : listras) {
+                    quantidade += listra.tamanho;
+                    total += listra.pendente; // não estoura: limitado pelo projetado
+                }
+                if (quantidade == 0) {
+                    return 0;
+                }
+                // Confere antes de esvaziar as listras: se o saldo não comporta, os créditos
+                // continuam pendentes (nada se perde)
+                Math.addExact(conta.getSaldo(), total);
+                garantirCapacidade(quantidade);
+                int posicao = 0;
+                for (Listra listra : listras) {
+                    int tamanho = listra.tamanho;
+                    System.arraycopy(listra.instantes, 0, instantes, posicao, tamanho);
+                    System.arraycopy(listra.tipos, 0, tipos, posicao, tamanho);
+                    System.arraycopy(listra.valores, 0, valores, posicao, tamanho);
+                    System.arraycopy(listra.detalhes, 0, detalhes, posicao, tamanho);
+                    posicao += tamanho;
+                    listra.tamanho = 0;
+                    listra.pendente = 0;
+                }
+            } finally {
+                for (Listra listra : listras) {
+                    listra.unlock();
+                }
+            }
+
+            // 2. Histórico em ordem de data/hora (cada listra já está em ordem), depois o saldo
+            ordenar(quantidade);
+            for (int i = 0; i < quantidade; i++) {
+                int indice = (int) (chaves[i] & MASCARA_INDICE);
+                conta.registrarTransacao(instantes[indice], TIPOS[tipos[indice]], valores[indice], detalhes[indice]);
+            }
+            conta.depositarInterno(total);
+            retirados = quantidade;
+            totalRetirado = total;
+            return quantidade;
+        }
+
+        /**
+         * Os créditos da última consolidação foram gravados: deixam de ser reservados.
+         */
+        void confirmar(Conta conta) {
+            atualizarBase(conta.getSaldo(), totalRetirado);
+            esquecerRetirados();
+        }
+
+        /**
+         * A gravação da última consolidação falhou (a conta já foi desfeita): os créditos
+         * voltam para uma listra, continuam reservados e entram na próxima consolidação.
+         */
+        void devolver() {
+            Listra listra = listras[0];
+            listra.lock();
+            try {
+                for (int i = 0; i < retirados; i++) {
+                    listra.adicionar(instantes[i], tipos[i], valores[i], detalhes[i]);
+                }
+            } finally {
+                listra.unlock();
+            }
+            esquecerRetirados();
+        }
+
+        // A base passa a ser o saldo informado; consolidado: o que saiu das reservas para o saldo
+        private void atualizarBase(long saldoConta, long consolidado) {
+            long novaBase = Math.max(saldoConta, 0);
+            long ajuste = novaBase - base - consolidado;
+            if (ajuste != 0) {
+                // Satura no maior saldo possível: depois disso nenhuma reserva é aceita
+                projetado.getAndUpdate(atual -> ajuste > 0 && atual > Long.MAX_VALUE - ajuste
+                        ? Long.MAX_VALUE : atual + ajuste);
+            }
+            base = novaBase;
+        }
+
+        private void esquecerRetirados() {
+            Arrays.fill(detalhes, 0, retirados, null);
+            retirados = 0;
+            totalRetirado = 0;
+        }
+
+        // Ordena os índices pelo instante (chaves[i] & MASCARA_INDICE)
+        private void ordenar(int quantidade) {
+            long menor = Long.MAX_VALUE;
+            long maior = Long.MIN_VALUE;
+            for (int i = 0; i < quantidade; i++) {
+                menor = Math.min(menor, instantes[i]);
+                maior = Math.max(maior, instantes[i]);
+            }
+            boolean cabe = quantidade <= MASCARA_INDICE && maior - menor < 1L << (63 - BITS_INDICE);
+            for (int i = 0; i < quantidade; i++) {
+                chaves[i] = cabe ? (instantes[i] - menor) << BITS_INDICE | i : i;
+            }
+            if (cabe) {
+                Arrays.sort(chaves, 0, quantidade);
+            }
+            // Senão fica na ordem das listras (o histórico ajusta os instantes fora de ordem)
+        }
+
+        private void garantirCapacidade(int quantidade) {
+            if (chaves.length < quantidade) {
+                int capacidade = Math.max(quantidade, chaves.length + (chaves.length >> 1));
+                chaves = new long[capacidade];
+                instantes = new long[capacidade];
+                tipos = new byte[capacidade];
+                valores = new long[capacidade];
+                detalhes = new String[capacidade];
+            }
+        }
+    }
+
+    /**
+     * Saldo pendente e buffer de histórico de uma listra (campos protegidos pela própria trava).
+     */
+    private static final class Listra extends ReentrantLock {
+
+        private long pendente;
+        private int tamanho;
+        private long[] instantes = new long[CAPACIDADE_INICIAL];
+        private byte[] tipos = new byte[CAPACIDADE_INICIAL];
+        private long[] valores = new long[CAPACIDADE_INICIAL];
+        private String[] detalhes = new String[CAPACIDADE_INICIAL];
+
+        void adicionar(long instante, byte tipo, long valor, String detalhe) {
+            if (tamanho == instantes.length) {
+                int capacidade = tamanho << 1;
+                instantes = Arrays.copyOf(instantes, capacidade);
+                tipos = Arrays.copyOf(tipos, capacidade);
+                valores = Arrays.copyOf(valores, capacidade);
+                detalhes = Arrays.copyOf(detalhes, capacidade);
+            }
+            instantes[tamanho] = instante;
+            tipos[tamanho] = tipo;
+            valores[tamanho] = valor;
+            detalhes[tamanho] = detalhe;
+            tamanho++;
+            pendente += valor;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package br.com.bancodigital.service;
+
+import br.com.bancodigital.antifraude.MotorAntifraude;
+import br.com.bancodigital.evento.PublicadorDeEventos;
+import br.com.bancodigital.evento.PublicadorDeTransacoes;
+import br.com.bancodigital.metrica.Metricas;
+
+/**
+ * Colaboradores opcionais do ContaService e do PixService, num objeto só
+ * (em vez de um construtor a mais nos serviços para cada colaborador novo).
+ * O que não for informado fica desligado:
+ *
+ * <pre>
+ * Dependencias dependencias = Dependencias.novas()
+ *         .eventos(eventos)
+ *         .metricas(metricas)
+ *         .antifraude(antifraude)
+ *         .construir();
+ * ContaService contaService = new ContaService(repositorio, indices, dependencias);
+ * PixService pixService = new PixService(repositorio, indices, dependencias);
+ * </pre>
+ *
+ * Imutável: o mesmo objeto pode ser usado pelos dois serviços.
+ * Os outros modos de execução (MotorSequencial, ProcessadorEmLote, ProcessadorOtimista)
+ * usam só parte dele (ver o construtor de cada um).
+ */
+public final class Dependencias {
+
+    /**
+     * Tudo desligado (o que os serviços usam quando recebem só o repositório e os índices).
+     */
+    public static final Dependencias NENHUMA = novas().construir();
+
+    private final PublicadorDeEventos eventos;
+    private final Metricas metricas;
+    private final MotorAntifraude antifraude;
+    private final PublicadorDeTransacoes transacoes;
+    private final ContasQuentes quentes;
+
+    private Dependencias(Construtor construtor) {
+        this.eventos = construtor.eventos;
+        this.metricas = construtor.metricas;
+        this.antifraude = construtor.antifraude;
+        this.transacoes = construtor.transacoes;
+        this.quentes = construtor.quentes;
+    }
+
+    public static Construtor novas() {
+        return new Construtor();
+    }
+
+    /**
+     * Recebe as mensagens das operações (ver EventoBancario).
+     */
+    public PublicadorDeEventos getEventos() {
+        return eventos;
+    }
+
+    /**
+     * Mede a duração de cada operação.
+     */
+    public Metricas getMetricas() {
+        return metricas;
+    }
+
+    /**
+     * Regras aplicadas a transferências e PIX.
+     */
+    public MotorAntifraude getAntifraude() {
+        return antifraude;
+    }
+
+    /**
+     * Recebe cada transação registrada, depois de salva (ex: FluxoDeTransacoes).
+     */
+    public PublicadorDeTransacoes getTransacoes() {
+        return transacoes;
+    }
+
+    /**
+     * Contas que recebem créditos em listras (deve usar o mesmo PublicadorDeTransacoes e as mesmas Metricas).
+     */
+    public ContasQuentes getQuentes() {
+        return quentes;
+    }
+
+    /**
+     * Monta as Dependencias; cada colaborador começa desligado.
+     */
+    public static final class Construtor {
+
+        private PublicadorDeEventos eventos = PublicadorDeEventos.NENHUM;
+        private Metricas metricas = Metricas.DESLIGADAS;
+        private MotorAntifraude antifraude = MotorAntifraude.DESLIGADO;
+        private PublicadorDeTransacoes transacoes = PublicadorDeTransacoes.NENHUM;
+        private ContasQuentes quentes = ContasQuentes.NENHUMA;
+
+        private Construtor() {
+        }
+
+        public Construtor eventos(PublicadorDeEventos eventos) {
+            this.eventos = eventos;
+            return this;
+        }
+
+        public Construtor metricas(Metricas metricas) {
+            this.metricas = metricas;
+            return this;
+        }
+
+        public Construtor antifraude(MotorAntifraude antifraude) {
+            this.antifraude = antifraude;
+            return this;
+        }
+
+        public Construtor transacoes(PublicadorDeTransacoes transacoes) {
+            this.transacoes = transacoes;
+            return this;
+        }
+
+        public Construtor quentes(ContasQuentes quentes) {
+            this.quentes = quentes;
+            return this;
+        }
+
+        public Dependencias construir() {
+            return new Dependencias(this);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package br.com.bancodigital.service;
+
+import br.com.bancodigital.exception.ContaException;
+import br.com.bancodigital.exception.OperacaoRecusadaException;
+import br.com.bancodigital.exception.SaldoInsuficienteException;
+import br.com.bancodigital.repository.ChaveIdempotencia;
+import br.com.bancodigital.repository.TabelaIdempotencia;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Executa uma operação no máximo uma vez por chave de idempotência.
+ *
+ * - Chave já executada: devolve o resultado guardado, sem executar de novo.
+ * - Mesma chave em execução em outra thread: espera e devolve o resultado dela.
+ * - Chave já usada em OUTRA operação (outro tipo, contas ou valor, ver
+ *   ChaveIdempotencia.impressaoDaOperacao): recusa, sem executar e sem tocar no resultado guardado.
+ * - Sucesso: o serviço salva as contas com repositorio.salvarTodas(tabela, chave, saldo, ...),
+ *   que guarda o resultado junto com as contas.
+ * - Falha de negócio (saldo insuficiente, recusa antifraude, conta inexistente...): o resultado é a falha, e ela é guardada.
+ * - Falha de infraestrutura (ex: disco): nada é guardado e a exceção sobe; o cliente pode tentar de novo.
+ */
+final class ExecucaoIdempotente {
+
+    private ExecucaoIdempotente() {
+    }
+
+    /**
+     * @param impressao A impressão da operação (ChaveIdempotencia.impressaoDaOperacao).
+     */
+    static ResultadoOperacao executar(TabelaIdempotencia tabela, String chaveIdempotencia, long impressao,
+                                      Function<ChaveIdempotencia, ResultadoOperacao> operacao) {
+        ChaveIdempotencia chave = ChaveIdempotencia.de(chaveIdempotencia);
+        TabelaIdempotencia.Registro anterior = tabela.reservar(chave, impressao);
+        if (anterior != null) {
+            if (!anterior.mesmaOperacao(impressao)) {
+                return ResultadoOperacao.falha("Chave de idempotência já usada em outra operação.");
+            }
+            return anterior.sucesso()
+                    ? ResultadoOperacao.sucesso(anterior.saldo())
+                    : ResultadoOperacao.falha(anterior.motivoFalha());
+        }
+
+        try {
+            ResultadoOperacao resultado = operacao.apply(chave);
+            if (!resultado.sucesso()) {
+                tabela.registrarFalha(chave, resultado.motivoFalha());
+            }
+            return resultado;
+        } catch (RuntimeException e) {
+            if (!falhaDeNegocio(e)) {
+                throw e;
+            }
+            tabela.registrarFalha(chave, e.getMessage());
+            return ResultadoOperacao.falha(e.getMessage());
+        } finally {
+            // Sem efeito se o resultado já foi registrado; senão, solta quem está esperando
+            tabela.liberar(chave);
+        }
+    }
+
+    /**
+     * Executa sem chave, com a mesma regra de falhas: as de negócio viram resultado,
+     * as de infraestrutura sobem (usado pelo ProcessadorAssincrono).
+     */
+    static ResultadoOperacao semChave(Supplier<ResultadoOperacao> operacao) {
+        try {
+            return operacao.get();
+        } catch (RuntimeException e) {
+            if (!falhaDeNegocio(e)) {
+                throw e;
+            }
+            return ResultadoOperacao.falha(e.getMessage());
+        }
+    }
+
+    private static boolean falhaDeNegocio(RuntimeException e) {
+        if (e instanceof SaldoInsuficienteException || e instanceof OperacaoRecusadaException) {
+            return true;
+        }
+        // ContaException com causa = falha de gravação (ver DuravelContaRepository): não é resultado da operação
+        return e instanceof ContaException && e.getCause() == null;
+    }
+}
@@ -0,0 +1,369 @@
+package br.com.bancodigital.service;
+
+import br.com.bancodigital.antifraude.MotorAntifraude;
+import br.com.bancodigital.evento.EventoBancario;
+import br.com.bancodigital.evento.PublicadorDeEventos;
+import br.com.bancodigital.exception.ContaException;
+import br.com.bancodigital.exception.SaldoInsuficienteException;
+import br.com.bancodigital.model.ChavePix;
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.model.TipoTransacao;
+import br.com.bancodigital.repository.ContaRepository;
+import br.com.bancodigital.repository.DiretorioChavesPix;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Modo de execução alternativo ao ContaService/PixService, no estilo LMAX:
+ * os comandos (depositar, sacar, transferir, realizarPix) são publicados em um
+ * buffer circular pré-alocado e aplicados por UMA ÚNICA thread de negócio,
+ * dona de todos os saldos. Sem travas nas contas.
+ *
+ * Estágios:
+ * 1. Produtores (qualquer thread): reservam uma posição, preenchem e publicam.
+ * 2. Thread de negócio: aplica as regras (Conta.sacarInterno etc.) e inicia a
+ *    gravação com salvarTodasAssincrono (não espera o disco).
+ * 3. Thread posterior (downstream): espera a gravação, completa o futuro de quem
+ *    enviou o comando e avisa os ouvintes (ex: notificações). Só então a
+ *    posição do buffer é liberada para reuso.
+ *
+ * Transferências e PIX passam pelas regras antifraude das Dependencias, se houver: como só
+ * a thread de negócio move o dinheiro, os limites são exatos, e o envio é registrado nos
+ * contadores assim que aplicado (antes de a gravação terminar). A recusa é o resultado do comando.
+ *
+ * IMPORTANTE: neste modo, todas as movimentações de dinheiro devem passar pelo
+ * motor (a thread de negócio não trava as contas). Não envie comandos
+ * concorrentemente com o close().
+ */
+public class MotorSequencial implements AutoCloseable {
+
+    public enum TipoComando {
+        DEPOSITO,
+        SAQUE,
+        TRANSFERENCIA,
+        PIX
+    }
+
+    /**
+     * O que os ouvintes recebem depois que um comando foi processado e gravado.
+     * @param destino Número da conta de destino (transferência) ou CPF (PIX); null nos demais.
+     */
+    public record ComandoProcessado(
+        long sequencia,
+        TipoComando tipo,
+        String numeroConta,
+        String destino,
+        long valor,
+        ResultadoOperacao resultado
+    ) {
+    }
+
+    // Uma posição do buffer (objeto reutilizado, sem alocação por comando)
+    private static final class Comando {
+        TipoComando tipo;
+        String numeroConta;
+        String destino;
+        long valor;
+        CompletableFuture<ResultadoOperacao> futuro;
+        ResultadoOperacao resultado;
+        CompletableFuture<Void> gravado;
+
+        void limpar() {
+            numeroConta = null;
+            destino = null;
+            futuro = null;
+            resultado = null;
+            gravado = null;
+        }
+    }
+
+    private static final int ESPERAS_ATIVAS = 100;
+    // Thread de negócio ou posterior dormindo sem trabalho: quem publica a acorda (unpark);
+    // o tempo máximo é só uma rede de segurança
+    private static final long ESPERA_MAXIMA_NS = 1_000_000;
+
+    private final ContaRepository contaRepository;
+    private final DiretorioChavesPix chavesPix;
+    private final Comando[] buffer;
+    private final int mascara;
+
+    // Sequência publicada em cada posição (-1 = vazia)
+    private final AtomicLongArray publicado;
+    private final AtomicLong proximaReserva = new AtomicLong();
+    private volatile long processado = -1; // Última sequência aplicada pela thread de negócio
+    private volatile long liberado = -1;   // Última sequência finalizada pela thread posterior
+    // true enquanto a thread está (ou vai ficar) parada em parkNanos, esperando trabalho
+    private volatile boolean negocioDormindo;
+    private volatile boolean posteriorDormindo;
+
+    private final PublicadorDeEventos eventos;
+    private final MotorAntifraude antifraude;
+    private final List<Consumer<ComandoProcessado>> ouvintes = new CopyOnWriteArrayList<>();
+    private final Thread threadNegocio;
+    private final Thread threadPosterior;
+    private volatile boolean fechado;
+
+    /**
+     * @param chavesPix As chaves PIX do repositório (ver IndicesDeContas), para resolver os destinos.
+     * @param capacidade Tamanho do buffer; arredondado para a próxima potência de 2.
+     */
+    public MotorSequencial(ContaRepository contaRepository, DiretorioChavesPix chavesPix, int capacidade) {
+        this(contaRepository, chavesPix, capacidade, Dependencias.NENHUMA);
+    }
+
+    /**
+     * @param dependencias Do motor, só os eventos (recebem as falhas dos ouvintes) e o antifraude são usados.
+     */
+    public MotorSequencial(ContaRepository contaRepository, DiretorioChavesPix chavesPix, int capacidade,
+                           Dependencias dependencias) {
+        if (capacidade <= 0) {
+            throw new IllegalArgumentException("Capacidade deve ser positiva.");
+        }
+        int tamanho = Math.max(2, Integer.highestOneBit(capacidade - 1) << 1);
+        this.contaRepository = contaRepository;
+        this.chavesPix = chavesPix;
+        this.eventos = dependencias.getEventos();
+        this.antifraude = dependencias.getAntifraude();
+        this.buffer = new Comando[tamanho];
+        this.publicado = new AtomicLongArray(tamanho);
+        for (int i = 0; i < tamanho; i++) {
+            buffer[i] = new Comando();
+            publicado.set(i, -1);
+        }
+        this.mascara = tamanho - 1;
+
+        this.threadNegocio = new Thread(this::executarNegocio, "motor-negocio");
+        this.threadPosterior = new Thread(this::executarPosterior, "motor-posterior");
+        threadNegocio.setDaemon(true);
+        threadPosterior.setDaemon(true);
+        threadNegocio.start();
+        threadPosterior.start();
+    }
+
+    /**
+     * Registra um ouvinte, chamado (pela thread posterior) a cada comando processado.
+     */
+    public void adicionarOuvinte(Consumer<ComandoProcessado> ouvinte) {
+        ouvintes.add(ouvinte);
+    }
+
+    // --- API (mesmas operações do ContaService/PixService, valores em centavos) ---
+
+    public CompletableFuture<ResultadoOperacao> depositar(String numeroConta, long valor) {
+        return publicar(TipoComando.DEPOSITO, numeroConta, null, valor);
+    }
+
+    public CompletableFuture<ResultadoOperacao> sacar(String numeroConta, long valor) {
+        return publicar(TipoComando.SAQUE, numeroConta, null, valor);
+    }
+
+    public CompletableFuture<ResultadoOperacao> transferir(String numeroContaOrigem, String numeroContaDestino, long valor) {
+        return publicar(TipoComando.TRANSFERENCIA, numeroContaOrigem, numeroContaDestino, valor);
+    }
+
+    public CompletableFuture<ResultadoOperacao> realizarPix(String numeroContaOrigem, String chaveDestino, long valor) {
+        return publicar(TipoComando.PIX, numeroContaOrigem, chaveDestino, valor);
+    }
+
+    // --- Estágio 1: produtores ---
+
+    private CompletableFuture<ResultadoOperacao> publicar(TipoComando tipo, String numeroConta, String destino, long valor) {
+        CompletableFuture<ResultadoOperacao> futuro = new CompletableFuture<>();
+        if (fechado) {
+            futuro.completeExceptionally(new ContaException("Motor de execução encerrado."));
+            return futuro;
+        }
+
+        long sequencia = proximaReserva.getAndIncrement();
+        // Buffer cheio: espera a thread posterior liberar a posição (contrapressão)
+        for (int tentativas = 0; sequencia - buffer.length > liberado; tentativas++) {
+            esperar(tentativas);
+        }
+
+        Comando comando = buffer[(int) sequencia & mascara];
+        comando.tipo = tipo;
+        comando.numeroConta = numeroConta;
+        comando.destino = destino;
+        comando.valor = valor;
+        comando.futuro = futuro;
+        publicado.set((int) sequencia & mascara, sequencia); // Escrita volátil: publica o comando
+        if (negocioDormindo) {
+            LockSupport.unpark(threadNegocio); // Sem esperar o fim do parkNanos
+        }
+        return futuro;
+    }
+
+    // --- Estágio 2: thread de negócio (única dona dos saldos) ---
+
+    private void executarNegocio() {
+        long proxima = 0;
+        int tentativas = 0;
+        while (true) {
+            if (publicado.get((int) proxima & mascara) != proxima) {
+                if (fechado && proxima == proximaReserva.get()) {
+                    return; // Nada reservado nem pendente
+                }
+                if (tentativas++ < ESPERAS_ATIVAS) {
+                    Thread.onSpinWait();
+                } else {
+                    // Avisa antes de conferir de novo: ou o produtor vê o aviso (e acorda a thread),
+                    // ou esta thread vê o comando publicado (as duas escritas são voláteis)
+                    negocioDormindo = true;
+                    if (publicado.get((int) proxima & mascara) != proxima && !fechado) {
+                        LockSupport.parkNanos(ESPERA_MAXIMA_NS);
+                    }
+                    negocioDormindo = false;
+                }
+                continue;
+            }
+            tentativas = 0;
+
+            Comando comando = buffer[(int) proxima & mascara];
+            try {
+                comando.resultado = aplicar(comando);
+            } catch (RuntimeException e) {
+                comando.resultado = ResultadoOperacao.falha(e.getMessage());
+                comando.gravado = CompletableFuture.completedFuture(null);
+            }
+            processado = proxima++;
+            if (posteriorDormindo) {
+                LockSupport.unpark(threadPosterior);
+            }
+        }
+    }
+
+    private ResultadoOperacao aplicar(Comando comando) {
+        if (comando.valor <= 0) {
+            comando.gravado = CompletableFuture.completedFuture(null);
+            return ResultadoOperacao.falha("Valor deve ser positivo.");
+        }
+        Conta conta = contaRepository.buscarPorNumero(comando.numeroConta)
+                .orElseThrow(() -> new ContaException("Conta número " + comando.numeroConta + " não encontrada."));
+        long valor = comando.valor;
+
+        try {
+            switch (comando.tipo) {
+                case DEPOSITO -> {
+                    conta.depositarInterno(valor);
+                    conta.registrarTransacao(TipoTransacao.DEPOSITO, valor, "Depósito em conta");
+                    comando.gravado = contaRepository.salvarTodasAssincrono(conta);
+                }
+                case SAQUE -> {
+                    conta.sacarInterno(valor);
+                    conta.registrarTransacao(TipoTransacao.SAQUE, valor, "Saque em terminal/app");
+                    comando.gravado = contaRepository.salvarTodasAssincrono(conta);
+                }
+                case TRANSFERENCIA -> {
+                    Conta destino = contaRepository.buscarPorNumero(comando.destino)
+                            .orElseThrow(() -> new ContaException("Conta número " + comando.destino + " não encontrada."));
+                    mover(conta, destino, valor, TipoTransacao.TRANSFERENCIA_ENVIADA, TipoTransacao.TRANSFERENCIA_RECEBIDA);
+                    comando.gravado = contaRepository.salvarTodasAssincrono(conta, destino);
+                }
+                case PIX -> {
+                    ChavePix chave = ChavePix.de(comando.destino);
+                    Conta destino = chavesPix.resolver(chave, contaRepository::buscarPorNumero)
+                            .orElseThrow(() -> new ContaException("Nenhuma conta encontrada para a chave PIX " + chave));
+                    mover(conta, destino, valor, TipoTransacao.PIX_ENVIADO, TipoTransacao.PIX_RECEBIDO);
+                    comando.gravado = contaRepository.salvarTodasAssincrono(conta, destino);
+                }
+            }
+            return ResultadoOperacao.sucesso(conta.getSaldo(), conta.getHistoricoTransacoes().size() - 1);
+        } catch (SaldoInsuficienteException e) {
+            comando.gravado = CompletableFuture.completedFuture(null);
+            return ResultadoOperacao.falha(e.getMessage());
+        }
+    }
+
+    private void mover(Conta origem, Conta destino, long valor, TipoTransacao envio, TipoTransacao recebimento) {
+        if (origem.getNumero().equals(destino.getNumero())) {
+            throw new ContaException("Transferência para a própria conta não é permitida.");
+        }
+        String cpfDestino = destino.getCliente().cpf();
+        antifraude.verificar(origem.getNumero(), cpfDestino, valor); // Recusa: OperacaoRecusadaException
+        origem.sacarInterno(valor);
+        destino.depositarInterno(valor);
+        origem.registrarTransacao(envio, valor, destino.getCliente().nome());
+        destino.registrarTransacao(recebimento, valor, origem.getCliente().nome());
+        antifraude.registrar(origem.getNumero(), cpfDestino, valor);
+    }
+
+    // --- Estágio 3: thread posterior (durabilidade, resposta e notificações) ---
+
+    private void executarPosterior() {
+        long proxima = 0;
+        int tentativas = 0;
+        while (true) {
+            if (proxima > processado) {
+                if (fechado && proxima == proximaReserva.get()) {
+                    return;
+                }
+                if (tentativas++ < ESPERAS_ATIVAS) {
+                    Thread.onSpinWait();
+                } else {
+                    posteriorDormindo = true; // Mesmo protocolo da thread de negócio
+                    if (proxima > processado && !fechado) {
+                        LockSupport.parkNanos(ESPERA_MAXIMA_NS);
+                    }
+                    posteriorDormindo = false;
+                }
+                continue;
+            }
+            tentativas = 0;
+
+            Comando comando = buffer[(int) proxima & mascara];
+            ResultadoOperacao resultado = comando.resultado;
+            try {
+                comando.gravado.join(); // Group commit: muitos comandos compartilham o mesmo fsync
+                comando.futuro.complete(resultado);
+            } catch (RuntimeException e) {
+                comando.futuro.completeExceptionally(new ContaException("Falha ao gravar: " + e.getMessage(), e));
+            }
+
+            if (!ouvintes.isEmpty()) {
+                ComandoProcessado processadoEvento = new ComandoProcessado(proxima, comando.tipo,
+                        comando.numeroConta, comando.destino, comando.valor, resultado);
+                for (Consumer<ComandoProcessado> ouvinte : ouvintes) {
+                    try {
+                        ouvinte.accept(processadoEvento);
+                    } catch (RuntimeException e) {
+                        eventos.publicar(new EventoBancario.FalhaEmSegundoPlano("Motor", "Erro em ouvinte: " + e.getMessage()));
+                    }
+                }
+            }
+
+            comando.limpar();
+            liberado = proxima++; // Libera a posição para os produtores
+        }
+    }
+
+    // Produtor esperando uma posição livre (buffer cheio)
+    private static void esperar(int tentativas) {
+        if (tentativas < ESPERAS_ATIVAS) {
+            Thread.onSpinWait();
+        } else {
+            LockSupport.parkNanos(50_000);
+        }
+    }
+
+    /**
+     * Processa o que já foi enviado e encerra as threads do motor.
+     */
+    @Override
+    public void close() {
+        fechado = true;
+        LockSupport.unpark(threadNegocio);
+        LockSupport.unpark(threadPosterior);
+        try {
+            threadNegocio.join();
+            threadPosterior.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
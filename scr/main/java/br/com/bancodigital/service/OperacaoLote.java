@@ -0,0 +1,32 @@
+package br.com.bancodigital.service;
+
+/**
+ * Uma operação dentro de um lote (ex: uma linha do arquivo de folha de pagamento).
+ * Use os métodos de fábrica: deposito, saque e transferencia.
+ * @param valor Valor em centavos.
+ */
+public record OperacaoLote(
+    Tipo tipo,
+    String numeroConta,
+    String numeroContaDestino,
+    long valor
+) {
+
+    public enum Tipo {
+        DEPOSITO,
+        SAQUE,
+        TRANSFERENCIA
+    }
+
+    public static OperacaoLote deposito(String numeroConta, long valor) {
+        return new OperacaoLote(Tipo.DEPOSITO, numeroConta, null, valor);
+    }
+
+    public static OperacaoLote saque(String numeroConta, long valor) {
+        return new OperacaoLote(Tipo.SAQUE, numeroConta, null, valor);
+    }
+
+    public static OperacaoLote transferencia(String numeroContaOrigem, String numeroContaDestino, long valor) {
+        return new OperacaoLote(Tipo.TRANSFERENCIA, numeroContaOrigem, numeroContaDestino, valor);
+    }
+}
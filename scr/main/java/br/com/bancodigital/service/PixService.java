@@ -1,65 +1,253 @@
 package br.com.bancodigital.service;
 
+import br.com.bancodigital.antifraude.MotorAntifraude;
+import br.com.bancodigital.evento.EventoBancario;
+import br.com.bancodigital.evento.PublicadorDeEventos;
+import br.com.bancodigital.evento.PublicadorDeTransacoes;
 import br.com.bancodigital.exception.ContaException;
+import br.com.bancodigital.exception.OperacaoRecusadaException;
 import br.com.bancodigital.exception.SaldoInsuficienteException;
+import br.com.bancodigital.metrica.Medicao;
+import br.com.bancodigital.metrica.Metricas;
+import br.com.bancodigital.metrica.Operacao;
+import br.com.bancodigital.model.ChavePix;
 import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.model.TipoChavePix;
 import br.com.bancodigital.model.TipoTransacao;
-import br.com.bancodigital.model.Transacao;
+import br.com.bancodigital.repository.ChaveIdempotencia;
 import br.com.bancodigital.repository.ContaRepository;
+import br.com.bancodigital.repository.DiretorioChavesPix;
+import br.com.bancodigital.repository.IndicesDeContas;
+import br.com.bancodigital.repository.TabelaIdempotencia;
+import br.com.bancodigital.repository.Trava;
 
-import java.time.LocalDateTime;
 import java.util.List;
 
+/**
+ * PIX entre contas do banco, pela chave PIX do destino (CPF, e-mail, telefone ou aleatória),
+ * e cadastro das chaves. Os envios passam pelas regras antifraude (ver MotorAntifraude), se houver,
+ * e as duas transações de cada PIX vão para o PublicadorDeTransacoes depois de salvas.
+ * O PIX para uma conta quente (ver ContasQuentes) trava só a origem: o crédito fica pendente
+ * numa listra do destino e o recebimento é salvo e publicado quando for consolidado.
+ */
 public class PixService {
 
     private ContaRepository contaRepository;
+    private final DiretorioChavesPix chavesPix;
+    private final TabelaIdempotencia idempotencia;
+    private final PublicadorDeEventos eventos;
+    private final Metricas metricas;
+    private final MotorAntifraude antifraude;
+    private final PublicadorDeTransacoes transacoes;
+    private final ContasQuentes quentes;
 
-    public PixService(ContaRepository contaRepository) {
-        this.contaRepository = contaRepository;
+    /**
+     * @param indices Os índices mantidos pelo repositório (ex: ConcorrenteContaRepository.getIndices()).
+     */
+    public PixService(ContaRepository contaRepository, IndicesDeContas indices) {
+        this(contaRepository, indices, Dependencias.NENHUMA);
     }
 
-    public void realizarPix(String numeroContaOrigem, String cpfChaveDestino, double valor) {
-        
-        Conta contaOrigem = contaRepository.buscarPorNumero(numeroContaOrigem)
-                .orElseThrow(() -> new ContaException("Conta de origem PIX não encontrada."));
+    /**
+     * @param indices Os índices mantidos pelo repositório (ex: ConcorrenteContaRepository.getIndices()).
+     * @param dependencias Eventos, métricas, antifraude, fluxo de transações e contas quentes
+     *                     (ver Dependencias; o que não for informado fica desligado).
+     */
+    public PixService(ContaRepository contaRepository, IndicesDeContas indices, Dependencias dependencias) {
+        this.contaRepository = contaRepository;
+        this.chavesPix = indices.getChavesPix();
+        this.idempotencia = indices.getIdempotencia();
+        this.eventos = dependencias.getEventos();
+        this.metricas = dependencias.getMetricas();
+        this.antifraude = dependencias.getAntifraude();
+        this.transacoes = dependencias.getTransacoes();
+        this.quentes = dependencias.getQuentes();
+    }
 
-        List<Conta> contasDestino = contaRepository.buscarPorCpfCliente(cpfChaveDestino);
+    /**
+     * Cadastra uma chave PIX para a conta.
+     * @param valor O CPF, e-mail ou telefone; ignorado para ALEATORIA (o banco gera a chave).
+     * @return a chave cadastrada (já normalizada).
+     * @throws ContaException se a conta não existe, se a chave é inválida, já tem dono
+     *         ou a conta atingiu o limite de chaves.
+     */
+    public ChavePix registrarChave(String numeroConta, TipoChavePix tipo, String valor) {
+        ChavePix chave = tipo == TipoChavePix.ALEATORIA ? ChavePix.aleatoria() : ChavePix.de(tipo, valor);
+        if (contaRepository.buscarPorNumero(numeroConta).isEmpty()) {
+            throw new ContaException("Conta número " + numeroConta + " não encontrada.");
+        }
+        chavesPix.registrar(chave, numeroConta);
+        eventos.publicar(new EventoBancario.ChavePixRegistrada(numeroConta, chave.toString()));
+        return chave;
+    }
 
-        if (contasDestino.isEmpty()) {
-            throw new ContaException("Nenhuma conta encontrada para a chave PIX (CPF) " + cpfChaveDestino);
+    /**
+     * @param chave A chave como digitada (o tipo é identificado pelo formato).
+     * @return true se a chave existia e foi removida.
+     */
+    public boolean removerChave(String chave) {
+        ChavePix chavePix = ChavePix.de(chave);
+        boolean removida = chavesPix.remover(chavePix);
+        if (removida) {
+            eventos.publicar(new EventoBancario.ChavePixRemovida(chavePix.toString()));
         }
-        
-        Conta contaDestino = contasDestino.get(0);
-        
-        if (contaOrigem.getNumero().equals(contaDestino.getNumero())) {
-             throw new ContaException("PIX para a própria conta não é permitido.");
+        return removida;
+    }
+
+    /**
+     * @param chave A chave como digitada (o tipo é identificado pelo formato).
+     * @return a conta dona da chave.
+     * @throws ContaException se a chave é inválida ou não está cadastrada.
+     */
+    public Conta buscarContaPorChave(String chave) {
+        try (Medicao medicao = metricas.medir(Operacao.BUSCAR_POR_CHAVE_PIX)) {
+            ChavePix chavePix = ChavePix.de(chave);
+            Conta conta = chavesPix.resolver(chavePix, contaRepository::buscarPorNumero)
+                    .orElseThrow(() -> new ContaException("Nenhuma conta encontrada para a chave PIX " + chavePix));
+            medicao.sucesso();
+            return conta;
         }
+    }
+
+    /**
+     * @return as chaves PIX da conta.
+     */
+    public List<ChavePix> listarChaves(String numeroConta) {
+        return chavesPix.listarChaves(numeroConta);
+    }
+
+    /**
+     * @param chaveDestino A chave PIX do destino, como digitada (ver TipoChavePix.identificar).
+     * @return true se o PIX foi feito; false se a origem não tinha saldo
+     *         (a recusa também é publicada como evento).
+     * @throws OperacaoRecusadaException se uma regra antifraude recusou (também publicada como evento).
+     */
+    public boolean realizarPix(String numeroContaOrigem, String chaveDestino, long valor) {
+        return executarPix(null, numeroContaOrigem, chaveDestino, valor).sucesso();
+    }
+
+    /**
+     * PIX idempotente: repetir com a mesma chave de idempotência devolve o resultado
+     * da primeira execução, sem enviar o dinheiro de novo.
+     * @param chaveIdempotencia Gerada pelo cliente, única por operação (ex: um UUID).
+     */
+    public ResultadoOperacao realizarPix(String chaveIdempotencia, String numeroContaOrigem,
+                                         String chaveDestino, long valor) {
+        return ExecucaoIdempotente.executar(idempotencia, chaveIdempotencia,
+                ChaveIdempotencia.impressaoDaOperacao("PIX", valor, numeroContaOrigem, chaveDestino),
+                chave -> executarPix(chave, numeroContaOrigem, chaveDestino, valor));
+    }
+
+    // chave: a chave de idempotência já calculada, ou null (PIX sem chave; também usado pelo ProcessadorAssincrono)
+    ResultadoOperacao executarPix(ChaveIdempotencia chave, String numeroContaOrigem,
+                                          String chaveDestino, long valor) {
+        try (Medicao medicao = metricas.medir(Operacao.REALIZAR_PIX)) {
+
+            Conta contaOrigem = contaRepository.buscarPorNumero(numeroContaOrigem)
+                    .orElseThrow(() -> new ContaException("Conta de origem PIX não encontrada."));
+
+            // Resolução pelo diretório de chaves (quase sempre um acerto no cache)
+            ChavePix chavePix = ChavePix.de(chaveDestino);
+            Conta contaDestino = chavesPix.resolver(chavePix, contaRepository::buscarPorNumero)
+                    .orElseThrow(() -> new ContaException("Nenhuma conta encontrada para a chave PIX " + chavePix));
 
-        System.out.println("[PIX] Iniciando PIX de " + contaOrigem.getCliente().nome() + 
-                           " para " + contaDestino.getCliente().nome());
-        
-        try {
-            // 1. Saca da origem (usando a lógica interna)
-            contaOrigem.sacarInterno(valor);
+            if (contaOrigem.getNumero().equals(contaDestino.getNumero())) {
+                 throw new ContaException("PIX para a própria conta não é permitido.");
+            }
 
-            // 2. Deposita no destino (usando a lógica interna)
-            contaDestino.depositarInterno(valor);
+            // Trava as DUAS contas (em ordem fixa, para não haver deadlock),
+            // ou só a origem, se o destino é uma conta quente
+            String cpfDestino = contaDestino.getCliente().cpf();
+            ContasQuentes.Creditos creditosDestino = quentes.creditos(contaDestino);
+            Conta[] contasSalvas = creditosDestino == null
+                    ? new Conta[] {contaOrigem, contaDestino} : new Conta[] {contaOrigem};
+            try (Trava trava = creditosDestino == null
+                    ? contaRepository.travar(contaOrigem.getNumero(), contaDestino.getNumero())
+                    : contaRepository.travar(contaOrigem.getNumero())) {
+                // 0. Regras antifraude (com a origem travada, os limites dela são exatos)
+                antifraude.verificar(contaOrigem.getNumero(), cpfDestino, valor);
 
-            // 3. Registra as transações de PIX
-            Transacao tOrigem = new Transacao(LocalDateTime.now(), TipoTransacao.PIX_ENVIADO, valor, "PIX para: " + contaDestino.getCliente().nome());
-            Transacao tDestino = new Transacao(LocalDateTime.now(), TipoTransacao.PIX_RECEBIDO, valor, "PIX de: " + contaOrigem.getCliente().nome());
+                // 1. Garante que o crédito vai caber no destino (na conta quente, reservando) e só então
+                //    saca da origem (usando a lógica interna; se ela for quente, com os créditos pendentes)
+                quentes.consolidar(contaOrigem);
+                if (creditosDestino == null) {
+                    garantirQueCabe(contaDestino, valor);
+                } else {
+                    creditosDestino.reservar(valor); // Sem ler o saldo do destino, que não está travado
+                }
 
-            contaOrigem.adicionarTransacao(tOrigem);
-            contaDestino.adicionarTransacao(tDestino);
+                // Estado antes das alterações: se algo falhar até a gravação, as contas travadas
+                // voltam a ele (e a reserva na conta quente é liberada)
+                long saldoOrigem = contaOrigem.getSaldo();
+                int historicoOrigem = contaOrigem.getHistoricoTransacoes().size();
+                long saldoDestino = contaDestino.getSaldo();
+                int historicoDestino = contaDestino.getHistoricoTransacoes().size();
+                int envio;
+                int recebimento = -1;
+                try {
+                    contaOrigem.sacarInterno(valor);
 
-            // 4. Salva ambas
-            contaRepository.salvar(contaOrigem);
-            contaRepository.salvar(contaDestino);
+                    // 2. Deposita no destino (se não for quente) e registra as transações de PIX
+                    contaOrigem.registrarTransacao(TipoTransacao.PIX_ENVIADO, valor, contaDestino.getCliente().nome());
+                    envio = contaOrigem.getHistoricoTransacoes().size() - 1;
+                    if (creditosDestino == null) {
+                        contaDestino.depositarInterno(valor);
+                        contaDestino.registrarTransacao(TipoTransacao.PIX_RECEBIDO, valor, contaOrigem.getCliente().nome());
+                        recebimento = contaDestino.getHistoricoTransacoes().size() - 1;
+                    }
 
-            System.out.println("PIX de R$" + valor + " realizado com sucesso.");
+                    // 3. Salva as contas alteradas (juntas, numa única gravação)
+                    if (chave == null) {
+                        contaRepository.salvarTodas(contasSalvas);
+                    } else {
+                        contaRepository.salvarTodas(idempotencia, chave, contaOrigem.getSaldo(), contasSalvas);
+                    }
+                } catch (RuntimeException e) {
+                    contaOrigem.desfazerAlteracoes(saldoOrigem, historicoOrigem);
+                    if (creditosDestino == null) {
+                        contaDestino.desfazerAlteracoes(saldoDestino, historicoDestino);
+                    } else {
+                        creditosDestino.liberar(valor);
+                    }
+                    throw e;
+                }
+
+                // 4. Na conta quente, o crédito só entra depois da gravação do débito (cabe: foi reservado)
+                if (creditosDestino != null) {
+                    creditosDestino.creditar(TipoTransacao.PIX_RECEBIDO, valor, contaOrigem.getCliente().nome());
+                }
+                metricas.registrarTransacao(TipoTransacao.PIX_ENVIADO, valor, envio + 1);
+                transacoes.publicar(contaOrigem, envio);
+                // Na conta quente, o recebimento é contado e publicado na consolidação
+                if (recebimento >= 0) {
+                    metricas.registrarTransacao(TipoTransacao.PIX_RECEBIDO, valor, recebimento + 1);
+                    transacoes.publicar(contaDestino, recebimento);
+                }
+                antifraude.registrar(contaOrigem.getNumero(), cpfDestino, valor);
+
+                eventos.publicar(new EventoBancario.PixRealizado(contaOrigem.getNumero(),
+                        contaOrigem.getCliente().nome(), contaDestino.getCliente().nome(), valor));
+                medicao.sucesso();
+                return ResultadoOperacao.sucesso(contaOrigem.getSaldo(), envio);
+
+            } catch (SaldoInsuficienteException e) {
+                metricas.contarSaldoInsuficiente();
+                eventos.publicar(new EventoBancario.PixRecusado(contaOrigem.getNumero(),
+                        contaOrigem.getCliente().nome(), contaDestino.getCliente().nome(), valor, e.getMessage()));
+                return ResultadoOperacao.falha(e.getMessage());
+            } catch (OperacaoRecusadaException e) {
+                eventos.publicar(new EventoBancario.PixRecusado(contaOrigem.getNumero(),
+                        contaOrigem.getCliente().nome(), contaDestino.getCliente().nome(), valor, e.getMessage()));
+                throw e;
+            }
+        }
+    }
 
-        } catch (SaldoInsuficienteException e) {
-            System.out.println("Não foi possível realizar o PIX: " + e.getMessage());
+    // O saldo do destino (travado) comporta o crédito?
+    private static void garantirQueCabe(Conta contaDestino, long valor) {
+        long saldo = contaDestino.getSaldo();
+        if (saldo + valor < saldo) {
+            throw new ContaException("Valor fora do limite para a conta de destino.");
         }
     }
-}
\ No newline at end of file
+}
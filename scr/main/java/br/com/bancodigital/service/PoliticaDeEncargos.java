@@ -0,0 +1,45 @@
+package br.com.bancodigital.service;
+
+import br.com.bancodigital.model.Dinheiro;
+
+/**
+ * Taxas dos encargos mensais (ver AgendadorDeEncargos).
+ * As taxas são em pontos-base por mês (1 ponto-base = 0,01%): 50 = 0,5% a.m.
+ * Assim o cálculo fica todo em long, sem double.
+ * @param rendimentoPoupanca Taxa do rendimento da poupança, sobre o saldo positivo.
+ * @param tarifaCorrente Tarifa mensal da conta corrente, em centavos.
+ * @param jurosChequeEspecial Taxa dos juros sobre o saldo negativo da conta corrente.
+ */
+public record PoliticaDeEncargos(int rendimentoPoupanca, long tarifaCorrente, int jurosChequeEspecial) {
+
+    public static final int PONTOS_BASE = 10_000;
+
+    /**
+     * 0,5% a.m. na poupança, R$ 10,00 de tarifa e 8% a.m. de juros no cheque especial.
+     */
+    public static final PoliticaDeEncargos PADRAO = new PoliticaDeEncargos(50, Dinheiro.reais(10), 800);
+
+    public PoliticaDeEncargos {
+        if (rendimentoPoupanca < 0 || tarifaCorrente < 0 || jurosChequeEspecial < 0) {
+            throw new IllegalArgumentException("Taxas e tarifas não podem ser negativas.");
+        }
+    }
+
+    /**
+     * @return o rendimento do mês, arredondado para baixo (0 se o saldo não for positivo).
+     */
+    public long rendimento(long saldo) {
+        return saldo <= 0 ? 0 : Math.multiplyExact(saldo, (long) rendimentoPoupanca) / PONTOS_BASE;
+    }
+
+    /**
+     * @return os juros do mês sobre o saldo negativo, arredondados para cima (0 se o saldo não for negativo).
+     */
+    public long juros(long saldo) {
+        if (saldo >= 0) {
+            return 0;
+        }
+        long produto = Math.multiplyExact(-saldo, (long) jurosChequeEspecial);
+        return (produto + PONTOS_BASE - 1) / PONTOS_BASE;
+    }
+}
@@ -0,0 +1,191 @@
+package br.com.bancodigital.service;
+
+import br.com.bancodigital.model.Cliente;
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.particao.Particionador;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Versão assíncrona do ContaService/PixService: cada operação é enviada a um executor
+ * e devolve na hora um CompletableFuture, que pode ser encadeado com outras operações
+ * (ex: criar a conta, depois depositar, depois fazer um PIX) sem bloquear quem chamou:
+ *
+ *   processador.criarContaCorrente(cliente, "0001", "123")
+ *           .thenCompose(conta -> processador.depositar("123", Dinheiro.reais(100)))
+ *           .thenCompose(deposito -> processador.realizarPix("123", "maria@banco.com", Dinheiro.reais(30)));
+ *
+ * As regras, travas, métricas, eventos e antifraude são as dos serviços; operações em
+ * contas diferentes rodam em paralelo. O resultado traz o saldo, o id da transação
+ * (posição no histórico) ou o motivo da falha (ver ResultadoOperacao): falhas de negócio
+ * (saldo insuficiente, recusa antifraude, conta inexistente...) completam o futuro
+ * com um resultado de falha; falhas de infraestrutura (ex: disco), com a exceção.
+ * Na criação de contas, a ContaException (ex: número repetido) também completa com a exceção.
+ *
+ * Executores:
+ * - padrão: uma virtual thread por operação. Quem espera o disco (DuravelContaRepository)
+ *   não prende uma thread do sistema, e as gravações de muitas operações entram no mesmo fsync;
+ * - porParticao: uma thread por partição de contas (ver Particionador), escolhida pela conta
+ *   principal (a origem, em transferências e PIX). Operações da mesma conta rodam na ordem
+ *   em que foram enviadas e quase nunca disputam a trava. Bom para contas em memória;
+ *   com o repositório durável, cada thread espera um fsync por vez (prefira o padrão);
+ * - qualquer outro Executor (ex: Runnable::run, para executar na própria thread).
+ *
+ * Diferente do MotorSequencial (uma thread dona de todos os saldos, sem travas),
+ * aqui as operações podem ser misturadas com chamadas diretas aos serviços.
+ */
+public class ProcessadorAssincrono implements AutoCloseable {
+
+    private final ContaService contaService;
+    private final PixService pixService;
+    private final Executor[] executores;
+    private final Particionador particionador;
+    private final List<ExecutorService> proprios;
+
+    /**
+     * Uma virtual thread por operação.
+     */
+    public ProcessadorAssincrono(ContaService contaService, PixService pixService) {
+        this(contaService, pixService, Executors.newVirtualThreadPerTaskExecutor(), true);
+    }
+
+    /**
+     * @param executor Onde as operações são executadas (não é encerrado no close).
+     */
+    public ProcessadorAssincrono(ContaService contaService, PixService pixService, Executor executor) {
+        this(contaService, pixService, executor, false);
+    }
+
+    private ProcessadorAssincrono(ContaService contaService, PixService pixService, Executor executor,
+                                  boolean proprio) {
+        this.contaService = contaService;
+        this.pixService = pixService;
+        this.executores = new Executor[]{executor};
+        this.particionador = new Particionador(1);
+        this.proprios = proprio ? List.of((ExecutorService) executor) : List.of();
+    }
+
+    private ProcessadorAssincrono(ContaService contaService, PixService pixService, ExecutorService[] executores) {
+        this.contaService = contaService;
+        this.pixService = pixService;
+        this.executores = executores;
+        this.particionador = new Particionador(executores.length);
+        this.proprios = List.of(executores);
+    }
+
+    /**
+     * Uma thread por partição: cada operação vai para a thread da conta principal.
+     * @param particoes Quantidade de threads (ex: a quantidade de núcleos).
+     */
+    public static ProcessadorAssincrono porParticao(ContaService contaService, PixService pixService, int particoes) {
+        if (particoes <= 0) {
+            throw new IllegalArgumentException("A quantidade de partições deve ser positiva.");
+        }
+        ExecutorService[] executores = new ExecutorService[particoes];
+        for (int i = 0; i < particoes; i++) {
+            String nome = "assincrono-" + i;
+            executores[i] = Executors.newSingleThreadExecutor(tarefa -> {
+                Thread thread = new Thread(tarefa, nome);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return new ProcessadorAssincrono(contaService, pixService, executores);
+    }
+
+    // --- Contas ---
+
+    public CompletableFuture<Conta> criarContaCorrente(Cliente cliente, String agencia, String numero) {
+        return CompletableFuture.supplyAsync(
+                () -> contaService.criarContaCorrente(cliente, agencia, numero), executorDe(numero));
+    }
+
+    public CompletableFuture<Conta> criarContaPoupanca(Cliente cliente, String agencia, String numero) {
+        return CompletableFuture.supplyAsync(
+                () -> contaService.criarContaPoupanca(cliente, agencia, numero), executorDe(numero));
+    }
+
+    /**
+     * @return o saldo em centavos (completa com ContaException se a conta não existe).
+     */
+    public CompletableFuture<Long> consultarSaldo(String numeroConta) {
+        return CompletableFuture.supplyAsync(
+                () -> contaService.consultarSaldo(numeroConta), executorDe(numeroConta));
+    }
+
+    // --- Movimentações (valores em centavos) ---
+
+    public CompletableFuture<ResultadoOperacao> depositar(String numeroConta, long valor) {
+        return executar(numeroConta, () -> contaService.executarDeposito(null, numeroConta, valor));
+    }
+
+    /**
+     * Depósito idempotente (ver ContaService.depositar com chave); nas repetições,
+     * o resultado não traz o id da transação.
+     */
+    public CompletableFuture<ResultadoOperacao> depositar(String chaveIdempotencia, String numeroConta, long valor) {
+        return executar(numeroConta, () -> contaService.depositar(chaveIdempotencia, numeroConta, valor));
+    }
+
+    public CompletableFuture<ResultadoOperacao> sacar(String numeroConta, long valor) {
+        return executar(numeroConta, () -> contaService.executarSaque(null, numeroConta, valor));
+    }
+
+    public CompletableFuture<ResultadoOperacao> sacar(String chaveIdempotencia, String numeroConta, long valor) {
+        return executar(numeroConta, () -> contaService.sacar(chaveIdempotencia, numeroConta, valor));
+    }
+
+    /**
+     * @return o resultado, com o saldo e o id da transação da origem.
+     */
+    public CompletableFuture<ResultadoOperacao> transferir(String numeroContaOrigem, String numeroContaDestino,
+                                                           long valor) {
+        return executar(numeroContaOrigem,
+                () -> contaService.executarTransferencia(null, numeroContaOrigem, numeroContaDestino, valor));
+    }
+
+    public CompletableFuture<ResultadoOperacao> transferir(String chaveIdempotencia, String numeroContaOrigem,
+                                                           String numeroContaDestino, long valor) {
+        return executar(numeroContaOrigem,
+                () -> contaService.transferir(chaveIdempotencia, numeroContaOrigem, numeroContaDestino, valor));
+    }
+
+    /**
+     * @param chaveDestino A chave PIX do destino, como digitada (ver TipoChavePix.identificar).
+     * @return o resultado, com o saldo e o id da transação da origem.
+     */
+    public CompletableFuture<ResultadoOperacao> realizarPix(String numeroContaOrigem, String chaveDestino, long valor) {
+        return executar(numeroContaOrigem,
+                () -> pixService.executarPix(null, numeroContaOrigem, chaveDestino, valor));
+    }
+
+    public CompletableFuture<ResultadoOperacao> realizarPix(String chaveIdempotencia, String numeroContaOrigem,
+                                                            String chaveDestino, long valor) {
+        return executar(numeroContaOrigem,
+                () -> pixService.realizarPix(chaveIdempotencia, numeroContaOrigem, chaveDestino, valor));
+    }
+
+    private CompletableFuture<ResultadoOperacao> executar(String numeroConta, Supplier<ResultadoOperacao> operacao) {
+        return CompletableFuture.supplyAsync(() -> ExecucaoIdempotente.semChave(operacao), executorDe(numeroConta));
+    }
+
+    private Executor executorDe(String numeroConta) {
+        return executores.length == 1 ? executores[0] : executores[particionador.particaoDe(numeroConta)];
+    }
+
+    /**
+     * Espera as operações já enviadas e encerra as threads criadas pelo processador
+     * (um executor recebido no construtor continua funcionando).
+     */
+    @Override
+    public void close() {
+        for (ExecutorService executor : proprios) {
+            executor.close();
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package br.com.bancodigital.service;
+
+import br.com.bancodigital.antifraude.MotorAntifraude;
+import br.com.bancodigital.evento.EventoBancario;
+import br.com.bancodigital.evento.PublicadorDeEventos;
+import br.com.bancodigital.exception.OperacaoRecusadaException;
+import br.com.bancodigital.exception.SaldoInsuficienteException;
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.model.TipoTransacao;
+import br.com.bancodigital.repository.ContaRepository;
+import br.com.bancodigital.repository.Trava;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Processamento em lote de depósitos, saques e transferências
+ * (ex: folha de pagamento, arquivos de liquidação).
+ *
+ * Em vez de tratar uma operação por vez (como o ContaService), o lote:
+ * 1. busca cada conta UMA vez;
+ * 2. separa as operações em grupos independentes (operações que tocam as
+ *    mesmas contas, direta ou indiretamente, ficam no mesmo grupo);
+ * 3. processa cada grupo com UMA aquisição de travas e UM salvarTodas,
+ *    mantendo a ordem original das operações dentro do grupo;
+ * 4. grupos diferentes rodam em paralelo (não compartilham contas).
+ *
+ * O paralelismo exige um repositório seguro para várias threads (ex: ConcorrenteContaRepository).
+ * Com o MemoriaContaRepository, passe um executor que roda na própria thread (Runnable::run).
+ *
+ * Transferências passam pelas regras antifraude das Dependencias, se houver, como no
+ * ContaService (a recusa é o resultado da operação). Cada transferência aceita já conta
+ * para as seguintes do mesmo lote; se a gravação do grupo falhar, as transferências
+ * desfeitas continuam contadas (o erro fica do lado de recusar mais, nunca menos).
+ *
+ * Fora isso, o lote NÃO passa pelo que o ContaService faz em cada operação: não mede nada nas Metricas,
+ * não publica um evento por operação (só o LoteProcessado no final), não publica as transações
+ * no PublicadorDeTransacoes (ex: FluxoDeTransacoes) e não consolida contas quentes (ver
+ * ContasQuentes). Quem precisa disso deve usar o ContaService, uma operação por vez.
+ */
+public class ProcessadorEmLote {
+
+    private final ContaRepository contaRepository;
+    private final Executor executor;
+    private final PublicadorDeEventos eventos;
+    private final MotorAntifraude antifraude;
+
+    public ProcessadorEmLote(ContaRepository contaRepository) {
+        this(contaRepository, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param executor Onde os grupos independentes são processados.
+     */
+    public ProcessadorEmLote(ContaRepository contaRepository, Executor executor) {
+        this(contaRepository, executor, PublicadorDeEventos.NENHUM);
+    }
+
+    /**
+     * @param eventos Recebe um LoteProcessado ao final de cada lote.
+     */
+    public ProcessadorEmLote(ContaRepository contaRepository, Executor executor, PublicadorDeEventos eventos) {
+        this(contaRepository, executor, Dependencias.novas().eventos(eventos).construir());
+    }
+
+    /**
+     * @param dependencias Do lote, só os eventos (o LoteProcessado) e o antifraude são usados.
+     */
+    public ProcessadorEmLote(ContaRepository contaRepository, Executor executor, Dependencias dependencias) {
+        this.contaRepository = contaRepository;
+        this.executor = executor;
+        this.eventos = dependencias.getEventos();
+        this.antifraude = dependencias.getAntifraude();
+    }
+
+    /**
+     * Processa o lote.
+     * @return um resultado para cada operação, na mesma ordem da lista recebida.
+     */
+    public List<ResultadoOperacao> processar(List<OperacaoLote> operacoes) {
+        ResultadoOperacao[] resultados = new ResultadoOperacao[operacoes.size()];
+
+        // 1. Busca as contas (uma vez cada) e valida as operações
+        Map<String, Conta> contas = new HashMap<>();
+        GruposDeContas grupos = new GruposDeContas();
+        for (int i = 0; i < operacoes.size(); i++) {
+            OperacaoLote operacao = operacoes.get(i);
+            String falha = validar(operacao, contas);
+            if (falha != null) {
+                resultados[i] = ResultadoOperacao.falha(falha);
+            } else {
+                grupos.adicionar(i, operacao);
+            }
+        }
+
+        // 2. Processa os grupos independentes em paralelo
+        List<CompletableFuture<Void>> tarefas = new ArrayList<>();
+        for (List<Integer> grupo : grupos.listar()) {
+            tarefas.add(CompletableFuture.runAsync(
+                    () -> processarGrupo(grupo, operacoes, contas, resultados), executor));
+        }
+        try {
+            CompletableFuture.allOf(tarefas.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            // Ex: falha ao gravar no journal. Repassa a exceção original.
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+
+        long sucessos = Arrays.stream(resultados).filter(ResultadoOperacao::sucesso).count();
+        eventos.publicar(new EventoBancario.LoteProcessado(resultados.length, sucessos));
+        return Arrays.asList(resultados);
+    }
+
+    private String validar(OperacaoLote operacao, Map<String, Conta> contas) {
+        if (operacao.valor() <= 0) {
+            return "Valor deve ser positivo.";
+        }
+        if (buscar(operacao.numeroConta(), contas) == null) {
+            return "Conta número " + operacao.numeroConta() + " não encontrada.";
+        }
+        if (operacao.tipo() == OperacaoLote.Tipo.TRANSFERENCIA) {
+            if (buscar(operacao.numeroContaDestino(), contas) == null) {
+                return "Conta número " + operacao.numeroContaDestino() + " não encontrada.";
+            }
+            if (operacao.numeroConta().equals(operacao.numeroContaDestino())) {
+                return "Transferência para a própria conta não é permitida.";
+            }
+        }
+        return null;
+    }
+
+    private Conta buscar(String numeroConta, Map<String, Conta> contas) {
+        if (numeroConta == null) {
+            return null;
+        }
+        return contas.computeIfAbsent(numeroConta, numero -> contaRepository.buscarPorNumero(numero).orElse(null));
+    }
+
+    private void processarGrupo(List<Integer> indices, List<OperacaoLote> operacoes,
+                                Map<String, Conta> contas, ResultadoOperacao[] resultados) {
+        Set<String> numeros = new LinkedHashSet<>();
+        for (int i : indices) {
+            numeros.add(operacoes.get(i).numeroConta());
+            if (operacoes.get(i).numeroContaDestino() != null) {
+                numeros.add(operacoes.get(i).numeroContaDestino());
+            }
+        }
+
+        // Uma aquisição de travas para o grupo inteiro (sempre em ordem fixa)
+        try (Trava trava = contaRepository.travar(numeros.toArray(new String[0]))) {
+            // Estado das contas do grupo antes do lote: se a gravação falhar, todas voltam a ele
+            Conta[] travadas = new Conta[numeros.size()];
+            long[] saldos = new long[travadas.length];
+            int[] historicos = new int[travadas.length];
+            int n = 0;
+            for (String numero : numeros) {
+                travadas[n] = contas.get(numero);
+                saldos[n] = travadas[n].getSaldo();
+                historicos[n] = travadas[n].getHistoricoTransacoes().size();
+                n++;
+            }
+            try {
+                Set<Conta> alteradas = new LinkedHashSet<>();
+                for (int i : indices) {
+                    resultados[i] = aplicar(operacoes.get(i), contas, alteradas);
+                }
+                // Um único salvar para todas as contas alteradas do grupo
+                if (!alteradas.isEmpty()) {
+                    contaRepository.salvarTodas(alteradas.toArray(new Conta[0]));
+                }
+            } catch (RuntimeException e) {
+                for (int i = 0; i < travadas.length; i++) {
+                    travadas[i].desfazerAlteracoes(saldos[i], historicos[i]);
+                }
+                throw e;
+            }
+        }
+    }
+
+    private ResultadoOperacao aplicar(OperacaoLote operacao, Map<String, Conta> contas, Set<Conta> alteradas) {
+        Conta conta = contas.get(operacao.numeroConta());
+        long valor = operacao.valor();
+        try {
+            switch (operacao.tipo()) {
+                case DEPOSITO -> {
+                    conta.depositarInterno(valor);
+                    conta.registrarTransacao(TipoTransacao.DEPOSITO, valor, "Depósito em conta");
+                }
+                case SAQUE -> {
+                    conta.sacarInterno(valor);
+                    conta.registrarTransacao(TipoTransacao.SAQUE, valor, "Saque em terminal/app");
+                }
+                case TRANSFERENCIA -> {
+                    Conta destino = contas.get(operacao.numeroContaDestino());
+                    String cpfDestino = destino.getCliente().cpf();
+                    antifraude.verificar(conta.getNumero(), cpfDestino, valor);
+                    conta.sacarInterno(valor);
+                    destino.depositarInterno(valor);
+                    conta.registrarTransacao(TipoTransacao.TRANSFERENCIA_ENVIADA, valor, destino.getCliente().nome());
+                    destino.registrarTransacao(TipoTransacao.TRANSFERENCIA_RECEBIDA, valor, conta.getCliente().nome());
+                    antifraude.registrar(conta.getNumero(), cpfDestino, valor);
+                    alteradas.add(destino);
+                }
+            }
+            alteradas.add(conta);
+            return ResultadoOperacao.sucesso(conta.getSaldo(), conta.getHistoricoTransacoes().size() - 1);
+        } catch (SaldoInsuficienteException | OperacaoRecusadaException e) {
+            return ResultadoOperacao.falha(e.getMessage());
+        }
+    }
+
+    /**
+     * Union-find simples sobre os números de conta: operações que compartilham
+     * alguma conta acabam no mesmo grupo.
+     */
+    private static class GruposDeContas {
+
+        private final Map<String, Integer> idPorConta = new HashMap<>();
+        private final List<Integer> pai = new ArrayList<>();
+        private final List<int[]> operacoes = new ArrayList<>(); // {indice da operação, id da conta}
+
+        void adicionar(int indiceOperacao, OperacaoLote operacao) {
+            int conta = id(operacao.numeroConta());
+            if (operacao.numeroContaDestino() != null) {
+                unir(conta, id(operacao.numeroContaDestino()));
+            }
+            operacoes.add(new int[] {indiceOperacao, conta});
+        }
+
+        /**
+         * @return os índices das operações de cada grupo, na ordem original.
+         */
+        List<List<Integer>> listar() {
+            Map<Integer, List<Integer>> grupos = new LinkedHashMap<>();
+            for (int[] operacao : operacoes) {
+                grupos.computeIfAbsent(raiz(operacao[1]), raiz -> new ArrayList<>()).add(operacao[0]);
+            }
+            return new ArrayList<>(grupos.values());
+        }
+
+        private int id(String numeroConta) {
+            return idPorConta.computeIfAbsent(numeroConta, numero -> {
+                pai.add(pai.size());
+                return pai.size() - 1;
+            });
+        }
+
+        private int raiz(int id) {
+            while (pai.get(id) != id) {
+                pai.set(id, pai.get(pai.get(id))); // Compressão de caminho
+                id = pai.get(id);
+            }
+            return id;
+        }
+
+        private void unir(int a, int b) {
+            int raizA = raiz(a);
+            int raizB = raiz(b);
+            if (raizA != raizB) {
+                pai.set(raizB, raizA);
+            }
+        }
+    }
+}
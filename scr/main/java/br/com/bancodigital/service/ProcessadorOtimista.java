@@ -0,0 +1,255 @@
+package br.com.bancodigital.service;
+
+import br.com.bancodigital.antifraude.MotorAntifraude;
+import br.com.bancodigital.exception.ContaException;
+import br.com.bancodigital.exception.OperacaoRecusadaException;
+import br.com.bancodigital.exception.SaldoInsuficienteException;
+import br.com.bancodigital.model.ChavePix;
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.model.TipoTransacao;
+import br.com.bancodigital.repository.ContaRepository;
+import br.com.bancodigital.repository.DiretorioChavesPix;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Modo de execução alternativo ao ContaService (que trava as contas), com concorrência
+ * otimista: cada conta tem uma versão (ver Conta.reservarVersao) e cada operação
+ * 1. lê a versão e o saldo, sem travar nada;
+ * 2. confere as regras sobre essa leitura (ex: limite do cheque especial, ver Conta.validarSaque).
+ *    Um saque recusado termina aqui: a recusa não reserva a conta nem atrasa ninguém;
+ * 3. confirma com um compare-and-set da versão (par -> ímpar), que só dá certo se ninguém
+ *    alterou a conta desde a leitura. Se falhar, volta ao passo 1;
+ * 4. aplica o saldo e o histórico, inicia a gravação e publica a versão seguinte (par).
+ * Entre 3 e 4 a conta fica reservada por pouco tempo (sem regras e sem esperar o disco);
+ * quem a encontra reservada gira um pouco antes de tentar de novo, sem fila de espera.
+ *
+ * Transferências e PIX reservam as duas contas, nas versões lidas: se a segunda já mudou,
+ * a primeira é devolvida sem alteração e tudo recomeça. Ninguém espera segurando uma
+ * reserva, então não há deadlock (nem ordem de travamento a respeitar).
+ *
+ * O salvar é feito com a conta reservada (salvarTodasAssincrono), e a espera pelo disco
+ * fica para depois de publicar a versão: com o DuravelContaRepository, a conta é liberada
+ * antes do fsync (como no MotorSequencial, outra operação pode ver um saldo ainda não gravado).
+ *
+ * Transferências e PIX passam pelas regras antifraude das Dependencias, se houver: a regra é
+ * conferida com as duas contas já reservadas (a origem não muda no meio, então os limites dela
+ * são exatos) e, se recusar, as reservas são devolvidas sem alteração.
+ *
+ * Como no MotorSequencial: sem métricas e eventos, e as contas usadas aqui devem
+ * ser movimentadas só por este processador (o ContaService não confere as versões).
+ */
+public class ProcessadorOtimista {
+
+    private static final int ESPERAS_ATIVAS = 100;
+
+    private final ContaRepository contaRepository;
+    private final DiretorioChavesPix chavesPix;
+    private final MotorAntifraude antifraude;
+    private final LongAdder conflitos = new LongAdder();
+
+    /**
+     * @param chavesPix As chaves PIX do repositório (ver IndicesDeContas), para resolver os destinos.
+     */
+    public ProcessadorOtimista(ContaRepository contaRepository, DiretorioChavesPix chavesPix) {
+        this(contaRepository, chavesPix, Dependencias.NENHUMA);
+    }
+
+    /**
+     * @param dependencias Do processador, só o antifraude é usado.
+     */
+    public ProcessadorOtimista(ContaRepository contaRepository, DiretorioChavesPix chavesPix,
+                               Dependencias dependencias) {
+        this.contaRepository = contaRepository;
+        this.chavesPix = chavesPix;
+        this.antifraude = dependencias.getAntifraude();
+    }
+
+    // --- Operações (valores em centavos) ---
+
+    public ResultadoOperacao depositar(String numeroConta, long valor) {
+        if (valor <= 0) {
+            return ResultadoOperacao.falha("Valor de depósito deve ser positivo.");
+        }
+        Conta conta = buscar(numeroConta);
+        for (int tentativas = 0; ; tentativas++) {
+            int versao = conta.getVersao();
+            if (!conta.reservarVersao(versao)) {
+                esperar(tentativas);
+                continue;
+            }
+            CompletableFuture<Void> gravado;
+            long saldo;
+            int transacao;
+            try {
+                conta.depositarInterno(valor);
+                conta.registrarTransacao(TipoTransacao.DEPOSITO, valor, "Depósito em conta");
+                transacao = conta.getHistoricoTransacoes().size() - 1;
+                saldo = conta.getSaldo();
+                gravado = contaRepository.salvarTodasAssincrono(conta);
+            } finally {
+                conta.confirmarVersao();
+            }
+            return concluir(gravado, saldo, transacao);
+        }
+    }
+
+    public ResultadoOperacao sacar(String numeroConta, long valor) {
+        Conta conta = buscar(numeroConta);
+        for (int tentativas = 0; ; tentativas++) {
+            int versao = conta.getVersao();
+            ResultadoOperacao recusa = validarSaque(conta, versao, valor);
+            if (recusa != null) {
+                return recusa;
+            }
+            if (!conta.reservarVersao(versao)) {
+                esperar(tentativas);
+                continue;
+            }
+            CompletableFuture<Void> gravado;
+            long saldo;
+            int transacao;
+            try {
+                conta.sacarInterno(valor); // Não recusa: o saldo é o mesmo que foi validado
+                conta.registrarTransacao(TipoTransacao.SAQUE, valor, "Saque em terminal/app");
+                transacao = conta.getHistoricoTransacoes().size() - 1;
+                saldo = conta.getSaldo();
+                gravado = contaRepository.salvarTodasAssincrono(conta);
+            } finally {
+                conta.confirmarVersao();
+            }
+            return concluir(gravado, saldo, transacao);
+        }
+    }
+
+    /**
+     * @return o resultado, com o saldo e o id da transação da origem.
+     * @throws OperacaoRecusadaException se uma regra antifraude recusou (também no PIX).
+     */
+    public ResultadoOperacao transferir(String numeroContaOrigem, String numeroContaDestino, long valor) {
+        Conta origem = buscar(numeroContaOrigem);
+        Conta destino = buscar(numeroContaDestino);
+        return mover(origem, destino, valor, TipoTransacao.TRANSFERENCIA_ENVIADA, TipoTransacao.TRANSFERENCIA_RECEBIDA);
+    }
+
+    /**
+     * @param chaveDestino A chave PIX do destino, como digitada (ver TipoChavePix.identificar).
+     */
+    public ResultadoOperacao realizarPix(String numeroContaOrigem, String chaveDestino, long valor) {
+        Conta origem = buscar(numeroContaOrigem);
+        ChavePix chave = ChavePix.de(chaveDestino);
+        Conta destino = chavesPix.resolver(chave, contaRepository::buscarPorNumero)
+                .orElseThrow(() -> new ContaException("Nenhuma conta encontrada para a chave PIX " + chave));
+        return mover(origem, destino, valor, TipoTransacao.PIX_ENVIADO, TipoTransacao.PIX_RECEBIDO);
+    }
+
+    /**
+     * Saldo atual, sem reservar a conta (o saldo muda numa única escrita volátil por operação).
+     */
+    public long consultarSaldo(String numeroConta) {
+        return buscar(numeroConta).getSaldo();
+    }
+
+    /**
+     * @return quantas vezes uma operação encontrou a conta alterada ou reservada e teve de tentar de novo.
+     */
+    public long getConflitos() {
+        return conflitos.sum();
+    }
+
+    // --- Protocolo ---
+
+    private ResultadoOperacao mover(Conta origem, Conta destino, long valor,
+                                   TipoTransacao envio, TipoTransacao recebimento) {
+        if (origem.getNumero().equals(destino.getNumero())) {
+            throw new ContaException("Transferência para a própria conta não é permitida.");
+        }
+        for (int tentativas = 0; ; tentativas++) {
+            int versaoOrigem = origem.getVersao();
+            int versaoDestino = destino.getVersao();
+            ResultadoOperacao recusa = validarSaque(origem, versaoOrigem, valor);
+            if (recusa != null) {
+                return recusa;
+            }
+            if (!origem.reservarVersao(versaoOrigem)) {
+                esperar(tentativas);
+                continue;
+            }
+            if (!destino.reservarVersao(versaoDestino)) {
+                origem.desfazerReserva(); // Nada foi alterado: devolve e recomeça
+                esperar(tentativas);
+                continue;
+            }
+            String cpfDestino = destino.getCliente().cpf();
+            try {
+                antifraude.verificar(origem.getNumero(), cpfDestino, valor);
+            } catch (OperacaoRecusadaException e) {
+                destino.desfazerReserva();
+                origem.desfazerReserva();
+                throw e;
+            }
+            CompletableFuture<Void> gravado;
+            long saldo;
+            int transacao;
+            try {
+                origem.sacarInterno(valor);
+                destino.depositarInterno(valor);
+                origem.registrarTransacao(envio, valor, destino.getCliente().nome());
+                destino.registrarTransacao(recebimento, valor, origem.getCliente().nome());
+                antifraude.registrar(origem.getNumero(), cpfDestino, valor);
+                transacao = origem.getHistoricoTransacoes().size() - 1;
+                saldo = origem.getSaldo();
+                gravado = contaRepository.salvarTodasAssincrono(origem, destino);
+            } finally {
+                destino.confirmarVersao();
+                origem.confirmarVersao();
+            }
+            return concluir(gravado, saldo, transacao);
+        }
+    }
+
+    /**
+     * Confere o saque sobre o saldo lido na versão informada.
+     * @return o resultado de falha, se a leitura era consistente e o saque seria recusado;
+     *         null se o saque pode seguir (ou se a conta mudou no meio: a reserva vai falhar).
+     */
+    private static ResultadoOperacao validarSaque(Conta conta, int versao, long valor) {
+        if ((versao & 1) != 0) {
+            return null;
+        }
+        try {
+            conta.validarSaque(conta.getSaldo(), valor);
+            return null;
+        } catch (SaldoInsuficienteException e) {
+            // Só recusa se o saldo lido é o da versão lida (ninguém alterou no meio)
+            return conta.getVersao() == versao ? ResultadoOperacao.falha(e.getMessage()) : null;
+        }
+    }
+
+    // Espera a gravação (fora da reserva) e monta o resultado
+    private static ResultadoOperacao concluir(CompletableFuture<Void> gravado, long saldo, int transacao) {
+        try {
+            gravado.join();
+        } catch (RuntimeException e) {
+            throw new ContaException("Falha ao gravar: " + e.getMessage(), e);
+        }
+        return ResultadoOperacao.sucesso(saldo, transacao);
+    }
+
+    private Conta buscar(String numeroConta) {
+        return contaRepository.buscarPorNumero(numeroConta)
+                .orElseThrow(() -> new ContaException("Conta número " + numeroConta + " não encontrada."));
+    }
+
+    // A conta estava reservada ou mudou antes do compare-and-set
+    private void esperar(int tentativas) {
+        conflitos.increment();
+        if (tentativas < ESPERAS_ATIVAS) {
+            Thread.onSpinWait();
+        } else {
+            LockSupport.parkNanos(50_000);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package br.com.bancodigital.service;
+
+import br.com.bancodigital.model.Dinheiro;
+import br.com.bancodigital.model.TipoTransacao;
+import br.com.bancodigital.model.TotaisPorTipo;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Resultado da conciliação (ver ConciliacaoService).
+ * @param contasDivergentes Contas cujo saldo difere da soma do histórico.
+ * @param exemplos Algumas das contas divergentes (no máximo ConciliacaoService.MAXIMO_EXEMPLOS).
+ * @param totais Quantidade e soma por tipo de transação, em todas as contas.
+ */
+public record RelatorioConciliacao(
+    long contasVerificadas,
+    long transacoesVerificadas,
+    long contasDivergentes,
+    List<Divergencia> exemplos,
+    TotaisPorTipo totais,
+    boolean paralela,
+    Duration duracao
+) {
+
+    /**
+     * Uma conta cujo saldo não bate com o histórico.
+     */
+    public record Divergencia(String numeroConta, long saldo, long saldoPeloHistorico) {
+    }
+
+    /**
+     * Todo envio (transferência ou PIX) tem o recebimento correspondente?
+     * Sem identificador ligando as duas pontas, a conferência é pelos totais:
+     * envios - recebimentos de cada tipo não pode ser negativo, e o que sobra
+     * tem de ser exatamente o que foi estornado (sagas entre partições que falharam),
+     * em quantidade e em valor.
+     */
+    public boolean paresConferem() {
+        return confere(totais.quantidade(TipoTransacao.TRANSFERENCIA_ENVIADA), totais.quantidade(TipoTransacao.TRANSFERENCIA_RECEBIDA),
+                        totais.quantidade(TipoTransacao.PIX_ENVIADO), totais.quantidade(TipoTransacao.PIX_RECEBIDO),
+                        totais.quantidade(TipoTransacao.ESTORNO))
+                && confere(totais.total(TipoTransacao.TRANSFERENCIA_ENVIADA), totais.total(TipoTransacao.TRANSFERENCIA_RECEBIDA),
+                        totais.total(TipoTransacao.PIX_ENVIADO), totais.total(TipoTransacao.PIX_RECEBIDO),
+                        totais.total(TipoTransacao.ESTORNO));
+    }
+
+    private static boolean confere(long transferenciasEnviadas, long transferenciasRecebidas,
+                                   long pixEnviados, long pixRecebidos, long estornos) {
+        long semTransferencia = transferenciasEnviadas - transferenciasRecebidas;
+        long semPix = pixEnviados - pixRecebidos;
+        return semTransferencia >= 0 && semPix >= 0 && semTransferencia + semPix == estornos;
+    }
+
+    public boolean consistente() {
+        return contasDivergentes == 0 && paresConferem();
+    }
+
+    public double contasPorSegundo() {
+        long nanos = Math.max(1, duracao.toNanos());
+        return contasVerificadas * 1e9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder texto = new StringBuilder();
+        texto.append(String.format("Conciliação %s: %d contas, %d transações em %d ms (%.0f contas/s)%n",
+                paralela ? "paralela" : "sequencial", contasVerificadas, transacoesVerificadas,
+                duracao.toMillis(), contasPorSegundo()));
+        texto.append(String.format("Saldos divergentes do histórico: %d%n", contasDivergentes));
+        for (Divergencia divergencia : exemplos) {
+            texto.append(String.format("  Conta %s: saldo R$ %s, histórico R$ %s%n", divergencia.numeroConta(),
+                    Dinheiro.formatar(divergencia.saldo()), Dinheiro.formatar(divergencia.saldoPeloHistorico())));
+        }
+        texto.append("Envios e recebimentos: ").append(paresConferem() ? "conferem" : "NÃO conferem").append('\n');
+        texto.append(totais);
+        return texto.toString();
+    }
+}
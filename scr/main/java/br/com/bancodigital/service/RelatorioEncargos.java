@@ -0,0 +1,42 @@
+package br.com.bancodigital.service;
+
+import br.com.bancodigital.model.TotaisPorTipo;
+
+import java.time.Duration;
+import java.time.YearMonth;
+
+/**
+ * Resultado de uma execução dos encargos mensais (ver AgendadorDeEncargos).
+ * @param baldesProcessados Baldes cobrados nesta execução.
+ * @param baldesJaConcluidos Baldes pulados, já concluídos por uma execução anterior.
+ * @param contasJaCobradas Contas de baldes pendentes que já tinham sido cobradas antes de uma queda.
+ * @param totais Quantidade e soma dos lançamentos desta execução (rendimentos, tarifas e juros).
+ */
+public record RelatorioEncargos(
+    YearMonth competencia,
+    int baldesProcessados,
+    int baldesJaConcluidos,
+    long contasVisitadas,
+    long contasJaCobradas,
+    TotaisPorTipo totais,
+    Duration duracao
+) {
+
+    public double contasPorSegundo() {
+        long nanos = Math.max(1, duracao.toNanos());
+        return contasVisitadas * 1e9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder texto = new StringBuilder();
+        texto.append(String.format("Encargos de %s: %d contas em %d ms (%.0f contas/s)%n", competencia,
+                contasVisitadas, duracao.toMillis(), contasPorSegundo()));
+        texto.append(String.format("Baldes: %d processados, %d já concluídos antes%n", baldesProcessados, baldesJaConcluidos));
+        if (contasJaCobradas > 0) {
+            texto.append(String.format("Contas já cobradas antes da interrupção: %d%n", contasJaCobradas));
+        }
+        texto.append(totais);
+        return texto.toString();
+    }
+}
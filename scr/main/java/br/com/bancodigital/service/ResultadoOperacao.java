@@ -0,0 +1,31 @@
+package br.com.bancodigital.service;
+
+/**
+ * Resultado de uma operação: sucesso (com o saldo da conta depois da operação)
+ * ou falha (com o motivo, ex: a mensagem da SaldoInsuficienteException).
+ * @param saldo Saldo em centavos da conta principal (origem, em transferências) após a operação.
+ * @param transacao Posição da transação no histórico da conta principal (o "id" dela no extrato),
+ *                  ou SEM_TRANSACAO: nas falhas e nas repetições idempotentes (a tabela de
+ *                  idempotência guarda só o saldo).
+ */
+public record ResultadoOperacao(
+    boolean sucesso,
+    long saldo,
+    String motivoFalha,
+    int transacao
+) {
+
+    public static final int SEM_TRANSACAO = -1;
+
+    public static ResultadoOperacao sucesso(long saldo) {
+        return new ResultadoOperacao(true, saldo, null, SEM_TRANSACAO);
+    }
+
+    public static ResultadoOperacao sucesso(long saldo, int transacao) {
+        return new ResultadoOperacao(true, saldo, null, transacao);
+    }
+
+    public static ResultadoOperacao falha(String motivo) {
+        return new ResultadoOperacao(false, 0, motivo, SEM_TRANSACAO);
+    }
+}
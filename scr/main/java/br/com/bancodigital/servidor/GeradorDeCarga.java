@@ -0,0 +1,173 @@
+package br.com.bancodigital.servidor;
+
+import br.com.bancodigital.metrica.Histograma;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cliente de carga para o ServidorBanco: abre muitas conexões (uma virtual
+ * thread por conexão), cada uma enviando requisições em sequência
+ * (envia, espera a resposta, envia a próxima) durante o tempo pedido.
+ * No fim, mostra a vazão e a latência (percentis, incluindo a cauda).
+ *
+ * Uso: GeradorDeCarga [host] [porta] [conexoes] [segundos] [contas]
+ *
+ * Mistura de operações: 40% depósito, 30% transferência, 10% PIX, 20% saldo.
+ */
+public class GeradorDeCarga {
+
+    private static final String AGENCIA = "0001";
+
+    private final String host;
+    private final int porta;
+    private final int contas;
+
+    private final Histograma latencias = new Histograma();
+    private final LongAdder erros = new LongAdder();
+    private final LongAdder falhasDeConexao = new LongAdder();
+
+    public GeradorDeCarga(String host, int porta, int contas) {
+        this.host = host;
+        this.porta = porta;
+        this.contas = contas;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int porta = args.length > 1 ? Integer.parseInt(args[1]) : 7070;
+        int conexoes = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int segundos = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        int contas = args.length > 4 ? Integer.parseInt(args[4]) : 10_000;
+
+        GeradorDeCarga gerador = new GeradorDeCarga(host, porta, contas);
+        gerador.prepararContas();
+        gerador.executar(conexoes, segundos);
+    }
+
+    private static String numeroConta(int indice) {
+        return "CARGA-" + indice;
+    }
+
+    private static String cpf(int indice) {
+        return Long.toString(90_000_000_000L + indice);
+    }
+
+    /**
+     * Cria as contas usadas na carga (se ainda não existirem) e deposita um saldo alto em cada uma.
+     * As requisições vão em pipeline: todas são enviadas antes de ler as respostas.
+     */
+    public void prepararContas() throws IOException {
+        try (Socket socket = new Socket(host, porta);
+             BufferedReader entrada = leitor(socket);
+             BufferedWriter saida = escritor(socket)) {
+            Thread leitura = Thread.ofVirtual().start(() -> {
+                try {
+                    for (int i = 0; i < contas * 2; i++) {
+                        entrada.readLine(); // "Já existe uma conta" é esperado em uma segunda execução
+                    }
+                } catch (IOException e) {
+                    System.out.println("[Carga] Falha ao preparar as contas: " + e.getMessage());
+                }
+            });
+            for (int i = 0; i < contas; i++) {
+                saida.write("CRIAR_CORRENTE " + AGENCIA + " " + numeroConta(i) + " " + cpf(i) + " Cliente Carga " + i + "\n");
+                saida.write("DEPOSITAR " + numeroConta(i) + " 1000000\n");
+            }
+            saida.flush();
+            leitura.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.println("[Carga] " + contas + " contas preparadas.");
+    }
+
+    /**
+     * Roda a carga e imprime o resultado.
+     */
+    public void executar(int conexoes, int segundos) throws InterruptedException {
+        long fim = System.nanoTime() + segundos * 1_000_000_000L;
+        long inicio = System.nanoTime();
+        try (ExecutorService clientes = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Runnable> tarefas = new ArrayList<>(conexoes);
+            for (int c = 0; c < conexoes; c++) {
+                long semente = c;
+                tarefas.add(() -> rodarConexao(fim, semente));
+            }
+            tarefas.forEach(clientes::execute);
+        } // close() espera todas as conexões terminarem
+        double duracao = (System.nanoTime() - inicio) / 1e9;
+
+        Histograma.Resumo resumo = latencias.resumir();
+        System.out.printf("[Carga] %d conexões, %.1f s%n", conexoes, duracao);
+        System.out.printf("[Carga] %d requisições (%.0f req/s), %d respostas de erro, %d falhas de conexão%n",
+                resumo.contagem(), resumo.contagem() / duracao, erros.sum(), falhasDeConexao.sum());
+        System.out.printf("[Carga] Latência (us): p50=%d p90=%d p99=%d p99.9=%d max=%d%n",
+                resumo.p50() / 1000, resumo.p90() / 1000, resumo.p99() / 1000,
+                resumo.p999() / 1000, resumo.maximo() / 1000);
+    }
+
+    // Roda em uma virtual thread: uma conexão, requisições em sequência até o fim
+    private void rodarConexao(long fim, long semente) {
+        SplittableRandom random = new SplittableRandom(semente);
+        try (Socket socket = new Socket(host, porta);
+             BufferedReader entrada = leitor(socket);
+             BufferedWriter saida = escritor(socket)) {
+            socket.setTcpNoDelay(true);
+            while (System.nanoTime() < fim) {
+                String requisicao = sortearRequisicao(random);
+                long inicio = System.nanoTime();
+                saida.write(requisicao);
+                saida.write('\n');
+                saida.flush();
+                String resposta = entrada.readLine();
+                latencias.registrar(System.nanoTime() - inicio);
+                if (resposta == null) {
+                    falhasDeConexao.increment();
+                    return;
+                }
+                if (!resposta.startsWith("OK")) {
+                    erros.increment();
+                }
+            }
+            saida.write("SAIR\n");
+            saida.flush();
+        } catch (IOException e) {
+            falhasDeConexao.increment();
+        }
+    }
+
+    private String sortearRequisicao(SplittableRandom random) {
+        int origem = random.nextInt(contas);
+        int sorteio = random.nextInt(100);
+        if (sorteio < 40) {
+            return "DEPOSITAR " + numeroConta(origem) + " 10.00";
+        }
+        if (sorteio < 80 && contas > 1) {
+            int destino = (origem + 1 + random.nextInt(contas - 1)) % contas;
+            return sorteio < 70
+                    ? "TRANSFERIR " + numeroConta(origem) + " " + numeroConta(destino) + " 1.00"
+                    : "PIX " + numeroConta(origem) + " " + cpf(destino) + " 1.00";
+        }
+        return "SALDO " + numeroConta(origem);
+    }
+
+    private static BufferedReader leitor(Socket socket) throws IOException {
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    private static BufferedWriter escritor(Socket socket) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,398 @@
+package br.com.bancodigital.servidor;
+
+import br.com.bancodigital.exception.ContaException;
+import br.com.bancodigital.exception.OperacaoRecusadaException;
+import br.com.bancodigital.exception.SaldoInsuficienteException;
+import br.com.bancodigital.model.ChavePix;
+import br.com.bancodigital.model.Cliente;
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.model.Dinheiro;
+import br.com.bancodigital.model.FiltroExtrato;
+import br.com.bancodigital.model.PaginaExtrato;
+import br.com.bancodigital.model.TipoChavePix;
+import br.com.bancodigital.model.TipoTransacao;
+import br.com.bancodigital.model.TotaisPorTipo;
+import br.com.bancodigital.model.Transacao;
+import br.com.bancodigital.service.ContaService;
+import br.com.bancodigital.service.MotorSequencial;
+import br.com.bancodigital.service.PixService;
+import br.com.bancodigital.service.ResultadoOperacao;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Protocolo de linha do ServidorBanco: cada requisição é uma linha de texto
+ * (campos separados por espaço) e cada resposta começa com "OK" ou "ERRO".
+ * Valores em reais, com ponto ou vírgula (ex: 50.75), como no console.
+ * Tipos de chave PIX: CPF, EMAIL, TELEFONE ou ALEATORIA (sem valor: o banco gera a chave).
+ *
+ * <pre>
+ * PING                                              -> OK
+ * CRIAR_CORRENTE &lt;agencia&gt; &lt;numero&gt; &lt;cpf&gt; &lt;nome...&gt;  -> OK
+ * CRIAR_POUPANCA &lt;agencia&gt; &lt;numero&gt; &lt;cpf&gt; &lt;nome...&gt;  -> OK
+ * DEPOSITAR &lt;numero&gt; &lt;valor&gt; [chave]                -> OK
+ * SACAR &lt;numero&gt; &lt;valor&gt; [chave]                    -> OK
+ * TRANSFERIR &lt;origem&gt; &lt;destino&gt; &lt;valor&gt; [chave]     -> OK
+ * PIX &lt;origem&gt; &lt;chavePix&gt; &lt;valor&gt; [chave]           -> OK
+ * REGISTRAR_CHAVE &lt;numero&gt; &lt;tipo&gt; [valor]            -> OK &lt;chavePix&gt;
+ * REMOVER_CHAVE &lt;chavePix&gt;                           -> OK
+ * CHAVES &lt;numero&gt;                                   -> OK &lt;n&gt;, seguido de n linhas
+ * SALDO &lt;numero&gt;                                    -> OK &lt;saldo&gt;
+ * CONTA &lt;numero&gt;                                    -> OK &lt;cpf&gt; &lt;nome do titular&gt;
+ * RESOLVER_CHAVE &lt;chavePix&gt;                         -> OK &lt;numero&gt; &lt;cpf&gt; &lt;nome do titular&gt;
+ * EXTRATO &lt;numero&gt; [cursor]                         -> OK &lt;proximoCursor&gt; &lt;n&gt;, seguido de n linhas
+ * TOTAIS &lt;numero&gt; [aaaa-mm-dd | aaaa-mm]           -> OK &lt;n&gt;, seguido de n linhas "&lt;tipo&gt; &lt;quantidade&gt; &lt;total&gt;"
+ * TOTAIS_BANCO [aaaa-mm-dd | aaaa-mm]               -> (idem, somando todas as contas)
+ * SAIR                                              (encerra a conexão)
+ * </pre>
+ *
+ * Pernas de transferências entre partições (usadas pelo BancoParticionado; a chave é obrigatória).
+ * Movem dinheiro sem a outra conta, então só o interpretador interno (ver interno) as aceita;
+ * o ServidorApp o atende numa porta separada, que não deve ficar exposta aos clientes:
+ * <pre>
+ * DEBITAR &lt;chave&gt; &lt;numero&gt; &lt;valor&gt; &lt;tipo&gt; &lt;cpfDestino&gt; &lt;contraparte...&gt;  -> OK &lt;saldo&gt;
+ * CREDITAR &lt;chave&gt; &lt;numero&gt; &lt;valor&gt; &lt;tipo&gt; &lt;contraparte...&gt;                   -> OK &lt;saldo&gt;
+ * ESTORNAR &lt;chave&gt; &lt;numero&gt; &lt;valor&gt; &lt;motivo...&gt;                               -> OK &lt;saldo&gt;
+ * </pre>
+ *
+ * Falhas de negócio (conta inexistente, saldo insuficiente, recusa antifraude...) e valores
+ * inválidos ou grandes demais viram "ERRO &lt;mensagem&gt;": a conexão continua aberta.
+ * Com a chave de idempotência opcional (ex: um UUID), a resposta de sucesso traz o saldo
+ * ("OK &lt;saldo da origem&gt;") e repetir o comando com a mesma chave devolve a mesma resposta,
+ * sem mover o dinheiro de novo.
+ * No modo sequencial (ver o construtor com MotorSequencial), DEPOSITAR, SACAR, TRANSFERIR e PIX
+ * passam pelo motor e não aceitam a chave de idempotência.
+ * Pode ser usado por várias threads ao mesmo tempo (não guarda estado).
+ */
+public class InterpretadorDeComandos {
+
+    private static final int TAMANHO_PAGINA_EXTRATO = 20;
+    private static final String CHAVE_NO_MODO_SEQUENCIAL = "ERRO Chave de idempotência não é aceita no modo sequencial.";
+
+    private final ContaService contaService;
+    private final PixService pixService;
+    // null: as movimentações passam pelo ContaService/PixService (com travas)
+    private final MotorSequencial motor;
+    private final boolean pernasDeSaga;
+
+    /**
+     * Interpretador para os clientes: DEBITAR, CREDITAR e ESTORNAR são comandos desconhecidos.
+     */
+    public InterpretadorDeComandos(ContaService contaService, PixService pixService) {
+        this(contaService, pixService, null, false);
+    }
+
+    /**
+     * Interpretador para os clientes no modo sequencial: DEPOSITAR, SACAR, TRANSFERIR e PIX
+     * são aplicados pela thread de negócio do motor (sem travas nas contas); os outros
+     * comandos continuam nos serviços. Nesse modo todo o dinheiro deve passar pelo motor,
+     * então as pernas das sagas não existem e a chave de idempotência não é aceita.
+     */
+    public InterpretadorDeComandos(ContaService contaService, PixService pixService, MotorSequencial motor) {
+        this(contaService, pixService, motor, false);
+    }
+
+    private InterpretadorDeComandos(ContaService contaService, PixService pixService, MotorSequencial motor,
+                                    boolean pernasDeSaga) {
+        this.contaService = contaService;
+        this.pixService = pixService;
+        this.motor = motor;
+        this.pernasDeSaga = pernasDeSaga;
+    }
+
+    /**
+     * Interpretador para o coordenador das partições (BancoParticionado): todos os
+     * comandos, inclusive DEBITAR, CREDITAR e ESTORNAR.
+     */
+    public static InterpretadorDeComandos interno(ContaService contaService, PixService pixService) {
+        return new InterpretadorDeComandos(contaService, pixService, null, true);
+    }
+
+    /**
+     * Executa um comando.
+     * @return a resposta (uma ou mais linhas, sem a quebra de linha final).
+     */
+    public String executar(String linha) {
+        String[] campos = linha.trim().split(" ", 2);
+        String comando = campos[0].toUpperCase();
+        String argumentos = campos.length > 1 ? campos[1] : "";
+        try {
+            return switch (comando) {
+                case "PING" -> "OK";
+                case "CRIAR_CORRENTE" -> criarConta(argumentos, true);
+                case "CRIAR_POUPANCA" -> criarConta(argumentos, false);
+                case "DEPOSITAR" -> depositar(argumentos);
+                case "SACAR" -> sacar(argumentos);
+                case "TRANSFERIR" -> transferir(argumentos);
+                case "PIX" -> realizarPix(argumentos);
+                case "REGISTRAR_CHAVE" -> registrarChave(argumentos);
+                case "REMOVER_CHAVE" -> removerChave(argumentos);
+                case "CHAVES" -> listarChaves(argumentos);
+                case "SALDO" -> saldo(argumentos);
+                case "CONTA" -> titular(argumentos);
+                case "RESOLVER_CHAVE" -> resolverChave(argumentos);
+                case "DEBITAR" -> pernasDeSaga ? debitar(argumentos) : desconhecido(comando);
+                case "CREDITAR" -> pernasDeSaga ? creditar(argumentos) : desconhecido(comando);
+                case "ESTORNAR" -> pernasDeSaga ? estornar(argumentos) : desconhecido(comando);
+                case "EXTRATO" -> extrato(argumentos);
+                case "TOTAIS" -> totais(argumentos);
+                case "TOTAIS_BANCO" -> totaisDoBanco(argumentos);
+                default -> desconhecido(comando);
+            };
+        } catch (ContaException | SaldoInsuficienteException | OperacaoRecusadaException e) {
+            return "ERRO " + e.getMessage();
+        } catch (NumberFormatException e) {
+            return "ERRO Valor inválido.";
+        } catch (ArithmeticException e) {
+            // Valor (ou saldo resultante) que não cabe em centavos num long (ver Dinheiro.deTexto)
+            return "ERRO Valor fora do limite.";
+        } catch (DateTimeParseException e) {
+            return "ERRO Data inválida (use aaaa-mm-dd ou aaaa-mm).";
+        } catch (IllegalArgumentException e) {
+            return "ERRO " + e.getMessage();
+        }
+    }
+
+    private static String desconhecido(String comando) {
+        return "ERRO Comando desconhecido: " + comando;
+    }
+
+    private String criarConta(String argumentos, boolean corrente) {
+        String[] campos = separar(argumentos, 4, "<agencia> <numero> <cpf> <nome>");
+        Cliente cliente = new Cliente(campos[3], campos[2]);
+        if (corrente) {
+            contaService.criarContaCorrente(cliente, campos[0], campos[1]);
+        } else {
+            contaService.criarContaPoupanca(cliente, campos[0], campos[1]);
+        }
+        return "OK";
+    }
+
+    private String depositar(String argumentos) {
+        String[] campos = separarComChave(argumentos, 2, "<numero> <valor> [chave]");
+        if (motor != null) {
+            return campos[2] == null ? responderSequencial(motor.depositar(campos[0], valorPositivo(campos[1])))
+                    : CHAVE_NO_MODO_SEQUENCIAL;
+        }
+        if (campos[2] != null) {
+            return responder(contaService.depositar(campos[2], campos[0], valorPositivo(campos[1])));
+        }
+        contaService.depositar(campos[0], valorPositivo(campos[1]));
+        return "OK";
+    }
+
+    private String sacar(String argumentos) {
+        String[] campos = separarComChave(argumentos, 2, "<numero> <valor> [chave]");
+        if (motor != null) {
+            return campos[2] == null ? responderSequencial(motor.sacar(campos[0], valorPositivo(campos[1])))
+                    : CHAVE_NO_MODO_SEQUENCIAL;
+        }
+        if (campos[2] != null) {
+            return responder(contaService.sacar(campos[2], campos[0], valorPositivo(campos[1])));
+        }
+        contaService.sacar(campos[0], valorPositivo(campos[1]));
+        return "OK";
+    }
+
+    private String transferir(String argumentos) {
+        String[] campos = separarComChave(argumentos, 3, "<origem> <destino> <valor> [chave]");
+        if (motor != null) {
+            return campos[3] == null
+                    ? responderSequencial(motor.transferir(campos[0], campos[1], valorPositivo(campos[2])))
+                    : CHAVE_NO_MODO_SEQUENCIAL;
+        }
+        if (campos[3] != null) {
+            return responder(contaService.transferir(campos[3], campos[0], campos[1], valorPositivo(campos[2])));
+        }
+        boolean realizada = contaService.transferir(campos[0], campos[1], valorPositivo(campos[2]));
+        return realizada ? "OK" : "ERRO Saldo insuficiente.";
+    }
+
+    private String realizarPix(String argumentos) {
+        String[] campos = separarComChave(argumentos, 3, "<origem> <chavePix> <valor> [chave]");
+        if (motor != null) {
+            return campos[3] == null
+                    ? responderSequencial(motor.realizarPix(campos[0], campos[1], valorPositivo(campos[2])))
+                    : CHAVE_NO_MODO_SEQUENCIAL;
+        }
+        if (campos[3] != null) {
+            return responder(pixService.realizarPix(campos[3], campos[0], campos[1], valorPositivo(campos[2])));
+        }
+        boolean realizado = pixService.realizarPix(campos[0], campos[1], valorPositivo(campos[2]));
+        return realizado ? "OK" : "ERRO Saldo insuficiente.";
+    }
+
+    private String registrarChave(String argumentos) {
+        String[] campos = argumentos.isBlank() ? new String[0] : argumentos.trim().split(" +");
+        if (campos.length < 2 || campos.length > 3) {
+            throw new IllegalArgumentException("Uso: REGISTRAR_CHAVE <numero> <tipo> [valor]");
+        }
+        TipoChavePix tipo;
+        try {
+            tipo = TipoChavePix.valueOf(campos[1].toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Tipo de chave inválido: " + campos[1]);
+        }
+        if (tipo != TipoChavePix.ALEATORIA && campos.length < 3) {
+            throw new IllegalArgumentException("Informe o valor da chave " + tipo.getDescricao());
+        }
+        ChavePix chave = pixService.registrarChave(campos[0], tipo, campos.length == 3 ? campos[2] : null);
+        return "OK " + chave.valor();
+    }
+
+    private String removerChave(String argumentos) {
+        String[] campos = separar(argumentos, 1, "<chavePix>");
+        return pixService.removerChave(campos[0].trim()) ? "OK" : "ERRO Chave PIX não cadastrada.";
+    }
+
+    private String listarChaves(String argumentos) {
+        String[] campos = separar(argumentos, 1, "<numero>");
+        contaService.buscarContaPorNumero(campos[0]); // ERRO se a conta não existe
+        List<ChavePix> chaves = pixService.listarChaves(campos[0]);
+        StringBuilder resposta = new StringBuilder("OK ").append(chaves.size());
+        for (ChavePix chave : chaves) {
+            resposta.append('\n').append(chave.tipo()).append(' ').append(chave.valor());
+        }
+        return resposta.toString();
+    }
+
+    private static String responder(ResultadoOperacao resultado) {
+        return resultado.sucesso()
+                ? "OK " + Dinheiro.formatar(resultado.saldo())
+                : "ERRO " + resultado.motivoFalha();
+    }
+
+    // Espera o motor aplicar e gravar o comando; responde como o caminho sem chave ("OK")
+    private static String responderSequencial(CompletableFuture<ResultadoOperacao> futuro) {
+        try {
+            ResultadoOperacao resultado = futuro.join();
+            return resultado.sucesso() ? "OK" : "ERRO " + resultado.motivoFalha();
+        } catch (CompletionException e) {
+            return "ERRO " + e.getCause().getMessage(); // Ex: falha ao gravar o journal
+        }
+    }
+
+    private String saldo(String argumentos) {
+        String[] campos = separar(argumentos, 1, "<numero>");
+        return "OK " + Dinheiro.formatar(contaService.consultarSaldo(campos[0]));
+    }
+
+    private String titular(String argumentos) {
+        String[] campos = separar(argumentos, 1, "<numero>");
+        Cliente titular = contaService.buscarContaPorNumero(campos[0].trim()).getCliente();
+        return "OK " + titular.cpf() + " " + titular.nome();
+    }
+
+    private String resolverChave(String argumentos) {
+        String[] campos = separar(argumentos, 1, "<chavePix>");
+        Conta conta = pixService.buscarContaPorChave(campos[0].trim());
+        return "OK " + conta.getNumero() + " " + conta.getCliente().cpf() + " " + conta.getCliente().nome();
+    }
+
+    private String debitar(String argumentos) {
+        String[] campos = separar(argumentos, 6, "<chave> <numero> <valor> <tipo> <cpfDestino> <contraparte>");
+        return responder(contaService.debitar(campos[0], campos[1], valorPositivo(campos[2]),
+                TipoTransacao.valueOf(campos[3]), campos[4], campos[5]));
+    }
+
+    private String creditar(String argumentos) {
+        String[] campos = separar(argumentos, 5, "<chave> <numero> <valor> <tipo> <contraparte>");
+        return responder(contaService.creditar(campos[0], campos[1], valorPositivo(campos[2]),
+                TipoTransacao.valueOf(campos[3]), campos[4]));
+    }
+
+    private String estornar(String argumentos) {
+        String[] campos = separar(argumentos, 4, "<chave> <numero> <valor> <motivo>");
+        return responder(contaService.estornar(campos[0], campos[1], valorPositivo(campos[2]), campos[3]));
+    }
+
+    private String extrato(String argumentos) {
+        String[] campos = argumentos.isBlank() ? new String[0] : argumentos.trim().split(" ");
+        if (campos.length < 1 || campos.length > 2) {
+            throw new IllegalArgumentException("Uso: EXTRATO <numero> [cursor]");
+        }
+        int cursor = campos.length == 2 ? Integer.parseInt(campos[1]) : PaginaExtrato.INICIO;
+        PaginaExtrato pagina = contaService.consultarExtrato(
+                campos[0], FiltroExtrato.todos(), cursor, TAMANHO_PAGINA_EXTRATO);
+
+        StringBuilder resposta = new StringBuilder(64 + pagina.transacoes().size() * 96);
+        resposta.append("OK ").append(pagina.proximoCursor()).append(' ').append(pagina.transacoes().size());
+        for (Transacao t : pagina.transacoes()) {
+            resposta.append('\n').append(t);
+        }
+        return resposta.toString();
+    }
+
+    private String totais(String argumentos) {
+        String[] campos = argumentos.isBlank() ? new String[0] : argumentos.trim().split(" +");
+        if (campos.length < 1 || campos.length > 2) {
+            throw new IllegalArgumentException("Uso: TOTAIS <numero> [aaaa-mm-dd | aaaa-mm]");
+        }
+        LocalDate[] periodo = periodo(campos.length == 2 ? campos[1] : null);
+        return responder(contaService.consultarTotais(campos[0], periodo[0], periodo[1]));
+    }
+
+    private String totaisDoBanco(String argumentos) {
+        LocalDate[] periodo = periodo(argumentos.isBlank() ? null : argumentos.trim());
+        return responder(contaService.consultarTotaisDoBanco(periodo[0], periodo[1]));
+    }
+
+    // Dia (aaaa-mm-dd), mês (aaaa-mm) ou, sem texto, hoje
+    private static LocalDate[] periodo(String texto) {
+        if (texto == null) {
+            LocalDate hoje = LocalDate.now();
+            return new LocalDate[] {hoje, hoje};
+        }
+        if (texto.length() == 7) {
+            YearMonth mes = YearMonth.parse(texto);
+            return new LocalDate[] {mes.atDay(1), mes.atEndOfMonth()};
+        }
+        LocalDate dia = LocalDate.parse(texto);
+        return new LocalDate[] {dia, dia};
+    }
+
+    private static String responder(TotaisPorTipo totais) {
+        StringBuilder linhas = new StringBuilder();
+        int quantidade = 0;
+        for (TipoTransacao tipo : TipoTransacao.values()) {
+            if (totais.quantidade(tipo) > 0) {
+                linhas.append('\n').append(tipo).append(' ').append(totais.quantidade(tipo))
+                        .append(' ').append(Dinheiro.formatar(totais.total(tipo)));
+                quantidade++;
+            }
+        }
+        return "OK " + quantidade + linhas;
+    }
+
+    // Separa os argumentos em 'quantidade' campos (o último fica com o resto da linha)
+    private static String[] separar(String argumentos, int quantidade, String uso) {
+        String[] campos = argumentos.trim().split(" ", quantidade);
+        if (campos.length < quantidade || campos[quantidade - 1].isBlank()) {
+            throw new IllegalArgumentException("Uso: " + uso);
+        }
+        return campos;
+    }
+
+    // Separa 'quantidade' campos obrigatórios e a chave de idempotência opcional (null se ausente)
+    private static String[] separarComChave(String argumentos, int quantidade, String uso) {
+        String[] campos = argumentos.isBlank() ? new String[0] : argumentos.trim().split(" +");
+        if (campos.length < quantidade || campos.length > quantidade + 1) {
+            throw new IllegalArgumentException("Uso: " + uso);
+        }
+        return Arrays.copyOf(campos, quantidade + 1);
+    }
+
+    private static long valorPositivo(String texto) {
+        long valor = Dinheiro.deTexto(texto);
+        if (valor <= 0) {
+            throw new IllegalArgumentException("Valor deve ser positivo.");
+        }
+        return valor;
+    }
+}
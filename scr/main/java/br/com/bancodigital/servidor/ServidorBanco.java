@@ -0,0 +1,152 @@
+package br.com.bancodigital.servidor;
+
+import br.com.bancodigital.evento.EventoBancario;
+import br.com.bancodigital.evento.PublicadorDeEventos;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Servidor TCP do banco, com o protocolo de linha do InterpretadorDeComandos.
+ *
+ * Cada conexão é atendida por uma VIRTUAL THREAD (Java 21): o código é o
+ * simples "lê uma linha, executa, responde" com I/O bloqueante, mas uma
+ * thread bloqueada no socket não ocupa uma thread do sistema operacional.
+ * Assim dezenas de milhares de clientes conectados custam pouca memória.
+ *
+ * Respostas são enviadas em lote: se o cliente já mandou a próxima
+ * requisição (pipelining), o flush fica para depois dela.
+ *
+ * Os serviços são chamados por várias threads ao mesmo tempo, então use um
+ * repositório seguro para isso (ConcorrenteContaRepository ou DuravelContaRepository).
+ */
+public class ServidorBanco implements AutoCloseable {
+
+    // Conexões que podem esperar na fila do sistema antes do accept
+    private static final int FILA_DE_CONEXOES = 16_384;
+
+    private final InterpretadorDeComandos interpretador;
+    private final PublicadorDeEventos eventos;
+    private final ServerSocket socketServidor;
+    private final ExecutorService atendentes = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<Socket> conexoes = ConcurrentHashMap.newKeySet();
+    private final LongAdder requisicoes = new LongAdder();
+    private final Thread aceitador;
+    private volatile boolean fechado;
+
+    /**
+     * Abre a porta e começa a aceitar conexões.
+     * @param porta Porta TCP (0 = qualquer porta livre, ver getPorta).
+     * @param eventos Recebe as falhas de conexão (não há quem receba a exceção).
+     */
+    public ServidorBanco(int porta, InterpretadorDeComandos interpretador, PublicadorDeEventos eventos)
+            throws IOException {
+        this(new InetSocketAddress(porta), interpretador, eventos);
+    }
+
+    /**
+     * Abre a porta só no endereço informado (ex: 127.0.0.1 ou o IP da rede interna).
+     */
+    public ServidorBanco(InetSocketAddress endereco, InterpretadorDeComandos interpretador,
+                         PublicadorDeEventos eventos) throws IOException {
+        this.interpretador = interpretador;
+        this.eventos = eventos;
+        this.socketServidor = new ServerSocket();
+        this.socketServidor.setReuseAddress(true);
+        this.socketServidor.bind(endereco, FILA_DE_CONEXOES);
+        this.aceitador = Thread.ofPlatform().name("servidor-aceitador").start(this::aceitar);
+    }
+
+    public int getPorta() {
+        return socketServidor.getLocalPort();
+    }
+
+    public int getConexoesAbertas() {
+        return conexoes.size();
+    }
+
+    public long getRequisicoes() {
+        return requisicoes.sum();
+    }
+
+    private void aceitar() {
+        while (!fechado) {
+            try {
+                Socket socket = socketServidor.accept();
+                conexoes.add(socket);
+                atendentes.execute(() -> atender(socket));
+            } catch (IOException e) {
+                if (!fechado) {
+                    eventos.publicar(new EventoBancario.FalhaEmSegundoPlano("Servidor",
+                            "Falha ao aceitar conexão: " + e.getMessage()));
+                }
+            }
+        }
+    }
+
+    // Roda em uma virtual thread, uma por conexão
+    private void atender(Socket socket) {
+        try (socket;
+             BufferedReader entrada = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter saida = new BufferedWriter(
+                     new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            socket.setTcpNoDelay(true);
+            String linha;
+            while ((linha = entrada.readLine()) != null) {
+                if (linha.isBlank()) {
+                    continue;
+                }
+                if (linha.trim().equalsIgnoreCase("SAIR")) {
+                    break;
+                }
+                saida.write(interpretador.executar(linha));
+                saida.write('\n');
+                requisicoes.increment();
+                // Só envia quando não há outra requisição esperando (respostas em lote)
+                if (!entrada.ready()) {
+                    saida.flush();
+                }
+            }
+        } catch (SocketException e) {
+            // Conexão encerrada pelo cliente (ou pelo close do servidor)
+        } catch (IOException | RuntimeException e) {
+            eventos.publicar(new EventoBancario.FalhaEmSegundoPlano("Servidor", "Erro na conexão: " + e.getMessage()));
+        } finally {
+            conexoes.remove(socket);
+        }
+    }
+
+    /**
+     * Para de aceitar conexões e encerra as conexões abertas.
+     */
+    @Override
+    public void close() throws IOException {
+        fechado = true;
+        socketServidor.close();
+        for (Socket socket : conexoes) {
+            socket.close(); // Desbloqueia a virtual thread que está lendo
+        }
+        atendentes.shutdown();
+        try {
+            aceitador.join();
+            atendentes.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
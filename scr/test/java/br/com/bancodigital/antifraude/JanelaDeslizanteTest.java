@@ -0,0 +1,110 @@
+package br.com.bancodigital.antifraude;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Janela deslizante de um minuto em 6 baldes de 10 segundos: os registros saem
+ * da janela balde a balde, um balde reaproveitado começa do zero e registros
+ * concorrentes (inclusive na virada de um balde) não se perdem.
+ */
+class JanelaDeslizanteTest {
+
+    private static final Duration MINUTO = Duration.ofMinutes(1);
+    private static final int BALDES = 6;
+    private static final long BALDE = 10_000;
+    private static final long INICIO = 1_000_000_000_000L; // Início de um balde
+    private static final int THREADS = 8;
+    private static final int REGISTROS_POR_THREAD = 50_000;
+
+    @Test
+    void registrosExpiramQuandoOBaldeSaiDaJanela() {
+        JanelaDeslizante janela = new JanelaDeslizante(MINUTO, BALDES);
+        assertTrue(janela.vazia(INICIO));
+        janela.registrar(INICIO, 100);
+        janela.registrar(INICIO + 5_000, 200);
+
+        assertEquals(2, janela.quantidade(INICIO + 5_000));
+        assertEquals(300, janela.total(INICIO + 5_000));
+        assertEquals(300, janela.total(INICIO + 6 * BALDE - 1)); // Ainda no último balde da janela
+        assertFalse(janela.vazia(INICIO + 6 * BALDE - 1));
+
+        // Um minuto depois do início do balde: ele sai da janela inteiro
+        assertEquals(0, janela.quantidade(INICIO + 6 * BALDE));
+        assertEquals(0, janela.total(INICIO + 6 * BALDE));
+        assertTrue(janela.vazia(INICIO + 6 * BALDE));
+    }
+
+    @Test
+    void janelaAndaDeBaldeEmBaldeEReaproveitaOsBaldes() {
+        JanelaDeslizante janela = new JanelaDeslizante(MINUTO, BALDES);
+        // Um registro por balde, por duas voltas do anel
+        for (int i = 0; i < 2 * BALDES; i++) {
+            long agora = INICIO + i * BALDE;
+            janela.registrar(agora, i + 1);
+            assertEquals(Math.min(i + 1, BALDES), janela.quantidade(agora));
+            // Só os 6 últimos valores: i + 1, i, ..., i - 4
+            long esperado = 0;
+            for (int k = Math.max(0, i - BALDES + 1); k <= i; k++) {
+                esperado += k + 1;
+            }
+            assertEquals(esperado, janela.total(agora));
+        }
+
+        // O balde da época 0 agora é da época 6: a leitura de um instante antigo não o vê
+        long depois = INICIO + 2 * BALDES * BALDE - 1;
+        assertEquals(0, janela.total(INICIO));
+        // E um registro atrasado, de uma época que o balde já deixou para trás, é ignorado
+        janela.registrar(INICIO, 1_000);
+        assertEquals(BALDES, janela.quantidade(depois));
+        assertEquals(7 + 8 + 9 + 10 + 11 + 12, janela.total(depois));
+
+        assertThrows(IllegalArgumentException.class, () -> new JanelaDeslizante(MINUTO, 0));
+        assertThrows(IllegalArgumentException.class, () -> new JanelaDeslizante(Duration.ofMillis(5), BALDES));
+    }
+
+    @Test
+    void registrosConcorrentesNaViradaDoBaldeNaoSePerdem() throws Exception {
+        JanelaDeslizante janela = new JanelaDeslizante(MINUTO, BALDES);
+        janela.registrar(INICIO, 1_000); // Valor antigo no balde que as threads vão reivindicar
+        long agora = INICIO + 6 * BALDE;
+
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> tarefas = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                tarefas.add(threads.submit(() -> {
+                    largada.await();
+                    for (int i = 0; i < REGISTROS_POR_THREAD; i++) {
+                        janela.registrar(agora, 1);
+                    }
+                    return null;
+                }));
+            }
+            largada.countDown();
+            for (Future<?> tarefa : tarefas) {
+                tarefa.get();
+            }
+        } finally {
+            threads.shutdown();
+        }
+
+        // Zerado uma vez só, antes do primeiro registro da época nova
+        long registros = (long) THREADS * REGISTROS_POR_THREAD;
+        assertEquals(registros, janela.quantidade(agora));
+        assertEquals(registros, janela.total(agora));
+    }
+}
@@ -0,0 +1,117 @@
+package br.com.bancodigital.antifraude;
+
+import br.com.bancodigital.evento.EventoBancario;
+import br.com.bancodigital.exception.OperacaoRecusadaException;
+import br.com.bancodigital.model.Dinheiro;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Regras lidas do arquivo: a recarga automática troca as regras com o motor
+ * funcionando, e um arquivo inválido mantém as regras anteriores até ser corrigido.
+ */
+class MotorAntifraudeTest {
+
+    private static final Duration INTERVALO = Duration.ofMillis(20);
+    private static final long VALOR = Dinheiro.reais(10);
+    private static final String ORIGEM = "1";
+    private static final String CPF = "00000000002";
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    void recarregaSoQuandoOArquivoMudaEMantemAsRegrasSeEleForInvalido() throws IOException {
+        Path arquivo = diretorio.resolve("antifraude.properties");
+        escrever(arquivo, "origem.quantidade.hora=1\nprimeiro.pagamento=50\n", 0);
+        MotorAntifraude motor = MotorAntifraude.carregar(arquivo);
+        assertEquals(1, motor.getRegras().origem().quantidadePorHora());
+        assertEquals(Dinheiro.reais(50), motor.getRegras().primeiroPagamento());
+        assertFalse(motor.recarregar()); // Não mudou
+
+        escrever(arquivo, "origem.quantidade.hora=abc\n", 1);
+        assertThrows(IllegalArgumentException.class, motor::recarregar);
+        assertEquals(1, motor.getRegras().origem().quantidadePorHora());
+
+        escrever(arquivo, "origem.quantidade.hora=2\n", 2);
+        assertTrue(motor.recarregar());
+        assertEquals(2, motor.getRegras().origem().quantidadePorHora());
+        assertEquals(0, motor.getRegras().primeiroPagamento()); // Ausente = sem limite
+
+        assertThrows(IllegalStateException.class, () -> new MotorAntifraude(RegrasAntifraude.SEM_LIMITES).recarregar());
+    }
+
+    @Test
+    void recargaAutomaticaTrocaAsRegrasComOMotorFuncionando() throws Exception {
+        Path arquivo = diretorio.resolve("antifraude.properties");
+        escrever(arquivo, "origem.quantidade.hora=1\n", 0);
+        BlockingQueue<EventoBancario> eventos = new LinkedBlockingQueue<>();
+
+        try (MotorAntifraude motor = MotorAntifraude.carregar(arquivo)) {
+            motor.iniciarRecargaAutomatica(INTERVALO, eventos::add);
+            enviar(motor);
+            assertRecusado(motor, "origem.quantidade.hora");
+
+            // Limite maior no arquivo: o envio seguinte já passa
+            escrever(arquivo, "origem.quantidade.hora=3\n", 1);
+            assertInstanceOf(EventoBancario.RegrasAntifraudeRecarregadas.class, eventos.poll(5, TimeUnit.SECONDS));
+            assertEquals(3, motor.getRegras().origem().quantidadePorHora());
+            enviar(motor);
+
+            // Arquivo inválido: falha publicada, as regras anteriores continuam valendo
+            escrever(arquivo, "origem.quantidade.hora=3\norigem.valor.hora=muito\n", 2);
+            EventoBancario falha = eventos.poll(5, TimeUnit.SECONDS);
+            assertInstanceOf(EventoBancario.FalhaEmSegundoPlano.class, falha);
+            assertEquals("Antifraude", ((EventoBancario.FalhaEmSegundoPlano) falha).componente());
+            assertEquals(3, motor.getRegras().origem().quantidadePorHora());
+            assertEquals(0, motor.getRegras().origem().valorPorHora());
+            enviar(motor);
+            assertRecusado(motor, "origem.quantidade.hora");
+
+            // Corrigido, o arquivo é lido de novo (a data que falhou não conta como lida)
+            escrever(arquivo, "origem.quantidade.hora=3\norigem.valor.hora=5\n", 3);
+            EventoBancario evento;
+            do {
+                evento = eventos.poll(5, TimeUnit.SECONDS);
+            } while (evento instanceof EventoBancario.FalhaEmSegundoPlano);
+            assertInstanceOf(EventoBancario.RegrasAntifraudeRecarregadas.class, evento);
+            assertEquals(Dinheiro.reais(5), motor.getRegras().origem().valorPorHora());
+        }
+    }
+
+    private static void enviar(MotorAntifraude motor) {
+        motor.verificar(ORIGEM, CPF, VALOR);
+        motor.registrar(ORIGEM, CPF, VALOR);
+    }
+
+    private static void assertRecusado(MotorAntifraude motor, String regra) {
+        OperacaoRecusadaException recusa = assertThrows(OperacaoRecusadaException.class,
+                () -> motor.verificar(ORIGEM, CPF, VALOR));
+        assertEquals(regra, recusa.getRegra());
+    }
+
+    // Troca o arquivo de uma vez (a recarga nunca lê um arquivo pela metade), com uma data
+    // de modificação por versão: gravações seguidas podem cair no mesmo tique do sistema de arquivos
+    private static void escrever(Path arquivo, String conteudo, int versao) throws IOException {
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        Files.writeString(temporario, conteudo);
+        Files.setLastModifiedTime(temporario, FileTime.fromMillis(1_000_000_000_000L + versao * 1_000L));
+        Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,170 @@
+package br.com.bancodigital.evento;
+
+import br.com.bancodigital.exception.TransacoesPerdidasException;
+import br.com.bancodigital.model.Cliente;
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.model.ContaCorrente;
+import br.com.bancodigital.model.Dinheiro;
+import br.com.bancodigital.model.TipoTransacao;
+import br.com.bancodigital.repository.ConcorrenteContaRepository;
+import br.com.bancodigital.repository.IndicesDeContas;
+import br.com.bancodigital.service.ContaService;
+import br.com.bancodigital.service.Dependencias;
+import br.com.bancodigital.service.PixService;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Fluxo de transações: sequência global, entrega só do que foi pedido (request),
+ * reentrega a partir de uma sequência e erro para quem ficou para trás do buffer.
+ */
+class FluxoDeTransacoesTest {
+
+    private static final long VALOR = Dinheiro.reais(1);
+    private static final int TRANSACOES = 10;
+
+    @Test
+    void servicosPublicamCadaTransacaoComUmaSequenciaGlobal() throws Exception {
+        try (FluxoDeTransacoes fluxo = new FluxoDeTransacoes(1_024)) {
+            Assinante assinante = new Assinante(Long.MAX_VALUE);
+            fluxo.subscribe(assinante);
+            assinante.assinado.get(5, TimeUnit.SECONDS);
+
+            ConcorrenteContaRepository repositorio = ConcorrenteContaRepository.novo().construir();
+            IndicesDeContas indices = repositorio.getIndices();
+            Dependencias dependencias = Dependencias.novas().transacoes(fluxo).construir();
+            ContaService contaService = new ContaService(repositorio, indices, dependencias);
+            PixService pixService = new PixService(repositorio, indices, dependencias);
+            Cliente ana = indices.getClientes().registrar(new Cliente("Ana", "00000000001"));
+            Cliente bruno = indices.getClientes().registrar(new Cliente("Bruno", "00000000002"));
+            contaService.criarContaCorrente(ana, "0001", "1");
+            contaService.criarContaCorrente(bruno, "0001", "2");
+            contaService.depositar("1", 2 * VALOR);
+            contaService.transferir("1", "2", VALOR);
+            pixService.realizarPix("2", "00000000001", VALOR);
+
+            List<TransacaoPublicada> recebidas = assinante.receber(5);
+            for (int i = 0; i < recebidas.size(); i++) {
+                assertEquals(i, recebidas.get(i).sequencia());
+            }
+            assertEquals(List.of("1", "1", "2", "2", "1"),
+                    recebidas.stream().map(TransacaoPublicada::numeroConta).toList());
+            assertEquals(TipoTransacao.TRANSFERENCIA_ENVIADA, recebidas.get(1).transacao().tipo());
+            assertEquals("Para: Bruno", recebidas.get(1).transacao().descricaoAdicional());
+            assertEquals(TipoTransacao.PIX_RECEBIDO, recebidas.get(4).transacao().tipo());
+        }
+    }
+
+    @Test
+    void assinanteSoRecebeOQuePediuEPodeVoltarAUmaSequencia() throws Exception {
+        try (FluxoDeTransacoes fluxo = new FluxoDeTransacoes(1_024)) {
+            Assinante lento = new Assinante(2);
+            fluxo.subscribe(lento);
+            lento.assinado.get(5, TimeUnit.SECONDS);
+
+            // Publicar não espera o assinante lento
+            publicar(fluxo, TRANSACOES);
+            assertEquals(2, lento.receber(2).size());
+            assertNull(lento.recebidas.poll(50, TimeUnit.MILLISECONDS));
+
+            lento.assinatura.request(TRANSACOES);
+            List<TransacaoPublicada> resto = lento.receber(TRANSACOES - 2);
+            assertEquals(2, resto.get(0).sequencia());
+            assertEquals(TRANSACOES - 1, resto.get(resto.size() - 1).sequencia());
+
+            Assinante reiniciado = new Assinante(Long.MAX_VALUE);
+            fluxo.assinar(reiniciado, 5);
+            assertEquals(5, reiniciado.receber(TRANSACOES - 5).get(0).sequencia());
+        }
+    }
+
+    @Test
+    void assinanteQueFicouParaTrasDoBufferRecebeErro() throws Exception {
+        try (FluxoDeTransacoes fluxo = new FluxoDeTransacoes(4)) {
+            publicar(fluxo, TRANSACOES);
+
+            Assinante atrasado = new Assinante(Long.MAX_VALUE);
+            fluxo.assinar(atrasado, 0);
+            Throwable erro = atrasado.erro.get(5, TimeUnit.SECONDS);
+            assertInstanceOf(TransacoesPerdidasException.class, erro);
+
+            // Assinando de novo a partir do que ainda está no buffer
+            Assinante recuperado = new Assinante(Long.MAX_VALUE);
+            fluxo.assinar(recuperado, fluxo.getPrimeiraDisponivel());
+            List<TransacaoPublicada> recebidas = recuperado.receber(fluxo.getCapacidade());
+            assertEquals(TRANSACOES - fluxo.getCapacidade(), recebidas.get(0).sequencia());
+            fluxo.close();
+            assertTrue(recuperado.completo.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    // Um depósito por transação, publicado direto (sem os serviços)
+    private static void publicar(FluxoDeTransacoes fluxo, int quantidade) {
+        Conta conta = new ContaCorrente(new Cliente("Ana", "00000000001"), "0001", "1");
+        for (int i = 0; i < quantidade; i++) {
+            conta.depositarInterno(VALOR);
+            conta.registrarTransacao(TipoTransacao.DEPOSITO, VALOR, "Depósito em conta");
+            fluxo.publicar(conta, i);
+        }
+    }
+
+    // Pede 'inicial' transações ao assinar e guarda o que recebe
+    private static final class Assinante implements Flow.Subscriber<TransacaoPublicada> {
+
+        private final long inicial;
+        private final BlockingQueue<TransacaoPublicada> recebidas = new LinkedBlockingQueue<>();
+        private final CompletableFuture<Void> assinado = new CompletableFuture<>();
+        private final CompletableFuture<Throwable> erro = new CompletableFuture<>();
+        private final CompletableFuture<Boolean> completo = new CompletableFuture<>();
+        private volatile Flow.Subscription assinatura;
+
+        Assinante(long inicial) {
+            this.inicial = inicial;
+        }
+
+        List<TransacaoPublicada> receber(int quantidade) throws InterruptedException {
+            List<TransacaoPublicada> lidas = new ArrayList<>();
+            for (int i = 0; i < quantidade; i++) {
+                TransacaoPublicada transacao = recebidas.poll(5, TimeUnit.SECONDS);
+                assertNotNull(transacao, "Esperava " + quantidade + " transações, chegaram " + i);
+                lidas.add(transacao);
+            }
+            return lidas;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription assinatura) {
+            this.assinatura = assinatura;
+            assinatura.request(inicial);
+            assinado.complete(null);
+        }
+
+        @Override
+        public void onNext(TransacaoPublicada transacao) {
+            recebidas.add(transacao);
+        }
+
+        @Override
+        public void onError(Throwable erro) {
+            this.erro.complete(erro);
+        }
+
+        @Override
+        public void onComplete() {
+            completo.complete(true);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package br.com.bancodigital.evento;
+
+import br.com.bancodigital.evento.PublicadorAssincrono.PoliticaFilaCheia;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Publicador assíncrono com a fila cheia (a thread de escrita presa num ouvinte lento):
+ * DESCARTAR perde os eventos que não cabem sem esperar, BLOQUEAR segura quem publica
+ * até haver espaço, e o close entrega o que ficou na fila.
+ */
+class PublicadorAssincronoTest {
+
+    private static final int CAPACIDADE = 2;
+    private static final int EVENTOS = 10_000;
+
+    @Test
+    void descartarPerdeOQueNaoCabeNaFilaSemEsperar() throws Exception {
+        OuvinteLento ouvinte = new OuvinteLento();
+        PublicadorAssincrono publicador = new PublicadorAssincrono(CAPACIDADE, PoliticaFilaCheia.DESCARTAR);
+        publicador.adicionarOuvinte(ouvinte);
+        publicador.publicar(evento(0));
+        ouvinte.aguardarPrimeiroLote(); // A escrita está presa no evento 0; a fila está vazia
+
+        for (int i = 1; i <= 5; i++) {
+            publicador.publicar(evento(i)); // Cabem 1 e 2
+        }
+        assertEquals(3, publicador.getDescartados());
+
+        ouvinte.soltar();
+        publicador.close();
+        assertEquals(List.of(evento(0), evento(1), evento(2)), ouvinte.recebidos);
+        assertEquals(3, publicador.getEntregues());
+
+        // Depois do close, publicar só conta o descarte
+        publicador.publicar(evento(6));
+        assertEquals(4, publicador.getDescartados());
+    }
+
+    @Test
+    void bloquearSeguraQuemPublicaAteHaverEspaco() throws Exception {
+        OuvinteLento ouvinte = new OuvinteLento();
+        PublicadorAssincrono publicador = new PublicadorAssincrono(CAPACIDADE, PoliticaFilaCheia.BLOQUEAR);
+        publicador.adicionarOuvinte(ouvinte);
+        publicador.publicar(evento(0));
+        ouvinte.aguardarPrimeiroLote();
+        publicador.publicar(evento(1));
+        publicador.publicar(evento(2)); // Fila cheia
+
+        CompletableFuture<Void> terceiro = CompletableFuture.runAsync(() -> publicador.publicar(evento(3)));
+        assertThrows(TimeoutException.class, () -> terceiro.get(200, TimeUnit.MILLISECONDS));
+        assertFalse(terceiro.isDone());
+
+        ouvinte.soltar();
+        terceiro.get(5, TimeUnit.SECONDS);
+        publicador.close();
+        assertEquals(List.of(evento(0), evento(1), evento(2), evento(3)), ouvinte.recebidos);
+        assertEquals(0, publicador.getDescartados());
+    }
+
+    @Test
+    void closeEntregaOQueFicouNaFila() throws Exception {
+        OuvinteLento ouvinte = new OuvinteLento();
+        List<EventoBancario> recebidosPeloSegundo = new ArrayList<>();
+        PublicadorAssincrono publicador = new PublicadorAssincrono(EVENTOS, PoliticaFilaCheia.BLOQUEAR);
+        publicador.adicionarOuvinte(eventos -> {
+            throw new IllegalStateException("Ouvinte com defeito");
+        });
+        publicador.adicionarOuvinte(ouvinte);
+        publicador.adicionarOuvinte(recebidosPeloSegundo::addAll);
+        publicador.publicar(evento(0));
+        ouvinte.aguardarPrimeiroLote();
+        for (int i = 1; i < EVENTOS; i++) {
+            publicador.publicar(evento(i));
+        }
+        assertEquals(0, publicador.getEntregues()); // Tudo na fila, atrás do ouvinte lento
+
+        ouvinte.soltar();
+        publicador.close();
+        assertEquals(EVENTOS, publicador.getEntregues());
+        assertEquals(EVENTOS, ouvinte.recebidos.size());
+        for (int i = 0; i < EVENTOS; i++) {
+            assertEquals(evento(i), ouvinte.recebidos.get(i));
+        }
+        assertEquals(ouvinte.recebidos, recebidosPeloSegundo);
+        // Um lote por falha do ouvinte com defeito, sem impedir a entrega aos demais
+        assertTrue(publicador.getFalhasDeOuvintes() >= 2);
+    }
+
+    private static EventoBancario evento(int i) {
+        return new EventoBancario.ContaSalva(String.valueOf(i));
+    }
+
+    // Segura a thread de escrita no primeiro lote até soltar() (a fila enche atrás dele)
+    private static final class OuvinteLento implements OuvinteDeEventos {
+
+        private final CountDownLatch primeiroLote = new CountDownLatch(1);
+        private final CountDownLatch solto = new CountDownLatch(1);
+        private final List<EventoBancario> recebidos = new ArrayList<>(); // Só a thread de escrita altera
+
+        @Override
+        public void receber(List<EventoBancario> eventos) {
+            recebidos.addAll(eventos); // O lote é reaproveitado: copia
+            primeiroLote.countDown();
+            try {
+                solto.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void aguardarPrimeiroLote() throws InterruptedException {
+            assertTrue(primeiroLote.await(5, TimeUnit.SECONDS), "A thread de escrita não pegou o primeiro evento");
+        }
+
+        void soltar() {
+            solto.countDown();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package br.com.bancodigital.metrica;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Histograma: baldes contíguos (um por valor até 63, depois 32 por potência de 2),
+ * percentis com no máximo ~3% de erro, sempre para cima, e contagem e máximo
+ * exatos com várias threads registrando.
+ */
+class HistogramaTest {
+
+    private static final double ERRO = 1.0 / 32;
+    private static final int VALORES = 100_000;
+    private static final int THREADS = 8;
+    private static final int REGISTROS_POR_THREAD = 100_000;
+
+    @Test
+    void baldesCobremTodosOsValoresSemBuracos() {
+        for (int valor = 0; valor < 64; valor++) {
+            assertEquals(valor, Histograma.indice(valor));
+            assertEquals(valor, Histograma.maiorValorDoBalde(valor));
+        }
+        // A partir de 64, 32 baldes por potência de 2: [64, 65], [66, 67], ..., [128, 131]...
+        assertEquals(64, Histograma.indice(64));
+        assertEquals(64, Histograma.indice(65));
+        assertEquals(65, Histograma.indice(66));
+        assertEquals(95, Histograma.indice(127));
+        assertEquals(96, Histograma.indice(128));
+        assertEquals(96, Histograma.indice(131));
+        assertEquals(97, Histograma.indice(132));
+
+        int ultimo = Histograma.indice(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, Histograma.maiorValorDoBalde(ultimo));
+        for (int i = 0; i < ultimo; i++) {
+            long maior = Histograma.maiorValorDoBalde(i);
+            assertEquals(i, Histograma.indice(maior), "Maior valor do balde " + i);
+            assertEquals(i + 1, Histograma.indice(maior + 1), "Primeiro valor depois do balde " + i);
+            if (i >= 64) {
+                long menor = Histograma.maiorValorDoBalde(i - 1) + 1;
+                assertTrue(maior - menor + 1 <= menor * ERRO, "Largura do balde " + i);
+            }
+        }
+    }
+
+    @Test
+    void percentisDeDistribuicoesConhecidas() {
+        Histograma vazio = new Histograma();
+        assertEquals(new Histograma.Resumo(0, 0, 0, 0, 0, 0, 0), vazio.resumir());
+
+        // Abaixo de 64, um balde por valor: tudo exato
+        Histograma pequenos = new Histograma();
+        for (int i = 0; i < 10; i++) {
+            pequenos.registrar(i);
+        }
+        pequenos.registrar(-5); // Conta como 0
+        Histograma.Resumo exato = pequenos.resumir();
+        assertEquals(11, exato.contagem());
+        assertEquals(45, exato.soma());
+        assertEquals(9, exato.maximo());
+        assertEquals(4, exato.p50());   // 6º de 0, 0, 1, ..., 9
+        assertEquals(8, exato.p90());   // 10º
+        assertEquals(9, exato.p999());
+
+        // Uniforme de 1 a 100.000: o percentil p fica entre p * VALORES e ~3% acima
+        Histograma uniforme = new Histograma();
+        for (int valor = VALORES; valor >= 1; valor--) {
+            uniforme.registrar(valor);
+        }
+        Histograma.Resumo resumo = uniforme.resumir();
+        assertEquals(VALORES, resumo.contagem());
+        assertEquals(VALORES, resumo.maximo());
+        conferirPercentil(VALORES / 2, resumo.p50());
+        conferirPercentil(VALORES * 9 / 10, resumo.p90());
+        conferirPercentil(VALORES * 99 / 100, resumo.p99());
+        conferirPercentil(VALORES * 999 / 1000, resumo.p999());
+        long media = (VALORES + 1) / 2;
+        assertTrue(Math.abs(resumo.media() - media) <= media * ERRO, "Média " + resumo.media());
+
+        // Cauda longa: 99% rápidos, 1% lentos; o p99 ainda é dos rápidos e o p999 já é dos lentos
+        Histograma cauda = new Histograma();
+        for (int i = 0; i < 99_000; i++) {
+            cauda.registrar(1_000);
+        }
+        for (int i = 0; i < 1_000; i++) {
+            cauda.registrar(1_000_000);
+        }
+        Histograma.Resumo lentos = cauda.resumir();
+        conferirPercentil(1_000, lentos.p50());
+        conferirPercentil(1_000, lentos.p99());
+        assertEquals(1_000_000, lentos.p999()); // Limitado pelo máximo
+        assertEquals(1_000_000, lentos.maximo());
+    }
+
+    @Test
+    void registrosConcorrentesNaoSePerdem() throws Exception {
+        Histograma histograma = new Histograma();
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> tarefas = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                tarefas.add(threads.submit(() -> {
+                    largada.await();
+                    for (int i = 0; i < REGISTROS_POR_THREAD; i++) {
+                        histograma.registrar(i % 100);
+                    }
+                    histograma.registrar(1_000 + thread); // Um máximo por thread
+                    return null;
+                }));
+            }
+            largada.countDown();
+            for (Future<?> tarefa : tarefas) {
+                tarefa.get();
+            }
+        } finally {
+            threads.shutdown();
+        }
+
+        Histograma.Resumo resumo = histograma.resumir();
+        assertEquals((long) THREADS * (REGISTROS_POR_THREAD + 1), resumo.contagem());
+        assertEquals(1_000 + THREADS - 1, resumo.maximo());
+        assertEquals(50, resumo.p50());
+        assertEquals(99, resumo.p99());
+    }
+
+    private static void conferirPercentil(long esperado, long calculado) {
+        assertTrue(calculado >= esperado && calculado <= esperado + esperado * ERRO,
+                "Esperado ~" + esperado + ", calculado " + calculado);
+    }
+}
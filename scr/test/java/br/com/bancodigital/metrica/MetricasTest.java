@@ -0,0 +1,101 @@
+package br.com.bancodigital.metrica;
+
+import br.com.bancodigital.model.TipoTransacao;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Métricas: contadores por tipo de transação e por operação registrados por várias
+ * threads ao mesmo tempo, faixas de tamanho de histórico e as métricas desligadas.
+ */
+class MetricasTest {
+
+    private static final int THREADS = 8;
+    private static final int TRANSACOES_POR_THREAD = 20_000;
+    private static final TipoTransacao[] TIPOS = TipoTransacao.values();
+
+    @Test
+    void contadoresPorTipoEPorOperacaoComVariasThreads() throws Exception {
+        Metricas metricas = new Metricas();
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> tarefas = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                tarefas.add(threads.submit(() -> {
+                    largada.await();
+                    for (int i = 0; i < TRANSACOES_POR_THREAD; i++) {
+                        TipoTransacao tipo = TIPOS[i % TIPOS.length];
+                        metricas.registrarTransacao(tipo, tipo.ordinal() + 1, i + 1);
+                        // Uma em cada quatro operações falha (sucesso() não é chamado)
+                        try (Medicao medicao = metricas.medir(Operacao.DEPOSITAR)) {
+                            if (i % 4 != 0) {
+                                medicao.sucesso();
+                            }
+                        }
+                        if (i % 10 == 0) {
+                            metricas.contarSaldoInsuficiente();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            largada.countDown();
+            for (Future<?> tarefa : tarefas) {
+                tarefa.get();
+            }
+        } finally {
+            threads.shutdown();
+        }
+
+        long porTipo = (long) THREADS * TRANSACOES_POR_THREAD / TIPOS.length;
+        for (TipoTransacao tipo : TIPOS) {
+            Histograma.Resumo valores = metricas.valores(tipo);
+            assertEquals(porTipo, valores.contagem(), tipo.name());
+            assertEquals(tipo.ordinal() + 1, valores.maximo(), tipo.name());
+            assertEquals(porTipo * (tipo.ordinal() + 1), valores.soma(), tipo.name()); // Abaixo de 64: exata
+        }
+        long operacoes = (long) THREADS * TRANSACOES_POR_THREAD;
+        assertEquals(operacoes / 4, metricas.getFalhas(Operacao.DEPOSITAR));
+        assertEquals(operacoes - operacoes / 4, metricas.getSucessos(Operacao.DEPOSITAR));
+        assertEquals(operacoes, metricas.latencia(Operacao.DEPOSITAR).contagem());
+        assertEquals(0, metricas.latencia(Operacao.SACAR).contagem());
+        assertEquals(operacoes / 10, metricas.getSaldoInsuficiente());
+
+        // Cada thread levou uma "conta" de 1 a 20.000 transações: passou por 1, 2, 4, ..., 16.384
+        assertEquals(THREADS, metricas.getContasComHistoricoDe(1));
+        assertEquals(THREADS, metricas.getContasComHistoricoDe(16_384));
+        assertEquals(THREADS, metricas.getContasComHistoricoDe(20_000)); // Arredonda para 16.384
+        assertEquals(0, metricas.getContasComHistoricoDe(32_768));
+
+        String texto = metricas.exportarTexto();
+        assertTrue(texto.contains("banco_operacoes_total{operacao=\"" + Operacao.DEPOSITAR.nome()
+                + "\",resultado=\"falha\"} " + operacoes / 4 + "\n"), texto);
+        assertTrue(texto.contains("banco_transacao_valor_centavos_count{tipo=\"SAQUE\"} " + porTipo + "\n"), texto);
+        assertTrue(texto.contains("banco_contas_com_historico{minimo=\"16384\"} " + THREADS + "\n"), texto);
+    }
+
+    @Test
+    void metricasDesligadasNaoRegistramNada() {
+        Metricas metricas = Metricas.DESLIGADAS;
+        try (Medicao medicao = metricas.medir(Operacao.SACAR)) {
+            medicao.sucesso();
+        }
+        metricas.registrarTransacao(TipoTransacao.SAQUE, 100, 1);
+        metricas.contarSaldoInsuficiente();
+
+        assertEquals(0, metricas.latencia(Operacao.SACAR).contagem());
+        assertEquals(0, metricas.valores(TipoTransacao.SAQUE).contagem());
+        assertEquals(0, metricas.getContasComHistoricoDe(1));
+        assertEquals(0, metricas.getSaldoInsuficiente());
+    }
+}
@@ -0,0 +1,80 @@
+package br.com.bancodigital.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Histórico em colunas: cada Transacao montada na leitura é igual à registrada,
+ * e desfazer transações tira-as também dos totais.
+ */
+class HistoricoTransacoesTest {
+
+    private static final LocalDateTime INICIO = LocalDateTime.of(2026, 10, 1, 9, 0);
+    private static final long VALOR = Dinheiro.reais(1);
+    private static final int TRANSACOES = 1_000;
+
+    @Test
+    void transacaoMontadaNaLeituraTemADescricaoCompleta() {
+        HistoricoTransacoes historico = new HistoricoTransacoes();
+        historico.adicionar(millis(INICIO), TipoTransacao.TRANSFERENCIA_ENVIADA, VALOR, "Bruno");
+        Transacao estorno = new Transacao(INICIO.plusMinutes(1), TipoTransacao.ESTORNO, 2 * VALOR, "Estorno do PIX 42");
+        historico.adicionar(estorno);
+
+        // O detalhe é guardado como veio; o prefixo do tipo só entra na leitura
+        assertEquals("Bruno", historico.detalhe(0));
+        assertFalse(historico.descricaoCompleta(0));
+        assertEquals(new Transacao(INICIO, TipoTransacao.TRANSFERENCIA_ENVIADA, VALOR, "Para: Bruno"), historico.get(0));
+        assertTrue(historico.descricaoCompleta(1));
+        assertEquals(estorno, historico.get(1));
+
+        // Visão não modificável: só a Conta altera o histórico
+        assertThrows(UnsupportedOperationException.class, () -> historico.add(estorno));
+        assertThrows(IndexOutOfBoundsException.class, () -> historico.valor(2));
+    }
+
+    @Test
+    void colunasCrescemEMantemAOrdemMesmoSeORelogioVoltar() {
+        HistoricoTransacoes historico = new HistoricoTransacoes();
+        for (int i = 0; i < TRANSACOES; i++) {
+            historico.adicionar(millis(INICIO.plusSeconds(i)), TipoTransacao.DEPOSITO, VALOR + i, "");
+        }
+        historico.adicionar(millis(INICIO), TipoTransacao.SAQUE, VALOR, ""); // Relógio voltou
+
+        assertEquals(TRANSACOES + 1, historico.size());
+        for (int i = 0; i < TRANSACOES; i++) {
+            assertEquals(VALOR + i, historico.valor(i));
+        }
+        assertEquals(historico.instante(TRANSACOES - 1), historico.instante(TRANSACOES));
+    }
+
+    @Test
+    void truncarDesfazAsTransacoesETiraDosTotais() {
+        HistoricoTransacoes historico = new HistoricoTransacoes();
+        historico.adicionar(millis(INICIO), TipoTransacao.DEPOSITO, 10 * VALOR, "");
+        historico.adicionar(millis(INICIO.plusMinutes(1)), TipoTransacao.SAQUE, VALOR, "");
+        historico.adicionar(millis(INICIO.plusMinutes(2)), TipoTransacao.SAQUE, VALOR, "");
+
+        historico.truncar(1);
+
+        assertEquals(1, historico.size());
+        LocalDate dia = INICIO.toLocalDate();
+        assertEquals(10 * VALOR, historico.getResumo().total(dia, TipoTransacao.DEPOSITO));
+        assertEquals(0, historico.getResumo().quantidade(dia, TipoTransacao.SAQUE));
+
+        // As posições desfeitas são reaproveitadas
+        historico.adicionar(millis(INICIO.plusMinutes(3)), TipoTransacao.PIX_RECEBIDO, VALOR, "Carla");
+        assertEquals("PIX de: Carla", historico.get(1).descricaoAdicional());
+    }
+
+    private static long millis(LocalDateTime dataHora) {
+        return dataHora.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,130 @@
+package br.com.bancodigital.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Totais por dia e por tipo: a virada do dia abre pares novos (mesmo com a transação
+ * chegando fora de ordem), as consultas somam só o período pedido e o ResumoBanco
+ * é a soma das contas vinculadas a ele.
+ */
+class ResumoTransacoesTest {
+
+    private static final LocalDateTime MEIA_NOITE = LocalDateTime.of(2026, 10, 2, 0, 0);
+    private static final LocalDate ONTEM = MEIA_NOITE.toLocalDate().minusDays(1);
+    private static final LocalDate HOJE = MEIA_NOITE.toLocalDate();
+    private static final long VALOR = Dinheiro.reais(1);
+
+    @Test
+    void viradaDoDiaSeparaOsTotais() {
+        ResumoTransacoes resumo = new ResumoTransacoes();
+        registrar(resumo, MEIA_NOITE.minusNanos(1_000_000), TipoTransacao.SAQUE, VALOR);
+        registrar(resumo, MEIA_NOITE, TipoTransacao.SAQUE, 2 * VALOR);
+        registrar(resumo, MEIA_NOITE.plusHours(1), TipoTransacao.SAQUE, 3 * VALOR);
+
+        assertEquals(VALOR, resumo.total(ONTEM, TipoTransacao.SAQUE));
+        assertEquals(1, resumo.quantidade(ONTEM, TipoTransacao.SAQUE));
+        assertEquals(5 * VALOR, resumo.total(HOJE, TipoTransacao.SAQUE));
+        assertEquals(2, resumo.quantidade(HOJE, TipoTransacao.SAQUE));
+        assertEquals(2, resumo.tamanho());
+
+        // Relógio voltou: a transação de ontem entra no par de ontem, não no último
+        registrar(resumo, MEIA_NOITE.minusHours(1), TipoTransacao.SAQUE, 4 * VALOR);
+        registrar(resumo, MEIA_NOITE.minusHours(2), TipoTransacao.DEPOSITO, 10 * VALOR);
+        assertEquals(5 * VALOR, resumo.total(ONTEM, TipoTransacao.SAQUE));
+        assertEquals(10 * VALOR, resumo.total(ONTEM, TipoTransacao.DEPOSITO));
+        assertEquals(5 * VALOR, resumo.total(HOJE, TipoTransacao.SAQUE));
+        assertEquals(3, resumo.tamanho());
+
+        // E o dia seguinte volta para o caminho comum
+        registrar(resumo, MEIA_NOITE.plusDays(1), TipoTransacao.SAQUE, VALOR);
+        assertEquals(VALOR, resumo.total(HOJE.plusDays(1), TipoTransacao.SAQUE));
+        assertEquals(5 * VALOR, resumo.total(HOJE, TipoTransacao.SAQUE));
+    }
+
+    @Test
+    void consultasSomamPorTipoSoOPeriodoPedido() {
+        ResumoTransacoes resumo = new ResumoTransacoes();
+        registrar(resumo, MEIA_NOITE.minusDays(3), TipoTransacao.DEPOSITO, 100 * VALOR); // 29/09
+        registrar(resumo, MEIA_NOITE.plusHours(9), TipoTransacao.DEPOSITO, 10 * VALOR);
+        registrar(resumo, MEIA_NOITE.plusHours(10), TipoTransacao.SAQUE, 2 * VALOR);
+        registrar(resumo, MEIA_NOITE.plusHours(11), TipoTransacao.PIX_ENVIADO, 3 * VALOR);
+        registrar(resumo, MEIA_NOITE.plusHours(12), TipoTransacao.PIX_RECEBIDO, 4 * VALOR);
+        registrar(resumo, MEIA_NOITE.plusDays(1), TipoTransacao.SAQUE, VALOR);
+
+        TotaisPorTipo hoje = resumo.doDia(HOJE);
+        assertEquals(10 * VALOR, hoje.total(TipoTransacao.DEPOSITO));
+        assertEquals(2 * VALOR, hoje.total(TipoTransacao.SAQUE));
+        assertEquals(1, hoje.quantidade(TipoTransacao.PIX_ENVIADO));
+        assertEquals(14 * VALOR, hoje.totalCreditos());
+        assertEquals(5 * VALOR, hoje.totalDebitos());
+        assertEquals(4, hoje.quantidadeTotal());
+
+        TotaisPorTipo outubro = resumo.doMes(YearMonth.of(2026, 10));
+        assertEquals(10 * VALOR, outubro.total(TipoTransacao.DEPOSITO));
+        assertEquals(3 * VALOR, outubro.total(TipoTransacao.SAQUE));
+        assertEquals(100 * VALOR, resumo.doMes(YearMonth.of(2026, 9)).total(TipoTransacao.DEPOSITO));
+
+        // Dias sem movimento nas pontas do período
+        TotaisPorTipo periodo = resumo.doPeriodo(ONTEM.minusDays(1), ONTEM);
+        assertEquals(0, periodo.quantidadeTotal());
+        assertEquals(6, resumo.geral().quantidadeTotal());
+        assertEquals(110 * VALOR, resumo.geral().total(TipoTransacao.DEPOSITO));
+    }
+
+    @Test
+    void resumoBancoSomaAsContasVinculadas() {
+        ResumoBanco banco = new ResumoBanco();
+        ResumoTransacoes ana = new ResumoTransacoes();
+        ResumoTransacoes bruno = new ResumoTransacoes();
+        registrar(ana, MEIA_NOITE.minusHours(1), TipoTransacao.DEPOSITO, 10 * VALOR);
+
+        // Ao vincular, o que a conta já tinha entra nos totais do banco
+        ana.vincular(banco);
+        bruno.vincular(banco);
+        ana.vincular(banco); // Sem efeito: já vinculada
+        assertEquals(10 * VALOR, banco.total(ONTEM, TipoTransacao.DEPOSITO));
+
+        registrar(ana, MEIA_NOITE.plusHours(1), TipoTransacao.SAQUE, VALOR);
+        registrar(bruno, MEIA_NOITE.plusHours(2), TipoTransacao.SAQUE, 2 * VALOR);
+        registrar(bruno, MEIA_NOITE.plusHours(3), TipoTransacao.DEPOSITO, 5 * VALOR);
+        registrar(bruno, MEIA_NOITE.minusHours(2), TipoTransacao.DEPOSITO, VALOR); // Fora de ordem
+
+        assertEquals(3 * VALOR, banco.total(HOJE, TipoTransacao.SAQUE));
+        assertEquals(2, banco.quantidade(HOJE, TipoTransacao.SAQUE));
+        assertEquals(11 * VALOR, banco.total(ONTEM, TipoTransacao.DEPOSITO));
+        conferirSoma(banco.geral(), ana.geral(), bruno.geral());
+        conferirSoma(banco.doPeriodo(ONTEM, HOJE), ana.doPeriodo(ONTEM, HOJE), bruno.doPeriodo(ONTEM, HOJE));
+
+        // Desvincular (conta removida) tira tudo o que era da conta
+        ana.desvincular();
+        conferirSoma(banco.geral(), bruno.geral());
+        assertEquals(VALOR, banco.total(ONTEM, TipoTransacao.DEPOSITO));
+        registrar(ana, MEIA_NOITE.plusHours(4), TipoTransacao.SAQUE, VALOR);
+        assertEquals(2 * VALOR, banco.total(HOJE, TipoTransacao.SAQUE));
+    }
+
+    private static void registrar(ResumoTransacoes resumo, LocalDateTime dataHora, TipoTransacao tipo, long valor) {
+        resumo.registrar(dataHora.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), tipo.ordinal(), valor);
+    }
+
+    // Os totais do banco são, tipo a tipo, a soma dos totais das contas
+    private static void conferirSoma(TotaisPorTipo banco, TotaisPorTipo... contas) {
+        for (TipoTransacao tipo : TipoTransacao.values()) {
+            long quantidade = 0;
+            long total = 0;
+            for (TotaisPorTipo conta : contas) {
+                quantidade += conta.quantidade(tipo);
+                total += conta.total(tipo);
+            }
+            assertEquals(quantidade, banco.quantidade(tipo), tipo.name());
+            assertEquals(total, banco.total(tipo), tipo.name());
+        }
+    }
+}
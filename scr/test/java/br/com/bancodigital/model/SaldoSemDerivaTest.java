@@ -0,0 +1,128 @@
+package br.com.bancodigital.model;
+
+import br.com.bancodigital.exception.SaldoInsuficienteException;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Teste de propriedade dos saldos em centavos (ver Dinheiro): 10^8 depósitos, saques e
+ * transferências com centavos aleatórios, nas regras de Conta (sacarInterno, limite do
+ * cheque especial), sem nenhum centavo perdido ou criado.
+ * O oráculo soma reais e centavos em separado e só os junta no fim.
+ */
+class SaldoSemDerivaTest {
+
+    private static final long OPERACOES = 100_000_000L;
+    private static final int CONTAS = 64;
+    private static final long SALDO_INICIAL = Dinheiro.reais(1_000);
+    private static final int REAIS_MAXIMO = 50;
+    private static final long SEMENTE = 20_240_601L; // Fixa: uma falha se repete
+
+    @Test
+    void nenhumCentavoSePerdeEmCemMilhoesDeOperacoes() {
+        Conta[] contas = new Conta[CONTAS];
+        long[] reaisEsperados = new long[CONTAS];
+        long[] centavosEsperados = new long[CONTAS];
+        for (int i = 0; i < CONTAS; i++) {
+            Cliente cliente = new Cliente("Cliente " + i, String.format("%011d", i + 1));
+            // Metade corrente (com cheque especial), metade poupança
+            contas[i] = (i & 1) == 0
+                    ? new ContaCorrente(cliente, "0001", String.valueOf(i))
+                    : new ContaPoupanca(cliente, "0001", String.valueOf(i));
+            contas[i].depositarInterno(SALDO_INICIAL);
+            reaisEsperados[i] = SALDO_INICIAL / Dinheiro.CENTAVOS_POR_REAL;
+        }
+
+        SplittableRandom aleatorio = new SplittableRandom(SEMENTE);
+        long entradas = 0;
+        long saidas = 0;
+        long recusadas = 0;
+        for (long n = 0; n < OPERACOES; n++) {
+            int reais = aleatorio.nextInt(REAIS_MAXIMO + 1);
+            int centavos = aleatorio.nextInt(1, 100); // Sempre com centavos: o caso que o double erra
+            long valor = Dinheiro.reais(reais) + centavos;
+            int origem = aleatorio.nextInt(CONTAS);
+
+            switch (aleatorio.nextInt(3)) {
+                case 0 -> {
+                    contas[origem].depositarInterno(valor);
+                    reaisEsperados[origem] += reais;
+                    centavosEsperados[origem] += centavos;
+                    entradas += valor;
+                }
+                case 1 -> {
+                    if (sacar(contas[origem], valor)) {
+                        reaisEsperados[origem] -= reais;
+                        centavosEsperados[origem] -= centavos;
+                        saidas += valor;
+                    } else {
+                        recusadas++;
+                    }
+                }
+                default -> {
+                    int destino = (origem + 1 + aleatorio.nextInt(CONTAS - 1)) % CONTAS;
+                    if (sacar(contas[origem], valor)) {
+                        contas[destino].depositarInterno(valor);
+                        reaisEsperados[origem] -= reais;
+                        centavosEsperados[origem] -= centavos;
+                        reaisEsperados[destino] += reais;
+                        centavosEsperados[destino] += centavos;
+                    } else {
+                        recusadas++;
+                    }
+                }
+            }
+        }
+
+        long total = 0;
+        for (int i = 0; i < CONTAS; i++) {
+            long saldo = contas[i].getSaldo();
+            assertEquals(reaisEsperados[i] * Dinheiro.CENTAVOS_POR_REAL + centavosEsperados[i], saldo,
+                    "Conta " + i + " desviou");
+            // O saldo vira texto (extrato, protocolo) e volta sem perder nada
+            assertEquals(saldo, Dinheiro.deTexto(Dinheiro.formatar(saldo)));
+            total += saldo;
+        }
+        long totalInicial = CONTAS * SALDO_INICIAL;
+        assertEquals(totalInicial + entradas - saidas, total, "O dinheiro do banco mudou");
+        assertTrue(recusadas < OPERACOES / 100, "Recusas demais: " + recusadas); // O teste mediu movimentos, não recusas
+    }
+
+    @Test
+    void limiteDoChequeEspecialEExatoAteOCentavo() {
+        Conta corrente = new ContaCorrente(new Cliente("Ana", "00000000001"), "0001", "1");
+        Conta poupanca = new ContaPoupanca(new Cliente("Bruno", "00000000002"), "0001", "2");
+        // 0,10 somado dez vezes: em double (a representação antiga) não dá 1,00
+        double saldoDouble = 0;
+        for (int i = 0; i < 10; i++) {
+            corrente.depositarInterno(10);
+            poupanca.depositarInterno(10);
+            saldoDouble += 0.10;
+        }
+        assertNotEquals(1.0, saldoDouble);
+        assertEquals(Dinheiro.reais(1), corrente.getSaldo());
+
+        corrente.sacarInterno(Dinheiro.reais(101)); // R$ 1,00 de saldo + R$ 100,00 de limite
+        assertEquals(-Dinheiro.reais(100), corrente.getSaldo());
+        assertThrows(SaldoInsuficienteException.class, () -> corrente.sacarInterno(1));
+
+        poupanca.sacarInterno(Dinheiro.reais(1));
+        assertEquals(0, poupanca.getSaldo());
+        assertThrows(SaldoInsuficienteException.class, () -> poupanca.sacarInterno(1));
+    }
+
+    private static boolean sacar(Conta conta, long valor) {
+        try {
+            conta.sacarInterno(valor);
+            return true;
+        } catch (SaldoInsuficienteException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package br.com.bancodigital.particao;
+
+import br.com.bancodigital.model.ChavePix;
+import br.com.bancodigital.model.Cliente;
+import br.com.bancodigital.model.Dinheiro;
+import br.com.bancodigital.model.TipoChavePix;
+import br.com.bancodigital.model.TipoTransacao;
+import br.com.bancodigital.service.ResultadoOperacao;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sagas e rotas do coordenador, com partições que falham de propósito:
+ * - a saga gravada continua da etapa em que parou, mesmo depois de reabrir o coordenador;
+ * - o estorno que falha fica pendente (o valor não some) até ser refeito, também depois de
+ *   reabrir o coordenador, e o refeito não devolve o valor duas vezes;
+ * - o PIX pergunta só à partição dona da chave.
+ */
+class BancoParticionadoTest {
+
+    private static final long SALDO_INICIAL = Dinheiro.reais(1_000);
+    private static final long VALOR = Dinheiro.reais(10);
+
+    @Test
+    void sagaPendenteContinuaDoCreditoDepoisDeReabrirOCoordenador(@TempDir Path diretorio) throws IOException {
+        List<ParticaoComFalhas> particoes = List.of(new ParticaoComFalhas(), new ParticaoComFalhas());
+        String origem;
+        String destino;
+        try (BancoParticionado banco = new BancoParticionado(particoes, diretorio)) {
+            origem = "1";
+            destino = contaEmOutraParticao(banco, origem);
+            criarContas(banco, origem, destino);
+            particoes.get(banco.particaoDaConta(destino)).creditoSemResposta = true;
+
+            ResultadoOperacao resultado = banco.transferir("saga-1", origem, destino, VALOR);
+            assertFalse(resultado.sucesso());
+            assertEquals(1, banco.getSagasPendentes());
+            assertEquals(SALDO_INICIAL - VALOR, banco.saldo(origem)); // Em trânsito
+        }
+
+        particoes.forEach(particao -> particao.creditoSemResposta = false);
+        try (BancoParticionado banco = new BancoParticionado(particoes, diretorio)) {
+            assertEquals(1, banco.getSagasPendentes());
+            assertEquals(1, banco.reprocessarPendentes());
+            assertEquals(0, banco.getSagasPendentes());
+            // O débito não foi repetido: a saga continuou do crédito
+            assertEquals(1, particoes.get(banco.particaoDaConta(origem)).debitos.get());
+            assertEquals(SALDO_INICIAL - VALOR, banco.saldo(origem));
+            assertEquals(VALOR, banco.saldo(destino));
+        }
+    }
+
+    @Test
+    void estornoRecusadoFicaPendenteAteSerRefeito() {
+        List<ParticaoComFalhas> particoes = List.of(new ParticaoComFalhas(), new ParticaoComFalhas());
+        try (BancoParticionado banco = new BancoParticionado(particoes)) {
+            String origem = "1";
+            String destino = contaEmOutraParticao(banco, origem);
+            criarContas(banco, origem, destino);
+            particoes.get(banco.particaoDaConta(destino)).creditoRecusado = true;
+            particoes.get(banco.particaoDaConta(origem)).estornoRecusado = true;
+
+            ResultadoOperacao resultado = banco.transferir(origem, destino, VALOR);
+            assertFalse(resultado.sucesso());
+            assertTrue(resultado.motivoFalha().contains("estorno está pendente"), resultado.motivoFalha());
+            assertEquals(1, banco.getEstornosPendentes());
+            assertEquals(0, banco.reprocessarPendentes()); // A origem ainda recusa
+            assertEquals(SALDO_INICIAL - VALOR, banco.saldo(origem));
+
+            particoes.get(banco.particaoDaConta(origem)).estornoRecusado = false;
+            assertEquals(1, banco.reprocessarPendentes());
+            assertEquals(0, banco.getEstornosPendentes());
+            assertEquals(SALDO_INICIAL, banco.saldo(origem));
+            assertEquals(0, banco.saldo(destino));
+        }
+    }
+
+    @Test
+    void estornoFeitoSemRespostaEConcluidoDepoisDeReabrirSemDevolverDuasVezes(@TempDir Path diretorio) throws IOException {
+        List<ParticaoComFalhas> particoes = List.of(new ParticaoComFalhas(), new ParticaoComFalhas());
+        String origem = "1";
+        String destino;
+        try (BancoParticionado banco = new BancoParticionado(particoes, diretorio)) {
+            destino = contaEmOutraParticao(banco, origem);
+            criarContas(banco, origem, destino);
+            particoes.get(banco.particaoDaConta(destino)).creditoRecusado = true;
+            // A origem faz o estorno, mas a resposta nunca chega ao coordenador
+            particoes.get(banco.particaoDaConta(origem)).estornoSemResposta = true;
+
+            ResultadoOperacao resultado = banco.transferir("saga-2", origem, destino, VALOR);
+            assertFalse(resultado.sucesso());
+            assertTrue(resultado.motivoFalha().contains("estorno está pendente"), resultado.motivoFalha());
+            assertEquals(1, banco.getEstornosPendentes());
+        }
+
+        particoes.forEach(particao -> particao.estornoSemResposta = false);
+        try (BancoParticionado banco = new BancoParticionado(particoes, diretorio)) {
+            assertEquals(1, banco.getEstornosPendentes());
+            assertEquals(1, banco.reprocessarPendentes());
+            assertEquals(0, banco.getSagasPendentes());
+            // O estorno repetido tem a mesma chave: a origem devolve o valor uma vez só
+            assertEquals(SALDO_INICIAL, banco.saldo(origem));
+            assertEquals(0, banco.saldo(destino));
+            ParticaoLocal particaoOrigem = particoes.get(banco.particaoDaConta(origem)).particao;
+            assertEquals(1, particaoOrigem.getRepositorio().buscarPorNumero(origem).orElseThrow()
+                    .getHistoricoTransacoes().stream()
+                    .filter(transacao -> transacao.tipo() == TipoTransacao.ESTORNO).count());
+        }
+    }
+
+    @Test
+    void pixPerguntaSoAParticaoDonaDaChave() {
+        List<ParticaoComFalhas> particoes = List.of(new ParticaoComFalhas(), new ParticaoComFalhas(),
+                new ParticaoComFalhas());
+        try (BancoParticionado banco = new BancoParticionado(particoes)) {
+            String origem = "1";
+            String destino = contaEmOutraParticao(banco, origem);
+            criarContas(banco, origem, destino);
+            ChavePix email = banco.registrarChavePix(destino, TipoChavePix.EMAIL, "bruno@email.com");
+            particoes.forEach(particao -> particao.resolucoes.set(0));
+
+            assertTrue(banco.realizarPix(origem, email.valor(), VALOR).sucesso());
+            assertTrue(banco.realizarPix(origem, "00000000002", VALOR).sucesso());
+            int resolucoes = 0;
+            for (ParticaoComFalhas particao : particoes) {
+                resolucoes += particao.resolucoes.get();
+            }
+            assertEquals(2, resolucoes);
+            assertEquals(2 * VALOR, banco.saldo(destino));
+        }
+    }
+
+    private static String contaEmOutraParticao(BancoParticionado banco, String numeroConta) {
+        for (int n = 2; ; n++) {
+            if (banco.particaoDaConta(String.valueOf(n)) != banco.particaoDaConta(numeroConta)) {
+                return String.valueOf(n);
+            }
+        }
+    }
+
+    private static void criarContas(BancoParticionado banco, String origem, String destino) {
+        banco.criarContaCorrente(new Cliente("Ana", "00000000001"), "0001", origem);
+        banco.criarContaCorrente(new Cliente("Bruno", "00000000002"), "0001", destino);
+        banco.depositar(origem, SALDO_INICIAL);
+    }
+
+    /**
+     * Partição local que pode deixar o crédito ou o estorno sem resposta, recusar o crédito
+     * ou o estorno, e conta os débitos e as resoluções de chave. O close não fecha a partição
+     * de verdade (ela sobrevive ao coordenador, como uma partição remota).
+     */
+    private static final class ParticaoComFalhas implements Particao {
+
+        private final ParticaoLocal particao = new ParticaoLocal();
+        private final AtomicInteger debitos = new AtomicInteger();
+        private final AtomicInteger resolucoes = new AtomicInteger();
+        private volatile boolean creditoSemResposta;
+        private volatile boolean creditoRecusado;
+        private volatile boolean estornoRecusado;
+        private volatile boolean estornoSemResposta;
+
+        @Override
+        public void criarConta(Cliente cliente, String agencia, String numeroConta, boolean corrente) {
+            particao.criarConta(cliente, agencia, numeroConta, corrente);
+        }
+
+        @Override
+        public ResultadoOperacao depositar(String chaveIdempotencia, String numeroConta, long valor) {
+            return particao.depositar(chaveIdempotencia, numeroConta, valor);
+        }
+
+        @Override
+        public ResultadoOperacao sacar(String chaveIdempotencia, String numeroConta, long valor) {
+            return particao.sacar(chaveIdempotencia, numeroConta, valor);
+        }
+
+        @Override
+        public ResultadoOperacao transferir(String chaveIdempotencia, String numeroContaOrigem,
+                                            String numeroContaDestino, long valor) {
+            return particao.transferir(chaveIdempotencia, numeroContaOrigem, numeroContaDestino, valor);
+        }
+
+        @Override
+        public ResultadoOperacao realizarPix(String chaveIdempotencia, String numeroContaOrigem,
+                                             String chavePix, long valor) {
+            return particao.realizarPix(chaveIdempotencia, numeroContaOrigem, chavePix, valor);
+        }
+
+        @Override
+        public ResultadoOperacao debitar(String chaveIdempotencia, String numeroConta, long valor,
+                                         TipoTransacao tipo, String cpfDestino, String contraparte) {
+            debitos.incrementAndGet();
+            return particao.debitar(chaveIdempotencia, numeroConta, valor, tipo, cpfDestino, contraparte);
+        }
+
+        @Override
+        public ResultadoOperacao creditar(String chaveIdempotencia, String numeroConta, long valor,
+                                          TipoTransacao tipo, String contraparte) {
+            if (creditoSemResposta) {
+                throw new UncheckedIOException(new IOException("Partição sem resposta"));
+            }
+            if (creditoRecusado) {
+                return ResultadoOperacao.falha("Conta destino bloqueada.");
+            }
+            return particao.creditar(chaveIdempotencia, numeroConta, valor, tipo, contraparte);
+        }
+
+        @Override
+        public ResultadoOperacao estornar(String chaveIdempotencia, String numeroConta, long valor, String motivo) {
+            if (estornoRecusado) {
+                return ResultadoOperacao.falha("Conta origem bloqueada.");
+            }
+            ResultadoOperacao estorno = particao.estornar(chaveIdempotencia, numeroConta, valor, motivo);
+            if (estornoSemResposta) {
+                throw new UncheckedIOException(new IOException("Resposta do estorno perdida"));
+            }
+            return estorno;
+        }
+
+        @Override
+        public long saldo(String numeroConta) {
+            return particao.saldo(numeroConta);
+        }
+
+        @Override
+        public Cliente titular(String numeroConta) {
+            return particao.titular(numeroConta);
+        }
+
+        @Override
+        public Optional<DestinoPix> resolverChavePix(String chavePix) {
+            resolucoes.incrementAndGet();
+            return particao.resolverChavePix(chavePix);
+        }
+
+        @Override
+        public ChavePix registrarChavePix(String numeroConta, TipoChavePix tipo, String valor) {
+            return particao.registrarChavePix(numeroConta, tipo, valor);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package br.com.bancodigital.repository;
+
+import br.com.bancodigital.exception.ContaException;
+import br.com.bancodigital.model.ChavePix;
+import br.com.bancodigital.model.Cliente;
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.model.TipoChavePix;
+import br.com.bancodigital.service.ContaService;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Diretório de chaves PIX: cada chave (já normalizada) leva a uma única conta, e o cache
+ * de resoluções é limitado e esquece a conta removida ou trocada.
+ */
+class DiretorioChavesPixTest {
+
+    @Test
+    void cadaChaveNormalizadaPertenceAUmaSoConta() {
+        DiretorioChavesPix chaves = new DiretorioChavesPix();
+        ChavePix email = ChavePix.de(" Ana@Exemplo.COM ");
+        ChavePix telefone = ChavePix.de("+55 (11) 99999-8888");
+        assertEquals(new ChavePix(TipoChavePix.EMAIL, "ana@exemplo.com"), email);
+        assertEquals(new ChavePix(TipoChavePix.TELEFONE, "+5511999998888"), telefone);
+        assertEquals(new ChavePix(TipoChavePix.CPF, "12345678900"), ChavePix.de("123.456.789-00"));
+        assertThrows(ContaException.class, () -> ChavePix.de(TipoChavePix.EMAIL, "sem-arroba"));
+
+        chaves.registrar(email, "1");
+        chaves.registrar(telefone, "1");
+        assertThrows(ContaException.class, () -> chaves.registrar(ChavePix.de("ana@exemplo.com"), "2"));
+        assertEquals(Optional.of("1"), chaves.buscarNumeroConta(ChavePix.de("ANA@exemplo.com")));
+
+        for (int i = chaves.listarChaves("1").size(); i < DiretorioChavesPix.MAXIMO_CHAVES_POR_CONTA; i++) {
+            chaves.registrar(ChavePix.aleatoria(), "1");
+        }
+        assertThrows(ContaException.class, () -> chaves.registrar(ChavePix.aleatoria(), "1"));
+
+        // A chave removida fica livre para outra conta
+        assertTrue(chaves.remover(email));
+        assertFalse(chaves.remover(email));
+        chaves.registrar(email, "2");
+        assertEquals(List.of(email), chaves.listarChaves("2"));
+        assertEquals(DiretorioChavesPix.MAXIMO_CHAVES_POR_CONTA - 1, chaves.listarChaves("1").size());
+    }
+
+    @Test
+    void resolucaoEmCacheEEsquecidaQuandoAContaSaiDoRepositorio() {
+        ConcorrenteContaRepository repositorio = ConcorrenteContaRepository.novo().construir();
+        IndicesDeContas indices = repositorio.getIndices();
+        ContaService contaService = new ContaService(repositorio, indices);
+        Cliente ana = indices.getClientes().registrar(new Cliente("Ana", "00000000001"));
+        Conta conta = contaService.criarContaCorrente(ana, "0001", "1");
+        DiretorioChavesPix chaves = indices.getChavesPix();
+        ChavePix cpf = ChavePix.de("00000000001"); // Cadastrada ao criar a conta
+
+        AtomicInteger buscas = new AtomicInteger();
+        Function<String, Optional<Conta>> buscarConta = numero -> {
+            buscas.incrementAndGet();
+            return repositorio.buscarPorNumero(numero);
+        };
+        assertSame(conta, chaves.resolver(cpf, buscarConta).orElseThrow());
+        assertSame(conta, chaves.resolver(cpf, buscarConta).orElseThrow());
+        assertEquals(1, buscas.get()); // A segunda veio do cache
+
+        assertTrue(repositorio.deletar("1"));
+        assertTrue(chaves.resolver(cpf, buscarConta).isEmpty());
+        assertEquals(0, chaves.tamanhoCache());
+    }
+
+    @Test
+    void cacheCheioDespejaSemPassarDaCapacidade() {
+        DiretorioChavesPix chaves = new DiretorioChavesPix(2);
+        ConcorrenteContaRepository repositorio = ConcorrenteContaRepository.novo().construir();
+        ContaService contaService = new ContaService(repositorio, repositorio.getIndices());
+        for (int i = 1; i <= 5; i++) {
+            Cliente cliente = repositorio.getIndices().getClientes()
+                    .registrar(new Cliente("Cliente " + i, String.format("%011d", i)));
+            contaService.criarContaCorrente(cliente, "0001", String.valueOf(i));
+            chaves.registrar(ChavePix.de(String.format("cliente%d@exemplo.com", i)), String.valueOf(i));
+        }
+
+        for (int i = 1; i <= 5; i++) {
+            Conta conta = chaves.resolver(ChavePix.de(String.format("cliente%d@exemplo.com", i)),
+                    repositorio::buscarPorNumero).orElseThrow();
+            assertEquals(String.valueOf(i), conta.getNumero());
+            assertTrue(chaves.tamanhoCache() <= 2);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package br.com.bancodigital.repository;
+
+import br.com.bancodigital.model.Cliente;
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.service.ContaService;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Diretório de clientes: um Cliente por CPF (com ou sem pontuação), ids estáveis
+ * quando a tabela cresce e as contas de cada cliente acompanhando o repositório.
+ */
+class DiretorioClientesTest {
+
+    private static final int CLIENTES = 5_000; // Várias vezes a capacidade inicial
+
+    @Test
+    void mesmoCpfDevolveOClienteJaRegistrado() {
+        DiretorioClientes clientes = new DiretorioClientes();
+        Cliente ana = clientes.registrar(new Cliente("Ana", "123.456.789-00"));
+        Cliente repetida = clientes.registrar(new Cliente("Ana Maria", "12345678900"));
+
+        assertSame(ana, repetida);
+        assertEquals(1, clientes.quantidade());
+        assertEquals(Optional.of(ana), clientes.buscar("12345678900"));
+        assertSame(ana, clientes.cliente(clientes.idDe("123.456.789-00")));
+
+        // Fora do formato: não vira número, mas recebe um id do mesmo espaço
+        Cliente irregular = clientes.registrar(new Cliente("Bruno", "ABC"));
+        assertEquals(1, clientes.idDe("ABC"));
+        assertSame(irregular, clientes.buscar("ABC").orElseThrow());
+
+        assertEquals(-1, clientes.idDe("99999999999"));
+        assertTrue(clientes.buscar("1234567890").isEmpty()); // 10 dígitos
+        assertThrows(IndexOutOfBoundsException.class, () -> clientes.cliente(2));
+    }
+
+    @Test
+    void idsContinuamValendoDepoisDeATabelaCrescer() {
+        DiretorioClientes clientes = new DiretorioClientes();
+        for (int i = 0; i < CLIENTES; i++) {
+            clientes.registrar(new Cliente("Cliente " + i, String.format("%011d", i)));
+        }
+
+        assertEquals(CLIENTES, clientes.quantidade());
+        for (int i = 0; i < CLIENTES; i++) {
+            String cpf = String.format("%011d", i);
+            assertEquals(i, clientes.idDe(cpf));
+            assertEquals("Cliente " + i, clientes.cliente(i).nome());
+        }
+    }
+
+    @Test
+    void contasDoClienteAcompanhamOsCadastrosEAsRemocoes() {
+        ConcorrenteContaRepository repositorio = ConcorrenteContaRepository.novo().construir();
+        DiretorioClientes clientes = repositorio.getIndices().getClientes();
+        ContaService contaService = new ContaService(repositorio, repositorio.getIndices());
+        Cliente ana = clientes.registrar(new Cliente("Ana", "00000000001"));
+        assertEquals(List.of(), clientes.contas("00000000001"));
+
+        Conta corrente = contaService.criarContaCorrente(ana, "0001", "1");
+        assertEquals(List.of(corrente), clientes.contas("000.000.000-01"));
+        Conta poupanca = contaService.criarContaPoupanca(ana, "0001", "2");
+        assertEquals(List.of(corrente, poupanca), clientes.contas("00000000001"));
+
+        assertTrue(repositorio.deletar("1"));
+        assertEquals(List.of(poupanca), clientes.contas("00000000001"));
+        assertTrue(repositorio.deletar("2"));
+        assertEquals(List.of(), clientes.contas("00000000001"));
+        assertSame(ana, clientes.buscar("00000000001").orElseThrow()); // O cliente continua registrado
+    }
+}
@@ -0,0 +1,251 @@
+package br.com.bancodigital.repository;
+
+import br.com.bancodigital.evento.EventoBancario;
+import br.com.bancodigital.exception.ContaException;
+import br.com.bancodigital.model.Cliente;
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.model.Dinheiro;
+import br.com.bancodigital.model.HistoricoTransacoes;
+import br.com.bancodigital.model.TipoTransacao;
+import br.com.bancodigital.model.Transacao;
+import br.com.bancodigital.service.ContaService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * O que vai para o journal: só alterações aceitas, e a recuperação chega ao mesmo saldo.
+ */
+class DuravelContaRepositoryTest {
+
+    private static final long SALDO_INICIAL = Dinheiro.reais(100);
+    private static final long VALOR = Dinheiro.reais(1);
+    private static final int THREADS = 16;
+    private static final int SNAPSHOTS = 20;
+
+    @Test
+    void depositoNaoPositivoERecusadoSemGravarNoJournal(@TempDir Path diretorio) throws Exception {
+        try (DuravelContaRepository repositorio = DuravelContaRepository.novo(diretorio).construir()) {
+            ContaService contaService = criarConta(repositorio);
+            long entradas = repositorio.getJournal().getTotalEntradas();
+
+            assertThrows(ContaException.class, () -> contaService.depositar("1", -1));
+            assertThrows(ContaException.class, () -> contaService.depositar("1", 0));
+            assertFalse(contaService.estornar("estorno", "1", -1, "Estorno negativo").sucesso());
+
+            assertEquals(entradas, repositorio.getJournal().getTotalEntradas());
+            assertEquals(SALDO_INICIAL, contaService.consultarSaldo("1"));
+            assertEquals(1, contaService.buscarContaPorNumero("1").getHistoricoTransacoes().size());
+        }
+        try (DuravelContaRepository repositorio = DuravelContaRepository.novo(diretorio).construir()) {
+            ContaService contaService = new ContaService(repositorio, repositorio.getIndices());
+            assertEquals(SALDO_INICIAL, contaService.consultarSaldo("1"));
+            assertEquals(1, contaService.buscarContaPorNumero("1").getHistoricoTransacoes().size());
+        }
+    }
+
+    @Test
+    void recuperacaoDescartaAUltimaEntradaCorrompida(@TempDir Path diretorio) throws Exception {
+        try (DuravelContaRepository repositorio = DuravelContaRepository.novo(diretorio).construir()) {
+            ContaService contaService = criarConta(repositorio);
+            contaService.depositar("1", VALOR);
+            contaService.depositar("1", VALOR);
+        }
+        // A queda interrompeu a gravação do último depósito: o último byte não chegou certo ao disco
+        Path journal;
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            journal = arquivos.filter(arquivo -> arquivo.getFileName().toString().startsWith("journal-"))
+                    .max(Path::compareTo).orElseThrow();
+        }
+        byte[] bytes = Files.readAllBytes(journal);
+        bytes[bytes.length - 1] ^= (byte) 0xFF;
+        Files.write(journal, bytes);
+
+        List<EventoBancario> eventos = new ArrayList<>();
+        try (DuravelContaRepository repositorio = DuravelContaRepository.novo(diretorio)
+                .eventos(eventos::add)
+                .construir()) {
+            ContaService contaService = new ContaService(repositorio, repositorio.getIndices());
+            assertEquals(SALDO_INICIAL + VALOR, contaService.consultarSaldo("1"));
+            assertEquals(2, contaService.buscarContaPorNumero("1").getHistoricoTransacoes().size());
+            assertTrue(eventos.stream().anyMatch(evento -> evento instanceof EventoBancario.JournalTruncado));
+
+            // Depois de truncado, o journal continua recebendo gravações normalmente
+            contaService.depositar("1", VALOR);
+        }
+        try (DuravelContaRepository repositorio = DuravelContaRepository.novo(diretorio).construir()) {
+            ContaService contaService = new ContaService(repositorio, repositorio.getIndices());
+            assertEquals(SALDO_INICIAL + 2 * VALOR, contaService.consultarSaldo("1"));
+        }
+    }
+
+    @Test
+    void recuperacaoCarregaOSnapshotEReaplicaSoOsSegmentosSeguintes(@TempDir Path diretorio) throws Exception {
+        long entradasAposSnapshot;
+        try (DuravelContaRepository repositorio = DuravelContaRepository.novo(diretorio).construir()) {
+            ContaService contaService = criarConta(repositorio);
+            Cliente bruno = repositorio.getIndices().getClientes().registrar(new Cliente("Bruno", "00000000002"));
+            contaService.criarContaPoupanca(bruno, "0001", "2");
+            contaService.transferir("1", "2", VALOR);
+            repositorio.tirarSnapshot();
+            long entradasNoSnapshot = repositorio.getJournal().getTotalEntradas();
+
+            contaService.depositar("2", VALOR);
+            contaService.transferir("2", "1", 2 * VALOR);
+            contaService.criarContaCorrente(bruno, "0001", "3");
+            entradasAposSnapshot = repositorio.getJournal().getTotalEntradas() - entradasNoSnapshot;
+        }
+        // O segmento anterior ao snapshot foi apagado: só sobra o que veio depois
+        assertEquals(List.of("journal-0000000000000001.log", "snapshot-0000000000000001.bin"), arquivos(diretorio));
+
+        List<EventoBancario> eventos = new ArrayList<>();
+        try (DuravelContaRepository repositorio = DuravelContaRepository.novo(diretorio)
+                .eventos(eventos::add)
+                .construir()) {
+            EventoBancario.DadosRecuperados recuperados = (EventoBancario.DadosRecuperados) eventos.get(0);
+            assertEquals(3, recuperados.contas());
+            assertEquals(entradasAposSnapshot, recuperados.entradasReaplicadas());
+            ContaService contaService = new ContaService(repositorio, repositorio.getIndices());
+            assertEquals(SALDO_INICIAL + VALOR, contaService.consultarSaldo("1"));
+            assertEquals(0, contaService.consultarSaldo("2"));
+            assertEquals(3, contaService.buscarContaPorNumero("1").getHistoricoTransacoes().size());
+            assertEquals(3, contaService.buscarContaPorNumero("2").getHistoricoTransacoes().size());
+            assertEquals(2, repositorio.buscarPorCpfCliente("00000000002").size());
+
+            // Um segundo snapshot substitui o primeiro e leva junto os segmentos já incluídos nele
+            // (ao abrir, as gravações foram para o segmento 2; o snapshot passa para o 3)
+            repositorio.tirarSnapshot();
+        }
+        assertEquals(List.of("journal-0000000000000003.log", "snapshot-0000000000000003.bin"), arquivos(diretorio));
+        try (DuravelContaRepository repositorio = DuravelContaRepository.novo(diretorio).construir()) {
+            assertEquals(SALDO_INICIAL + VALOR, repositorio.buscarPorNumero("1").orElseThrow().getSaldo());
+            assertEquals(3, repositorio.listarTodas().size());
+        }
+    }
+
+    @Test
+    void contasCriadasDuranteOSnapshotSobrevivemAoReinicio(@TempDir Path diretorio) throws Exception {
+        int criadas;
+        try (DuravelContaRepository repositorio = DuravelContaRepository.novo(diretorio).construir()) {
+            IndicesDeContas indices = repositorio.getIndices();
+            ContaService contaService = new ContaService(repositorio, indices);
+            AtomicBoolean fotografando = new AtomicBoolean(true);
+            AtomicInteger proxima = new AtomicInteger();
+            ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+            try {
+                // Os cadastros continuam até o último snapshot terminar: todos cruzam com algum cadastro
+                List<Future<?>> criadores = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    criadores.add(threads.submit(() -> {
+                        while (fotografando.get()) {
+                            int i = proxima.getAndIncrement();
+                            Cliente cliente = indices.getClientes()
+                                    .registrar(new Cliente("Cliente " + i, String.format("%011d", i + 1)));
+                            contaService.criarContaCorrente(cliente, "0001", String.valueOf(i));
+                        }
+                    }));
+                }
+                for (int i = 0; i < SNAPSHOTS; i++) {
+                    repositorio.tirarSnapshot();
+                }
+                fotografando.set(false);
+                for (Future<?> criador : criadores) {
+                    criador.get();
+                }
+            } finally {
+                threads.shutdown();
+            }
+            criadas = proxima.get();
+
+            // Uma transação por conta no segmento atual: uma conta fora do snapshot impediria a recuperação
+            for (int i = 0; i < criadas; i++) {
+                contaService.depositar(String.valueOf(i), VALOR);
+            }
+        }
+        try (DuravelContaRepository repositorio = DuravelContaRepository.novo(diretorio).construir()) {
+            assertEquals(criadas, repositorio.listarTodas().size());
+            for (int i = 0; i < criadas; i++) {
+                assertEquals(VALOR, repositorio.buscarPorNumero(String.valueOf(i)).orElseThrow().getSaldo());
+            }
+        }
+    }
+
+    @Test
+    void historicoVoltaCompactoDoJournalEDoSnapshot(@TempDir Path diretorio) throws Exception {
+        try (DuravelContaRepository repositorio = DuravelContaRepository.novo(diretorio).construir()) {
+            ContaService contaService = criarConta(repositorio);
+            Cliente bruno = repositorio.getIndices().getClientes().registrar(new Cliente("Bruno", "00000000002"));
+            contaService.criarContaCorrente(bruno, "0001", "2");
+            contaService.depositar("2", SALDO_INICIAL);
+            contaService.transferir("1", "2", VALOR);
+            // Uma transação já montada continua com a descrição completa
+            try (Trava trava = repositorio.travar("1")) {
+                Conta conta = repositorio.buscarPorNumero("1").orElseThrow();
+                conta.restaurarTransacao(new Transacao(LocalDateTime.now(), TipoTransacao.ESTORNO, VALOR, "Estorno manual"));
+                repositorio.salvar(conta);
+            }
+        }
+        // Primeiro só pelo journal, depois pelo snapshot
+        try (DuravelContaRepository repositorio = DuravelContaRepository.novo(diretorio).construir()) {
+            conferirHistoricoCompacto(repositorio);
+            repositorio.tirarSnapshot();
+        }
+        try (DuravelContaRepository repositorio = DuravelContaRepository.novo(diretorio).construir()) {
+            conferirHistoricoCompacto(repositorio);
+        }
+    }
+
+    // Detalhes guardados sem o prefixo e com uma String só por texto, como antes do reinício
+    private static void conferirHistoricoCompacto(DuravelContaRepository repositorio) {
+        HistoricoTransacoes ana = repositorio.buscarPorNumero("1").orElseThrow().getHistoricoTransacoes();
+        HistoricoTransacoes bruno = repositorio.buscarPorNumero("2").orElseThrow().getHistoricoTransacoes();
+        String nomeBruno = repositorio.getIndices().getClientes().buscar("00000000002").orElseThrow().nome();
+        String nomeAna = repositorio.getIndices().getClientes().buscar("00000000001").orElseThrow().nome();
+
+        assertEquals(TipoTransacao.TRANSFERENCIA_ENVIADA, ana.tipo(1));
+        assertFalse(ana.descricaoCompleta(1));
+        assertSame(nomeBruno, ana.detalhe(1));
+        assertEquals("Para: Bruno", ana.descricao(1));
+        assertSame(nomeAna, bruno.detalhe(1));
+        assertEquals("De: Ana", bruno.get(1).descricaoAdicional());
+        assertSame(ana.detalhe(0), bruno.detalhe(0)); // "Depósito em conta"
+
+        assertTrue(ana.descricaoCompleta(2));
+        assertEquals("Estorno manual", ana.descricao(2));
+        assertEquals(SALDO_INICIAL, ana.getResumo().geral().total(TipoTransacao.DEPOSITO));
+        assertEquals(SALDO_INICIAL, repositorio.buscarPorNumero("1").orElseThrow().getSaldo());
+    }
+
+    private static List<String> arquivos(Path diretorio) throws IOException {
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            return arquivos.map(arquivo -> arquivo.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    private static ContaService criarConta(DuravelContaRepository repositorio) {
+        IndicesDeContas indices = repositorio.getIndices();
+        ContaService contaService = new ContaService(repositorio, indices);
+        Cliente ana = indices.getClientes().registrar(new Cliente("Ana", "00000000001"));
+        contaService.criarContaCorrente(ana, "0001", "1");
+        contaService.depositar("1", SALDO_INICIAL);
+        return contaService;
+    }
+}
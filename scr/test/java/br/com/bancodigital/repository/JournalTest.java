@@ -0,0 +1,95 @@
+package br.com.bancodigital.repository;
+
+import br.com.bancodigital.evento.EventoBancario;
+import br.com.bancodigital.evento.PublicadorDeEventos;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Recuperação do journal: o último segmento é truncado na última entrada inteira
+ * (tamanho e CRC conferem); um segmento anterior danificado é um erro.
+ */
+class JournalTest {
+
+    private static final List<String> ENTRADAS = List.of("primeira", "segunda", "terceira");
+
+    @Test
+    void finalIncompletoDoUltimoSegmentoETruncado(@TempDir Path diretorio) throws IOException {
+        Path arquivo = gravar(diretorio.resolve("journal.log"));
+        long tamanhoValido = Files.size(arquivo);
+        // Uma entrada pela metade: o cabeçalho promete 100 bytes e só 10 chegaram ao disco
+        ByteBuffer incompleta = ByteBuffer.allocate(18).putInt(100).putInt(0);
+        Files.write(arquivo, incompleta.array(), StandardOpenOption.APPEND);
+
+        List<EventoBancario> eventos = new ArrayList<>();
+        assertEquals(ENTRADAS, ler(arquivo, true, eventos::add));
+        assertEquals(List.of(new EventoBancario.JournalTruncado("journal.log", 18)), eventos);
+        assertEquals(tamanhoValido, Files.size(arquivo));
+
+        // Já truncado: a próxima leitura não descarta nada
+        eventos.clear();
+        assertEquals(ENTRADAS, ler(arquivo, true, eventos::add));
+        assertTrue(eventos.isEmpty());
+    }
+
+    @Test
+    void entradaComCrcErradoDescartaElaETudoQueVemDepois(@TempDir Path diretorio) throws IOException {
+        Path arquivo = gravar(diretorio.resolve("journal.log"));
+        corromperByte(arquivo, 8 + "primeira".length() + 8); // Dentro da segunda entrada
+
+        List<EventoBancario> eventos = new ArrayList<>();
+        assertEquals(List.of("primeira"), ler(arquivo, true, eventos::add));
+        assertEquals(1, eventos.size());
+        assertEquals(8 + "primeira".length(), Files.size(arquivo));
+    }
+
+    @Test
+    void segmentoAnteriorDanificadoNaoETruncado(@TempDir Path diretorio) throws IOException {
+        Path arquivo = gravar(diretorio.resolve("journal.log"));
+        long tamanho = Files.size(arquivo);
+        corromperByte(arquivo, tamanho - 1);
+
+        assertThrows(IOException.class, () -> ler(arquivo, false, PublicadorDeEventos.NENHUM));
+        assertEquals(tamanho, Files.size(arquivo));
+    }
+
+    private static Path gravar(Path arquivo) throws IOException {
+        try (Journal journal = new Journal(arquivo, Journal.LOTE_PADRAO)) {
+            for (String entrada : ENTRADAS) {
+                journal.anexarEAguardar(entrada.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return arquivo;
+    }
+
+    private static List<String> ler(Path arquivo, boolean ultimoSegmento, PublicadorDeEventos eventos)
+            throws IOException {
+        List<String> lidas = new ArrayList<>();
+        Journal.ler(arquivo, ultimoSegmento, entrada -> {
+            byte[] bytes = new byte[entrada.remaining()];
+            entrada.get(bytes);
+            lidas.add(new String(bytes, StandardCharsets.UTF_8));
+        }, eventos);
+        return lidas;
+    }
+
+    // Inverte os bits de um byte (ex: um setor danificado)
+    private static void corromperByte(Path arquivo, long posicao) throws IOException {
+        byte[] bytes = Files.readAllBytes(arquivo);
+        bytes[(int) posicao] ^= (byte) 0xFF;
+        Files.write(arquivo, bytes);
+    }
+}
@@ -0,0 +1,104 @@
+package br.com.bancodigital.service;
+
+import br.com.bancodigital.model.Cliente;
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.model.Dinheiro;
+import br.com.bancodigital.model.TipoTransacao;
+import br.com.bancodigital.model.Transacao;
+import br.com.bancodigital.repository.ConcorrenteContaRepository;
+import br.com.bancodigital.repository.IndicesDeContas;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Encargos retomados depois de uma queda: os baldes concluídos são pulados e, nos pendentes,
+ * a conta que já tem o lançamento da competência não é cobrada de novo.
+ */
+class AgendadorDeEncargosTest {
+
+    private static final int CONTAS = 300;
+    private static final int GRAVACOES_ANTES_DA_QUEDA = 100;
+    private static final long SALDO_INICIAL = Dinheiro.reais(100);
+    private static final YearMonth COMPETENCIA = YearMonth.of(2026, 9);
+
+    @Test
+    void execucaoInterrompidaERetomadaCobraCadaContaUmaVez(@TempDir Path checkpoints) throws Exception {
+        RepositorioQueCai repositorio = new RepositorioQueCai();
+        criarContas(repositorio, repositorio.getIndices());
+        PoliticaDeEncargos politica = PoliticaDeEncargos.PADRAO;
+
+        repositorio.quedaNaGravacao = GRAVACOES_ANTES_DA_QUEDA;
+        try (AgendadorDeEncargos agendador = new AgendadorDeEncargos(repositorio, politica, checkpoints, 1)) {
+            CompletionException queda = assertThrows(CompletionException.class, () -> agendador.aplicar(COMPETENCIA));
+            assertTrue(queda.getCause() instanceof IllegalStateException);
+        }
+
+        // Outro processo: só o checkpoint em disco diz o que já foi feito
+        repositorio.quedaNaGravacao = -1;
+        try (AgendadorDeEncargos agendador = new AgendadorDeEncargos(repositorio, politica, checkpoints, 1)) {
+            RelatorioEncargos retomada = agendador.aplicar(COMPETENCIA);
+            assertTrue(retomada.baldesJaConcluidos() > 0);
+            assertEquals(AgendadorDeEncargos.BALDES, retomada.baldesJaConcluidos() + retomada.baldesProcessados());
+            // A conta da queda foi gravada, mas o balde dela não chegou ao checkpoint
+            assertTrue(retomada.contasJaCobradas() >= 1);
+            long cobradasAgora = CONTAS - GRAVACOES_ANTES_DA_QUEDA;
+            assertEquals(cobradasAgora, retomada.totais().quantidade(TipoTransacao.TARIFA));
+            assertEquals(retomada.contasJaCobradas() + cobradasAgora, retomada.contasVisitadas());
+
+            RelatorioEncargos repetida = agendador.aplicar(COMPETENCIA);
+            assertEquals(0, repetida.contasVisitadas());
+            assertEquals(AgendadorDeEncargos.BALDES, repetida.baldesJaConcluidos());
+        }
+
+        for (Conta conta : repositorio.listarTodas()) {
+            assertEquals(SALDO_INICIAL - politica.tarifaCorrente(), conta.getSaldo(), conta.getNumero());
+            long tarifas = 0;
+            for (Transacao transacao : conta.getHistoricoTransacoes()) {
+                if (transacao.tipo() == TipoTransacao.TARIFA) {
+                    tarifas++;
+                }
+            }
+            assertEquals(1, tarifas, conta.getNumero());
+        }
+    }
+
+    private static void criarContas(ConcorrenteContaRepository repositorio, IndicesDeContas indices) {
+        ContaService contaService = new ContaService(repositorio, indices);
+        for (int i = 1; i <= CONTAS; i++) {
+            Cliente cliente = indices.getClientes().registrar(new Cliente("Cliente " + i, String.format("%011d", i)));
+            contaService.criarContaCorrente(cliente, "0001", String.valueOf(i));
+            contaService.depositar(String.valueOf(i), SALDO_INICIAL);
+        }
+    }
+
+    // A gravação de número quedaNaGravacao chega ao repositório, mas o processo "cai"
+    // antes de saber disso: o futuro falha e o balde não é marcado como concluído
+    private static final class RepositorioQueCai extends ConcorrenteContaRepository {
+
+        private final AtomicInteger gravacoes = new AtomicInteger();
+        private volatile int quedaNaGravacao = -1;
+
+        RepositorioQueCai() {
+            super(novo());
+        }
+
+        @Override
+        public CompletableFuture<Void> salvarTodasAssincrono(Conta... contas) {
+            CompletableFuture<Void> gravacao = super.salvarTodasAssincrono(contas);
+            if (gravacoes.incrementAndGet() == quedaNaGravacao) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Queda simulada."));
+            }
+            return gravacao;
+        }
+    }
+}
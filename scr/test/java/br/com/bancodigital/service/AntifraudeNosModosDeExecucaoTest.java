@@ -0,0 +1,117 @@
+package br.com.bancodigital.service;
+
+import br.com.bancodigital.antifraude.MotorAntifraude;
+import br.com.bancodigital.antifraude.RegrasAntifraude;
+import br.com.bancodigital.exception.OperacaoRecusadaException;
+import br.com.bancodigital.model.Cliente;
+import br.com.bancodigital.model.Dinheiro;
+import br.com.bancodigital.particao.BancoParticionado;
+import br.com.bancodigital.particao.ParticaoLocal;
+import br.com.bancodigital.repository.ConcorrenteContaRepository;
+import br.com.bancodigital.repository.IndicesDeContas;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A mesma regra antifraude (uma transferência por hora por conta de origem) vale em
+ * todos os modos de execução, não só no ContaService/PixService: a segunda
+ * transferência da origem é recusada e o dinheiro só se move uma vez.
+ */
+class AntifraudeNosModosDeExecucaoTest {
+
+    private static final long SALDO_INICIAL = Dinheiro.reais(1_000);
+    private static final long VALOR = Dinheiro.reais(10);
+    private static final RegrasAntifraude UMA_POR_HORA = new RegrasAntifraude(
+            new RegrasAntifraude.Limites(0, 0, 0, 1),
+            RegrasAntifraude.Limites.SEM_LIMITE, RegrasAntifraude.Limites.SEM_LIMITE, 0);
+
+    @Test
+    void processadorEmLoteRecusaATransferenciaAcimaDoLimite() {
+        ConcorrenteContaRepository repositorio = ConcorrenteContaRepository.novo().construir();
+        ContaService contaService = criarContas(repositorio);
+        ProcessadorEmLote lote = new ProcessadorEmLote(repositorio, Runnable::run,
+                Dependencias.novas().antifraude(new MotorAntifraude(UMA_POR_HORA)).construir());
+
+        List<ResultadoOperacao> resultados = lote.processar(List.of(
+                OperacaoLote.transferencia("1", "2", VALOR),
+                OperacaoLote.transferencia("1", "2", VALOR)));
+
+        assertTrue(resultados.get(0).sucesso());
+        assertFalse(resultados.get(1).sucesso());
+        assertEquals(SALDO_INICIAL - VALOR, contaService.consultarSaldo("1"));
+    }
+
+    @Test
+    void motorSequencialRecusaATransferenciaEOPixAcimaDoLimite() {
+        ConcorrenteContaRepository repositorio = ConcorrenteContaRepository.novo().construir();
+        ContaService contaService = criarContas(repositorio);
+        try (MotorSequencial motor = new MotorSequencial(repositorio, repositorio.getIndices().getChavesPix(), 16,
+                Dependencias.novas().antifraude(new MotorAntifraude(UMA_POR_HORA)).construir())) {
+            assertTrue(motor.transferir("1", "2", VALOR).join().sucesso());
+            assertFalse(motor.transferir("1", "2", VALOR).join().sucesso());
+            assertFalse(motor.realizarPix("1", "00000000002", VALOR).join().sucesso());
+        }
+        assertEquals(SALDO_INICIAL - VALOR, contaService.consultarSaldo("1"));
+    }
+
+    @Test
+    void processadorOtimistaRecusaEDevolveAsReservas() {
+        ConcorrenteContaRepository repositorio = ConcorrenteContaRepository.novo().construir();
+        criarContas(repositorio);
+        ProcessadorOtimista otimista = new ProcessadorOtimista(repositorio, repositorio.getIndices().getChavesPix(),
+                Dependencias.novas().antifraude(new MotorAntifraude(UMA_POR_HORA)).construir());
+
+        assertTrue(otimista.transferir("1", "2", VALOR).sucesso());
+        assertThrows(OperacaoRecusadaException.class, () -> otimista.transferir("1", "2", VALOR));
+        // As contas não ficaram reservadas pela recusa
+        assertTrue(otimista.depositar("1", VALOR).sucesso());
+        assertTrue(otimista.depositar("2", VALOR).sucesso());
+        assertEquals(SALDO_INICIAL, otimista.consultarSaldo("1"));
+    }
+
+    @Test
+    void sagaEntreParticoesPassaPeloAntifraudeDaOrigem() {
+        List<ParticaoLocal> particoes = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            IndicesDeContas indices = new IndicesDeContas();
+            particoes.add(new ParticaoLocal(ConcorrenteContaRepository.novo().indices(indices).construir(), indices,
+                    Dependencias.novas().antifraude(new MotorAntifraude(UMA_POR_HORA)).construir()));
+        }
+        try (BancoParticionado banco = new BancoParticionado(particoes)) {
+            // Duas contas em partições diferentes (a transferência vira saga)
+            String origem = "1";
+            String destino = null;
+            for (int n = 2; destino == null; n++) {
+                if (banco.particaoDaConta(String.valueOf(n)) != banco.particaoDaConta(origem)) {
+                    destino = String.valueOf(n);
+                }
+            }
+            banco.criarContaCorrente(new Cliente("Ana", "00000000001"), "0001", origem);
+            banco.criarContaCorrente(new Cliente("Bruno", "00000000002"), "0001", destino);
+            banco.depositar(origem, SALDO_INICIAL);
+
+            assertTrue(banco.transferir(origem, destino, VALOR).sucesso());
+            assertFalse(banco.transferir(origem, destino, VALOR).sucesso());
+            assertFalse(banco.realizarPix(origem, "00000000002", VALOR).sucesso());
+            assertEquals(SALDO_INICIAL - VALOR, banco.saldo(origem));
+            assertEquals(VALOR, banco.saldo(destino));
+        }
+    }
+
+    private static ContaService criarContas(ConcorrenteContaRepository repositorio) {
+        IndicesDeContas indices = repositorio.getIndices();
+        ContaService contaService = new ContaService(repositorio, indices);
+        contaService.criarContaCorrente(new Cliente("Ana", "00000000001"), "0001", "1");
+        contaService.criarContaCorrente(new Cliente("Bruno", "00000000002"), "0001", "2");
+        contaService.depositar("1", SALDO_INICIAL);
+        contaService.depositar("2", SALDO_INICIAL);
+        return contaService;
+    }
+}
@@ -0,0 +1,96 @@
+package br.com.bancodigital.service;
+
+import br.com.bancodigital.model.Cliente;
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.model.Dinheiro;
+import br.com.bancodigital.model.TipoTransacao;
+import br.com.bancodigital.repository.ConcorrenteContaRepository;
+import br.com.bancodigital.repository.IndicesDeContas;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Conciliação: a paralela (fork/join) e a sequencial chegam ao mesmo relatório,
+ * e as duas acusam saldo sem histórico e recebimento sem envio.
+ */
+class ConciliacaoServiceTest {
+
+    // Bem acima das 4.096 contas por tarefa: a paralela de fato se divide
+    private static final int CONTAS = 20_000;
+    private static final long SALDO_INICIAL = Dinheiro.reais(100);
+    private static final long VALOR = Dinheiro.reais(1);
+
+    @Test
+    void paralelaESequencialConferemAsMesmasContas() {
+        ConcorrenteContaRepository repositorio = ConcorrenteContaRepository.novo().construir();
+        criarContas(repositorio, repositorio.getIndices());
+        ConciliacaoService conciliacao = new ConciliacaoService(repositorio);
+
+        RelatorioConciliacao paralela;
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            paralela = conciliacao.conciliar(pool);
+        } finally {
+            pool.shutdown();
+        }
+        RelatorioConciliacao sequencial = conciliacao.conciliarSequencial();
+
+        assertTrue(paralela.paralela());
+        assertFalse(sequencial.paralela());
+        for (RelatorioConciliacao relatorio : List.of(paralela, sequencial)) {
+            assertTrue(relatorio.consistente());
+            assertEquals(CONTAS, relatorio.contasVerificadas());
+            // Depósito inicial + envio e recebimento de uma transferência e de um PIX por conta
+            assertEquals(5L * CONTAS, relatorio.transacoesVerificadas());
+            assertEquals(CONTAS, relatorio.totais().quantidade(TipoTransacao.PIX_RECEBIDO));
+        }
+        assertEquals(sequencial.totais().total(TipoTransacao.TRANSFERENCIA_ENVIADA),
+                paralela.totais().total(TipoTransacao.TRANSFERENCIA_ENVIADA));
+    }
+
+    @Test
+    void saldoSemHistoricoERecebimentoSemEnvioSaoAcusados() {
+        ConcorrenteContaRepository repositorio = ConcorrenteContaRepository.novo().construir();
+        criarContas(repositorio, repositorio.getIndices());
+        // Alterações feitas por fora do serviço (ex: um defeito ou uma edição manual)
+        Conta semHistorico = repositorio.buscarPorNumero("7").orElseThrow();
+        semHistorico.depositarInterno(VALOR);
+        Conta semEnvio = repositorio.buscarPorNumero("8").orElseThrow();
+        semEnvio.depositarInterno(VALOR);
+        semEnvio.registrarTransacao(TipoTransacao.TRANSFERENCIA_RECEBIDA, VALOR, "Desconhecido");
+
+        ConciliacaoService conciliacao = new ConciliacaoService(repositorio);
+        for (RelatorioConciliacao relatorio : List.of(conciliacao.conciliar(), conciliacao.conciliarSequencial())) {
+            assertFalse(relatorio.consistente());
+            assertEquals(1, relatorio.contasDivergentes());
+            assertEquals(new RelatorioConciliacao.Divergencia("7", SALDO_INICIAL + VALOR, SALDO_INICIAL),
+                    relatorio.exemplos().get(0));
+            assertFalse(relatorio.paresConferem());
+        }
+    }
+
+    // Cada conta transfere para a seguinte e manda um PIX para a anterior (em círculo)
+    private static void criarContas(ConcorrenteContaRepository repositorio, IndicesDeContas indices) {
+        ContaService contaService = new ContaService(repositorio, indices);
+        PixService pixService = new PixService(repositorio, indices);
+        for (int i = 0; i < CONTAS; i++) {
+            Cliente cliente = indices.getClientes().registrar(new Cliente("Cliente " + i, cpf(i)));
+            contaService.criarContaCorrente(cliente, "0001", String.valueOf(i));
+            contaService.depositar(String.valueOf(i), SALDO_INICIAL);
+        }
+        for (int i = 0; i < CONTAS; i++) {
+            assertTrue(contaService.transferir(String.valueOf(i), String.valueOf((i + 1) % CONTAS), VALOR));
+            assertTrue(pixService.realizarPix(String.valueOf(i), cpf((i + CONTAS - 1) % CONTAS), VALOR));
+        }
+    }
+
+    private static String cpf(int i) {
+        return String.format("%011d", i + 1);
+    }
+}
@@ -0,0 +1,212 @@
+package br.com.bancodigital.service;
+
+import br.com.bancodigital.evento.PublicadorDeEventos;
+import br.com.bancodigital.evento.PublicadorDeTransacoes;
+import br.com.bancodigital.exception.ContaException;
+import br.com.bancodigital.metrica.Metricas;
+import br.com.bancodigital.model.Cliente;
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.model.Dinheiro;
+import br.com.bancodigital.model.TipoTransacao;
+import br.com.bancodigital.model.Transacao;
+import br.com.bancodigital.repository.ConcorrenteContaRepository;
+import br.com.bancodigital.repository.ContaRepository;
+import br.com.bancodigital.repository.DuravelContaRepository;
+import br.com.bancodigital.repository.IndicesDeContas;
+import br.com.bancodigital.repository.MedidoContaRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Contas quentes: créditos em listras, consolidados na conta sem perder nem duplicar dinheiro.
+ */
+class ContasQuentesTest {
+
+    private static final long SALDO_INICIAL = Dinheiro.reais(1_000);
+    private static final long VALOR = Dinheiro.reais(1);
+    private static final int THREADS = 4;
+    private static final int PIX_POR_THREAD = 5_000;
+    private static final int SAQUES = 1_000;
+
+    @Test
+    void repositorioDuravelEmbrulhadoNaoAceitaContasQuentes(@TempDir Path diretorio) throws Exception {
+        try (DuravelContaRepository duravel = DuravelContaRepository.novo(diretorio).construir()) {
+            ContaRepository repositorio = new MedidoContaRepository(duravel, new Metricas());
+            criarContas(repositorio, duravel.getIndices());
+            ContasQuentes quentes = new ContasQuentes(repositorio, PublicadorDeTransacoes.NENHUM, Metricas.DESLIGADAS);
+
+            assertThrows(ContaException.class, () -> quentes.marcar("1"));
+            assertFalse(quentes.isQuente("1"));
+        }
+    }
+
+    @Test
+    void creditosSimultaneosSaoConsolidadosSemPerderNemDuplicar() throws Exception {
+        ConcorrenteContaRepository repositorio = ConcorrenteContaRepository.novo().construir();
+        ContaService contaService = criarContas(repositorio, repositorio.getIndices());
+        IndicesDeContas indices = repositorio.getIndices();
+        for (int t = 0; t < THREADS; t++) {
+            Cliente pagador = indices.getClientes().registrar(new Cliente("Pagador " + t, String.format("1%010d", t)));
+            contaService.criarContaCorrente(pagador, "0001", "p" + t);
+            contaService.depositar("p" + t, PIX_POR_THREAD * VALOR);
+        }
+        ContasQuentes quentes = new ContasQuentes(repositorio, PublicadorDeTransacoes.NENHUM, Metricas.DESLIGADAS, 4);
+        quentes.marcar("1");
+        quentes.iniciarConsolidacaoPeriodica(Duration.ofMillis(1), PublicadorDeEventos.NENHUM);
+        Dependencias dependencias = Dependencias.novas().quentes(quentes).construir();
+        PixService pixService = new PixService(repositorio, indices, dependencias);
+        ContaService servicoDaLoja = new ContaService(repositorio, indices, dependencias);
+
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS + 1);
+        CyclicBarrier largada = new CyclicBarrier(THREADS + 1);
+        List<Future<?>> futuros = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            String pagador = "p" + t;
+            futuros.add(threads.submit(() -> {
+                largada.await();
+                for (int i = 0; i < PIX_POR_THREAD; i++) {
+                    assertTrue(pixService.realizarPix(pagador, "00000000001", VALOR));
+                }
+                return null;
+            }));
+        }
+        // A loja saca enquanto recebe: cada saque consolida antes de debitar
+        futuros.add(threads.submit(() -> {
+            largada.await();
+            for (int i = 0; i < SAQUES; i++) {
+                servicoDaLoja.sacar("1", VALOR);
+            }
+            return null;
+        }));
+        threads.shutdown();
+        for (Future<?> futuro : futuros) {
+            futuro.get();
+        }
+        quentes.close();
+
+        Conta loja = contaService.buscarContaPorNumero("1");
+        long recebido = (long) THREADS * PIX_POR_THREAD * VALOR;
+        assertEquals(SALDO_INICIAL + recebido - SAQUES * VALOR, loja.getSaldo());
+        assertEquals(0, quentes.getPendente("1"));
+        // Depósito inicial + um PIX recebido por crédito + os saques, com as datas em ordem
+        assertEquals(1 + THREADS * PIX_POR_THREAD + SAQUES, loja.getHistoricoTransacoes().size());
+        LocalDateTime anterior = LocalDateTime.MIN;
+        for (Transacao transacao : loja.getHistoricoTransacoes()) {
+            assertFalse(transacao.dataHora().isBefore(anterior), "Histórico fora de ordem");
+            anterior = transacao.dataHora();
+        }
+    }
+
+    @Test
+    void consolidacaoQueNaoGravaDevolveOsCreditosAsListras() {
+        RepositorioQueFalha repositorio = new RepositorioQueFalha();
+        ContaService contaService = criarContas(repositorio, repositorio.getIndices());
+        ContasQuentes quentes = new ContasQuentes(repositorio, PublicadorDeTransacoes.NENHUM, Metricas.DESLIGADAS, 4);
+        quentes.marcar("1");
+        PixService pixService = new PixService(repositorio, repositorio.getIndices(),
+                Dependencias.novas().quentes(quentes).construir());
+        for (int i = 0; i < 3; i++) {
+            assertTrue(pixService.realizarPix("2", "00000000001", VALOR)); // Chave CPF da loja
+        }
+
+        repositorio.falhar = true;
+        assertThrows(IllegalStateException.class, () -> quentes.consultarSaldo("1"));
+        Conta loja = contaService.buscarContaPorNumero("1");
+        assertEquals(SALDO_INICIAL, loja.getSaldo());
+        assertEquals(1, loja.getHistoricoTransacoes().size());
+        assertEquals(3 * VALOR, quentes.getPendente("1"));
+
+        repositorio.falhar = false;
+        assertEquals(SALDO_INICIAL + 3 * VALOR, quentes.consultarSaldo("1"));
+        assertEquals(4, loja.getHistoricoTransacoes().size());
+        assertEquals(0, quentes.getPendente("1"));
+    }
+
+    @Test
+    void recebimentoNaContaQuenteEContadoNaConsolidacao() {
+        ConcorrenteContaRepository repositorio = ConcorrenteContaRepository.novo().construir();
+        criarContas(repositorio, repositorio.getIndices());
+        Metricas metricas = new Metricas();
+        ContasQuentes quentes = new ContasQuentes(repositorio, PublicadorDeTransacoes.NENHUM, metricas, 4);
+        quentes.marcar("1");
+        PixService pixService = new PixService(repositorio, repositorio.getIndices(),
+                Dependencias.novas().metricas(metricas).quentes(quentes).construir());
+        for (int i = 0; i < 7; i++) {
+            assertTrue(pixService.realizarPix("2", "00000000001", VALOR));
+        }
+
+        // Pendentes: o envio já foi contado, o recebimento ainda não
+        assertEquals(7, metricas.valores(TipoTransacao.PIX_ENVIADO).contagem());
+        assertEquals(0, metricas.valores(TipoTransacao.PIX_RECEBIDO).contagem());
+
+        quentes.consultarSaldo("1");
+        assertEquals(7, metricas.valores(TipoTransacao.PIX_RECEBIDO).contagem());
+        // Com o tamanho real do histórico: a loja (depósito + 7 recebidos) e a Ana (depósito + 7 enviados)
+        assertEquals(2, metricas.getContasComHistoricoDe(8));
+        assertEquals(2, metricas.getContasComHistoricoDe(2));
+    }
+
+    @Test
+    void reservaUsaOSaldoConsolidadoSemLerAContaDestravada() {
+        ConcorrenteContaRepository repositorio = ConcorrenteContaRepository.novo().construir();
+        ContaService contaService = criarContas(repositorio, repositorio.getIndices());
+        ContasQuentes quentes = new ContasQuentes(repositorio, PublicadorDeTransacoes.NENHUM, Metricas.DESLIGADAS, 4);
+        quentes.marcar("1");
+        PixService pixService = new PixService(repositorio, repositorio.getIndices(),
+                Dependencias.novas().quentes(quentes).construir());
+
+        // Depósito direto na conta quente: entra na base na consolidação seguinte
+        contaService.depositar("1", Long.MAX_VALUE - SALDO_INICIAL - 2 * VALOR);
+        assertEquals(Long.MAX_VALUE - 2 * VALOR, quentes.consultarSaldo("1"));
+
+        assertTrue(pixService.realizarPix("2", "00000000001", VALOR));
+        assertTrue(pixService.realizarPix("2", "00000000001", VALOR));
+        assertThrows(ContaException.class, () -> pixService.realizarPix("2", "00000000001", VALOR));
+        assertEquals(SALDO_INICIAL - 2 * VALOR, contaService.consultarSaldo("2"));
+        assertEquals(Long.MAX_VALUE, quentes.consultarSaldo("1"));
+    }
+
+    private static ContaService criarContas(ContaRepository repositorio, IndicesDeContas indices) {
+        ContaService contaService = new ContaService(repositorio, indices);
+        Cliente loja = indices.getClientes().registrar(new Cliente("Loja", "00000000001"));
+        Cliente ana = indices.getClientes().registrar(new Cliente("Ana", "00000000002"));
+        contaService.criarContaCorrente(loja, "0001", "1");
+        contaService.criarContaCorrente(ana, "0001", "2");
+        contaService.depositar("1", SALDO_INICIAL);
+        contaService.depositar("2", SALDO_INICIAL);
+        return contaService;
+    }
+
+    // Simula um erro de gravação (ex: disco cheio) enquanto falhar estiver ligado
+    private static final class RepositorioQueFalha extends ConcorrenteContaRepository {
+
+        private volatile boolean falhar;
+
+        RepositorioQueFalha() {
+            super(novo());
+        }
+
+        @Override
+        public void salvar(Conta conta) {
+            if (falhar) {
+                throw new IllegalStateException("Falha simulada na gravação.");
+            }
+            super.salvar(conta);
+        }
+    }
+}
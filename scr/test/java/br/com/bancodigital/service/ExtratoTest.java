@@ -0,0 +1,100 @@
+package br.com.bancodigital.service;
+
+import br.com.bancodigital.model.Cliente;
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.model.FiltroExtrato;
+import br.com.bancodigital.model.PaginaExtrato;
+import br.com.bancodigital.model.TipoTransacao;
+import br.com.bancodigital.model.Transacao;
+import br.com.bancodigital.repository.ConcorrenteContaRepository;
+import br.com.bancodigital.repository.IndicesDeContas;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Extrato paginado: filtros de período e tipo, cursor de uma página para a outra
+ * e o Stream que lê o histórico de página em página.
+ */
+class ExtratoTest {
+
+    private static final LocalDateTime INICIO = LocalDateTime.of(2026, 10, 1, 9, 0);
+    private static final int TRANSACOES = 1_000;
+    private static final int TAMANHO_PAGINA = 20;
+
+    @Test
+    void paginasDoPeriodoFiltradoPorTipoTerminamNoFimDoPeriodo() {
+        ContaService contaService = criarConta();
+        FiltroExtrato filtro = FiltroExtrato.todos()
+                .comPeriodo(INICIO.plusMinutes(100), INICIO.plusMinutes(199))
+                .comTipos(Set.of(TipoTransacao.SAQUE));
+
+        List<Transacao> lidas = new ArrayList<>();
+        List<Integer> tamanhos = new ArrayList<>();
+        int cursor = PaginaExtrato.INICIO;
+        do {
+            PaginaExtrato pagina = contaService.consultarExtrato("1", filtro, cursor, TAMANHO_PAGINA);
+            lidas.addAll(pagina.transacoes());
+            tamanhos.add(pagina.transacoes().size());
+            cursor = pagina.proximoCursor();
+        } while (cursor != PaginaExtrato.FIM);
+
+        // Os saques são os minutos ímpares: 50 entre o minuto 100 e o 199
+        assertEquals(List.of(20, 20, 10), tamanhos);
+        for (int i = 0; i < lidas.size(); i++) {
+            int minuto = 101 + 2 * i;
+            assertEquals(INICIO.plusMinutes(minuto), lidas.get(i).dataHora());
+            assertEquals(minuto + 1, lidas.get(i).valor());
+        }
+    }
+
+    @Test
+    void streamLeOHistoricoInteiroDePaginaEmPagina() {
+        ContaService contaService = criarConta();
+        FiltroExtrato depositos = FiltroExtrato.todos().comTipos(Set.of(TipoTransacao.DEPOSITO));
+
+        assertEquals(TRANSACOES, contaService.streamExtrato("1", FiltroExtrato.todos()).count());
+        List<Transacao> lidos = contaService.streamExtrato("1", depositos).toList();
+        assertEquals(TRANSACOES / 2, lidos.size());
+        assertTrue(lidos.stream().allMatch(transacao -> transacao.tipo() == TipoTransacao.DEPOSITO));
+        // Sem nada no período, a primeira página já é a última
+        FiltroExtrato antes = FiltroExtrato.todos().comPeriodo(INICIO.minusDays(2), INICIO.minusDays(1));
+        PaginaExtrato vazia = contaService.consultarExtrato("1", antes, PaginaExtrato.INICIO, TAMANHO_PAGINA);
+        assertTrue(vazia.transacoes().isEmpty());
+        assertEquals(PaginaExtrato.FIM, vazia.proximoCursor());
+    }
+
+    @Test
+    void paginaOuPeriodoInvalidoERecusado() {
+        ContaService contaService = criarConta();
+        assertThrows(IllegalArgumentException.class,
+                () -> contaService.consultarExtrato("1", FiltroExtrato.todos(), PaginaExtrato.INICIO, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> contaService.consultarExtrato("1", FiltroExtrato.todos(), -2, TAMANHO_PAGINA));
+        assertThrows(IllegalArgumentException.class,
+                () -> FiltroExtrato.todos().comPeriodo(INICIO, INICIO.minusMinutes(1)));
+    }
+
+    // Uma transação por minuto a partir de INICIO: depósitos nos minutos pares, saques nos ímpares
+    private static ContaService criarConta() {
+        ConcorrenteContaRepository repositorio = ConcorrenteContaRepository.novo().construir();
+        IndicesDeContas indices = repositorio.getIndices();
+        ContaService contaService = new ContaService(repositorio, indices);
+        Cliente ana = indices.getClientes().registrar(new Cliente("Ana", "00000000001"));
+        Conta conta = contaService.criarContaCorrente(ana, "0001", "1");
+        for (int i = 0; i < TRANSACOES; i++) {
+            long instante = INICIO.plusMinutes(i).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            TipoTransacao tipo = i % 2 == 0 ? TipoTransacao.DEPOSITO : TipoTransacao.SAQUE;
+            conta.registrarTransacao(instante, tipo, i + 1, "");
+        }
+        return contaService;
+    }
+}
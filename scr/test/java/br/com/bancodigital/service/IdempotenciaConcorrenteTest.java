@@ -0,0 +1,150 @@
+package br.com.bancodigital.service;
+
+import br.com.bancodigital.model.Cliente;
+import br.com.bancodigital.model.Dinheiro;
+import br.com.bancodigital.repository.ConcorrenteContaRepository;
+import br.com.bancodigital.repository.ContaRepository;
+import br.com.bancodigital.repository.DuravelContaRepository;
+import br.com.bancodigital.repository.IndicesDeContas;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Operações idempotentes com repetições disputando a mesma chave: o dinheiro
+ * se move uma vez por chave, todas as repetições recebem o mesmo resultado, e
+ * a chave reenviada com outra operação (outro valor, outras contas) é recusada.
+ */
+class IdempotenciaConcorrenteTest {
+
+    private static final int THREADS = 8;
+    private static final int CHAVES = 2_000;
+    private static final long SALDO_INICIAL = Dinheiro.reais(1_000_000);
+    private static final long VALOR = Dinheiro.reais(1);
+
+    @Test
+    void repeticoesSimultaneasMovemODinheiroUmaVezPorChave() throws Exception {
+        ConcorrenteContaRepository repositorio = ConcorrenteContaRepository.novo().construir();
+        ContaService contaService = criarContas(repositorio, repositorio.getIndices());
+
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        CyclicBarrier largada = new CyclicBarrier(THREADS);
+        List<Future<List<ResultadoOperacao>>> futuros = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futuros.add(threads.submit(() -> {
+                List<ResultadoOperacao> resultados = new ArrayList<>(CHAVES);
+                for (int i = 0; i < CHAVES; i++) {
+                    largada.await(); // Todas as threads enviam a mesma chave ao mesmo tempo
+                    resultados.add(contaService.transferir("chave-" + i, "1", "2", VALOR));
+                }
+                return resultados;
+            }));
+        }
+        threads.shutdown();
+
+        List<List<ResultadoOperacao>> porThread = new ArrayList<>();
+        for (Future<List<ResultadoOperacao>> futuro : futuros) {
+            porThread.add(futuro.get());
+        }
+        for (int i = 0; i < CHAVES; i++) {
+            ResultadoOperacao primeiro = porThread.get(0).get(i);
+            assertTrue(primeiro.sucesso());
+            for (List<ResultadoOperacao> resultados : porThread) {
+                assertEquals(primeiro.saldo(), resultados.get(i).saldo(), "Repetições com resultados diferentes");
+            }
+        }
+        assertEquals(SALDO_INICIAL - CHAVES * VALOR, contaService.consultarSaldo("1"));
+        assertEquals(SALDO_INICIAL + CHAVES * VALOR, contaService.consultarSaldo("2"));
+    }
+
+    @Test
+    void chaveReenviadaComOutraOperacaoERecusada() {
+        ConcorrenteContaRepository repositorio = ConcorrenteContaRepository.novo().construir();
+        ContaService contaService = criarContas(repositorio, repositorio.getIndices());
+
+        assertTrue(contaService.transferir("chave", "1", "2", VALOR).sucesso());
+        assertFalse(contaService.transferir("chave", "1", "2", 2 * VALOR).sucesso());
+        assertFalse(contaService.transferir("chave", "2", "1", VALOR).sucesso());
+        assertFalse(contaService.sacar("chave", "1", VALOR).sucesso());
+        // A repetição da operação original continua recebendo o resultado dela
+        assertTrue(contaService.transferir("chave", "1", "2", VALOR).sucesso());
+
+        assertEquals(SALDO_INICIAL - VALOR, contaService.consultarSaldo("1"));
+        assertEquals(SALDO_INICIAL + VALOR, contaService.consultarSaldo("2"));
+    }
+
+    @Test
+    void operacoesDiferentesDisputandoAMesmaChaveExecutamUmaSo() throws Exception {
+        ConcorrenteContaRepository repositorio = ConcorrenteContaRepository.novo().construir();
+        ContaService contaService = criarContas(repositorio, repositorio.getIndices());
+
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        CyclicBarrier largada = new CyclicBarrier(THREADS);
+        List<Future<Integer>> futuros = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            long valor = (t + 1) * VALOR; // Cada thread com um valor diferente
+            futuros.add(threads.submit(() -> {
+                int executadas = 0;
+                for (int i = 0; i < CHAVES; i++) {
+                    largada.await();
+                    if (contaService.transferir("disputada-" + i, "1", "2", valor).sucesso()) {
+                        executadas++;
+                    }
+                }
+                return executadas;
+            }));
+        }
+        threads.shutdown();
+
+        int executadas = 0;
+        for (Future<Integer> futuro : futuros) {
+            executadas += futuro.get();
+        }
+        assertEquals(CHAVES, executadas, "Cada chave deve executar exatamente uma das operações");
+        assertEquals(2 * SALDO_INICIAL, contaService.consultarSaldo("1") + contaService.consultarSaldo("2"));
+    }
+
+    @Test
+    void impressaoDaOperacaoSobreviveAoJournalEAoSnapshot(@TempDir Path diretorio) throws Exception {
+        try (DuravelContaRepository repositorio = DuravelContaRepository.novo(diretorio).construir()) {
+            ContaService contaService = criarContas(repositorio, repositorio.getIndices());
+            assertTrue(contaService.transferir("journal", "1", "2", VALOR).sucesso());
+        }
+        try (DuravelContaRepository repositorio = DuravelContaRepository.novo(diretorio).construir()) {
+            ContaService contaService = new ContaService(repositorio, repositorio.getIndices());
+            assertFalse(contaService.transferir("journal", "1", "2", 2 * VALOR).sucesso());
+            assertTrue(contaService.transferir("journal", "1", "2", VALOR).sucesso());
+            assertTrue(contaService.transferir("snapshot", "2", "1", VALOR).sucesso());
+            repositorio.tirarSnapshot();
+        }
+        try (DuravelContaRepository repositorio = DuravelContaRepository.novo(diretorio).construir()) {
+            ContaService contaService = new ContaService(repositorio, repositorio.getIndices());
+            assertFalse(contaService.transferir("journal", "1", "2", 2 * VALOR).sucesso());
+            assertFalse(contaService.transferir("snapshot", "2", "1", 2 * VALOR).sucesso());
+            assertTrue(contaService.transferir("snapshot", "2", "1", VALOR).sucesso());
+            assertEquals(SALDO_INICIAL, contaService.consultarSaldo("1"));
+        }
+    }
+
+    private static ContaService criarContas(ContaRepository repositorio, IndicesDeContas indices) {
+        ContaService contaService = new ContaService(repositorio, indices);
+        Cliente ana = indices.getClientes().registrar(new Cliente("Ana", "00000000001"));
+        Cliente bruno = indices.getClientes().registrar(new Cliente("Bruno", "00000000002"));
+        contaService.criarContaCorrente(ana, "0001", "1");
+        contaService.criarContaCorrente(bruno, "0001", "2");
+        contaService.depositar("1", SALDO_INICIAL);
+        contaService.depositar("2", SALDO_INICIAL);
+        return contaService;
+    }
+}
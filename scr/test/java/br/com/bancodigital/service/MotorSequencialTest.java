@@ -0,0 +1,138 @@
+package br.com.bancodigital.service;
+
+import br.com.bancodigital.evento.EventoBancario;
+import br.com.bancodigital.exception.ContaException;
+import br.com.bancodigital.model.Cliente;
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.model.Dinheiro;
+import br.com.bancodigital.repository.ConcorrenteContaRepository;
+import br.com.bancodigital.repository.IndicesDeContas;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Motor de thread única: com o buffer dando várias voltas, todo comando é aplicado uma vez,
+ * na ordem de publicação, e a resposta só sai depois da gravação.
+ */
+class MotorSequencialTest {
+
+    private static final int THREADS = 4;
+    private static final int COMANDOS_POR_THREAD = 5_000;
+    private static final long SALDO_INICIAL = Dinheiro.reais(1_000_000);
+    private static final long VALOR = Dinheiro.reais(1);
+
+    @Test
+    void produtoresSimultaneosNumBufferPequenoNaoPerdemComandos() throws Exception {
+        ConcorrenteContaRepository repositorio = ConcorrenteContaRepository.novo().construir();
+        criarContas(repositorio, repositorio.getIndices());
+        List<Long> sequencias = new CopyOnWriteArrayList<>();
+
+        // Capacidade 4: os produtores esperam posições livres (contrapressão) o tempo todo
+        try (MotorSequencial motor = new MotorSequencial(repositorio, repositorio.getIndices().getChavesPix(), 4)) {
+            motor.adicionarOuvinte(processado -> sequencias.add(processado.sequencia()));
+            ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+            CyclicBarrier largada = new CyclicBarrier(THREADS);
+            List<Future<?>> futuros = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                boolean ida = t % 2 == 0; // Metade de 1 para 2 (transferência), metade de 2 para 1 (PIX)
+                futuros.add(threads.submit(() -> {
+                    largada.await();
+                    List<CompletableFuture<ResultadoOperacao>> respostas = new ArrayList<>();
+                    for (int i = 0; i < COMANDOS_POR_THREAD; i++) {
+                        respostas.add(ida
+                                ? motor.transferir("1", "2", VALOR)
+                                : motor.realizarPix("2", "00000000001", VALOR));
+                    }
+                    for (CompletableFuture<ResultadoOperacao> resposta : respostas) {
+                        assertTrue(resposta.join().sucesso());
+                    }
+                    return null;
+                }));
+            }
+            threads.shutdown();
+            for (Future<?> futuro : futuros) {
+                futuro.get();
+            }
+        }
+
+        int comandos = THREADS * COMANDOS_POR_THREAD;
+        assertEquals(comandos, sequencias.size());
+        for (int i = 0; i < comandos; i++) {
+            assertEquals(i, sequencias.get(i));
+        }
+        assertEquals(SALDO_INICIAL, repositorio.buscarPorNumero("1").orElseThrow().getSaldo());
+        assertEquals(SALDO_INICIAL, repositorio.buscarPorNumero("2").orElseThrow().getSaldo());
+        assertEquals(1 + comandos, repositorio.buscarPorNumero("1").orElseThrow().getHistoricoTransacoes().size());
+    }
+
+    @Test
+    void recusasEFalhasDeGravacaoChegamComoResultado() {
+        RepositorioQueFalha repositorio = new RepositorioQueFalha();
+        criarContas(repositorio, repositorio.getIndices());
+        List<EventoBancario> eventos = new CopyOnWriteArrayList<>();
+        MotorSequencial motor = new MotorSequencial(repositorio, repositorio.getIndices().getChavesPix(), 4,
+                Dependencias.novas().eventos(eventos::add).construir());
+        motor.adicionarOuvinte(processado -> {
+            throw new IllegalStateException("Ouvinte com defeito");
+        });
+
+        assertFalse(motor.sacar("1", 3 * SALDO_INICIAL).join().sucesso());
+        assertEquals("Conta número 9 não encontrada.", motor.depositar("9", VALOR).join().motivoFalha());
+        assertFalse(motor.transferir("1", "1", VALOR).join().sucesso());
+
+        // A alteração foi aplicada, mas a gravação falhou: quem enviou fica sabendo
+        repositorio.falhar = true;
+        CompletionException erro = assertThrows(CompletionException.class, () -> motor.depositar("1", VALOR).join());
+        assertInstanceOf(ContaException.class, erro.getCause());
+        repositorio.falhar = false;
+
+        // O ouvinte com defeito não parou o motor
+        assertTrue(motor.depositar("1", VALOR).join().sucesso());
+        motor.close();
+        assertTrue(eventos.stream().anyMatch(evento -> evento instanceof EventoBancario.FalhaEmSegundoPlano));
+        assertThrows(CompletionException.class, () -> motor.depositar("1", VALOR).join());
+    }
+
+    private static void criarContas(ConcorrenteContaRepository repositorio, IndicesDeContas indices) {
+        ContaService contaService = new ContaService(repositorio, indices);
+        Cliente ana = indices.getClientes().registrar(new Cliente("Ana", "00000000001"));
+        Cliente bruno = indices.getClientes().registrar(new Cliente("Bruno", "00000000002"));
+        contaService.criarContaCorrente(ana, "0001", "1");
+        contaService.criarContaCorrente(bruno, "0001", "2");
+        contaService.depositar("1", SALDO_INICIAL);
+        contaService.depositar("2", SALDO_INICIAL);
+    }
+
+    // Simula um erro de gravação (ex: disco cheio) enquanto falhar estiver ligado
+    private static final class RepositorioQueFalha extends ConcorrenteContaRepository {
+
+        private volatile boolean falhar;
+
+        RepositorioQueFalha() {
+            super(novo());
+        }
+
+        @Override
+        public CompletableFuture<Void> salvarTodasAssincrono(Conta... contas) {
+            if (falhar) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Falha simulada na gravação."));
+            }
+            return super.salvarTodasAssincrono(contas);
+        }
+    }
+}
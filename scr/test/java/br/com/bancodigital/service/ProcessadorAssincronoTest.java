@@ -0,0 +1,87 @@
+package br.com.bancodigital.service;
+
+import br.com.bancodigital.exception.ContaException;
+import br.com.bancodigital.model.Cliente;
+import br.com.bancodigital.model.Dinheiro;
+import br.com.bancodigital.repository.ConcorrenteContaRepository;
+import br.com.bancodigital.repository.IndicesDeContas;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * API assíncrona: operações encadeadas sem bloquear, falhas de negócio como resultado
+ * e, no executor por partição, as operações de uma conta na ordem em que foram enviadas.
+ */
+class ProcessadorAssincronoTest {
+
+    private static final long VALOR = Dinheiro.reais(10);
+    private static final int OPERACOES = 2_000;
+
+    @Test
+    void operacoesEncadeadasTrazemSaldoEIdDaTransacao() {
+        ConcorrenteContaRepository repositorio = ConcorrenteContaRepository.novo().construir();
+        IndicesDeContas indices = repositorio.getIndices();
+        Cliente ana = indices.getClientes().registrar(new Cliente("Ana", "00000000001"));
+        Cliente bruno = indices.getClientes().registrar(new Cliente("Bruno", "00000000002"));
+
+        try (ProcessadorAssincrono processador = criar(repositorio, indices)) {
+            ResultadoOperacao pix = processador.criarContaCorrente(ana, "0001", "1")
+                    .thenCompose(conta -> processador.criarContaPoupanca(bruno, "0001", "2"))
+                    .thenCompose(conta -> processador.depositar("1", 3 * VALOR))
+                    .thenCompose(deposito -> processador.realizarPix("1", "00000000002", VALOR))
+                    .join();
+            assertTrue(pix.sucesso());
+            assertEquals(2 * VALOR, pix.saldo());
+            assertEquals(1, pix.transacao()); // Depósito (0), PIX (1)
+            assertEquals(VALOR, processador.consultarSaldo("2").join());
+
+            // Falhas de negócio completam com um resultado de falha
+            ResultadoOperacao saque = processador.sacar("2", 2 * VALOR).join();
+            assertFalse(saque.sucesso());
+            assertEquals(ResultadoOperacao.SEM_TRANSACAO, saque.transacao());
+
+            // Número repetido: a ContaException completa o futuro com a exceção
+            CompletableFuture<?> repetida = processador.criarContaCorrente(ana, "0001", "1");
+            CompletionException erro = assertThrows(CompletionException.class, repetida::join);
+            assertInstanceOf(ContaException.class, erro.getCause());
+        }
+    }
+
+    @Test
+    void porParticaoAplicaAsOperacoesDaContaNaOrdemEnviada() {
+        ConcorrenteContaRepository repositorio = ConcorrenteContaRepository.novo().construir();
+        IndicesDeContas indices = repositorio.getIndices();
+        ContaService contaService = new ContaService(repositorio, indices);
+        Cliente ana = indices.getClientes().registrar(new Cliente("Ana", "00000000001"));
+        contaService.criarContaPoupanca(ana, "0001", "1");
+
+        try (ProcessadorAssincrono processador = ProcessadorAssincrono.porParticao(
+                contaService, new PixService(repositorio, indices), 4)) {
+            // Poupança começando em zero: cada saque só passa se o depósito anterior já foi aplicado
+            List<CompletableFuture<ResultadoOperacao>> resultados = new ArrayList<>();
+            for (int i = 0; i < OPERACOES; i++) {
+                resultados.add(processador.depositar("1", VALOR));
+                resultados.add(processador.sacar("1", VALOR));
+            }
+            for (CompletableFuture<ResultadoOperacao> resultado : resultados) {
+                assertTrue(resultado.join().sucesso());
+            }
+        }
+        assertEquals(0, contaService.consultarSaldo("1"));
+        assertEquals(2 * OPERACOES, contaService.buscarContaPorNumero("1").getHistoricoTransacoes().size());
+    }
+
+    private static ProcessadorAssincrono criar(ConcorrenteContaRepository repositorio, IndicesDeContas indices) {
+        return new ProcessadorAssincrono(new ContaService(repositorio, indices), new PixService(repositorio, indices));
+    }
+}
@@ -0,0 +1,107 @@
+package br.com.bancodigital.service;
+
+import br.com.bancodigital.evento.EventoBancario;
+import br.com.bancodigital.model.Cliente;
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.model.Dinheiro;
+import br.com.bancodigital.repository.ConcorrenteContaRepository;
+import br.com.bancodigital.repository.IndicesDeContas;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Lote: um resultado por operação, na ordem recebida, e uma gravação por grupo de contas
+ * independentes; se a gravação falha, o grupo inteiro volta ao que era.
+ */
+class ProcessadorEmLoteTest {
+
+    private static final long SALDO_INICIAL = Dinheiro.reais(100);
+    private static final long VALOR = Dinheiro.reais(10);
+
+    @Test
+    void cadaOperacaoTemSeuResultadoECadaGrupoUmaGravacao() {
+        RepositorioContado repositorio = new RepositorioContado();
+        criarContas(repositorio, repositorio.getIndices());
+        List<EventoBancario> eventos = new ArrayList<>();
+        ProcessadorEmLote lote = new ProcessadorEmLote(repositorio, Runnable::run, eventos::add);
+
+        List<ResultadoOperacao> resultados = lote.processar(List.of(
+                OperacaoLote.transferencia("1", "2", VALOR),
+                OperacaoLote.saque("2", SALDO_INICIAL + VALOR),   // Só passa com a transferência anterior
+                OperacaoLote.saque("2", VALOR),                   // Saldo insuficiente
+                OperacaoLote.deposito("3", VALOR),
+                OperacaoLote.deposito("9", VALOR),                // Conta inexistente
+                OperacaoLote.deposito("3", 0)));
+
+        assertTrue(resultados.get(0).sucesso());
+        assertEquals(SALDO_INICIAL - VALOR, resultados.get(0).saldo());
+        assertTrue(resultados.get(1).sucesso());
+        assertEquals(0, resultados.get(1).saldo());
+        assertFalse(resultados.get(2).sucesso());
+        assertTrue(resultados.get(3).sucesso());
+        assertEquals("Conta número 9 não encontrada.", resultados.get(4).motivoFalha());
+        assertFalse(resultados.get(5).sucesso());
+
+        // Dois grupos independentes ({1, 2} e {3}): uma gravação cada
+        assertEquals(2, repositorio.gravacoes.get());
+        assertEquals(List.of(new EventoBancario.LoteProcessado(6, 3)), eventos);
+        // Depósito inicial, transferência recebida e o saque aceito: as recusas não entram no histórico
+        assertEquals(3, repositorio.buscarPorNumero("2").orElseThrow().getHistoricoTransacoes().size());
+    }
+
+    @Test
+    void gravacaoQueFalhaDesfazOGrupoInteiro() {
+        RepositorioContado repositorio = new RepositorioContado();
+        criarContas(repositorio, repositorio.getIndices());
+        ProcessadorEmLote lote = new ProcessadorEmLote(repositorio, Runnable::run);
+
+        repositorio.falhar = true;
+        assertThrows(IllegalStateException.class, () -> lote.processar(List.of(
+                OperacaoLote.transferencia("1", "2", VALOR),
+                OperacaoLote.deposito("2", VALOR))));
+
+        for (String numero : List.of("1", "2")) {
+            Conta conta = repositorio.buscarPorNumero(numero).orElseThrow();
+            assertEquals(SALDO_INICIAL, conta.getSaldo());
+            assertEquals(1, conta.getHistoricoTransacoes().size());
+        }
+    }
+
+    private static void criarContas(ConcorrenteContaRepository repositorio, IndicesDeContas indices) {
+        ContaService contaService = new ContaService(repositorio, indices);
+        for (int i = 1; i <= 3; i++) {
+            Cliente cliente = indices.getClientes().registrar(new Cliente("Cliente " + i, String.format("%011d", i)));
+            // Poupança: sem cheque especial, o saque acima do saldo é recusado
+            contaService.criarContaPoupanca(cliente, "0001", String.valueOf(i));
+            contaService.depositar(String.valueOf(i), SALDO_INICIAL);
+        }
+    }
+
+    // Conta as chamadas de salvarTodas e simula um erro de gravação enquanto falhar estiver ligado
+    private static final class RepositorioContado extends ConcorrenteContaRepository {
+
+        private final AtomicInteger gravacoes = new AtomicInteger();
+        private volatile boolean falhar;
+
+        RepositorioContado() {
+            super(novo());
+        }
+
+        @Override
+        public void salvarTodas(Conta... contas) {
+            if (falhar) {
+                throw new IllegalStateException("Falha simulada na gravação.");
+            }
+            gravacoes.incrementAndGet();
+            super.salvarTodas(contas);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package br.com.bancodigital.service;
+
+import br.com.bancodigital.model.Cliente;
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.model.Dinheiro;
+import br.com.bancodigital.repository.ConcorrenteContaRepository;
+import br.com.bancodigital.repository.IndicesDeContas;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Concorrência otimista: quem encontra a conta reservada ou alterada tenta de novo (compare-and-set
+ * da versão), sem aplicar nada pela metade; cada alteração confirmada avança a versão em 2.
+ */
+class ProcessadorOtimistaTest {
+
+    private static final int THREADS = 8;
+    private static final int OPERACOES = 20_000;
+    private static final long SALDO_INICIAL = Dinheiro.reais(1_000_000);
+    private static final long VALOR = Dinheiro.reais(1);
+
+    @Test
+    void operacaoQueEncontraAContaReservadaTentaDeNovoAteConseguir() throws Exception {
+        ConcorrenteContaRepository repositorio = ConcorrenteContaRepository.novo().construir();
+        ProcessadorOtimista processador = criarContas(repositorio, repositorio.getIndices());
+        Conta destino = repositorio.buscarPorNumero("2").orElseThrow();
+        int versao = destino.getVersao();
+
+        // Outra "operação" está com o destino reservado: a transferência não pode passar
+        assertTrue(destino.reservarVersao(versao));
+        CompletableFuture<ResultadoOperacao> transferencia =
+                CompletableFuture.supplyAsync(() -> processador.transferir("1", "2", VALOR));
+        while (processador.getConflitos() < 10) {
+            Thread.onSpinWait();
+        }
+        assertFalse(transferencia.isDone());
+        Conta origem = repositorio.buscarPorNumero("1").orElseThrow();
+        assertEquals(SALDO_INICIAL, origem.getSaldo()); // A origem foi devolvida sem alteração
+
+        destino.desfazerReserva();
+        assertTrue(transferencia.get(10, TimeUnit.SECONDS).sucesso());
+        assertEquals(SALDO_INICIAL - VALOR, origem.getSaldo());
+        assertEquals(SALDO_INICIAL + VALOR, destino.getSaldo());
+        assertEquals(2, origem.getHistoricoTransacoes().size());
+        assertEquals(versao + 2, destino.getVersao());
+    }
+
+    @Test
+    void saqueRecusadoNaoReservaAConta() {
+        ConcorrenteContaRepository repositorio = ConcorrenteContaRepository.novo().construir();
+        ProcessadorOtimista processador = criarContas(repositorio, repositorio.getIndices());
+        Conta conta = repositorio.buscarPorNumero("1").orElseThrow();
+        int versao = conta.getVersao();
+
+        assertFalse(processador.sacar("1", 2 * SALDO_INICIAL).sucesso());
+        assertEquals(versao, conta.getVersao());
+        assertEquals(0, processador.getConflitos());
+    }
+
+    @Test
+    void disputaPelasMesmasContasNaoPerdeNemDuplicaAlteracoes() throws Exception {
+        ConcorrenteContaRepository repositorio = ConcorrenteContaRepository.novo().construir();
+        ProcessadorOtimista processador = criarContas(repositorio, repositorio.getIndices());
+        Conta um = repositorio.buscarPorNumero("1").orElseThrow();
+        Conta dois = repositorio.buscarPorNumero("2").orElseThrow();
+        int versaoUm = um.getVersao();
+        int versaoDois = dois.getVersao();
+
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        CyclicBarrier largada = new CyclicBarrier(THREADS);
+        List<Future<?>> futuros = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            boolean ida = t % 2 == 0; // Metade transfere de 1 para 2, metade de 2 para 1
+            futuros.add(threads.submit(() -> {
+                largada.await();
+                for (int i = 0; i < OPERACOES; i++) {
+                    ResultadoOperacao resultado = ida
+                            ? processador.transferir("1", "2", VALOR)
+                            : processador.transferir("2", "1", VALOR);
+                    assertTrue(resultado.sucesso());
+                }
+                return null;
+            }));
+        }
+        threads.shutdown();
+        for (Future<?> futuro : futuros) {
+            futuro.get();
+        }
+
+        // Metade das threads em cada sentido: os saldos voltam ao início
+        assertEquals(SALDO_INICIAL, um.getSaldo());
+        assertEquals(SALDO_INICIAL, dois.getSaldo());
+        // Cada transferência confirmada mexeu uma vez em cada conta
+        int transferencias = THREADS * OPERACOES;
+        assertEquals(versaoUm + 2 * transferencias, um.getVersao());
+        assertEquals(versaoDois + 2 * transferencias, dois.getVersao());
+        assertEquals(1 + transferencias, um.getHistoricoTransacoes().size());
+    }
+
+    private static ProcessadorOtimista criarContas(ConcorrenteContaRepository repositorio, IndicesDeContas indices) {
+        ProcessadorOtimista processador = new ProcessadorOtimista(repositorio, indices.getChavesPix());
+        ContaService contaService = new ContaService(repositorio, indices);
+        Cliente ana = indices.getClientes().registrar(new Cliente("Ana", "00000000001"));
+        Cliente bruno = indices.getClientes().registrar(new Cliente("Bruno", "00000000002"));
+        contaService.criarContaCorrente(ana, "0001", "1");
+        contaService.criarContaCorrente(bruno, "0001", "2");
+        // Os depósitos passam pelo processador: as contas usadas aqui só são movimentadas por ele
+        processador.depositar("1", SALDO_INICIAL);
+        processador.depositar("2", SALDO_INICIAL);
+        return processador;
+    }
+}
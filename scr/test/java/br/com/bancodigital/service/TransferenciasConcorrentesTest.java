@@ -0,0 +1,107 @@
+package br.com.bancodigital.service;
+
+import br.com.bancodigital.model.Cliente;
+import br.com.bancodigital.model.Conta;
+import br.com.bancodigital.model.Dinheiro;
+import br.com.bancodigital.repository.ConcorrenteContaRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Teste de estresse do ConcorrenteContaRepository com os serviços: várias threads
+ * fazem milhões de transferências e PIX entre contas aleatórias (nos dois sentidos,
+ * o que travaria sem a ordem fixa das travas) e, no final, o dinheiro do banco
+ * tem que ser o mesmo do início.
+ */
+class TransferenciasConcorrentesTest {
+
+    private static final int CONTAS = 1_000;
+    private static final int THREADS = 8;
+    private static final int OPERACOES_POR_THREAD = 250_000; // 2 milhões no total
+    private static final long SALDO_INICIAL = Dinheiro.reais(1_000);
+    private static final long VALOR_MAXIMO = Dinheiro.reais(50);
+    private static final long LIMITE_CHEQUE_ESPECIAL = Dinheiro.reais(100); // O de ContaCorrente
+
+    @Test
+    void dinheiroDoBancoNaoMudaDepoisDeMilhoesDeTransferenciasConcorrentes() throws Exception {
+        ConcorrenteContaRepository repositorio = ConcorrenteContaRepository.novo().construir();
+        ContaService contaService = new ContaService(repositorio, repositorio.getIndices());
+        PixService pixService = new PixService(repositorio, repositorio.getIndices());
+
+        String[] numeros = new String[CONTAS];
+        String[] cpfs = new String[CONTAS];
+        for (int i = 0; i < CONTAS; i++) {
+            numeros[i] = String.valueOf(10_000 + i);
+            cpfs[i] = String.format("%011d", i + 1);
+            Cliente cliente = repositorio.getIndices().getClientes().registrar(new Cliente("Cliente " + i, cpfs[i]));
+            contaService.criarContaCorrente(cliente, "0001", numeros[i]);
+            contaService.depositar(numeros[i], SALDO_INICIAL);
+        }
+        long totalInicial = CONTAS * SALDO_INICIAL;
+
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<long[]>> resultados = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            resultados.add(threads.submit(() -> {
+                ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+                long feitas = 0;
+                long recusadas = 0;
+                largada.await();
+                for (int i = 0; i < OPERACOES_POR_THREAD; i++) {
+                    int origem = aleatorio.nextInt(CONTAS);
+                    int destino = aleatorio.nextInt(CONTAS - 1);
+                    if (destino >= origem) {
+                        destino++; // Nunca a própria conta
+                    }
+                    long valor = 1 + aleatorio.nextLong(VALOR_MAXIMO);
+                    boolean feita = (i & 1) == 0
+                            ? contaService.transferir(numeros[origem], numeros[destino], valor)
+                            : pixService.realizarPix(numeros[origem], cpfs[destino], valor);
+                    if (feita) {
+                        feitas++;
+                    } else {
+                        recusadas++;
+                    }
+                }
+                return new long[] {feitas, recusadas};
+            }));
+        }
+        largada.countDown();
+        threads.shutdown();
+        assertTrue(threads.awaitTermination(5, TimeUnit.MINUTES), "As threads não terminaram (deadlock?)");
+
+        long feitas = 0;
+        long recusadas = 0;
+        for (Future<long[]> resultado : resultados) {
+            long[] contagem = resultado.get();
+            feitas += contagem[0];
+            recusadas += contagem[1];
+        }
+        assertEquals((long) THREADS * OPERACOES_POR_THREAD, feitas + recusadas);
+
+        long total = 0;
+        long transacoes = 0;
+        for (String numero : numeros) {
+            Conta conta = contaService.buscarContaPorNumero(numero);
+            assertTrue(conta.getSaldo() >= -LIMITE_CHEQUE_ESPECIAL,
+                    "Conta " + numero + " passou do limite: " + conta.getSaldo());
+            total += conta.getSaldo();
+            transacoes += conta.getHistoricoTransacoes().size();
+        }
+        assertEquals(totalInicial, total, "O dinheiro do banco mudou");
+        // Um depósito inicial por conta e duas transações (envio e recebimento) por operação feita
+        assertEquals(CONTAS + 2 * feitas, transacoes);
+    }
+}
@@ -0,0 +1,70 @@
+package br.com.bancodigital.servidor;
+
+import br.com.bancodigital.repository.ConcorrenteContaRepository;
+import br.com.bancodigital.service.ContaService;
+import br.com.bancodigital.service.MotorSequencial;
+import br.com.bancodigital.service.PixService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * As pernas das sagas (DEBITAR, CREDITAR, ESTORNAR) movem dinheiro de uma conta só:
+ * o interpretador dos clientes não as conhece; só o interno (porta do coordenador) as aceita.
+ */
+class InterpretadorDeComandosTest {
+
+    private ConcorrenteContaRepository repositorio;
+    private ContaService contaService;
+    private PixService pixService;
+    private InterpretadorDeComandos publico;
+    private InterpretadorDeComandos interno;
+
+    @BeforeEach
+    void criarContas() {
+        repositorio = ConcorrenteContaRepository.novo().construir();
+        contaService = new ContaService(repositorio, repositorio.getIndices());
+        pixService = new PixService(repositorio, repositorio.getIndices());
+        publico = new InterpretadorDeComandos(contaService, pixService);
+        interno = InterpretadorDeComandos.interno(contaService, pixService);
+        publico.executar("CRIAR_CORRENTE 0001 1 00000000001 Ana Maria");
+        publico.executar("DEPOSITAR 1 100.00");
+    }
+
+    @Test
+    void portaDosClientesNaoAceitaAsPernasDasSagas() {
+        assertEquals("ERRO Comando desconhecido: CREDITAR",
+                publico.executar("CREDITAR c1 1 1000000.00 TRANSFERENCIA_RECEBIDA Fulano"));
+        assertEquals("ERRO Comando desconhecido: ESTORNAR", publico.executar("ESTORNAR e1 1 500.00 motivo"));
+        assertEquals("ERRO Comando desconhecido: DEBITAR",
+                publico.executar("DEBITAR d1 1 10.00 TRANSFERENCIA_ENVIADA 00000000002 Fulano"));
+        assertEquals("OK 100.00", publico.executar("SALDO 1"));
+    }
+
+    @Test
+    void portaInternaAceitaAsPernasDasSagas() {
+        assertEquals("OK 90.00", interno.executar("DEBITAR d1 1 10.00 TRANSFERENCIA_ENVIADA 00000000002 Bruno"));
+        assertEquals("OK 100.00", interno.executar("ESTORNAR e1 1 10.00 Transferência não concluída"));
+        assertEquals("OK 110.00", interno.executar("CREDITAR c1 1 10.00 TRANSFERENCIA_RECEBIDA Bruno"));
+        assertEquals("OK 00000000001 Ana Maria", interno.executar("CONTA 1"));
+    }
+
+    @Test
+    void modoSequencialMoveODinheiroPeloMotor() {
+        try (MotorSequencial motor = new MotorSequencial(repositorio, repositorio.getIndices().getChavesPix(), 16)) {
+            InterpretadorDeComandos sequencial = new InterpretadorDeComandos(contaService, pixService, motor);
+            assertEquals("OK", sequencial.executar("CRIAR_CORRENTE 0001 2 00000000002 Bruno"));
+            assertEquals("OK", sequencial.executar("TRANSFERIR 1 2 30.00"));
+            assertEquals("OK", sequencial.executar("PIX 1 00000000002 20.00"));
+            assertEquals("ERRO Saque não autorizado (CC). Saldo ou limite insuficiente.",
+                    sequencial.executar("SACAR 1 500.00"));
+            assertEquals("ERRO Chave de idempotência não é aceita no modo sequencial.",
+                    sequencial.executar("DEPOSITAR 1 10.00 chave-1"));
+            assertEquals("ERRO Comando desconhecido: DEBITAR",
+                    sequencial.executar("DEBITAR d1 1 10.00 TRANSFERENCIA_ENVIADA 00000000002 Bruno"));
+            assertEquals("OK 50.00", sequencial.executar("SALDO 1"));
+            assertEquals("OK 50.00", sequencial.executar("SALDO 2"));
+        }
+    }
+}